@@ -0,0 +1,118 @@
+package com.datagami.edudron.common.http;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one identity user lookup made in-process versus over HTTP, without the deployed stack.
+ *
+ * inProcess is what core-api's InProcessIdentityLookup does once identity has loaded the user:
+ * map the UserDTO onto the caller's type with ObjectMapper.convertValue. loopbackHttp does the
+ * same lookup through a local HTTP server: serialize the user, send it over a pooled keep-alive
+ * connection, read and parse it. It leaves out the gateway hop, JWT filters and tenant
+ * resolution the real HTTP path also pays, so the difference is a lower bound on what each
+ * in-process lookup saves. scripts/benchmark-identity-lookup.sh measures the full path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdentityLookupTransportBenchmark {
+
+    /**
+     * The fields student reads from a user lookup
+     */
+    public static class CallerUser {
+        public String id;
+        public String email;
+        public String name;
+        public String role;
+        public List<String> instituteIds;
+    }
+
+    // Services ignore fields they do not map, as Spring Boot's ObjectMapper does
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private ExecutorService serverThreads;
+    private Map<String, Object> user;
+    private HttpServer server;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        user = new LinkedHashMap<>();
+        user.put("id", "01JABCDEF0123456789ABCDEFG");
+        user.put("clientId", "0b0f7c3e-6f1a-4d8e-9a51-3c2f1e9d7a10");
+        user.put("email", "coordinator@example.com");
+        user.put("name", "Class Coordinator");
+        user.put("phone", "+911234567890");
+        user.put("role", "INSTRUCTOR");
+        user.put("active", true);
+        user.put("passwordResetRequired", false);
+        user.put("instituteIds", List.of("01JINSTITUTE000000000000001"));
+        user.put("createdAt", "2025-06-01T09:30:00Z");
+        user.put("lastLoginAt", "2026-10-01T08:15:00Z");
+
+        // Otherwise Nagle plus delayed ACKs add ~40 ms to every response of the JDK server
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverThreads);
+        server.createContext("/idp/users/", exchange -> {
+            byte[] body = objectMapper.writeValueAsBytes(user);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create(
+                        "http://127.0.0.1:" + server.getAddress().getPort() + "/idp/users/01JABCDEF0123456789ABCDEFG"))
+                .header("Authorization", "Bearer benchmark")
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public CallerUser inProcess() {
+        return objectMapper.convertValue(user, CallerUser.class);
+    }
+
+    @Benchmark
+    public CallerUser loopbackHttp() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        return objectMapper.readValue(response.body(), CallerUser.class);
+    }
+}
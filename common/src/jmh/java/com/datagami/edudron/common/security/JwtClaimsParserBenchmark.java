@@ -0,0 +1,78 @@
+package com.datagami.edudron.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of reading the claims a service filter needs from a bearer token.
+ *
+ * legacyFilter reproduces the old filters: validateToken plus four extract* calls, each
+ * rebuilding the signing key and re-verifying the signature. parserUncached is one verification
+ * with a prebuilt key (a cache miss); parserCached is the steady state for a returning token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtClaimsParserBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    private String token;
+    private JwtClaimsParser cachedParser;
+    private JwtClaimsParser uncachedParser;
+
+    @Setup
+    public void setUp() {
+        token = Jwts.builder()
+                .setClaims(Map.of("tenant", "0b0f7c3e-6f1a-4d8e-9a51-3c2f1e9d7a10", "role", "STUDENT",
+                        "email", "student@example.com"))
+                .setSubject("student@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+        cachedParser = new JwtClaimsParser(SECRET);
+        uncachedParser = new JwtClaimsParser(SECRET, 0);
+    }
+
+    @Benchmark
+    public void legacyFilter(Blackhole bh) {
+        bh.consume(legacyParse(token));
+        bh.consume(legacyParse(token).get("tenant", String.class));
+        bh.consume(legacyParse(token).get("role", String.class));
+        bh.consume(legacyParse(token).getSubject());
+        bh.consume(legacyParse(token).get("email"));
+    }
+
+    @Benchmark
+    public JwtPrincipal parserUncached() {
+        return uncachedParser.verify(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal parserCached() {
+        return cachedParser.verify(token);
+    }
+
+    private Claims legacyParse(String jwt) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+}
@@ -0,0 +1,70 @@
+package com.datagami.edudron.common.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning audit meta into the text written to the jsonb column.
+ *
+ * legacy reproduces the old AuditService path: copy the map, writeValueAsString, truncate,
+ * readTree, and then Hibernate serializing the JsonNode again for the column. singlePass is
+ * AuditMetaEncoder. Run with -prof gc and compare gc.alloc.rate.norm (bytes per call).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuditMetaEncoderBenchmark {
+
+    private static final int MAX_LENGTH = 32_768;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AuditMetaEncoder encoder;
+    private Map<String, Object> meta;
+
+    @Setup
+    public void setUp() {
+        encoder = new AuditMetaEncoder(objectMapper, MAX_LENGTH);
+        // Shaped like a course update: a few scalars plus before/after snapshots
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("title", "Introduction to Data Structures");
+        snapshot.put("description", "Arrays, lists, trees and graphs with worked examples. ".repeat(8));
+        snapshot.put("status", "PUBLISHED");
+        snapshot.put("tags", List.of("cs", "algorithms", "beginner"));
+        snapshot.put("price", 4999);
+        meta = new LinkedHashMap<>();
+        meta.put("courseId", "01HZX3K9T2M4N6P8Q0R2S4T6V8");
+        meta.put("changedFields", List.of("title", "description", "status"));
+        meta.put("oldValue", snapshot);
+        meta.put("newValue", new LinkedHashMap<>(snapshot));
+    }
+
+    @Benchmark
+    public String legacy() throws Exception {
+        Map<String, Object> metaCopy = new HashMap<>(meta);
+        metaCopy.put("serviceName", "content");
+        String json = objectMapper.writeValueAsString(metaCopy);
+        if (json.length() > MAX_LENGTH) {
+            json = json.substring(0, MAX_LENGTH) + "\"...[truncated]";
+        }
+        JsonNode tree = objectMapper.readTree(json);
+        return objectMapper.writeValueAsString(tree);
+    }
+
+    @Benchmark
+    public String singlePass() throws Exception {
+        return encoder.encode("content", meta);
+    }
+}
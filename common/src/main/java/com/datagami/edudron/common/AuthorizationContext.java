@@ -0,0 +1,24 @@
+package com.datagami.edudron.common;
+
+/**
+ * Holds the caller's Authorization header for work that runs outside the HTTP request thread
+ * (background jobs), where the header cannot be read from the current request.
+ * {@link TenantContextRestTemplateInterceptor} forwards it on downstream calls.
+ */
+public final class AuthorizationContext {
+    private static final ThreadLocal<String> AUTHORIZATION = new ThreadLocal<>();
+
+    private AuthorizationContext() {}
+
+    public static void setAuthorization(String authorization) {
+        AUTHORIZATION.set(authorization);
+    }
+
+    public static String getAuthorization() {
+        return AUTHORIZATION.get();
+    }
+
+    public static void clear() {
+        AUTHORIZATION.remove();
+    }
+}
@@ -19,6 +19,7 @@ import java.util.List;
  * This ensures that when a service makes internal calls to other services:
  * 1. The tenant context is automatically propagated without manual header management
  * 2. The Accept header is set to application/json to prevent XML responses
+ * 3. Background jobs forward the caller's Authorization header held in {@link AuthorizationContext}
  */
 public class TenantContextRestTemplateInterceptor implements ClientHttpRequestInterceptor {
     private static final Logger log = LoggerFactory.getLogger(TenantContextRestTemplateInterceptor.class);
@@ -51,6 +52,13 @@ public class TenantContextRestTemplateInterceptor implements ClientHttpRequestIn
             log.debug("No tenant context available for request to {}", request.getURI());
         }
         
+        // Propagate the caller's credentials for calls made off the request thread
+        String authorization = AuthorizationContext.getAuthorization();
+        if (authorization != null && !authorization.isBlank()
+                && !request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+            request.getHeaders().add(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        
         return execution.execute(request, body);
     }
 }
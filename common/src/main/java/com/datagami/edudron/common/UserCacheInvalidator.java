@@ -7,11 +7,14 @@ import java.util.function.Consumer;
  * Shared cache invalidation hook for user data.
  * Identity service registers invalidation events here;
  * Student module's UserUtil registers a listener to clear its cache.
+ * When the cache invalidation bus is configured, events also reach listeners on other nodes.
  */
 public class UserCacheInvalidator {
 
     private static final CopyOnWriteArrayList<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
 
+    private static volatile Consumer<String> broadcaster;
+
     /**
      * Register a listener to be notified when a user's cached data should be invalidated.
      * Called by UserUtil on class load.
@@ -21,10 +24,31 @@ public class UserCacheInvalidator {
     }
 
     /**
-     * Invalidate cached data for a user by email.
+     * Forward invalidations to other nodes. Installed by CacheInvalidationBus.
+     */
+    public static void setBroadcaster(Consumer<String> broadcaster) {
+        UserCacheInvalidator.broadcaster = broadcaster;
+    }
+
+    /**
+     * Invalidate cached data for a user by email, on this node and every other node.
      * Called by UserService on user updates.
      */
     public static void invalidate(String email) {
+        if (email != null) {
+            invalidateLocally(email);
+            Consumer<String> current = broadcaster;
+            if (current != null) {
+                current.accept(email);
+            }
+        }
+    }
+
+    /**
+     * Invalidate cached data for a user on this node only.
+     * Called by CacheInvalidationBus for events published elsewhere.
+     */
+    public static void invalidateLocally(String email) {
         if (email != null) {
             for (Consumer<String> listener : listeners) {
                 listener.accept(email);
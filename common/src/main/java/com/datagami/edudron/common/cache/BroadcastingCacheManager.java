@@ -0,0 +1,126 @@
+package com.datagami.edudron.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decorates a local cache manager so evict/clear on any of its caches is also published on the
+ * {@link CacheInvalidationBus}. Reads and writes stay local.
+ */
+class BroadcastingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheInvalidationBus bus;
+    private final Map<String, Cache> decorated = new ConcurrentHashMap<>();
+
+    BroadcastingCacheManager(CacheManager delegate, CacheInvalidationBus bus) {
+        this.delegate = delegate;
+        this.bus = bus;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = decorated.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return decorated.computeIfAbsent(name, n -> new BroadcastingCache(target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private class BroadcastingCache implements Cache {
+
+        private final Cache target;
+
+        BroadcastingCache(Cache target) {
+            this.target = target;
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return target.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return target.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return target.get(key, valueLoader);
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return target.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return target.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            target.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return target.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(key);
+            bus.publish(CacheInvalidationEvent.evict(bus.nodeId(), getName(), key));
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = target.evictIfPresent(key);
+            // Other nodes may hold the entry even when this one does not
+            bus.publish(CacheInvalidationEvent.evict(bus.nodeId(), getName(), key));
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+            bus.publish(CacheInvalidationEvent.clear(bus.nodeId(), getName()));
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean hadEntries = target.invalidate();
+            bus.publish(CacheInvalidationEvent.clear(bus.nodeId(), getName()));
+            return hadEntries;
+        }
+    }
+}
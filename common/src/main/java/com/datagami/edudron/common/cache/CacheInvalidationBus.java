@@ -0,0 +1,120 @@
+package com.datagami.edudron.common.cache;
+
+import com.datagami.edudron.common.UserCacheInvalidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cluster-wide cache invalidation over Redis pub/sub.
+ *
+ * Every node subscribes to {@link #CHANNEL}. Evictions made through a
+ * {@link #broadcasting(CacheManager) broadcasting} cache manager (including {@code @CacheEvict})
+ * are applied locally first and then published; other nodes evict the same cache and key from
+ * their own local caches. {@link UserCacheInvalidator} events travel on the same channel under
+ * {@link #USER_CACHE}, so a profile change in identity clears UserUtil on every student node.
+ *
+ * Delivery is fire-and-forget: a node that misses a message still drops the entry when its TTL
+ * expires, so TTLs remain the upper bound on staleness.
+ */
+public class CacheInvalidationBus implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String CHANNEL = "edudron:cache-invalidation";
+
+    // Pseudo cache name for UserCacheInvalidator listeners, keyed by email
+    public static final String USER_CACHE = "user";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CopyOnWriteArrayList<CacheManager> localManagers = new CopyOnWriteArrayList<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        UserCacheInvalidator.setBroadcaster(email -> publish(CacheInvalidationEvent.evict(nodeId, USER_CACHE, email)));
+    }
+
+    /**
+     * Wrap a node-local cache manager so that evictions on it reach every node.
+     */
+    public CacheManager broadcasting(CacheManager local) {
+        localManagers.add(local);
+        return new BroadcastingCacheManager(local, this);
+    }
+
+    public void evict(String cache, Object key) {
+        applyLocally(CacheInvalidationEvent.evict(nodeId, cache, key));
+        publish(CacheInvalidationEvent.evict(nodeId, cache, key));
+    }
+
+    public void clear(String cache) {
+        applyLocally(CacheInvalidationEvent.clear(nodeId, cache));
+        publish(CacheInvalidationEvent.clear(nodeId, cache));
+    }
+
+    /**
+     * Publish an event for the other nodes. The local eviction has already been done by the caller.
+     */
+    void publish(CacheInvalidationEvent event) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // Other nodes fall back to TTL expiry; never fail the write that triggered this
+            log.warn("Failed to publish cache invalidation for {} (key={}): {}", event.cache(), event.key(), e.getMessage());
+        }
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationEvent event;
+        try {
+            event = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), CacheInvalidationEvent.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(event.origin())) {
+            return;
+        }
+        applyLocally(event);
+    }
+
+    private void applyLocally(CacheInvalidationEvent event) {
+        if (USER_CACHE.equals(event.cache())) {
+            if (event.key() != null) {
+                UserCacheInvalidator.invalidateLocally(event.key());
+            }
+            return;
+        }
+        for (CacheManager manager : localManagers) {
+            Cache cache = manager.getCache(event.cache());
+            if (cache == null) {
+                continue;
+            }
+            if (event.isClear()) {
+                cache.clear();
+            } else {
+                try {
+                    cache.evict(event.typedKey());
+                } catch (IllegalArgumentException e) {
+                    cache.clear();
+                }
+            }
+        }
+    }
+}
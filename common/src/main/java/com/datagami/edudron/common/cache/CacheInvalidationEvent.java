@@ -0,0 +1,55 @@
+package com.datagami.edudron.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * One invalidation broadcast on {@link CacheInvalidationBus#CHANNEL}.
+ *
+ * A null key clears the whole cache. keyType records how to rebuild the key on the receiving
+ * node, since Spring cache keys are objects (tenant caches are keyed by UUID) and only their
+ * string form travels over Redis.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CacheInvalidationEvent(String origin, String cache, String key, KeyType keyType) {
+
+    public enum KeyType {
+        STRING, UUID, LONG, INTEGER
+    }
+
+    public static CacheInvalidationEvent evict(String origin, String cache, Object key) {
+        if (key instanceof java.util.UUID uuid) {
+            return new CacheInvalidationEvent(origin, cache, uuid.toString(), KeyType.UUID);
+        }
+        if (key instanceof Long value) {
+            return new CacheInvalidationEvent(origin, cache, value.toString(), KeyType.LONG);
+        }
+        if (key instanceof Integer value) {
+            return new CacheInvalidationEvent(origin, cache, value.toString(), KeyType.INTEGER);
+        }
+        if (key instanceof String value) {
+            return new CacheInvalidationEvent(origin, cache, value, KeyType.STRING);
+        }
+        // Key cannot be rebuilt remotely: clearing is the only safe option
+        return clear(origin, cache);
+    }
+
+    public static CacheInvalidationEvent clear(String origin, String cache) {
+        return new CacheInvalidationEvent(origin, cache, null, null);
+    }
+
+    public boolean isClear() {
+        return key == null;
+    }
+
+    public Object typedKey() {
+        if (key == null || keyType == null) {
+            return key;
+        }
+        return switch (keyType) {
+            case UUID -> java.util.UUID.fromString(key);
+            case LONG -> Long.valueOf(key);
+            case INTEGER -> Integer.valueOf(key);
+            case STRING -> key;
+        };
+    }
+}
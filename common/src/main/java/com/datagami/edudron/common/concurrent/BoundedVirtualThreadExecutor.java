@@ -0,0 +1,159 @@
+package com.datagami.edudron.common.concurrent;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task executor for virtual-thread mode: every task gets its own virtual thread, and the limits a
+ * thread pool used to give are kept with semaphores instead.
+ *
+ * At most maxConcurrent tasks run at once (the old max pool size); up to queueCapacity more wait
+ * for a permit on their own parked virtual thread (the old queue). A task submitted beyond that is
+ * rejected with {@link TaskRejectedException}, or run on the caller's thread when callerRunsWhenFull
+ * is set, matching CallerRunsPolicy.
+ *
+ * It is a full {@link java.util.concurrent.ExecutorService}, so the same shutdown hooks that stop a
+ * thread pool stop it too: after {@link #shutdown()} new tasks are rejected and admitted ones run to
+ * completion; {@link #shutdownNow()} also interrupts them, and tasks still waiting for a permit
+ * give up without running.
+ */
+public class BoundedVirtualThreadExecutor extends AbstractExecutorService implements TaskExecutor {
+
+    private final String threadNamePrefix;
+    private final ThreadFactory threadFactory;
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final int capacity;
+    private final boolean callerRunsWhenFull;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+    private volatile boolean stopped;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrent, int queueCapacity,
+                                        boolean callerRunsWhenFull) {
+        if (maxConcurrent <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive and queueCapacity not negative");
+        }
+        this.threadNamePrefix = threadNamePrefix;
+        this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 0).factory();
+        this.running = new Semaphore(maxConcurrent, true);
+        this.capacity = maxConcurrent + queueCapacity;
+        this.admitted = new Semaphore(capacity);
+        this.callerRunsWhenFull = callerRunsWhenFull;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw rejected(task, "is shut down");
+        }
+        if (!admitted.tryAcquire()) {
+            if (callerRunsWhenFull) {
+                task.run();
+                return;
+            }
+            throw rejected(task, "is full");
+        }
+        try {
+            Thread thread = threadFactory.newThread(() -> runWhenPermitted(task));
+            threads.add(thread);
+            // Checked again after registering so shutdown() and awaitTermination() cannot miss it
+            if (shutdown) {
+                threads.remove(thread);
+                throw rejected(task, "is shut down");
+            }
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    private void runWhenPermitted(Runnable task) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            admitted.release();
+            threads.remove(Thread.currentThread());
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            // A permit freed by an interrupted task must not start a task shutdownNow() dropped
+            if (!stopped) {
+                task.run();
+            }
+        } finally {
+            running.release();
+            admitted.release();
+            threads.remove(Thread.currentThread());
+        }
+    }
+
+    private TaskRejectedException rejected(Runnable task, String reason) {
+        return new TaskRejectedException("Executor [" + threadNamePrefix + "] " + reason + "; task " + task + " rejected");
+    }
+
+    /**
+     * Tasks running or waiting for a permit.
+     */
+    public int getActiveCount() {
+        return capacity - admitted.availablePermits();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Interrupts every admitted task. Tasks waiting for a permit are dropped rather than returned,
+     * since they are already bound to their own thread.
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        stopped = true;
+        threads.forEach(Thread::interrupt);
+        return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            Iterator<Thread> it = threads.iterator();
+            if (it.hasNext()) {
+                it.next().join(Duration.ofNanos(remaining));
+            } else if (!shutdown) {
+                // Idle but not shut down: there is nothing to wait on, so honour the timeout
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.datagami.edudron.common.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Single-flight for GETs: while a GET is in flight, identical GETs (same URI and headers, so the
+ * same caller and tenant) wait for its response instead of sending their own. The leader's
+ * response is buffered and every waiter gets its own copy of status, headers and body.
+ * Only concurrent calls are merged; nothing is cached once the leader completes.
+ */
+class CoalescingInterceptor implements ClientHttpRequestInterceptor {
+
+    private record Key(URI uri, Map<String, List<String>> headers) {
+    }
+
+    private final ConcurrentHashMap<Key, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Function<URI, InterServiceClients.Target> targets;
+    private final MeterRegistry meterRegistry;
+
+    CoalescingInterceptor(Function<URI, InterServiceClients.Target> targets, MeterRegistry meterRegistry) {
+        this.targets = targets;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET) {
+            return execution.execute(request, body);
+        }
+        Key key = new Key(request.getURI(), Map.copyOf(request.getHeaders()));
+        CompletableFuture<BufferedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            InterServiceClients.Target target = targets.apply(request.getURI());
+            Counter.builder("interservice.client.coalesced")
+                    .tag("target", target.name)
+                    .register(meterRegistry)
+                    .increment();
+            return await(leader, target);
+        }
+
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            BufferedResponse buffered = new BufferedResponse(response.getStatusCode(), response.getStatusText(),
+                    copyOf(response.getHeaders()), response.getBody().readAllBytes());
+            inFlight.remove(key, flight);
+            flight.complete(buffered);
+            return buffered;
+        } catch (IOException | RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static ClientHttpResponse await(CompletableFuture<BufferedResponse> leader,
+                                            InterServiceClients.Target target) throws IOException {
+        // The leader is bounded by the same read timeout; the extra second covers the bulkhead wait
+        long timeoutMs = target.settings.readTimeoutMs() + target.settings.bulkheadWaitMs() + 1_000L;
+        try {
+            return leader.get(timeoutMs, TimeUnit.MILLISECONDS).copy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for coalesced call to " + target.name);
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("Timed out waiting for coalesced call to " + target.name);
+        } catch (ExecutionException e) {
+            // Wrap so the waiter gets its own stack trace
+            throw new IOException("Coalesced call to " + target.name + " failed: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    private static HttpHeaders copyOf(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        copy.putAll(headers);
+        // Shared by every waiter
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+
+    /**
+     * Fully read response; each {@link #copy()} has its own body stream over the shared bytes.
+     */
+    private static final class BufferedResponse implements ClientHttpResponse {
+
+        private final HttpStatusCode status;
+        private final String statusText;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final InputStream stream;
+
+        BufferedResponse(HttpStatusCode status, String statusText, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.statusText = statusText;
+            this.headers = headers;
+            this.body = body;
+            this.stream = new ByteArrayInputStream(body);
+        }
+
+        BufferedResponse copy() {
+            return new BufferedResponse(status, statusText, headers, body);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return statusText;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return stream;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.datagami.edudron.common.http;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+
+/**
+ * Forwards the Authorization header of the incoming request, unless the call already sets one.
+ * Calls off the request thread rely on AuthorizationContext instead.
+ */
+class ForwardAuthorizationInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest currentRequest = attributes.getRequest();
+            String authHeader = currentRequest.getHeader(HttpHeaders.AUTHORIZATION);
+            if (authHeader != null && !authHeader.isBlank()) {
+                request.getHeaders().add(HttpHeaders.AUTHORIZATION, authHeader);
+            }
+        }
+        return execution.execute(request, body);
+    }
+}
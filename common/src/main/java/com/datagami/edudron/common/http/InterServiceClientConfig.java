@@ -0,0 +1,51 @@
+package com.datagami.edudron.common.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registers {@link InterServiceClients} and its RestTemplate. Services import this from their
+ * AppConfig (they do not component-scan common) and inject the RestTemplate where they call
+ * other services.
+ *
+ * Settings are read per target from interservice.client.&lt;target&gt;.*, falling back to
+ * interservice.client.default.* and then to {@link InterServiceClients.TargetSettings#defaults()}.
+ */
+@Configuration
+public class InterServiceClientConfig {
+
+    private static final String PREFIX = "interservice.client.";
+
+    @Bean
+    public InterServiceClients interServiceClients(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        InterServiceClients.TargetSettings defaults = settings(environment, "default",
+                InterServiceClients.TargetSettings.defaults());
+        Map<String, InterServiceClients.TargetSettings> settings = new HashMap<>();
+        for (String target : InterServiceClients.TARGETS) {
+            settings.put(target, settings(environment, target, defaults));
+        }
+        return new InterServiceClients(settings, meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    public RestTemplate restTemplate(InterServiceClients interServiceClients) {
+        return interServiceClients.restTemplate();
+    }
+
+    private static InterServiceClients.TargetSettings settings(Environment environment, String target,
+                                                               InterServiceClients.TargetSettings fallback) {
+        String prefix = PREFIX + target + ".";
+        return new InterServiceClients.TargetSettings(
+                environment.getProperty(prefix + "connect-timeout-ms", Integer.class, fallback.connectTimeoutMs()),
+                environment.getProperty(prefix + "read-timeout-ms", Integer.class, fallback.readTimeoutMs()),
+                environment.getProperty(prefix + "max-concurrent", Integer.class, fallback.maxConcurrent()),
+                environment.getProperty(prefix + "bulkhead-wait-ms", Integer.class, fallback.bulkheadWaitMs()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.datagami.edudron.common.http;
+
+import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared client for service-to-service calls through the gateway.
+ *
+ * Every request is routed to a target (identity, content or core) by its gateway path, using the
+ * same prefixes as the gateway routes. Each target has its own pooled keep-alive HTTP client
+ * (JDK HttpClient, HTTP/1.1) with its own connect and read timeouts, and a bulkhead that caps
+ * concurrent calls so a slow service cannot hold every request thread. Identical concurrent GETs
+ * are coalesced into one call, and each call is timed in interservice.client.requests
+ * (target, method, endpoint with ids collapsed, outcome) with a percentile histogram.
+ *
+ * The RestTemplate also propagates the tenant and forwards the caller's Authorization header,
+ * which every call site used to do with its own interceptors.
+ */
+public class InterServiceClients {
+
+    public static final String IDENTITY = "identity";
+    public static final String CONTENT = "content";
+    public static final String CORE = "core";
+    public static final List<String> TARGETS = List.of(IDENTITY, CONTENT, CORE);
+
+    // Gateway path prefix -> target, first match wins; everything else is served by core-api
+    private static final Map<String, String> ROUTES = new LinkedHashMap<>();
+
+    static {
+        ROUTES.put("/auth", IDENTITY);
+        ROUTES.put("/idp", IDENTITY);
+        ROUTES.put("/api/tenant", IDENTITY);
+        ROUTES.put("/api/exams", CONTENT);
+        ROUTES.put("/api/psych-test", CONTENT);
+        ROUTES.put("/api/question-bank", CONTENT);
+        ROUTES.put("/api/project-questions", CONTENT);
+        ROUTES.put("/api/content", CONTENT);
+        ROUTES.put("/content", CONTENT);
+    }
+
+    /**
+     * @param connectTimeoutMs TCP connect timeout
+     * @param readTimeoutMs    time to wait for the response
+     * @param maxConcurrent    bulkhead size: concurrent calls allowed to the target
+     * @param bulkheadWaitMs   how long a call waits for a bulkhead permit before failing fast
+     */
+    public record TargetSettings(int connectTimeoutMs, int readTimeoutMs, int maxConcurrent, int bulkheadWaitMs) {
+        public TargetSettings {
+            if (connectTimeoutMs <= 0 || readTimeoutMs <= 0 || maxConcurrent <= 0 || bulkheadWaitMs < 0) {
+                throw new IllegalArgumentException("Inter-service client settings must be positive");
+            }
+        }
+
+        public static TargetSettings defaults() {
+            return new TargetSettings(2_000, 30_000, 64, 250);
+        }
+    }
+
+    /**
+     * Per-target client state: pooled request factory, bulkhead and settings.
+     */
+    static final class Target {
+        final String name;
+        final TargetSettings settings;
+        final ClientHttpRequestFactory requestFactory;
+        final Semaphore bulkhead;
+
+        Target(String name, TargetSettings settings) {
+            this.name = name;
+            this.settings = settings;
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofMillis(settings.connectTimeoutMs()))
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+            factory.setReadTimeout(Duration.ofMillis(settings.readTimeoutMs()));
+            this.requestFactory = factory;
+            this.bulkhead = new Semaphore(settings.maxConcurrent(), true);
+        }
+    }
+
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+    private final RestTemplate restTemplate;
+
+    /**
+     * @param settings      settings per target; targets without an entry use {@link TargetSettings#defaults()}
+     * @param meterRegistry registry for the latency histograms; null uses the global registry
+     */
+    public InterServiceClients(Map<String, TargetSettings> settings, MeterRegistry meterRegistry) {
+        for (String name : TARGETS) {
+            targets.put(name, new Target(name, settings.getOrDefault(name, TargetSettings.defaults())));
+        }
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+
+        ClientHttpRequestFactory routing = (uri, method) -> targetFor(uri).requestFactory.createRequest(uri, method);
+        RestTemplate template = new RestTemplate(routing);
+        template.setInterceptors(List.of(
+                new TenantContextRestTemplateInterceptor(),
+                new ForwardAuthorizationInterceptor(),
+                // Before the bulkhead so waiting followers do not hold permits
+                new CoalescingInterceptor(this::targetFor, registry),
+                new TargetPolicyInterceptor(this::targetFor, registry)));
+        this.restTemplate = template;
+    }
+
+    /**
+     * Process-wide instance with default settings, only for the static student UserUtil helper,
+     * which cannot be injected. Beans inject the RestTemplate from {@link InterServiceClientConfig}.
+     */
+    public static InterServiceClients shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    // Built on first use by the class loader, independently of the Spring context
+    private static final class SharedHolder {
+        static final InterServiceClients INSTANCE = new InterServiceClients(Map.of(), null);
+    }
+
+    /**
+     * Thread-safe RestTemplate shared by all call sites in the service.
+     */
+    public RestTemplate restTemplate() {
+        return restTemplate;
+    }
+
+    Target targetFor(URI uri) {
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+        for (Map.Entry<String, String> route : ROUTES.entrySet()) {
+            String prefix = route.getKey();
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return targets.get(route.getValue());
+            }
+        }
+        return targets.get(CORE);
+    }
+}
@@ -0,0 +1,111 @@
+package com.datagami.edudron.common.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the target's bulkhead and records the call in interservice.client.requests.
+ * A call that cannot get a permit within bulkheadWaitMs fails with {@link BulkheadFullException}
+ * instead of queueing behind a slow service.
+ */
+class TargetPolicyInterceptor implements ClientHttpRequestInterceptor {
+
+    static final String METRIC = "interservice.client.requests";
+
+    // Path segments that carry ids (UUIDs, ULIDs, numbers) are collapsed to keep tag cardinality bounded
+    private static final Pattern ID_SEGMENT = Pattern.compile("\\d+|[0-9A-Za-z-]{16,}");
+    private static final Pattern HAS_DIGIT = Pattern.compile(".*\\d.*");
+
+    private final Function<URI, InterServiceClients.Target> targets;
+    private final MeterRegistry meterRegistry;
+
+    TargetPolicyInterceptor(Function<URI, InterServiceClients.Target> targets, MeterRegistry meterRegistry) {
+        this.targets = targets;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Thrown when a target's bulkhead is full; RestTemplate surfaces it as ResourceAccessException.
+     */
+    static class BulkheadFullException extends IOException {
+        BulkheadFullException(String target) {
+            super("Too many concurrent calls to " + target + " service");
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        InterServiceClients.Target target = targets.apply(request.getURI());
+        String endpoint = endpoint(request.getURI().getRawPath());
+        String method = request.getMethod().name();
+
+        long start = System.nanoTime();
+        try {
+            if (!target.bulkhead.tryAcquire(target.settings.bulkheadWaitMs(), TimeUnit.MILLISECONDS)) {
+                record(target, method, endpoint, "REJECTED", start);
+                throw new BulkheadFullException(target.name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + target.name + " bulkhead");
+        }
+
+        String outcome = "IO_ERROR";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            outcome = outcome(response.getStatusCode());
+            return response;
+        } finally {
+            target.bulkhead.release();
+            record(target, method, endpoint, outcome, start);
+        }
+    }
+
+    private void record(InterServiceClients.Target target, String method, String endpoint, String outcome, long start) {
+        Timer.builder(METRIC)
+                .tag("target", target.name)
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(HttpStatusCode status) {
+        if (status.is2xxSuccessful()) return "SUCCESS";
+        if (status.is3xxRedirection()) return "REDIRECTION";
+        if (status.is4xxClientError()) return "CLIENT_ERROR";
+        if (status.is5xxServerError()) return "SERVER_ERROR";
+        return "UNKNOWN";
+    }
+
+    static String endpoint(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            sb.append('/');
+            boolean id = ID_SEGMENT.matcher(segment).matches() && HAS_DIGIT.matcher(segment).matches();
+            sb.append(id ? "{id}" : segment);
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+}
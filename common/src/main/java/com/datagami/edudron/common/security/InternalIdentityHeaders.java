@@ -0,0 +1,127 @@
+package com.datagami.edudron.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Identity headers the gateway adds after verifying a bearer token at the edge.
+ *
+ * The gateway verifies the JWT once, resolves the user id and role from identity, and forwards
+ * them together with an HMAC over the values, a timestamp and a digest of the bearer token.
+ * Services holding the same internal-identity secret accept the headers instead of re-verifying
+ * the JWT; the token digest binds them to the request's Authorization header and the timestamp
+ * limits replay. The gateway strips any of these headers sent by clients.
+ */
+public final class InternalIdentityHeaders {
+
+    public static final String USER_ID = "X-Edudron-User-Id";
+    public static final String USERNAME = "X-Edudron-Username";
+    public static final String USER_EMAIL = "X-Edudron-User-Email";
+    public static final String USER_ROLE = "X-Edudron-User-Role";
+    public static final String TENANT_ID = "X-Edudron-Tenant-Id";
+    public static final String ISSUED_AT = "X-Edudron-Identity-Issued-At";
+    public static final String SIGNATURE = "X-Edudron-Identity-Signature";
+
+    public static final List<String> ALL = List.of(USER_ID, USERNAME, USER_EMAIL, USER_ROLE, TENANT_ID, ISSUED_AT, SIGNATURE);
+
+    // Headers are minted per request, so they only need to outlive the hop from the gateway
+    private static final long MAX_AGE_MS = 60_000;
+
+    private InternalIdentityHeaders() {
+    }
+
+    /**
+     * Signed headers describing the principal, for a request carrying the given bearer token.
+     */
+    public static Map<String, String> sign(String secret, String token, JwtPrincipal principal, long issuedAtMillis) {
+        String issuedAt = String.valueOf(issuedAtMillis);
+        String signature = hmac(secret, payload(token, principal.userId(), principal.username(),
+                principal.email(), principal.role(), principal.tenantId(), issuedAt));
+        Map<String, String> headers = new HashMap<>();
+        putIfPresent(headers, USER_ID, principal.userId());
+        putIfPresent(headers, USERNAME, principal.username());
+        putIfPresent(headers, USER_EMAIL, principal.email());
+        putIfPresent(headers, USER_ROLE, principal.role());
+        putIfPresent(headers, TENANT_ID, principal.tenantId());
+        headers.put(ISSUED_AT, issuedAt);
+        headers.put(SIGNATURE, signature);
+        return headers;
+    }
+
+    /**
+     * Principal from the request's identity headers, or null if they are absent, stale, not signed
+     * with this secret or not minted for this token. A null or blank secret disables the headers.
+     */
+    public static JwtPrincipal verify(String secret, String token, Function<String, String> headers) {
+        if (secret == null || secret.isBlank() || token == null) {
+            return null;
+        }
+        String signature = headers.apply(SIGNATURE);
+        String issuedAt = headers.apply(ISSUED_AT);
+        String username = headers.apply(USERNAME);
+        if (signature == null || issuedAt == null || username == null) {
+            return null;
+        }
+        long age;
+        try {
+            age = System.currentTimeMillis() - Long.parseLong(issuedAt);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (age < -MAX_AGE_MS || age > MAX_AGE_MS) {
+            return null;
+        }
+
+        String userId = headers.apply(USER_ID);
+        String email = headers.apply(USER_EMAIL);
+        String role = headers.apply(USER_ROLE);
+        String tenantId = headers.apply(TENANT_ID);
+        String expected = hmac(secret, payload(token, userId, username, email, role, tenantId, issuedAt));
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        return new JwtPrincipal(username, userId, tenantId, role, email, null, Map.of());
+    }
+
+    private static String payload(String token, String... values) {
+        StringBuilder sb = new StringBuilder(sha256(token));
+        for (String value : values) {
+            // Newline cannot appear in a header value, so it keeps fields unambiguous
+            sb.append('\n').append(value != null ? value : "");
+        }
+        return sb.toString();
+    }
+
+    private static void putIfPresent(Map<String, String> headers, String name, String value) {
+        if (value != null) {
+            headers.put(name, value);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hmac(String secret, String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to sign internal identity headers", e);
+        }
+    }
+}
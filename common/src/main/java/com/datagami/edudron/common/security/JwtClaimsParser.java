@@ -0,0 +1,135 @@
+package com.datagami.edudron.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies a JWT once and hands out an immutable {@link JwtPrincipal}.
+ *
+ * The signing key and parser are built once per secret. Verified principals are cached by
+ * SHA-256 digest of the token until the token's exp (tokens without exp for at most
+ * {@link #NO_EXPIRY_TTL_MS}), so repeated requests with the same bearer token skip signature
+ * verification and JSON parsing. Failures are never cached; an expired cache entry falls through
+ * to a full parse, which raises the usual {@code ExpiredJwtException}.
+ *
+ * Each service's JwtUtil owns one instance; this class is not a Spring bean because the modules
+ * do not component-scan common.
+ */
+public class JwtClaimsParser {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long NO_EXPIRY_TTL_MS = 5 * 60 * 1000L;
+
+    private record CachedPrincipal(JwtPrincipal principal, long validUntilMillis) {
+    }
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final int maxEntries;
+    private final Clock clock;
+    private final Map<String, CachedPrincipal> verified = new ConcurrentHashMap<>();
+
+    public JwtClaimsParser(String secret) {
+        this(secret, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries upper bound on cached principals; 0 disables the cache
+     */
+    public JwtClaimsParser(String secret, int maxEntries) {
+        this(secret, maxEntries, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock time source for both the cache and jjwt's exp/nbf checks
+     */
+    JwtClaimsParser(String secret, int maxEntries, Clock clock) {
+        // Ensure secret is at least 32 bytes (256 bits) for HS256
+        if (secret == null || secret.length() < 32) {
+            throw new IllegalStateException("JWT secret must be at least 32 characters long. Current length: " +
+                (secret != null ? secret.length() : 0));
+        }
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .setClock(() -> new Date(clock.millis()))
+                .build();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Verify the token (or reuse a previous verification) and return its principal.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is expired, malformed or badly signed
+     * @throws IllegalArgumentException if the token is null or empty
+     */
+    public JwtPrincipal verify(String token) {
+        if (maxEntries <= 0) {
+            return JwtPrincipal.from(parseClaims(token));
+        }
+
+        String key = digest(token);
+        long now = clock.millis();
+        CachedPrincipal cached = verified.get(key);
+        if (cached != null) {
+            if (cached.validUntilMillis() > now) {
+                return cached.principal();
+            }
+            verified.remove(key);
+        }
+
+        JwtPrincipal principal = JwtPrincipal.from(parseClaims(token));
+        long validUntil = principal.expiresAt() != null
+                ? principal.expiresAt().toEpochMilli()
+                : now + NO_EXPIRY_TTL_MS;
+        if (verified.size() >= maxEntries) {
+            evict(now);
+        }
+        verified.put(key, new CachedPrincipal(principal, validUntil));
+        return principal;
+    }
+
+    /**
+     * Full, uncached verification returning the raw claims.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private void evict(long now) {
+        verified.values().removeIf(entry -> entry.validUntilMillis() <= now);
+        if (verified.size() >= maxEntries) {
+            // Still full of live tokens: start over rather than track recency
+            verified.clear();
+        }
+    }
+
+    private static String digest(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token must not be empty");
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.datagami.edudron.common.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of a verified JWT: the fields every service filter reads, plus the raw claims.
+ * userId is only known when the gateway resolved it from identity (see InternalIdentityHeaders).
+ */
+public record JwtPrincipal(
+        String username,
+        String userId,
+        String tenantId,
+        String role,
+        String email,
+        Instant expiresAt,
+        Map<String, Object> claims) {
+
+    /**
+     * Request attribute under which service filters expose the authenticated principal.
+     */
+    public static final String REQUEST_ATTRIBUTE = JwtPrincipal.class.getName();
+
+    public static JwtPrincipal from(Claims claims) {
+        Object email = claims.get("email");
+        return new JwtPrincipal(
+                claims.getSubject(),
+                null,
+                claims.get("tenant", String.class),
+                claims.get("role", String.class),
+                email != null ? email.toString() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                Collections.unmodifiableMap(new HashMap<>(claims)));
+    }
+
+    public Object getClaim(String name) {
+        return claims.get(name);
+    }
+}
@@ -0,0 +1,159 @@
+package com.datagami.edudron.common.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Encodes audit meta straight to the JSON text stored in common.audit_logs.meta.
+ *
+ * One streaming pass: serviceName is written first, then each meta entry, into a per-thread
+ * reusable buffer. The size cap is enforced per entry while writing, so the result is always
+ * valid JSON: an entry that would push the document past the cap is rolled back and replaced
+ * by a prefix of its value (strings) or left out, and the document gets "_truncated": true.
+ * No copy of the meta map, no intermediate String that is parsed back into a tree.
+ */
+public class AuditMetaEncoder {
+
+    private static final String TRUNCATED_FIELD = "_truncated";
+    private static final String TRUNCATED_SUFFIX = "...[truncated]";
+
+    // Room kept for ,"_truncated":true} so the closing part never breaks the cap
+    private static final int RESERVED = TRUNCATED_FIELD.length() + 16;
+    // Field quotes, colon, comma, string quotes and TRUNCATED_SUFFIX around a string prefix
+    private static final int STRING_PREFIX_OVERHEAD = TRUNCATED_SUFFIX.length() + 8;
+
+    private static final ThreadLocal<BufferWriter> BUFFERS = ThreadLocal.withInitial(BufferWriter::new);
+
+    private final ObjectMapper objectMapper;
+    private final int maxLength;
+
+    public AuditMetaEncoder(ObjectMapper objectMapper, int maxLength) {
+        if (maxLength <= RESERVED * 2) {
+            throw new IllegalArgumentException("Audit meta cap is too small: " + maxLength);
+        }
+        this.objectMapper = objectMapper;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return a JSON object of at most maxLength characters, with serviceName always present
+     */
+    public String encode(String serviceName, Map<String, ?> meta) throws IOException {
+        BufferWriter out = BUFFERS.get();
+        out.reset(maxLength);
+        int limit = maxLength - RESERVED;
+        boolean truncated = false;
+
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            // Written first so every later entry follows a comma: rollbacks below rely on that
+            gen.writeStringField("serviceName", serviceName);
+            if (meta != null) {
+                for (Map.Entry<String, ?> entry : meta.entrySet()) {
+                    String key = entry.getKey();
+                    if (key == null || "serviceName".equals(key)) {
+                        continue;
+                    }
+                    if (!writeCapped(gen, out, key, entry.getValue(), limit)) {
+                        truncated = true;
+                    }
+                }
+            }
+            if (truncated) {
+                gen.writeBooleanField(TRUNCATED_FIELD, true);
+            }
+            gen.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write one field and roll it back if it overflows. The generator still counts a rolled-back
+     * field, which only means the next one is preceded by a comma, as it would be anyway.
+     *
+     * @return false if the value had to be shortened or left out
+     */
+    private boolean writeCapped(JsonGenerator gen, BufferWriter out, String key, Object value, int limit)
+            throws IOException {
+        gen.flush();
+        int mark = out.length();
+        gen.writeFieldName(key);
+        objectMapper.writeValue(gen, value);
+        gen.flush();
+        if (out.length() <= limit) {
+            return true;
+        }
+        out.setLength(mark);
+
+        if (value instanceof CharSequence text) {
+            int room = Math.min(limit - mark - key.length() - STRING_PREFIX_OVERHEAD, text.length());
+            // Escaping can make a prefix longer than its character count: halve it until it fits
+            for (; room > 0; room /= 2) {
+                gen.writeStringField(key, text.subSequence(0, room) + TRUNCATED_SUFFIX);
+                gen.flush();
+                if (out.length() <= limit) {
+                    return false;
+                }
+                out.setLength(mark);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unsynchronized Writer over a StringBuilder that is kept per thread between calls.
+     */
+    private static final class BufferWriter extends Writer {
+
+        private StringBuilder sb = new StringBuilder(1024);
+
+        void reset(int maxLength) {
+            // Do not pin an oversized buffer to a pooled thread
+            if (sb.capacity() > maxLength * 2) {
+                sb = new StringBuilder(1024);
+            } else {
+                sb.setLength(0);
+            }
+        }
+
+        int length() {
+            return sb.length();
+        }
+
+        void setLength(int length) {
+            sb.setLength(length);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            sb.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            sb.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(int c) {
+            sb.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
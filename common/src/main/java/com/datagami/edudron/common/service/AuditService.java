@@ -2,31 +2,60 @@ package com.datagami.edudron.common.service;
 
 import com.datagami.edudron.common.TenantContext;
 import com.datagami.edudron.common.domain.AuditLog;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.io.IOException;
 import java.time.OffsetDateTime;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 /**
  * Abstract Audit Service for logging CRUD operations to common.audit_logs table.
  * Each service provides a concrete implementation with a repository that extends JpaRepository&lt;AuditLog, UUID&gt;.
- * Concrete implementations should add @Async and @Transactional(propagation = REQUIRES_NEW) on logCrud so
- * audit never blocks or rolls back with business logic.
+ * Meta is encoded once by {@link AuditMetaEncoder}. As a Spring bean, entries are only enqueued
+ * on an {@link AuditBatchWriter} configured by audit.ingest.* (or AUDIT_INGEST_* variables), so
+ * audit never blocks or rolls back with business logic. Outside a container (no writer) each
+ * entry is saved through the repository.
  */
-public abstract class AuditService {
+public abstract class AuditService implements DisposableBean {
 
     protected static final Logger log = LoggerFactory.getLogger(AuditService.class);
     protected static final int META_JSON_MAX_LENGTH = 32_768; // cap payload size
 
     protected final ObjectMapper objectMapper;
+    private final AuditMetaEncoder metaEncoder;
+    private volatile AuditBatchWriter batchWriter;
 
     public AuditService(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.metaEncoder = new AuditMetaEncoder(objectMapper, META_JSON_MAX_LENGTH);
+    }
+
+    @Autowired
+    void startBatchWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                          @Value("${audit.ingest.capacity:10000}") int capacity,
+                          @Value("${audit.ingest.batch-size:200}") int batchSize,
+                          @Value("${audit.ingest.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.batchWriter = new AuditBatchWriter(jdbcTemplate, meterRegistry, getServiceName(),
+                new AuditBatchWriter.Settings(capacity, batchSize, flushIntervalMs));
+    }
+
+    /**
+     * Write whatever is still buffered on shutdown.
+     */
+    @Override
+    public void destroy() {
+        AuditBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.close();
+        }
     }
 
     @SuppressWarnings("rawtypes")
@@ -35,8 +64,7 @@ public abstract class AuditService {
     protected abstract String getServiceName();
 
     /**
-     * Log a CRUD operation. Call after successful save/delete. Implementations should be @Async.
-     * Failures are logged and never propagated.
+     * Log a CRUD operation. Call after successful save/delete. Failures are logged and never propagated.
      */
     public void logCrud(String operation, String entityType, String entityId,
                         String actorUserId, String actorEmail, Map<String, Object> meta) {
@@ -57,33 +85,32 @@ public abstract class AuditService {
                                    String actorUserId, String actorEmail, Map<String, Object> meta) {
         try {
             UUID effectiveClientId = clientId != null ? clientId : getClientId();
+            // Prefer email for human-readable Actor column; fall back to userId (e.g. webhook, system)
+            String actorDisplay = (actorEmail != null && !actorEmail.isBlank()) ? actorEmail : actorUserId;
+            String metaJson = metaEncoder.encode(getServiceName(), meta);
+
+            AuditBatchWriter writer = batchWriter;
+            if (writer != null) {
+                writer.offer(new AuditBatchWriter.Entry(UUID.randomUUID(), effectiveClientId,
+                        truncate(actorDisplay, 128), truncate(operation, 64), truncate(entityType, 64),
+                        truncate(entityId, 64), metaJson, OffsetDateTime.now()));
+                return;
+            }
+
             AuditLog entry = new AuditLog();
             entry.setId(UUID.randomUUID());
             entry.setClientId(effectiveClientId);
             entry.setAction(truncate(operation, 64));
             entry.setEntity(truncate(entityType, 64));
             entry.setEntityId(truncate(entityId, 64));
-            // Prefer email for human-readable Actor column; fall back to userId (e.g. webhook, system)
-            String actorDisplay = (actorEmail != null && !actorEmail.isBlank()) ? actorEmail : actorUserId;
             entry.setActor(truncate(actorDisplay, 128));
             entry.setCreatedAt(OffsetDateTime.now());
-
-            if (meta != null && !meta.isEmpty()) {
-                Map<String, Object> metaCopy = new HashMap<>(meta);
-                metaCopy.put("serviceName", getServiceName());
-                String json = objectMapper.writeValueAsString(metaCopy);
-                if (json.length() > META_JSON_MAX_LENGTH) {
-                    json = json.substring(0, META_JSON_MAX_LENGTH) + "\"...[truncated]";
-                }
-                entry.setMeta(objectMapper.readTree(json));
-            } else {
-                entry.setMeta(objectMapper.readTree(objectMapper.writeValueAsString(Map.of("serviceName", getServiceName()))));
-            }
+            entry.setMeta(objectMapper.readTree(metaJson));
 
             @SuppressWarnings("unchecked")
             var repo = (org.springframework.data.repository.CrudRepository<AuditLog, UUID>) getAuditLogRepository();
             repo.save(entry);
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             log.warn("Audit meta serialization failed for {} {} {}", operation, entityType, entityId, e);
         } catch (Exception e) {
             log.error("Failed to write audit log for {} {} {}", operation, entityType, entityId, e);
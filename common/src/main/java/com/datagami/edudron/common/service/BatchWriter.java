@@ -0,0 +1,259 @@
+package com.datagami.edudron.common.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory buffer that writes rows of one table in multi-row INSERTs.
+ *
+ * Producers (request threads) only enqueue the row: no executor hop, no transaction, no pooled
+ * connection. A single daemon thread drains the buffer every flush interval, or as soon as a
+ * full batch is waiting, so writes take one connection per batch instead of one per request.
+ * The {@link RowBinder} supplies the statement and binds each row.
+ *
+ * Backpressure is explicit. Above the sampling threshold only one in {@code sampleEvery}
+ * sampleable rows is kept; at capacity every new row is dropped. Drops are counted, never
+ * retried. A failed flush drops its batch so a database outage cannot grow the heap.
+ *
+ * Metrics: &lt;prefix&gt;.enqueued, &lt;prefix&gt;.dropped{reason}, &lt;prefix&gt;.flush,
+ * &lt;prefix&gt;.buffered, all tagged with the service name.
+ *
+ * @param <T> row type
+ */
+public class BatchWriter<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchWriter.class);
+
+    // Postgres caps a statement at 32767 bind parameters
+    private static final int MAX_BIND_PARAMETERS = 32767;
+
+    /**
+     * Maps rows of one type onto a multi-row INSERT.
+     */
+    public interface RowBinder<T> {
+
+        /**
+         * Statement up to and including VALUES; row placeholders are appended after it
+         */
+        String insertPrefix();
+
+        /**
+         * Placeholder tuple for one row, e.g. "(?, ?, CAST(? AS jsonb))"
+         */
+        String rowPlaceholders();
+
+        /**
+         * Bind parameters per row, matching rowPlaceholders
+         */
+        int columns();
+
+        /**
+         * Write the row's columns into params starting at offset
+         */
+        void bind(T row, Object[] params, int offset);
+
+        /**
+         * Whether the row may be sampled out when the buffer is filling up
+         */
+        default boolean sampleable(T row) {
+            return false;
+        }
+    }
+
+    /**
+     * @param capacity        rows held in memory before new ones are dropped
+     * @param batchSize       rows per INSERT; a full batch also triggers an early flush
+     * @param flushIntervalMs upper bound on how long a row waits in the buffer
+     * @param sampleAbove     fill ratio (0..1) above which sampleable rows are sampled
+     * @param sampleEvery     keep one in this many sampleable rows while sampling
+     */
+    public record Settings(int capacity, int batchSize, long flushIntervalMs, double sampleAbove, int sampleEvery) {
+        public Settings {
+            if (capacity <= 0 || batchSize <= 0 || flushIntervalMs <= 0 || sampleEvery <= 0) {
+                throw new IllegalArgumentException("Batch writer settings must be positive");
+            }
+        }
+
+        /**
+         * Settings for a writer that never samples
+         */
+        public Settings(int capacity, int batchSize, long flushIntervalMs) {
+            this(capacity, batchSize, flushIntervalMs, 1.0, 1);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Settings settings;
+    private final RowBinder<T> rows;
+    private final String metricPrefix;
+    private final int batchSize;
+    private final ConcurrentLinkedQueue<T> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong sampleSequence = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    private final Counter enqueued;
+    private final Counter droppedFull;
+    private final Counter droppedSampled;
+    private final Counter droppedFlushError;
+    private final Timer flushTimer;
+
+    /**
+     * @param metricPrefix meter name prefix, e.g. "events.ingest"; also names the flusher thread
+     * @param serviceName  service tag on every meter
+     */
+    public BatchWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, String metricPrefix,
+                       String serviceName, Settings settings, RowBinder<T> rows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.rows = rows;
+        this.metricPrefix = metricPrefix;
+        this.batchSize = Math.min(settings.batchSize(), MAX_BIND_PARAMETERS / rows.columns());
+        this.enqueued = Counter.builder(metricPrefix + ".enqueued").tag("service", serviceName).register(meterRegistry);
+        this.droppedFull = dropCounter(meterRegistry, serviceName, "full");
+        this.droppedSampled = dropCounter(meterRegistry, serviceName, "sampled");
+        this.droppedFlushError = dropCounter(meterRegistry, serviceName, "flush_error");
+        this.flushTimer = Timer.builder(metricPrefix + ".flush").tag("service", serviceName).register(meterRegistry);
+        meterRegistry.gauge(metricPrefix + ".buffered", Tags.of("service", serviceName), size, AtomicInteger::get);
+
+        String threadName = metricPrefix.replace('.', '-') + "-" + serviceName;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, settings.flushIntervalMs(), settings.flushIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private Counter dropCounter(MeterRegistry meterRegistry, String serviceName, String reason) {
+        return Counter.builder(metricPrefix + ".dropped")
+                .tag("service", serviceName)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enqueue a row without blocking. Returns false if it was dropped or sampled out.
+     */
+    public boolean offer(T row) {
+        if (rows.sampleable(row)
+                && size.get() >= settings.capacity() * settings.sampleAbove()
+                && sampleSequence.getAndIncrement() % settings.sampleEvery() != 0) {
+            droppedSampled.increment();
+            return false;
+        }
+        int newSize = size.incrementAndGet();
+        if (newSize > settings.capacity()) {
+            size.decrementAndGet();
+            droppedFull.increment();
+            return false;
+        }
+        buffer.offer(row);
+        enqueued.increment();
+
+        if (newSize >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: close() flushes what is left
+            }
+        }
+        return true;
+    }
+
+    public int getBufferedCount() {
+        return size.get();
+    }
+
+    /**
+     * Write everything currently buffered. Runs on the flusher thread; exposed for shutdown and tests.
+     *
+     * @return number of rows written
+     */
+    public int flush() {
+        flushRequested.set(false);
+        int written = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            T row;
+            while (batch.size() < batchSize && (row = buffer.poll()) != null) {
+                batch.add(row);
+            }
+            if (batch.isEmpty()) {
+                return written;
+            }
+            size.addAndGet(-batch.size());
+            written += write(batch);
+        }
+    }
+
+    private int write(List<T> batch) {
+        long start = System.nanoTime();
+        try {
+            StringBuilder sql = new StringBuilder(rows.insertPrefix());
+            Object[] params = new Object[batch.size() * rows.columns()];
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0) {
+                    sql.append(",\n");
+                }
+                sql.append(rows.rowPlaceholders());
+                rows.bind(batch.get(i), params, i * rows.columns());
+            }
+            // No conflict target: the common tables are partitioned, so their key is (id, created_at)
+            sql.append("\nON CONFLICT DO NOTHING");
+            jdbcTemplate.update(sql.toString(), params);
+            return batch.size();
+        } catch (Exception e) {
+            droppedFlushError.increment(batch.size());
+            log.error("Failed to write {} {} rows, dropping them: {}", batch.size(), metricPrefix, e.getMessage());
+            return 0;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Never let the scheduled task die
+            log.error("{} flush failed", metricPrefix, e);
+        }
+    }
+
+    /**
+     * Stop the flusher and write whatever is still buffered.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        if (written > 0) {
+            log.info("Flushed {} buffered {} rows on shutdown", written, metricPrefix);
+        }
+    }
+}
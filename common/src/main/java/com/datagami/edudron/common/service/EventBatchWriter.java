@@ -0,0 +1,79 @@
+package com.datagami.edudron.common.service;
+
+import com.datagami.edudron.common.domain.Event;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+/**
+ * {@link BatchWriter} for common.events.
+ *
+ * Under load only HTTP_REQUEST events are sampled; errors, logins and user actions are always
+ * kept until the buffer is full.
+ *
+ * Metrics: events.ingest.enqueued, events.ingest.dropped{reason}, events.ingest.flush,
+ * events.ingest.buffered, all tagged with the service name.
+ */
+public class EventBatchWriter extends BatchWriter<Event> {
+
+    private static final RowBinder<Event> ROWS = new RowBinder<>() {
+
+        @Override
+        public String insertPrefix() {
+            return """
+                    INSERT INTO common.events (id, client_id, event_type, created_at, http_method, http_path,
+                        http_status, duration_ms, user_id, user_email, trace_id, request_id, user_agent,
+                        ip_address, event_data, error_message, error_stack_trace, service_name, endpoint,
+                        session_id, device_type, browser, os)
+                    VALUES
+                    """;
+        }
+
+        @Override
+        public String rowPlaceholders() {
+            return "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        }
+
+        @Override
+        public int columns() {
+            return 23;
+        }
+
+        @Override
+        public void bind(Event e, Object[] params, int p) {
+            params[p++] = e.getId();
+            params[p++] = e.getClientId();
+            params[p++] = e.getEventType();
+            params[p++] = e.getCreatedAt() != null ? Timestamp.from(e.getCreatedAt().toInstant()) : null;
+            params[p++] = e.getHttpMethod();
+            params[p++] = e.getHttpPath();
+            params[p++] = e.getHttpStatus();
+            params[p++] = e.getDurationMs();
+            params[p++] = e.getUserId();
+            params[p++] = e.getUserEmail();
+            params[p++] = e.getTraceId();
+            params[p++] = e.getRequestId();
+            params[p++] = e.getUserAgent();
+            params[p++] = e.getIpAddress();
+            params[p++] = e.getEventData();
+            params[p++] = e.getErrorMessage();
+            params[p++] = e.getErrorStackTrace();
+            params[p++] = e.getServiceName();
+            params[p++] = e.getEndpoint();
+            params[p++] = e.getSessionId();
+            params[p++] = e.getDeviceType();
+            params[p++] = e.getBrowser();
+            params[p] = e.getOs();
+        }
+
+        @Override
+        public boolean sampleable(Event event) {
+            return "HTTP_REQUEST".equals(event.getEventType());
+        }
+    };
+
+    public EventBatchWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, String serviceName, Settings settings) {
+        super(jdbcTemplate, meterRegistry, "events.ingest", serviceName, settings, ROWS);
+    }
+}
@@ -19,13 +19,17 @@ import java.util.UUID;
  * implementation with a repository that extends JpaRepository<Event, String>.
  * 
  * Concrete implementations should add @Async and @Transactional annotations
- * to the methods that need them.
+ * to the methods that need them, or switch to batched ingestion with
+ * {@link #setBatchWriter(EventBatchWriter)}.
  */
 public abstract class EventService {
     
     protected static final Logger log = LoggerFactory.getLogger(EventService.class);
     
     protected final ObjectMapper objectMapper;
+
+    // Set when the service uses batched ingestion; null means one save per event
+    private volatile EventBatchWriter batchWriter;
     
     public EventService(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
@@ -77,7 +81,7 @@ public abstract class EventService {
             }
             
             parseUserAgent(event, userAgent);
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log HTTP request event", e);
         }
@@ -102,7 +106,7 @@ public abstract class EventService {
             );
             event.setEventData(objectMapper.writeValueAsString(eventDataMap));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log user action event", e);
         }
@@ -129,7 +133,7 @@ public abstract class EventService {
             }
             
             parseUserAgent(event, userAgent);
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log login event", e);
         }
@@ -152,7 +156,7 @@ public abstract class EventService {
                 event.setEventData(objectMapper.writeValueAsString(logoutData));
             }
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log logout event", e);
         }
@@ -181,7 +185,7 @@ public abstract class EventService {
             }
             event.setEventData(objectMapper.writeValueAsString(eventDataMap));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log video watch progress event", e);
         }
@@ -211,7 +215,7 @@ public abstract class EventService {
             }
             event.setEventData(objectMapper.writeValueAsString(eventDataMap));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log assessment submission event", e);
         }
@@ -239,7 +243,7 @@ public abstract class EventService {
             }
             event.setEventData(objectMapper.writeValueAsString(eventDataMap));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log search query event", e);
         }
@@ -267,7 +271,7 @@ public abstract class EventService {
             }
             event.setEventData(objectMapper.writeValueAsString(eventDataMap));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log file upload event", e);
         }
@@ -294,7 +298,7 @@ public abstract class EventService {
             }
             event.setEventData(objectMapper.writeValueAsString(eventDataMap));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log lecture completion event", e);
         }
@@ -320,7 +324,7 @@ public abstract class EventService {
             );
             event.setEventData(objectMapper.writeValueAsString(errorData));
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log error event", e);
         }
@@ -345,12 +349,31 @@ public abstract class EventService {
                 event.setServiceName(getServiceName());
             }
             
-            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+            persist(event);
         } catch (Exception e) {
             log.error("Failed to log event", e);
         }
     }
     
+    /**
+     * Switch to batched ingestion: events are handed to the writer instead of saved one by one.
+     * Callers in this mode should not wrap the log methods in @Async/@Transactional, since
+     * enqueueing is non-blocking and needs no connection.
+     */
+    protected void setBatchWriter(EventBatchWriter batchWriter) {
+        this.batchWriter = batchWriter;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void persist(Event event) {
+        EventBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.offer(event);
+        } else {
+            ((org.springframework.data.repository.CrudRepository<Event, String>) getEventRepository()).save(event);
+        }
+    }
+
     /**
      * Create a base event with common fields populated.
      */
@@ -0,0 +1,93 @@
+package com.datagami.edudron.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    private StringRedisTemplate redisA;
+    private CacheInvalidationBus busA;
+    private CacheManager cachesA;
+
+    private CacheInvalidationBus busB;
+    private CacheManager cachesB;
+
+    @BeforeEach
+    void setUp() {
+        redisA = mock(StringRedisTemplate.class);
+        busA = new CacheInvalidationBus(redisA);
+        cachesA = busA.broadcasting(new CaffeineCacheManager("courseAnalytics", "tenantFeatures"));
+
+        busB = new CacheInvalidationBus(mock(StringRedisTemplate.class));
+        cachesB = busB.broadcasting(new CaffeineCacheManager("courseAnalytics", "tenantFeatures"));
+    }
+
+    @Test
+    void evictionOnOneNodeEvictsTheSameKeyOnAnother() {
+        UUID clientId = UUID.randomUUID();
+        cachesA.getCache("tenantFeatures").put(clientId, "a");
+        cachesB.getCache("tenantFeatures").put(clientId, "b");
+        cachesB.getCache("tenantFeatures").put(UUID.randomUUID(), "other tenant");
+
+        cachesA.getCache("tenantFeatures").evict(clientId);
+
+        assertNull(cachesA.getCache("tenantFeatures").get(clientId));
+        deliverTo(busB, lastPublished());
+        assertNull(cachesB.getCache("tenantFeatures").get(clientId));
+        assertEquals(1, ((Cache<?, ?>) cachesB.getCache("tenantFeatures").getNativeCache()).estimatedSize());
+    }
+
+    @Test
+    void clearIsBroadcast() {
+        cachesB.getCache("courseAnalytics").put("course1", "stale");
+
+        cachesA.getCache("courseAnalytics").clear();
+
+        deliverTo(busB, lastPublished());
+        assertNull(cachesB.getCache("courseAnalytics").get("course1"));
+    }
+
+    @Test
+    void nodeIgnoresItsOwnMessages() {
+        cachesA.getCache("courseAnalytics").evict("course1");
+        String message = lastPublished();
+        cachesA.getCache("courseAnalytics").put("course1", "fresh");
+
+        deliverTo(busA, message);
+
+        assertNotNull(cachesA.getCache("courseAnalytics").get("course1"));
+    }
+
+    @Test
+    void malformedMessagesAreIgnored() {
+        cachesB.getCache("courseAnalytics").put("course1", "value");
+
+        deliverTo(busB, "not json");
+
+        assertNotNull(cachesB.getCache("courseAnalytics").get("course1"));
+    }
+
+    private String lastPublished() {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(redisA, atLeastOnce()).convertAndSend(eq(CacheInvalidationBus.CHANNEL), payload.capture());
+        return payload.getValue();
+    }
+
+    private static void deliverTo(CacheInvalidationBus bus, String payload) {
+        bus.onMessage(new DefaultMessage(CacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                payload.getBytes(StandardCharsets.UTF_8)), null);
+    }
+}
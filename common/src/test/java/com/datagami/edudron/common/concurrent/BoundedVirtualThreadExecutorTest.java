@@ -0,0 +1,129 @@
+package com.datagami.edudron.common.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedVirtualThreadExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void runsTasksOnVirtualThreadsNamedByPrefix() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("results-export-", 2, 20, false);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            thread.set(Thread.currentThread());
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(thread.get().isVirtual());
+        assertTrue(thread.get().getName().startsWith("results-export-"));
+    }
+
+    @Test
+    void runsAtMostMaxConcurrentAndRejectsBeyondTheQueue() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("student-import-", 2, 1, false);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(3);
+        Runnable task = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            awaitRelease();
+            running.decrementAndGet();
+            finished.countDown();
+        };
+
+        executor.execute(task);
+        executor.execute(task);
+        executor.execute(task);
+        assertThrows(TaskRejectedException.class, () -> executor.execute(task));
+        assertEquals(3, executor.getActiveCount());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void runsOnCallerWhenFullIfConfigured() {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("event-logging-", 1, 0, true);
+        executor.execute(this::awaitRelease);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        executor.execute(() -> thread.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    void shutdownRejectsNewTasksAndWaitsForAdmittedOnes() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("student-import-", 1, 1, true);
+        AtomicInteger completed = new AtomicInteger();
+        executor.execute(() -> {
+            awaitRelease();
+            completed.incrementAndGet();
+        });
+        executor.execute(completed::incrementAndGet);
+
+        executor.shutdown();
+
+        assertTrue(executor.isShutdown());
+        // Rejected even though caller-runs is set: a stopped executor must not run work on the caller
+        assertThrows(TaskRejectedException.class, () -> executor.execute(completed::incrementAndGet));
+        assertFalse(executor.awaitTermination(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+        assertEquals(2, completed.get());
+    }
+
+    @Test
+    void shutdownNowInterruptsRunningAndWaitingTasks() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("results-export-", 1, 1, false);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        AtomicInteger ranWaiting = new AtomicInteger();
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        executor.execute(ranWaiting::incrementAndGet);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.shutdownNow();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        assertEquals(0, ranWaiting.get());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
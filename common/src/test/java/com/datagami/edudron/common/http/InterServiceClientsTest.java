@@ -0,0 +1,121 @@
+package com.datagami.edudron.common.http;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class InterServiceClientsTest {
+
+    private static final String EXAM_URL = "http://gateway/api/exams/01HZX3K9T2M4N6P8Q0R2S4T6V8";
+
+    private SimpleMeterRegistry meterRegistry;
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private ExecutorService callers;
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // One permit, no waiting: a second concurrent call to content is rejected at once
+        InterServiceClients clients = new InterServiceClients(
+                Map.of(InterServiceClients.CONTENT, new InterServiceClients.TargetSettings(1_000, 5_000, 1, 0)),
+                meterRegistry);
+        restTemplate = clients.restTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void identicalConcurrentGetsAreSentOnce() throws Exception {
+        server.expect(ExpectedCount.once(), requestTo(EXAM_URL))
+                .andRespond(blockingUntilReleased(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON)));
+
+        Future<String> leader = callers.submit(() -> restTemplate.getForObject(EXAM_URL, String.class));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<String> follower = callers.submit(() -> restTemplate.getForObject(EXAM_URL, String.class));
+        awaitCoalesced();
+        release.countDown();
+
+        assertEquals("{\"id\":1}", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("{\"id\":1}", follower.get(5, TimeUnit.SECONDS));
+        server.verify();
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheTargetLimit() throws Exception {
+        server.expect(ExpectedCount.once(), requestTo(EXAM_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(blockingUntilReleased(withSuccess()));
+
+        Future<?> first = callers.submit(() -> restTemplate.postForEntity(EXAM_URL, "{}", String.class));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ResourceAccessException.class, () -> restTemplate.postForEntity(EXAM_URL, "{}", String.class));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        server.verify();
+    }
+
+    @Test
+    void latencyIsRecordedPerTargetAndEndpointWithIdsCollapsed() {
+        server.expect(requestTo("http://gateway/idp/users/01HZX3K9T2M4N6P8Q0R2S4T6V8"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        restTemplate.getForObject("http://gateway/idp/users/01HZX3K9T2M4N6P8Q0R2S4T6V8", String.class);
+
+        Timer timer = meterRegistry.find("interservice.client.requests")
+                .tags("target", "identity", "endpoint", "/idp/users/{id}", "outcome", "SUCCESS")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    private ResponseCreator blockingUntilReleased(ResponseCreator response) {
+        return request -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response.createResponse(request);
+        };
+    }
+
+    private void awaitCoalesced() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find("interservice.client.coalesced").counter() == null) {
+            assertTrue(System.nanoTime() < deadline, "second call was not coalesced");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.datagami.edudron.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalIdentityHeadersTest {
+
+    private static final String SECRET = "internal-identity-secret";
+    private static final String TOKEN = "header.payload.signature";
+
+    private final JwtPrincipal principal = new JwtPrincipal("student@example.com", "user1", "tenant1", "STUDENT",
+            "student@example.com", null, Map.of());
+
+    @Test
+    void signedHeadersVerifyForTheSameToken() {
+        Map<String, String> headers = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, System.currentTimeMillis());
+
+        JwtPrincipal trusted = InternalIdentityHeaders.verify(SECRET, TOKEN, headers::get);
+
+        assertNotNull(trusted);
+        assertEquals("student@example.com", trusted.username());
+        assertEquals("user1", trusted.userId());
+        assertEquals("tenant1", trusted.tenantId());
+        assertEquals("STUDENT", trusted.role());
+        assertEquals("student@example.com", trusted.email());
+    }
+
+    @Test
+    void everyTamperedFieldIsRejected() {
+        Map<String, String> signed = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, System.currentTimeMillis());
+
+        for (String header : InternalIdentityHeaders.ALL) {
+            if (header.equals(InternalIdentityHeaders.ISSUED_AT)) {
+                continue;
+            }
+            Map<String, String> tampered = new HashMap<>(signed);
+            tampered.put(header, header.equals(InternalIdentityHeaders.USER_ROLE) ? "SYSTEM_ADMIN" : "forged");
+            assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, tampered::get), header);
+        }
+
+        // A field dropped from the request is tampering too
+        Map<String, String> withoutRole = new HashMap<>(signed);
+        withoutRole.remove(InternalIdentityHeaders.USER_ROLE);
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, withoutRole::get));
+    }
+
+    @Test
+    void staleOrFutureIssuedAtIsRejected() {
+        long now = System.currentTimeMillis();
+        Map<String, String> stale = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, now - 61_000);
+        Map<String, String> future = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, now + 61_000);
+        Map<String, String> recent = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, now - 30_000);
+
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, stale::get));
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, future::get));
+        assertNotNull(InternalIdentityHeaders.verify(SECRET, TOKEN, recent::get));
+
+        // Moving issuedAt forward to revive stale headers breaks the signature
+        Map<String, String> refreshed = new HashMap<>(stale);
+        refreshed.put(InternalIdentityHeaders.ISSUED_AT, String.valueOf(now));
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, refreshed::get));
+
+        Map<String, String> garbled = new HashMap<>(recent);
+        garbled.put(InternalIdentityHeaders.ISSUED_AT, "yesterday");
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, garbled::get));
+    }
+
+    @Test
+    void headersAreBoundToTheTokenAndSecret() {
+        Map<String, String> headers = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, System.currentTimeMillis());
+
+        assertNull(InternalIdentityHeaders.verify(SECRET, "another.bearer.token", headers::get));
+        assertNull(InternalIdentityHeaders.verify("another-secret", TOKEN, headers::get));
+        assertNull(InternalIdentityHeaders.verify(SECRET, null, headers::get));
+    }
+
+    @Test
+    void blankSecretOrMissingHeadersDisableTrust() {
+        Map<String, String> headers = InternalIdentityHeaders.sign(SECRET, TOKEN, principal, System.currentTimeMillis());
+
+        assertNull(InternalIdentityHeaders.verify("", TOKEN, headers::get));
+        assertNull(InternalIdentityHeaders.verify(null, TOKEN, headers::get));
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, name -> null));
+
+        Map<String, String> unsigned = new HashMap<>(headers);
+        unsigned.remove(InternalIdentityHeaders.SIGNATURE);
+        assertNull(InternalIdentityHeaders.verify(SECRET, TOKEN, unsigned::get));
+    }
+}
@@ -0,0 +1,135 @@
+package com.datagami.edudron.common.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtClaimsParserTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    @Test
+    void repeatedTokenIsServedFromTheCache() {
+        JwtClaimsParser parser = new JwtClaimsParser(SECRET);
+        String token = token("student@example.com", 60_000);
+
+        JwtPrincipal first = parser.verify(token);
+        JwtPrincipal second = parser.verify(token);
+
+        assertSame(first, second);
+        assertEquals("student@example.com", first.username());
+        assertEquals("tenant1", first.tenantId());
+        assertEquals("STUDENT", first.role());
+        assertEquals(1, cacheSize(parser));
+    }
+
+    @Test
+    void disabledCacheVerifiesEveryTime() {
+        JwtClaimsParser parser = new JwtClaimsParser(SECRET, 0);
+        String token = token("student@example.com", 60_000);
+
+        assertNotSame(parser.verify(token), parser.verify(token));
+        assertEquals(0, cacheSize(parser));
+    }
+
+    @Test
+    void expiredTokenIsNotServedFromTheCache() {
+        MutableClock clock = new MutableClock(Instant.now());
+        JwtClaimsParser parser = new JwtClaimsParser(SECRET, JwtClaimsParser.DEFAULT_MAX_ENTRIES, clock);
+        String token = token("student@example.com", 60_000);
+        JwtPrincipal principal = parser.verify(token);
+        assertSame(principal, parser.verify(token));
+
+        clock.advance(Duration.ofMinutes(2));
+
+        assertThrows(ExpiredJwtException.class, () -> parser.verify(token));
+        assertEquals(0, cacheSize(parser));
+    }
+
+    @Test
+    void cacheFullOfLiveTokensIsCleared() {
+        JwtClaimsParser parser = new JwtClaimsParser(SECRET, 2);
+        String first = token("first@example.com", 60_000);
+        JwtPrincipal firstPrincipal = parser.verify(first);
+        parser.verify(token("second@example.com", 60_000));
+        assertEquals(2, cacheSize(parser));
+
+        parser.verify(token("third@example.com", 60_000));
+
+        // Nothing had expired, so the cache started over with only the newest token
+        assertEquals(1, cacheSize(parser));
+        assertNotSame(firstPrincipal, parser.verify(first));
+    }
+
+    @Test
+    void failedVerificationIsNotCached() {
+        JwtClaimsParser parser = new JwtClaimsParser(SECRET);
+        String forged = Jwts.builder()
+                .setSubject("admin@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-another-secret-0123456789".getBytes()),
+                        SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> parser.verify(forged));
+        assertThrows(JwtException.class, () -> parser.verify(forged));
+        assertEquals(0, cacheSize(parser));
+        assertThrows(IllegalArgumentException.class, () -> parser.verify(""));
+    }
+
+    private static String token(String subject, long ttlMillis) {
+        return Jwts.builder()
+                .setClaims(Map.of("tenant", "tenant1", "role", "STUDENT", "email", subject))
+                .setSubject(subject)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static int cacheSize(JwtClaimsParser parser) {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(parser, "verified")).size();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.datagami.edudron.common.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuditBatchWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new AuditBatchWriter(jdbcTemplate, meterRegistry, "student",
+                new AuditBatchWriter.Settings(4, 100, 60_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    void entriesAreBoundInColumnOrderWithMetaCastToJsonb() {
+        AuditBatchWriter.Entry first = entry();
+        AuditBatchWriter.Entry second = entry();
+        writer.offer(first);
+        writer.offer(second);
+
+        assertEquals(2, writer.flush());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), params.capture());
+        assertTrue(sql.getValue().startsWith("INSERT INTO common.audit_logs"));
+        assertEquals(2, sql.getValue().split("CAST\\(\\? AS jsonb\\)", -1).length - 1);
+        assertTrue(sql.getValue().endsWith("ON CONFLICT DO NOTHING"));
+        Object[] bound = params.getValue();
+        assertEquals(16, bound.length);
+        assertEquals(second.id(), bound[8]);
+        assertEquals(second.metaJson(), bound[14]);
+        assertEquals(Timestamp.from(second.createdAt().toInstant()), bound[15]);
+        assertEquals(2.0, meterRegistry.counter("audit.ingest.enqueued", "service", "student").count());
+    }
+
+    @Test
+    void entriesAreNeverSampledOnlyDroppedAtCapacity() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(writer.offer(entry()));
+        }
+
+        assertFalse(writer.offer(entry()));
+
+        assertEquals(4, writer.getBufferedCount());
+        assertEquals(0.0, meterRegistry.counter("audit.ingest.dropped", "service", "student", "reason", "sampled").count());
+        assertEquals(1.0, meterRegistry.counter("audit.ingest.dropped", "service", "student", "reason", "full").count());
+    }
+
+    private static AuditBatchWriter.Entry entry() {
+        return new AuditBatchWriter.Entry(UUID.randomUUID(), UUID.randomUUID(), "admin@example.com", "UPDATE",
+                "Section", UUID.randomUUID().toString(), "{\"service\":\"student\"}", OffsetDateTime.now());
+    }
+}
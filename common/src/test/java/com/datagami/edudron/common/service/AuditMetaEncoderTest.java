@@ -0,0 +1,65 @@
+package com.datagami.edudron.common.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditMetaEncoderTest {
+
+    private static final int MAX_LENGTH = 512;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AuditMetaEncoder encoder = new AuditMetaEncoder(objectMapper, MAX_LENGTH);
+
+    @Test
+    void serviceNameIsAddedAndOverridesMeta() throws Exception {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("serviceName", "spoofed");
+        meta.put("courseId", "c1");
+        meta.put("tags", List.of("a", "b"));
+
+        JsonNode json = objectMapper.readTree(encoder.encode("student", meta));
+
+        assertEquals("student", json.get("serviceName").asText());
+        assertEquals("c1", json.get("courseId").asText());
+        assertEquals(2, json.get("tags").size());
+        assertFalse(json.has("_truncated"));
+    }
+
+    @Test
+    void nullMetaStillRecordsServiceName() throws Exception {
+        assertEquals("{\"serviceName\":\"student\"}", encoder.encode("student", null));
+    }
+
+    @Test
+    void oversizedMetaStaysValidJsonWithinTheCap() throws Exception {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("small", 1);
+        meta.put("snapshot", Map.of("body", "y".repeat(2_000)));
+        meta.put("after", "kept");
+        meta.put("description", "x".repeat(2_000));
+
+        String encoded = encoder.encode("student", meta);
+        JsonNode json = objectMapper.readTree(encoded);
+
+        assertTrue(encoded.length() <= MAX_LENGTH);
+        assertEquals(1, json.get("small").asInt());
+        assertTrue(json.get("description").asText().endsWith("...[truncated]"));
+        assertFalse(json.has("snapshot"));
+        assertEquals("kept", json.get("after").asText());
+        assertTrue(json.get("_truncated").asBoolean());
+    }
+
+    @Test
+    void bufferIsReusedCleanlyAcrossCalls() throws Exception {
+        encoder.encode("student", Map.of("big", "z".repeat(2_000)));
+
+        assertEquals("{\"serviceName\":\"student\",\"id\":7}", encoder.encode("student", Map.of("id", 7)));
+    }
+}
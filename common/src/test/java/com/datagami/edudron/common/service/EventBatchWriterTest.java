@@ -0,0 +1,103 @@
+package com.datagami.edudron.common.service;
+
+import com.datagami.edudron.common.domain.Event;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventBatchWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private EventBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Long interval and large batch so only explicit flush() calls write
+        writer = new EventBatchWriter(jdbcTemplate, meterRegistry, "student",
+                new EventBatchWriter.Settings(10, 100, 60_000, 0.5, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    void bufferedEventsAreWrittenInOneMultiRowInsert() {
+        writer.offer(event("LOGIN"));
+        writer.offer(event("USER_ACTION"));
+        writer.offer(event("ERROR"));
+
+        assertEquals(3, writer.flush());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).update(sql.capture(), params.capture());
+        assertTrue(sql.getValue().startsWith("INSERT INTO common.events"));
+        assertEquals(3 * 23, params.getValue().length);
+        assertEquals(0, writer.getBufferedCount());
+        assertEquals(3.0, meterRegistry.counter("events.ingest.enqueued", "service", "student").count());
+    }
+
+    @Test
+    void httpRequestsAreSampledAboveThresholdButOtherEventsAreKept() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(writer.offer(event("HTTP_REQUEST")));
+        }
+
+        // Half full: one in two HTTP requests is kept, errors always are
+        assertTrue(writer.offer(event("HTTP_REQUEST")));
+        assertFalse(writer.offer(event("HTTP_REQUEST")));
+        assertTrue(writer.offer(event("ERROR")));
+
+        assertEquals(7, writer.getBufferedCount());
+        assertEquals(1.0, meterRegistry.counter("events.ingest.dropped", "service", "student", "reason", "sampled").count());
+    }
+
+    @Test
+    void eventsAreDroppedAtCapacity() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(writer.offer(event("ERROR")));
+        }
+
+        assertFalse(writer.offer(event("ERROR")));
+
+        assertEquals(10, writer.getBufferedCount());
+        assertEquals(1.0, meterRegistry.counter("events.ingest.dropped", "service", "student", "reason", "full").count());
+    }
+
+    @Test
+    void failedFlushDropsTheBatchInsteadOfRetainingIt() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        writer.offer(event("ERROR"));
+        writer.offer(event("ERROR"));
+
+        assertEquals(0, writer.flush());
+
+        assertEquals(0, writer.getBufferedCount());
+        assertEquals(2.0, meterRegistry.counter("events.ingest.dropped", "service", "student", "reason", "flush_error").count());
+    }
+
+    private static Event event(String type) {
+        Event event = new Event();
+        event.setId(UUID.randomUUID().toString().substring(0, 26));
+        event.setClientId(UUID.randomUUID());
+        event.setEventType(type);
+        event.setServiceName("student");
+        return event;
+    }
+}
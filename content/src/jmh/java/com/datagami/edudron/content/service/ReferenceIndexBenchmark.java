@@ -0,0 +1,75 @@
+package com.datagami.edudron.content.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reference retrieval for a document of the largest size extraction keeps (100K characters).
+ *
+ * build is what a node pays on the first prompt that uses a document: chunk the text and index the
+ * chunks (on upload the chunking is already done, so this is an upper bound). search is what every
+ * lecture prompt pays afterwards: rank the chunks for one lecture title and read the top 6.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReferenceIndexBenchmark {
+
+    private static final String[] TOPICS = {
+            "photosynthesis chlorophyll light reactions glucose",
+            "mitochondria cellular respiration ATP synthesis",
+            "supply demand equilibrium price elasticity",
+            "recursion base case stack frames memoization",
+            "french revolution estates general bastille",
+            "plate tectonics subduction earthquakes volcanoes"
+    };
+
+    private String text;
+    private ReferenceIndex index;
+    private List<String> queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        StringBuilder document = new StringBuilder();
+        int paragraph = 0;
+        while (document.length() < 100_000) {
+            String topic = TOPICS[paragraph % TOPICS.length];
+            document.append("Section ").append(paragraph).append(" covers ").append(topic)
+                    .append(". It explains how ").append(topic).append(" relate to each other with worked examples, ")
+                    .append("common misconceptions and a short summary for revision.\n\n");
+            paragraph++;
+        }
+        text = document.toString();
+        index = ReferenceIndex.build(ReferenceIndex.chunk(text, 1200));
+
+        queries = new ArrayList<>();
+        for (String topic : TOPICS) {
+            queries.add("Lecture on " + topic.split(" ")[0] + " and " + topic.split(" ")[1]);
+        }
+    }
+
+    @Benchmark
+    public ReferenceIndex build() {
+        return ReferenceIndex.build(ReferenceIndex.chunk(text, 1200));
+    }
+
+    @Benchmark
+    public int search() {
+        String query = queries.get(next++ % queries.size());
+        int contextChars = 0;
+        for (ReferenceIndex.Hit hit : index.search(query, 6)) {
+            contextChars += index.chunkText(hit.chunk()).length();
+        }
+        return contextChars;
+    }
+}
@@ -1,19 +1,28 @@
 package com.datagami.edudron.content.config;
 
+import com.datagami.edudron.common.concurrent.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    // spring.threads.virtual.enabled also moves Tomcat and @Scheduled onto virtual threads; here the
+    // pools become one virtual thread per task, with the same limits kept by semaphores
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean(name = "eventTaskExecutor")
     public Executor eventTaskExecutor() {
+        if (virtualThreads) {
+            return new BoundedVirtualThreadExecutor("event-logging-", 5, 100, false);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -22,20 +31,4 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-
-    /**
-     * Bounded thread pool for AI generation jobs (course, lecture, image generation).
-     * Limits concurrent AI API calls to prevent resource exhaustion.
-     */
-    @Bean(name = "aiJobTaskExecutor")
-    public Executor aiJobTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(5);     // Max 5 concurrent AI jobs
-        executor.setQueueCapacity(20);  // Buffer up to 20 waiting jobs
-        executor.setThreadNamePrefix("ai-job-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.initialize();
-        return executor;
-    }
 }
@@ -1,5 +1,6 @@
 package com.datagami.edudron.content.config;
 
+import com.datagami.edudron.common.cache.CacheInvalidationConfig;
 import com.datagami.edudron.content.dto.ExamDetailDTO;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,6 +11,7 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -24,10 +26,14 @@ import java.util.Map;
 
 @Configuration
 @EnableCaching
+@Import(CacheInvalidationConfig.class)
 public class CacheConfig {
 
     public static final String EXAM_DETAIL_CACHE = "examDetail";
 
+    // Student's local copy of exams fetched from content, same clientId::examId key
+    public static final String STUDENT_EXAM_CACHE = "examFromContent";
+
     @Bean
     public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
         // Redis-only ObjectMapper: JavaTimeModule for OffsetDateTime + default typing so @class is written and read works
@@ -0,0 +1,74 @@
+package com.datagami.edudron.content.domain;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A passage of an uploaded reference document (course generation index of type
+ * REFERENCE_CONTENT), the unit retrieved into generation prompts.
+ */
+@Entity
+@Table(name = "reference_content_chunk", schema = "content")
+public class ReferenceContentChunk implements Persistable<String> {
+    @Id
+    private String id; // ULID
+
+    @Column(nullable = false)
+    private UUID clientId;
+
+    @Column(name = "index_id", nullable = false, length = 26)
+    private String indexId;
+
+    // Position in the document, from 0
+    @Column(nullable = false)
+    private Integer sequence;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String content;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    // Ids are assigned before saveAll(); without this Spring Data would merge (SELECT, then INSERT)
+    // every chunk of a document instead of batching the inserts.
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public ReferenceContentChunk() {
+        this.createdAt = OffsetDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public UUID getClientId() { return clientId; }
+    public void setClientId(UUID clientId) { this.clientId = clientId; }
+
+    public String getIndexId() { return indexId; }
+    public void setIndexId(String indexId) { this.indexId = indexId; }
+
+    public Integer getSequence() { return sequence; }
+    public void setSequence(Integer sequence) { this.sequence = sequence; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,42 @@
+package com.datagami.edudron.content.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request DTO for resolving the exams visible to one student in a single call.
+ * The student service sends the student's enrollment scopes (course + section + class)
+ * and the IDs of exams the student has already completed.
+ */
+public class StudentExamVisibilityRequest {
+    
+    private List<CourseScope> scopes = new ArrayList<>();
+    
+    // Completed exams are included regardless of status (as long as the course scope matches)
+    private List<String> completedExamIds = new ArrayList<>();
+    
+    // Getters and Setters
+    public List<CourseScope> getScopes() { return scopes; }
+    public void setScopes(List<CourseScope> scopes) { this.scopes = scopes; }
+    
+    public List<String> getCompletedExamIds() { return completedExamIds; }
+    public void setCompletedExamIds(List<String> completedExamIds) { this.completedExamIds = completedExamIds; }
+    
+    /**
+     * The student's enrollment context for one course.
+     */
+    public static class CourseScope {
+        private String courseId;
+        private String sectionId;
+        private String classId;
+        
+        public String getCourseId() { return courseId; }
+        public void setCourseId(String courseId) { this.courseId = courseId; }
+        
+        public String getSectionId() { return sectionId; }
+        public void setSectionId(String sectionId) { this.sectionId = sectionId; }
+        
+        public String getClassId() { return classId; }
+        public void setClassId(String classId) { this.classId = classId; }
+    }
+}
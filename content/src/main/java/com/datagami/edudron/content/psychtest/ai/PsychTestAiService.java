@@ -2,6 +2,7 @@ package com.datagami.edudron.content.psychtest.ai;
 
 import com.datagami.edudron.content.psychtest.service.RecommendationService.RecommendedCourse;
 import com.datagami.edudron.content.psychtest.service.ScoringService;
+import com.datagami.edudron.content.service.AIPriority;
 import com.datagami.edudron.content.service.FoundryAIService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -82,7 +83,7 @@ public class PsychTestAiService {
 
         String raw;
         try {
-            raw = foundryAIService.callOpenAI(system, user);
+            raw = foundryAIService.callOpenAI(system, user, AIPriority.INTERACTIVE);
         } catch (Exception e) {
             logger.warn("Adaptive selection AI call failed: {}", e.getMessage());
             return null;
@@ -160,7 +161,7 @@ public class PsychTestAiService {
 
         String raw;
         try {
-            raw = foundryAIService.callOpenAI(system, user);
+            raw = foundryAIService.callOpenAI(system, user, AIPriority.INTERACTIVE);
         } catch (Exception e) {
             logger.warn("Question personalization AI call failed: {}", e.getMessage());
             return null;
@@ -242,7 +243,7 @@ public class PsychTestAiService {
 
         String raw;
         try {
-            raw = foundryAIService.callOpenAI(system, user);
+            raw = foundryAIService.callOpenAI(system, user, AIPriority.INTERACTIVE);
         } catch (Exception e) {
             logger.warn("Report AI call failed: {}", e.getMessage());
             return null;
@@ -305,7 +306,7 @@ public class PsychTestAiService {
 
         String raw;
         try {
-            raw = foundryAIService.callOpenAI(system, user);
+            raw = foundryAIService.callOpenAI(system, user, AIPriority.INTERACTIVE);
         } catch (Exception e) {
             logger.warn("Per-answer meanings AI call failed: {}", e.getMessage());
             return null;
@@ -396,7 +397,7 @@ public class PsychTestAiService {
 
         String raw;
         try {
-            raw = foundryAIService.callOpenAI(system, user);
+            raw = foundryAIService.callOpenAI(system, user, AIPriority.INTERACTIVE);
         } catch (Exception e) {
             logger.warn("Per-domain narratives AI call failed: {}", e.getMessage());
             return null;
@@ -1,6 +1,6 @@
 package com.datagami.edudron.content.psychtest.web;
 
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
+import com.datagami.edudron.common.http.InterServiceClients;
 import com.datagami.edudron.content.psychtest.domain.PsychTestResult;
 import com.datagami.edudron.content.psychtest.domain.PsychTestSession;
 import com.datagami.edudron.content.psychtest.service.ResultExplanationService;
@@ -12,7 +12,6 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
-import jakarta.servlet.http.HttpServletRequest;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
@@ -22,13 +21,10 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -43,44 +39,16 @@ import org.springframework.web.bind.annotation.RestController;
 public class PsychTestController {
     private final SessionService sessionService;
     private final ResultExplanationService resultExplanationService;
+    private final RestTemplate restTemplate;
 
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    public PsychTestController(SessionService sessionService, ResultExplanationService resultExplanationService) {
+    public PsychTestController(SessionService sessionService, ResultExplanationService resultExplanationService,
+                               InterServiceClients interServiceClients) {
         this.sessionService = sessionService;
         this.resultExplanationService = resultExplanationService;
-    }
-
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
+        this.restTemplate = interServiceClients.restTemplate();
     }
 
     public record StartSessionRequest(
@@ -267,7 +235,7 @@ public class PsychTestController {
         // Resolve ULID user id via identity service (/idp/users/me), matching existing behavior.
         try {
             String meUrl = gatewayUrl + "/idp/users/me";
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 new HttpEntity<>(new HttpHeaders()),
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -65,11 +66,15 @@ public interface AssessmentRepository extends JpaRepository<Assessment, String>
         @Param("clientId") UUID clientId
     );
     
-    // Query for scheduled tasks that need to work across all tenants
-    @Query("SELECT a FROM Assessment a WHERE a.assessmentType = :assessmentType AND a.status IN :statuses AND a.startTime IS NOT NULL AND a.endTime IS NOT NULL ORDER BY a.startTime ASC")
-    List<Assessment> findByAssessmentTypeAndStatusInOrderByStartTimeAsc(
+    // Live, scheduled and explicitly included exams for a student's courses
+    @Query("SELECT a FROM Assessment a WHERE a.assessmentType = :assessmentType AND a.clientId = :clientId " +
+           "AND a.courseId IN :courseIds AND (a.status IN :statuses OR a.id IN :includeIds) ORDER BY a.startTime ASC")
+    List<Assessment> findVisibleCandidates(
         @Param("assessmentType") Assessment.AssessmentType assessmentType,
-        @Param("statuses") List<Assessment.ExamStatus> statuses
+        @Param("clientId") UUID clientId,
+        @Param("courseIds") Collection<String> courseIds,
+        @Param("statuses") List<Assessment.ExamStatus> statuses,
+        @Param("includeIds") Collection<String> includeIds
     );
     
     // Paginated exam query with filters
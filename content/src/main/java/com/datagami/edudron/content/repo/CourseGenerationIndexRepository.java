@@ -2,6 +2,8 @@ package com.datagami.edudron.content.repo;
 
 import com.datagami.edudron.content.domain.CourseGenerationIndex;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,6 +23,14 @@ public interface CourseGenerationIndexRepository extends JpaRepository<CourseGen
     Optional<CourseGenerationIndex> findByIdAndClientId(String id, UUID clientId);
     
     void deleteByIdAndClientId(String id, UUID clientId);
+    
+    // Title only, without loading the extracted text
+    @Query("SELECT i.title FROM CourseGenerationIndex i WHERE i.id = :id AND i.clientId = :clientId AND i.indexType = :indexType")
+    Optional<String> findTitleByIdAndClientIdAndIndexType(
+        @Param("id") String id,
+        @Param("clientId") UUID clientId,
+        @Param("indexType") CourseGenerationIndex.IndexType indexType
+    );
 }
 
 
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -78,4 +79,12 @@ public interface ExamQuestionRepository extends JpaRepository<ExamQuestion, Stri
     @Query("SELECT COALESCE(SUM(CASE WHEN eq.pointsOverride IS NOT NULL THEN eq.pointsOverride ELSE q.defaultPoints END), 0) " +
            "FROM ExamQuestion eq JOIN eq.question q WHERE eq.examId = :examId AND eq.clientId = :clientId")
     Integer calculateTotalPoints(@Param("examId") String examId, @Param("clientId") UUID clientId);
+    
+    /**
+     * Calculate total points for many exams at once, as (examId, totalPoints) rows.
+     * Exams without bank questions are absent.
+     */
+    @Query("SELECT eq.examId, COALESCE(SUM(CASE WHEN eq.pointsOverride IS NOT NULL THEN eq.pointsOverride ELSE q.defaultPoints END), 0) " +
+           "FROM ExamQuestion eq JOIN eq.question q WHERE eq.examId IN :examIds AND eq.clientId = :clientId GROUP BY eq.examId")
+    List<Object[]> sumTotalPointsByExamIds(@Param("examIds") Collection<String> examIds, @Param("clientId") UUID clientId);
 }
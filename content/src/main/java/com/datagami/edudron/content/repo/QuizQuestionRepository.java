@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,6 +22,20 @@ public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Stri
     Optional<QuizQuestion> findByIdAndClientId(String id, UUID clientId);
     
     void deleteByAssessmentIdAndClientId(String assessmentId, UUID clientId);
+    
+    /**
+     * Total inline question points per assessment, as (assessmentId, totalPoints) rows.
+     */
+    @Query("SELECT q.assessmentId, COALESCE(SUM(q.points), 0) FROM QuizQuestion q " +
+           "WHERE q.assessmentId IN :assessmentIds AND q.clientId = :clientId GROUP BY q.assessmentId")
+    List<Object[]> sumPointsByAssessmentIds(@Param("assessmentIds") Collection<String> assessmentIds, @Param("clientId") UUID clientId);
+    
+    /**
+     * Version of an assessment's answer key as a single
+     * (latest question update, question count, latest option id, option count) row.
+     * Editing options replaces their rows, so the new ULIDs move it even when the question row is untouched.
+     */
+    @Query("SELECT MAX(q.updatedAt), COUNT(DISTINCT q.id), MAX(o.id), COUNT(o.id) FROM QuizQuestion q LEFT JOIN q.options o " +
+           "WHERE q.assessmentId = :assessmentId AND q.clientId = :clientId")
+    List<Object[]> findAnswerKeyVersion(@Param("assessmentId") String assessmentId, @Param("clientId") UUID clientId);
 }
-
-
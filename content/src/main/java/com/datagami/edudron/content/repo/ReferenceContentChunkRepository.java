@@ -0,0 +1,16 @@
+package com.datagami.edudron.content.repo;
+
+import com.datagami.edudron.content.domain.ReferenceContentChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReferenceContentChunkRepository extends JpaRepository<ReferenceContentChunk, String> {
+    
+    List<ReferenceContentChunk> findByIndexIdAndClientIdOrderBySequenceAsc(String indexId, UUID clientId);
+    
+    void deleteByIndexIdAndClientId(String indexId, UUID clientId);
+}
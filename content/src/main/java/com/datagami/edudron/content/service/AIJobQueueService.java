@@ -3,14 +3,24 @@ package com.datagami.edudron.content.service;
 import com.datagami.edudron.common.TenantContext;
 import com.datagami.edudron.common.UlidGenerator;
 import com.datagami.edudron.content.dto.AIGenerationJobDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisListCommands;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -20,16 +30,52 @@ public class AIJobQueueService {
     private static final Logger logger = LoggerFactory.getLogger(AIJobQueueService.class);
     
     // Queue names
-    private static final String COURSE_GENERATION_QUEUE = "ai:queue:course-generation";
-    private static final String LECTURE_GENERATION_QUEUE = "ai:queue:lecture-generation";
-    private static final String COURSE_COPY_QUEUE = "ai:queue:course-copy";
-    private static final String IMAGE_GENERATION_QUEUE = "ai:queue:image-generation";
-    private static final String SIMULATION_GENERATION_QUEUE = "ai:queue:simulation-generation";
+    public static final String COURSE_GENERATION_QUEUE = "ai:queue:course-generation";
+    public static final String LECTURE_GENERATION_QUEUE = "ai:queue:lecture-generation";
+    public static final String COURSE_COPY_QUEUE = "ai:queue:course-copy";
+    public static final String IMAGE_GENERATION_QUEUE = "ai:queue:image-generation";
+    public static final String SIMULATION_GENERATION_QUEUE = "ai:queue:simulation-generation";
     
     // Job storage prefix
     private static final String JOB_PREFIX = "ai:job:";
+    private static final String REQUEST_PREFIX = "ai:job-request:";
     private static final long JOB_TTL_HOURS = 24; // Keep jobs for 24 hours
     
+    // KEYS[1] = processing list, KEYS[2] = claims hash, KEYS[3] = deliveries hash; ARGV[1] = jobId
+    private static final DefaultRedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('LREM', KEYS[1], 0, ARGV[1])
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            redis.call('HDEL', KEYS[3], ARGV[1])
+            return 1
+            """, Long.class);
+    
+    // KEYS[1] = queue, KEYS[2] = processing list, KEYS[3] = claims hash, KEYS[4] = deliveries hash
+    // ARGV = jobId, claim deadline (ms), now (ms), maxDeliveries
+    // Returns 0 = still within its claim, 1 = requeued, 2 = dropped after too many deliveries
+    private static final DefaultRedisScript<Long> REQUEUE_SCRIPT = new DefaultRedisScript<>("""
+            if not redis.call('LPOS', KEYS[2], ARGV[1]) then
+                redis.call('HDEL', KEYS[3], ARGV[1])
+                return 0
+            end
+            local claimed = redis.call('HGET', KEYS[3], ARGV[1])
+            if not claimed then
+                -- moved but not yet stamped (or the consumer died in between): start the clock now
+                redis.call('HSET', KEYS[3], ARGV[1], ARGV[3])
+                return 0
+            end
+            if tonumber(claimed) > tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('LREM', KEYS[2], 0, ARGV[1])
+            redis.call('HDEL', KEYS[3], ARGV[1])
+            if redis.call('HINCRBY', KEYS[4], ARGV[1], 1) >= tonumber(ARGV[4]) then
+                redis.call('HDEL', KEYS[4], ARGV[1])
+                return 2
+            end
+            redis.call('RPUSH', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+    
     @Autowired
     private StringRedisTemplate redisTemplate;
     
@@ -39,68 +85,22 @@ public class AIJobQueueService {
     /**
      * Submit a course generation job to the queue
      */
-    public AIGenerationJobDTO submitCourseGenerationJob(Object request, AIJobWorker jobWorker) {
-        String jobId = UlidGenerator.nextUlid();
-        AIGenerationJobDTO job = createJob(jobId, AIGenerationJobDTO.JobType.COURSE_GENERATION);
-        
-        try {
-            // Store request data in worker
-            jobWorker.storeJobRequest(jobId, request);
-            
-            // Save job and add to queue
-            saveJob(job);
-            redisTemplate.opsForList().rightPush(COURSE_GENERATION_QUEUE, jobId);
-            
-            logger.info("Course generation job {} submitted to queue", jobId);
-            return job;
-        } catch (Exception e) {
-            logger.error("Failed to submit course generation job", e);
-            throw new RuntimeException("Failed to submit job", e);
-        }
+    public AIGenerationJobDTO submitCourseGenerationJob(Object request) {
+        return submit(AIGenerationJobDTO.JobType.COURSE_GENERATION, request, "Course generation");
     }
     
     /**
      * Submit a lecture generation job to the queue
      */
-    public AIGenerationJobDTO submitLectureGenerationJob(Object request, AIJobWorker jobWorker) {
-        String jobId = UlidGenerator.nextUlid();
-        AIGenerationJobDTO job = createJob(jobId, AIGenerationJobDTO.JobType.LECTURE_GENERATION);
-        
-        try {
-            // Store request data in worker
-            jobWorker.storeJobRequest(jobId, request);
-            
-            saveJob(job);
-            redisTemplate.opsForList().rightPush(LECTURE_GENERATION_QUEUE, jobId);
-            
-            logger.info("Lecture generation job {} submitted to queue", jobId);
-            return job;
-        } catch (Exception e) {
-            logger.error("Failed to submit lecture generation job", e);
-            throw new RuntimeException("Failed to submit job", e);
-        }
+    public AIGenerationJobDTO submitLectureGenerationJob(Object request) {
+        return submit(AIGenerationJobDTO.JobType.LECTURE_GENERATION, request, "Lecture generation");
     }
     
     /**
      * Submit a sub-lecture generation job to the queue
      */
-    public AIGenerationJobDTO submitSubLectureGenerationJob(Object request, AIJobWorker jobWorker) {
-        String jobId = UlidGenerator.nextUlid();
-        AIGenerationJobDTO job = createJob(jobId, AIGenerationJobDTO.JobType.SUB_LECTURE_GENERATION);
-        
-        try {
-            // Store request data in worker
-            jobWorker.storeJobRequest(jobId, request);
-            
-            saveJob(job);
-            redisTemplate.opsForList().rightPush(LECTURE_GENERATION_QUEUE, jobId);
-            
-            logger.info("Sub-lecture generation job {} submitted to queue", jobId);
-            return job;
-        } catch (Exception e) {
-            logger.error("Failed to submit sub-lecture generation job", e);
-            throw new RuntimeException("Failed to submit job", e);
-        }
+    public AIGenerationJobDTO submitSubLectureGenerationJob(Object request) {
+        return submit(AIGenerationJobDTO.JobType.SUB_LECTURE_GENERATION, request, "Sub-lecture generation");
     }
     
     /**
@@ -124,48 +124,192 @@ public class AIJobQueueService {
     /**
      * Submit an image generation job to the queue
      */
-    public AIGenerationJobDTO submitImageGenerationJob(Object request, AIJobWorker jobWorker) {
-        String jobId = UlidGenerator.nextUlid();
-        AIGenerationJobDTO job = createJob(jobId, AIGenerationJobDTO.JobType.IMAGE_GENERATION);
+    public AIGenerationJobDTO submitImageGenerationJob(Object request) {
+        return submit(AIGenerationJobDTO.JobType.IMAGE_GENERATION, request, "Image generation");
+    }
+
+    /**
+     * Submit a simulation generation job to the queue
+     */
+    public AIGenerationJobDTO submitSimulationGenerationJob(Object request) {
+        return submit(AIGenerationJobDTO.JobType.SIMULATION_GENERATION, request, "Simulation generation");
+    }
 
+    /**
+     * Store the request payload next to the job and enqueue it. The payload lives in Redis
+     * so any content node can pick the job up, and it survives a restart of the submitter.
+     */
+    private AIGenerationJobDTO submit(AIGenerationJobDTO.JobType jobType, Object request, String label) {
+        String jobId = UlidGenerator.nextUlid();
+        AIGenerationJobDTO job = createJob(jobId, jobType);
+        
         try {
-            jobWorker.storeJobRequest(jobId, request);
+            redisTemplate.opsForValue().set(
+                REQUEST_PREFIX + jobId,
+                objectMapper.writeValueAsString(request),
+                JOB_TTL_HOURS,
+                TimeUnit.HOURS
+            );
             saveJob(job);
-            redisTemplate.opsForList().rightPush(IMAGE_GENERATION_QUEUE, jobId);
-
-            logger.info("Image generation job {} submitted to queue", jobId);
+            redisTemplate.opsForList().rightPush(getQueueName(jobType), jobId);
+            
+            logger.info("{} job {} submitted to queue", label, jobId);
             return job;
         } catch (Exception e) {
-            logger.error("Failed to submit image generation job", e);
+            logger.error("Failed to submit {} job", label.toLowerCase(), e);
             throw new RuntimeException("Failed to submit job", e);
         }
     }
 
     /**
-     * Submit a simulation generation job to the queue
+     * Load the request payload stored for a job, or null if it has expired or was never stored
      */
-    public AIGenerationJobDTO submitSimulationGenerationJob(Object request, AIJobWorker jobWorker) {
-        String jobId = UlidGenerator.nextUlid();
-        AIGenerationJobDTO job = createJob(jobId, AIGenerationJobDTO.JobType.SIMULATION_GENERATION);
-
+    public <T> T getJobRequest(String jobId, TypeReference<T> type) {
         try {
-            jobWorker.storeJobRequest(jobId, request);
-            saveJob(job);
-            redisTemplate.opsForList().rightPush(SIMULATION_GENERATION_QUEUE, jobId);
+            String json = redisTemplate.opsForValue().get(REQUEST_PREFIX + jobId);
+            return json != null ? objectMapper.readValue(json, type) : null;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load request data for job " + jobId, e);
+        }
+    }
 
-            logger.info("Simulation generation job {} submitted to queue", jobId);
-            return job;
+    /**
+     * Delete the request payload once the job has reached a terminal state
+     */
+    public void deleteJobRequest(String jobId) {
+        try {
+            redisTemplate.delete(REQUEST_PREFIX + jobId);
         } catch (Exception e) {
-            logger.error("Failed to submit simulation generation job", e);
-            throw new RuntimeException("Failed to submit job", e);
+            logger.warn("Failed to delete request data for job {}", jobId, e);
+        }
+    }
+
+    /**
+     * Claim the next job from a queue (blocking up to the timeout).
+     *
+     * The job id is moved atomically (BLMOVE) onto the queue's processing list and stamped in
+     * its claims hash; it stays there until {@link #acknowledgeJob} so a consumer that dies
+     * mid-job does not lose it - {@link #requeueExpiredJobs} puts it back on the queue.
+     */
+    public String claimJob(String queueName, Duration timeout) {
+        String jobId = redisTemplate.opsForList().move(
+            queueName, RedisListCommands.Direction.LEFT,
+            processingKey(queueName), RedisListCommands.Direction.RIGHT,
+            timeout
+        );
+        if (jobId != null) {
+            redisTemplate.opsForHash().put(claimsKey(queueName), jobId, String.valueOf(System.currentTimeMillis()));
         }
+        return jobId;
     }
 
     /**
-     * Get a job from the queue (blocking)
+     * Claim up to maxJobs jobs from a queue: waits up to the timeout for the first one, then takes
+     * whatever else is already waiting without blocking. Each job is claimed as in {@link #claimJob}.
      */
-    public String getJobFromQueue(String queueName, long timeoutSeconds) {
-        return redisTemplate.opsForList().leftPop(queueName, timeoutSeconds, TimeUnit.SECONDS);
+    public List<String> claimJobs(String queueName, Duration timeout, int maxJobs) {
+        List<String> jobIds = new ArrayList<>();
+        String first = claimJob(queueName, timeout);
+        if (first == null) {
+            return jobIds;
+        }
+        jobIds.add(first);
+        Map<String, String> claims = new HashMap<>();
+        String now = String.valueOf(System.currentTimeMillis());
+        while (jobIds.size() < maxJobs) {
+            String jobId = redisTemplate.opsForList().move(
+                queueName, RedisListCommands.Direction.LEFT,
+                processingKey(queueName), RedisListCommands.Direction.RIGHT
+            );
+            if (jobId == null) {
+                break;
+            }
+            jobIds.add(jobId);
+            claims.put(jobId, now);
+        }
+        if (!claims.isEmpty()) {
+            redisTemplate.opsForHash().putAll(claimsKey(queueName), claims);
+        }
+        return jobIds;
+    }
+
+    /**
+     * Extend the visibility timeout of jobs this node is still working on
+     */
+    public void renewClaims(String queueName, Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        String now = String.valueOf(System.currentTimeMillis());
+        Map<String, String> claims = new HashMap<>();
+        for (String jobId : jobIds) {
+            claims.put(jobId, now);
+        }
+        redisTemplate.opsForHash().putAll(claimsKey(queueName), claims);
+    }
+
+    /**
+     * Remove a finished job from the processing list
+     */
+    public void acknowledgeJob(String queueName, String jobId) {
+        redisTemplate.execute(ACK_SCRIPT,
+            List.of(processingKey(queueName), claimsKey(queueName), deliveriesKey(queueName)),
+            jobId);
+    }
+
+    /**
+     * Put jobs whose claim is older than the visibility timeout back on the queue.
+     *
+     * @return ids of jobs that exceeded maxDeliveries; they are dropped from the queue and
+     *         the caller is expected to mark them failed
+     */
+    public List<String> requeueExpiredJobs(String queueName, Duration visibilityTimeout, int maxDeliveries) {
+        List<String> inFlight = redisTemplate.opsForList().range(processingKey(queueName), 0, -1);
+        if (inFlight == null || inFlight.isEmpty()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        String deadline = String.valueOf(now - visibilityTimeout.toMillis());
+        List<String> keys = List.of(queueName, processingKey(queueName), claimsKey(queueName), deliveriesKey(queueName));
+        List<String> exhausted = new ArrayList<>();
+        for (String jobId : new LinkedHashSet<>(inFlight)) {
+            Long outcome = redisTemplate.execute(REQUEUE_SCRIPT, keys,
+                jobId, deadline, String.valueOf(now), String.valueOf(maxDeliveries));
+            if (outcome != null && outcome == 1L) {
+                logger.warn("Job {} exceeded visibility timeout on {}; requeued", jobId, queueName);
+            } else if (outcome != null && outcome == 2L) {
+                exhausted.add(jobId);
+            }
+        }
+        return exhausted;
+    }
+
+    /**
+     * Number of jobs waiting in a queue
+     */
+    public long getQueueDepth(String queueName) {
+        Long size = redisTemplate.opsForList().size(queueName);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * Number of jobs claimed by consumers and not yet acknowledged
+     */
+    public long getInFlightCount(String queueName) {
+        Long size = redisTemplate.opsForList().size(processingKey(queueName));
+        return size != null ? size : 0;
+    }
+
+    private static String processingKey(String queueName) {
+        return queueName + ":processing";
+    }
+
+    private static String claimsKey(String queueName) {
+        return queueName + ":claims";
+    }
+
+    private static String deliveriesKey(String queueName) {
+        return queueName + ":deliveries";
     }
     
     /**
@@ -8,16 +8,14 @@ import com.datagami.edudron.content.dto.LectureDTO;
 import com.datagami.edudron.content.dto.SectionDTO;
 import com.datagami.edudron.content.simulation.dto.GenerateSimulationRequest;
 import com.datagami.edudron.content.simulation.service.SimulationGenerationService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class AIJobWorker {
@@ -39,16 +37,11 @@ public class AIJobWorker {
     @Autowired
     private LectureService lectureService;
 
-    @Autowired
-    private ObjectMapper objectMapper;
-    
-    // Store request data for jobs
-    private final Map<String, Object> jobRequests = new ConcurrentHashMap<>();
+    private static final TypeReference<Map<String, String>> STRING_MAP = new TypeReference<>() {};
     
     /**
      * Process a course generation job
      */
-    @Async("aiJobTaskExecutor")
     public void processCourseGenerationJob(String jobId) {
         logger.info("Processing course generation job: {}", jobId);
         
@@ -71,13 +64,11 @@ public class AIJobWorker {
             queueService.updateJob(job);
             
             // Get request data
-            Object requestObj = jobRequests.get(jobId);
-            if (requestObj == null) {
+            GenerateCourseRequest request = queueService.getJobRequest(jobId, new TypeReference<GenerateCourseRequest>() {});
+            if (request == null) {
                 throw new RuntimeException("Request data not found for job: " + jobId);
             }
             
-            GenerateCourseRequest request = objectMapper.convertValue(requestObj, GenerateCourseRequest.class);
-            
             // Update progress
             job.setProgress(20);
             job.setMessage("Parsing course requirements...");
@@ -102,8 +93,7 @@ public class AIJobWorker {
             job.setMessage("Course generation failed: " + e.getMessage());
             queueService.updateJob(job);
         } finally {
-            // Clean up
-            jobRequests.remove(jobId);
+            queueService.deleteJobRequest(jobId);
             TenantContext.clear();
         }
     }
@@ -111,7 +101,6 @@ public class AIJobWorker {
     /**
      * Process a lecture generation job
      */
-    @Async("aiJobTaskExecutor")
     public void processLectureGenerationJob(String jobId) {
         logger.info("Processing lecture generation job: {}", jobId);
         
@@ -133,13 +122,10 @@ public class AIJobWorker {
             queueService.updateJob(job);
             
             // Get request data
-            Object requestObj = jobRequests.get(jobId);
-            if (requestObj == null) {
+            Map<String, String> request = queueService.getJobRequest(jobId, STRING_MAP);
+            if (request == null) {
                 throw new RuntimeException("Request data not found for job: " + jobId);
             }
-            
-            @SuppressWarnings("unchecked")
-            Map<String, String> request = (Map<String, String>) requestObj;
             String courseId = request.get("courseId");
             String prompt = request.get("prompt");
             
@@ -165,7 +151,7 @@ public class AIJobWorker {
             job.setMessage("Lecture generation failed: " + e.getMessage());
             queueService.updateJob(job);
         } finally {
-            jobRequests.remove(jobId);
+            queueService.deleteJobRequest(jobId);
             TenantContext.clear();
         }
     }
@@ -173,7 +159,6 @@ public class AIJobWorker {
     /**
      * Process a sub-lecture generation job
      */
-    @Async("aiJobTaskExecutor")
     public void processSubLectureGenerationJob(String jobId) {
         logger.info("Processing sub-lecture generation job: {}", jobId);
         
@@ -195,13 +180,10 @@ public class AIJobWorker {
             queueService.updateJob(job);
             
             // Get request data
-            Object requestObj = jobRequests.get(jobId);
-            if (requestObj == null) {
+            Map<String, String> request = queueService.getJobRequest(jobId, STRING_MAP);
+            if (request == null) {
                 throw new RuntimeException("Request data not found for job: " + jobId);
             }
-            
-            @SuppressWarnings("unchecked")
-            Map<String, String> request = (Map<String, String>) requestObj;
             String courseId = request.get("courseId");
             String sectionId = request.get("sectionId");
             String prompt = request.get("prompt");
@@ -228,7 +210,7 @@ public class AIJobWorker {
             job.setMessage("Sub-lecture generation failed: " + e.getMessage());
             queueService.updateJob(job);
         } finally {
-            jobRequests.remove(jobId);
+            queueService.deleteJobRequest(jobId);
             TenantContext.clear();
         }
     }
@@ -236,7 +218,6 @@ public class AIJobWorker {
     /**
      * Process an image generation job
      */
-    @Async("aiJobTaskExecutor")
     public void processImageGenerationJob(String jobId) {
         logger.info("Processing image generation job: {}", jobId);
 
@@ -256,13 +237,10 @@ public class AIJobWorker {
             job.setProgress(10);
             queueService.updateJob(job);
 
-            Object requestObj = jobRequests.get(jobId);
-            if (requestObj == null) {
+            Map<String, String> request = queueService.getJobRequest(jobId, STRING_MAP);
+            if (request == null) {
                 throw new RuntimeException("Request data not found for job: " + jobId);
             }
-
-            @SuppressWarnings("unchecked")
-            Map<String, String> request = (Map<String, String>) requestObj;
             String lectureId = request.get("lectureId");
             int count = Integer.parseInt(request.getOrDefault("count", "2"));
 
@@ -300,7 +278,7 @@ public class AIJobWorker {
             job.setMessage("Image generation failed: " + e.getMessage());
             queueService.updateJob(job);
         } finally {
-            jobRequests.remove(jobId);
+            queueService.deleteJobRequest(jobId);
             TenantContext.clear();
         }
     }
@@ -308,7 +286,6 @@ public class AIJobWorker {
     /**
      * Process a simulation generation job
      */
-    @Async("aiJobTaskExecutor")
     public void processSimulationGenerationJob(String jobId) {
         logger.info("Processing simulation generation job: {}", jobId);
 
@@ -328,13 +305,10 @@ public class AIJobWorker {
             job.setProgress(10);
             queueService.updateJob(job);
 
-            Object requestObj = jobRequests.get(jobId);
-            if (requestObj == null) {
+            Map<String, String> request = queueService.getJobRequest(jobId, STRING_MAP);
+            if (request == null) {
                 throw new RuntimeException("Request data not found for job: " + jobId);
             }
-
-            @SuppressWarnings("unchecked")
-            Map<String, String> request = (Map<String, String>) requestObj;
             String simulationId = request.get("simulationId");
 
             // Build GenerateSimulationRequest from stored data
@@ -370,16 +344,8 @@ public class AIJobWorker {
             job.setMessage("Simulation generation failed: " + e.getMessage());
             queueService.updateJob(job);
         } finally {
-            jobRequests.remove(jobId);
+            queueService.deleteJobRequest(jobId);
             TenantContext.clear();
         }
     }
-
-    /**
-     * Store request data for a job
-     */
-    public void storeJobRequest(String jobId, Object request) {
-        jobRequests.put(jobId, request);
-    }
 }
-
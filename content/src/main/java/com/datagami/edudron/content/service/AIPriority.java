@@ -0,0 +1,11 @@
+package com.datagami.edudron.content.service;
+
+/**
+ * Lane an AI call is admitted in by {@link AIRequestGovernor}.
+ */
+public enum AIPriority {
+    /** Someone is waiting on the response: psych test questions, simulation suggestions */
+    INTERACTIVE,
+    /** Queued work: course, lecture and simulation generation, exam review */
+    BACKGROUND
+}
@@ -1,26 +1,49 @@
 package com.datagami.edudron.content.service;
 
 import com.datagami.edudron.content.dto.AIGenerationJobDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
 /**
- * Background processor that polls Redis queues and processes AI generation jobs.
- * Each queue type has its own processing flag so they can be polled independently.
+ * Consumes the AI generation queues in Redis.
+ *
+ * Every content node runs a configurable number of consumer threads per queue
+ * (ai.queue.consumers.*). A consumer claims a job with BLMOVE onto the queue's processing list,
+ * runs it on its own thread and acknowledges it once the job is finished, so throughput grows
+ * with the number of nodes and a job submitted on one node can run on any other.
+ *
+ * A maintenance tick renews the claims of jobs running on this node, requeues jobs whose claim
+ * has lapsed (their node died or was redeployed) and refreshes the queue metrics.
  */
 @Component
-public class AIQueueProcessor {
+public class AIQueueProcessor implements SmartLifecycle {
 
     private static final Logger logger = LoggerFactory.getLogger(AIQueueProcessor.class);
 
-    private static final String COURSE_GENERATION_QUEUE = "ai:queue:course-generation";
-    private static final String LECTURE_GENERATION_QUEUE = "ai:queue:lecture-generation";
-    private static final String COURSE_COPY_QUEUE = "ai:queue:course-copy";
-    private static final String IMAGE_GENERATION_QUEUE = "ai:queue:image-generation";
-    private static final String SIMULATION_GENERATION_QUEUE = "ai:queue:simulation-generation";
+    private static final long POLL_ERROR_BACKOFF_MS = 2000;
 
     @Autowired
     private AIJobQueueService queueService;
@@ -31,161 +54,250 @@ public class AIQueueProcessor {
     @Autowired
     private CourseCopyWorker courseCopyWorker;
 
-    // Per-queue processing flags (independent so queues don't block each other)
-    private volatile boolean processingCourseQueue = false;
-    private volatile boolean processingLectureQueue = false;
-    private volatile boolean processingImageQueue = false;
-    private volatile boolean processingCopyQueue = false;
-    private volatile boolean processingSimulationQueue = false;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    /**
-     * Process course generation queue
-     * Runs every 2 seconds
-     */
-    @Scheduled(fixedDelay = 2000)
-    public void processCourseGenerationQueue() {
-        if (processingCourseQueue) {
-            return;
+    @Value("${ai.queue.consumers.course-generation:2}")
+    private int courseGenerationConsumers;
+
+    @Value("${ai.queue.consumers.lecture-generation:2}")
+    private int lectureGenerationConsumers;
+
+    @Value("${ai.queue.consumers.image-generation:1}")
+    private int imageGenerationConsumers;
+
+    @Value("${ai.queue.consumers.simulation-generation:1}")
+    private int simulationGenerationConsumers;
+
+    @Value("${ai.queue.consumers.course-copy:1}")
+    private int courseCopyConsumers;
+
+    @Value("${ai.queue.poll-timeout-seconds:2}")
+    private long pollTimeoutSeconds;
+
+    @Value("${ai.queue.visibility-timeout-seconds:300}")
+    private long visibilityTimeoutSeconds;
+
+    @Value("${ai.queue.max-deliveries:3}")
+    private int maxDeliveries;
+
+    @Value("${ai.queue.shutdown-grace-seconds:30}")
+    private long shutdownGraceSeconds;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private record QueueBinding(String name, String tag, int consumers, Consumer<AIGenerationJobDTO> handler) {
+    }
+
+    private final List<QueueBinding> queues = new ArrayList<>();
+    // Job ids currently running on this node, per queue; their claims are renewed every tick
+    private final Map<String, Set<String>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> queueDepth = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> processingDepth = new ConcurrentHashMap<>();
+
+    private volatile boolean running = false;
+    private ExecutorService consumers;
+
+    @Override
+    public void start() {
+        queues.clear();
+        queues.add(new QueueBinding(AIJobQueueService.COURSE_GENERATION_QUEUE, "course-generation",
+                courseGenerationConsumers, job -> jobWorker.processCourseGenerationJob(job.getJobId())));
+        queues.add(new QueueBinding(AIJobQueueService.LECTURE_GENERATION_QUEUE, "lecture-generation",
+                lectureGenerationConsumers, this::processLectureQueueJob));
+        queues.add(new QueueBinding(AIJobQueueService.IMAGE_GENERATION_QUEUE, "image-generation",
+                imageGenerationConsumers, job -> jobWorker.processImageGenerationJob(job.getJobId())));
+        queues.add(new QueueBinding(AIJobQueueService.SIMULATION_GENERATION_QUEUE, "simulation-generation",
+                simulationGenerationConsumers, job -> jobWorker.processSimulationGenerationJob(job.getJobId())));
+        queues.add(new QueueBinding(AIJobQueueService.COURSE_COPY_QUEUE, "course-copy",
+                courseCopyConsumers, job -> courseCopyWorker.processCourseCopyJob(job.getJobId())));
+
+        int totalConsumers = queues.stream().mapToInt(QueueBinding::consumers).map(n -> Math.max(n, 0)).sum();
+        // Consumers spend most of their time blocked on BLMOVE and the AI provider; the consumer
+        // counts, not the executor, bound how many jobs run at once
+        consumers = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-queue-", 0).factory())
+                : Executors.newFixedThreadPool(Math.max(totalConsumers, 1), new CustomizableThreadFactory("ai-queue-"));
+        for (QueueBinding queue : queues) {
+            inFlight.put(queue.name(), ConcurrentHashMap.newKeySet());
+            registerGauges(queue);
         }
+        running = true;
 
-        try {
-            processingCourseQueue = true;
-            String jobId = queueService.getJobFromQueue(COURSE_GENERATION_QUEUE, 1);
-            if (jobId != null) {
-                logger.info("Found course generation job: {}", jobId);
-                AIGenerationJobDTO job = queueService.getJob(jobId);
-                if (job != null) {
-                    job.setStatus(AIGenerationJobDTO.JobStatus.QUEUED);
-                    queueService.updateJob(job);
-                    jobWorker.processCourseGenerationJob(jobId);
-                }
+        for (QueueBinding queue : queues) {
+            for (int i = 0; i < queue.consumers(); i++) {
+                consumers.submit(() -> consume(queue));
             }
-        } catch (Exception e) {
-            logger.error("Error processing course generation queue", e);
-        } finally {
-            processingCourseQueue = false;
+            logger.info("Started {} consumer(s) for {}", Math.max(queue.consumers(), 0), queue.name());
         }
     }
 
-    /**
-     * Process lecture generation queue (includes sub-lectures)
-     * Runs every 2 seconds
-     */
-    @Scheduled(fixedDelay = 2000, initialDelay = 1000)
-    public void processLectureGenerationQueue() {
-        if (processingLectureQueue) {
+    @Override
+    public void stop() {
+        running = false;
+        if (consumers == null) {
             return;
         }
-
+        // Let running jobs finish; anything still running after the grace period keeps its entry
+        // on the processing list and is requeued by another node once its claim lapses
+        consumers.shutdown();
         try {
-            processingLectureQueue = true;
-            String jobId = queueService.getJobFromQueue(LECTURE_GENERATION_QUEUE, 1);
-            if (jobId != null) {
-                logger.info("Found lecture generation job: {}", jobId);
-                AIGenerationJobDTO job = queueService.getJob(jobId);
-                if (job != null) {
-                    job.setStatus(AIGenerationJobDTO.JobStatus.QUEUED);
-                    queueService.updateJob(job);
-
-                    // Route to appropriate worker based on job type
-                    if (job.getJobType() == AIGenerationJobDTO.JobType.LECTURE_GENERATION) {
-                        jobWorker.processLectureGenerationJob(jobId);
-                    } else if (job.getJobType() == AIGenerationJobDTO.JobType.SUB_LECTURE_GENERATION) {
-                        jobWorker.processSubLectureGenerationJob(jobId);
-                    }
-                }
+            if (!consumers.awaitTermination(shutdownGraceSeconds, TimeUnit.SECONDS)) {
+                logger.warn("AI queue consumers still busy after {}s; their jobs will be requeued", shutdownGraceSeconds);
             }
-        } catch (Exception e) {
-            logger.error("Error processing lecture generation queue", e);
-        } finally {
-            processingLectureQueue = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
     /**
-     * Process image generation queue
-     * Runs every 2 seconds
+     * Renew claims for jobs running here, requeue lapsed claims and refresh queue gauges
      */
-    @Scheduled(fixedDelay = 2000, initialDelay = 1500)
-    public void processImageGenerationQueue() {
-        if (processingImageQueue) {
+    @Scheduled(fixedDelayString = "${ai.queue.maintenance-interval-ms:30000}", initialDelay = 5000)
+    public void maintainQueues() {
+        if (!running) {
             return;
         }
-
-        try {
-            processingImageQueue = true;
-            String jobId = queueService.getJobFromQueue(IMAGE_GENERATION_QUEUE, 1);
-            if (jobId != null) {
-                logger.info("Found image generation job: {}", jobId);
-                AIGenerationJobDTO job = queueService.getJob(jobId);
-                if (job != null) {
-                    job.setStatus(AIGenerationJobDTO.JobStatus.QUEUED);
-                    queueService.updateJob(job);
-                    jobWorker.processImageGenerationJob(jobId);
+        Duration visibilityTimeout = Duration.ofSeconds(visibilityTimeoutSeconds);
+        for (QueueBinding queue : queues) {
+            try {
+                queueService.renewClaims(queue.name(), List.copyOf(inFlight.get(queue.name())));
+                for (String jobId : queueService.requeueExpiredJobs(queue.name(), visibilityTimeout, maxDeliveries)) {
+                    failAbandonedJob(queue, jobId);
                 }
+                queueDepth.get(queue.name()).set(queueService.getQueueDepth(queue.name()));
+                processingDepth.get(queue.name()).set(queueService.getInFlightCount(queue.name()));
+            } catch (Exception e) {
+                logger.error("Error maintaining {}", queue.name(), e);
             }
-        } catch (Exception e) {
-            logger.error("Error processing image generation queue", e);
-        } finally {
-            processingImageQueue = false;
         }
     }
 
-    /**
-     * Process simulation generation queue
-     * Runs every 2 seconds
-     */
-    @Scheduled(fixedDelay = 2000, initialDelay = 2500)
-    public void processSimulationGenerationQueue() {
-        if (processingSimulationQueue) {
-            return;
+    private void consume(QueueBinding queue) {
+        Duration pollTimeout = Duration.ofSeconds(pollTimeoutSeconds);
+        while (running) {
+            String jobId;
+            try {
+                jobId = queueService.claimJob(queue.name(), pollTimeout);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                logger.error("Error polling {}", queue.name(), e);
+                try {
+                    Thread.sleep(POLL_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+            if (jobId != null) {
+                process(queue, jobId);
+            }
         }
+    }
 
+    private void process(QueueBinding queue, String jobId) {
+        Set<String> active = inFlight.get(queue.name());
+        active.add(jobId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            processingSimulationQueue = true;
-            String jobId = queueService.getJobFromQueue(SIMULATION_GENERATION_QUEUE, 1);
-            if (jobId != null) {
-                logger.info("Found simulation generation job: {}", jobId);
-                AIGenerationJobDTO job = queueService.getJob(jobId);
-                if (job != null) {
-                    job.setStatus(AIGenerationJobDTO.JobStatus.QUEUED);
-                    queueService.updateJob(job);
-                    jobWorker.processSimulationGenerationJob(jobId);
-                }
+            AIGenerationJobDTO job = queueService.getJob(jobId);
+            if (job == null) {
+                logger.warn("Job {} on {} has expired; dropping it", jobId, queue.name());
+                outcome = "missing";
+                return;
+            }
+            if (isFinished(job)) {
+                // Redelivered after the previous consumer finished but before it acknowledged
+                logger.info("Job {} on {} is already {}; skipping", jobId, queue.name(), job.getStatus());
+                outcome = "skipped";
+                return;
+            }
+            if (job.getCreatedAt() != null) {
+                Timer.builder("ai.queue.wait")
+                        .description("Time from job submission until a consumer claims it")
+                        .tag("queue", queue.tag())
+                        .register(meterRegistry)
+                        .record(Duration.between(job.getCreatedAt(), OffsetDateTime.now()));
             }
+
+            logger.info("Found {} job: {}", queue.tag(), jobId);
+            job.setStatus(AIGenerationJobDTO.JobStatus.QUEUED);
+            queueService.updateJob(job);
+            queue.handler().accept(job);
+
+            AIGenerationJobDTO finished = queueService.getJob(jobId);
+            outcome = finished != null && finished.getStatus() != null
+                    ? finished.getStatus().name().toLowerCase()
+                    : "unknown";
         } catch (Exception e) {
-            logger.error("Error processing simulation generation queue", e);
+            logger.error("Error processing job {} from {}", jobId, queue.name(), e);
         } finally {
-            processingSimulationQueue = false;
+            active.remove(jobId);
+            try {
+                queueService.acknowledgeJob(queue.name(), jobId);
+            } catch (Exception e) {
+                // The claim lapses and the job is redelivered; the finished-status check skips it
+                logger.error("Failed to acknowledge job {} on {}", jobId, queue.name(), e);
+            }
+            sample.stop(Timer.builder("ai.queue.processing")
+                    .description("Time a consumer spent running a job")
+                    .tag("queue", queue.tag())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
     }
 
-    /**
-     * Process course copy queue
-     * Runs every 2 seconds
-     */
-    @Scheduled(fixedDelay = 2000, initialDelay = 2000)
-    public void processCourseCopyQueue() {
-        if (processingCopyQueue) {
-            return;
+    private void processLectureQueueJob(AIGenerationJobDTO job) {
+        // The lecture queue carries both lecture and sub-lecture jobs
+        if (job.getJobType() == AIGenerationJobDTO.JobType.LECTURE_GENERATION) {
+            jobWorker.processLectureGenerationJob(job.getJobId());
+        } else if (job.getJobType() == AIGenerationJobDTO.JobType.SUB_LECTURE_GENERATION) {
+            jobWorker.processSubLectureGenerationJob(job.getJobId());
         }
+    }
 
-        try {
-            processingCopyQueue = true;
-            String jobId = queueService.getJobFromQueue(COURSE_COPY_QUEUE, 1);
-            if (jobId != null) {
-                logger.info("Found course copy job: {}", jobId);
-                AIGenerationJobDTO job = queueService.getJob(jobId);
-                if (job != null) {
-                    job.setStatus(AIGenerationJobDTO.JobStatus.QUEUED);
-                    queueService.updateJob(job);
-                    courseCopyWorker.processCourseCopyJob(jobId);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error processing course copy queue", e);
-        } finally {
-            processingCopyQueue = false;
+    private void failAbandonedJob(QueueBinding queue, String jobId) {
+        logger.error("Job {} on {} was abandoned {} times; marking it failed", jobId, queue.name(), maxDeliveries);
+        Counter.builder("ai.queue.abandoned")
+                .description("Jobs dropped after exceeding the maximum number of deliveries")
+                .tag("queue", queue.tag())
+                .register(meterRegistry)
+                .increment();
+        AIGenerationJobDTO job = queueService.getJob(jobId);
+        if (job != null && !isFinished(job)) {
+            job.setStatus(AIGenerationJobDTO.JobStatus.FAILED);
+            job.setError("Job was interrupted " + maxDeliveries + " times and will not be retried");
+            job.setMessage("Generation failed: the job was interrupted too many times");
+            queueService.updateJob(job);
         }
+        queueService.deleteJobRequest(jobId);
+    }
+
+    private void registerGauges(QueueBinding queue) {
+        AtomicLong depth = queueDepth.computeIfAbsent(queue.name(), k -> new AtomicLong());
+        AtomicLong processing = processingDepth.computeIfAbsent(queue.name(), k -> new AtomicLong());
+        Gauge.builder("ai.queue.depth", depth, AtomicLong::get)
+                .description("Jobs waiting to be claimed")
+                .tag("queue", queue.tag())
+                .register(meterRegistry);
+        Gauge.builder("ai.queue.in-flight", processing, AtomicLong::get)
+                .description("Jobs claimed by a consumer on any node and not yet acknowledged")
+                .tag("queue", queue.tag())
+                .register(meterRegistry);
+    }
+
+    private static boolean isFinished(AIGenerationJobDTO job) {
+        return job.getStatus() == AIGenerationJobDTO.JobStatus.COMPLETED
+                || job.getStatus() == AIGenerationJobDTO.JobStatus.FAILED;
     }
 }
@@ -0,0 +1,281 @@
+package com.datagami.edudron.content.service;
+
+import com.azure.core.exception.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for Azure OpenAI calls, shared by every feature that calls the model: course
+ * and simulation generation, psych tests and exam review all draw on the same deployment quota.
+ *
+ * Each deployment has a token bucket (ai.gateway.requests-per-minute, up to ai.gateway.burst at
+ * once) and a limit of ai.gateway.max-concurrent calls in flight. Interactive calls are admitted
+ * ahead of any waiting background call, and ai.gateway.interactive-reserve of the slots are never
+ * given to background work, so a burst of generation jobs cannot starve a student mid-test.
+ * Limits can be set per deployment under ai.gateway.deployments.&lt;name&gt;.
+ *
+ * When the deployment answers 429, {@link #backOff} pauses its bucket, so every caller waits here
+ * instead of retrying into the throttle, and nobody holds a slot while waiting.
+ */
+@Component
+public class AIRequestGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIRequestGovernor.class);
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ai.gateway.requests-per-minute:300}")
+    private int requestsPerMinute;
+
+    @Value("${ai.gateway.burst:20}")
+    private int burst;
+
+    @Value("${ai.gateway.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${ai.gateway.interactive-reserve:2}")
+    private int interactiveReserve;
+
+    @Value("${ai.gateway.admission-timeout-seconds:300}")
+    private long admissionTimeoutSeconds;
+
+    private final Map<String, DeploymentLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Thrown when a call is not admitted within ai.gateway.admission-timeout-seconds
+     */
+    public static class AdmissionTimeoutException extends RuntimeException {
+        public AdmissionTimeoutException(String deployment, AIPriority priority) {
+            super("Timed out waiting for capacity on AI deployment " + deployment + " (" + priority + ")");
+        }
+    }
+
+    /**
+     * Run one model call once the deployment admits it, recording wait and call latency
+     */
+    public <T> T execute(String deployment, AIPriority priority, Supplier<T> call) {
+        DeploymentLimiter limiter = limiter(deployment);
+        String lane = priority.name().toLowerCase(Locale.ROOT);
+
+        long queuedAt = System.nanoTime();
+        try {
+            limiter.acquire(priority, queuedAt + TimeUnit.SECONDS.toNanos(admissionTimeoutSeconds));
+        } catch (AdmissionTimeoutException e) {
+            record(deployment, lane, "not-admitted", queuedAt);
+            throw e;
+        }
+        Timer.builder("ai.requests.queued")
+                .description("Time an AI call waited for rate and concurrency limits")
+                .tag("deployment", deployment)
+                .tag("priority", lane)
+                .register(meterRegistry)
+                .record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (HttpResponseException e) {
+            if (e.getResponse() != null && e.getResponse().getStatusCode() == 429) {
+                outcome = "throttled";
+            }
+            throw e;
+        } finally {
+            limiter.release();
+            record(deployment, lane, outcome, start);
+        }
+    }
+
+    /**
+     * Stop admitting calls to the deployment for the given time, e.g. a 429's Retry-After
+     */
+    public void backOff(String deployment, Duration duration) {
+        logger.warn("AI deployment {} is throttling; pausing calls for {} ms", deployment, duration.toMillis());
+        limiter(deployment).pause(duration);
+    }
+
+    public void recordUsage(String deployment, int promptTokens, int completionTokens) {
+        tokens(deployment, "prompt").increment(promptTokens);
+        tokens(deployment, "completion").increment(completionTokens);
+    }
+
+    private Counter tokens(String deployment, String type) {
+        return Counter.builder("ai.tokens")
+                .description("Tokens used by AI calls")
+                .tag("deployment", deployment)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private void record(String deployment, String lane, String outcome, long start) {
+        Timer.builder("ai.requests")
+                .description("AI model calls, by outcome")
+                .tag("deployment", deployment)
+                .tag("priority", lane)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private DeploymentLimiter limiter(String deployment) {
+        return limiters.computeIfAbsent(deployment, name -> {
+            String prefix = "ai.gateway.deployments." + name + ".";
+            DeploymentLimiter limiter = new DeploymentLimiter(name,
+                    environment.getProperty(prefix + "requests-per-minute", Integer.class, requestsPerMinute),
+                    environment.getProperty(prefix + "burst", Integer.class, burst),
+                    environment.getProperty(prefix + "max-concurrent", Integer.class, maxConcurrent),
+                    environment.getProperty(prefix + "interactive-reserve", Integer.class, interactiveReserve));
+            Gauge.builder("ai.requests.in-flight", limiter, DeploymentLimiter::inFlight)
+                    .description("AI calls currently running")
+                    .tag("deployment", name)
+                    .register(meterRegistry);
+            return limiter;
+        });
+    }
+
+    /**
+     * Token bucket plus concurrency slots of one deployment, guarded by one lock so a caller is
+     * admitted only when both allow it
+     */
+    static final class DeploymentLimiter {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        private final String name;
+        private final double tokensPerNano;
+        private final double capacity;
+        private final int maxConcurrent;
+        private final int backgroundLimit;
+
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil = refilledAt;
+        private int inFlight;
+        private int interactiveWaiting;
+
+        DeploymentLimiter(String name, int requestsPerMinute, int burst, int maxConcurrent, int interactiveReserve) {
+            this.name = name;
+            this.tokensPerNano = Math.max(requestsPerMinute, 1) / (double) TimeUnit.MINUTES.toNanos(1);
+            this.capacity = Math.max(burst, 1);
+            this.maxConcurrent = Math.max(maxConcurrent, 1);
+            // Background work always gets at least one slot
+            this.backgroundLimit = Math.max(this.maxConcurrent - Math.max(interactiveReserve, 0), 1);
+            this.tokens = capacity;
+        }
+
+        void acquire(AIPriority priority, long deadline) {
+            boolean interactive = priority == AIPriority.INTERACTIVE;
+            lock.lock();
+            try {
+                if (interactive) {
+                    interactiveWaiting++;
+                }
+                try {
+                    while (true) {
+                        long now = System.nanoTime();
+                        long wait = admissionDelay(interactive, now);
+                        if (wait == 0) {
+                            tokens -= 1;
+                            inFlight++;
+                            return;
+                        }
+                        long remaining = deadline - now;
+                        if (remaining <= 0) {
+                            throw new AdmissionTimeoutException(name, priority);
+                        }
+                        changed.awaitNanos(Math.min(wait, remaining));
+                    }
+                } finally {
+                    if (interactive) {
+                        interactiveWaiting--;
+                        // Background callers held back by this one may go now
+                        changed.signalAll();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for AI capacity", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Nanos until this caller may try again, 0 to admit now, Long.MAX_VALUE to wait for a release
+         */
+        private long admissionDelay(boolean interactive, long now) {
+            if (now < pausedUntil) {
+                return pausedUntil - now;
+            }
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (inFlight >= (interactive ? maxConcurrent : backgroundLimit)) {
+                return Long.MAX_VALUE;
+            }
+            if (!interactive && interactiveWaiting > 0) {
+                return Long.MAX_VALUE;
+            }
+            if (tokens < 1) {
+                return Math.max((long) Math.ceil((1 - tokens) / tokensPerNano), 1);
+            }
+            return 0;
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                inFlight--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void pause(Duration duration) {
+            lock.lock();
+            try {
+                pausedUntil = Math.max(pausedUntil, System.nanoTime() + duration.toNanos());
+                // Whatever was saved up is what the deployment just refused, and nothing accrues
+                // while paused: refilling starts again when the pause ends
+                tokens = Math.min(tokens, 1);
+                refilledAt = pausedUntil;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
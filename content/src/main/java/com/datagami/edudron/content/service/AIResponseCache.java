@@ -0,0 +1,112 @@
+package com.datagami.edudron.content.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Model responses keyed by the hash of deployment, system prompt and user prompt, so an identical
+ * call is answered without reaching the model: a retried generation job replays the lectures it
+ * already generated, and a repeated grading prompt gets the same score. Callers opt in per call
+ * (see {@link FoundryAIService#callOpenAI(String, String, AIPriority, boolean)}); prompts a user may
+ * ask to regenerate, such as psych test results, are never cached.
+ *
+ * Responses live in Redis for ai.gateway.cache.ttl-hours and are shared by all nodes; each node
+ * keeps the ones it used recently in memory in front of Redis. Failed calls are never cached.
+ */
+@Component
+public class AIResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIResponseCache.class);
+
+    private static final String KEY_PREFIX = "ai:response:v1:";
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ai.gateway.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.gateway.cache.ttl-hours:24}")
+    private long ttlHours;
+
+    // Short-lived so a node never serves a response long after Redis dropped it
+    private final Cache<String, String> local = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    public String get(String deployment, String systemPrompt, String userPrompt) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(deployment, systemPrompt, userPrompt);
+        String response = local.getIfPresent(key);
+        if (response != null) {
+            count("local");
+            return response;
+        }
+        if (redisTemplate != null) {
+            try {
+                response = redisTemplate.opsForValue().get(key);
+            } catch (Exception e) {
+                logger.warn("Failed to read cached AI response: {}", e.getMessage());
+            }
+        }
+        if (response != null) {
+            local.put(key, response);
+            count("redis");
+            return response;
+        }
+        count("miss");
+        return null;
+    }
+
+    public void put(String deployment, String systemPrompt, String userPrompt, String response) {
+        if (!enabled || response == null) {
+            return;
+        }
+        String key = key(deployment, systemPrompt, userPrompt);
+        local.put(key, response);
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(key, response, Duration.ofHours(ttlHours));
+            } catch (Exception e) {
+                logger.warn("Failed to cache AI response: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("ai.response.cache", "result", result).increment();
+    }
+
+    private static String key(String deployment, String systemPrompt, String userPrompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // NUL separators so moving text between the prompts changes the key
+            for (String part : new String[] {deployment, systemPrompt, userPrompt}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return KEY_PREFIX + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
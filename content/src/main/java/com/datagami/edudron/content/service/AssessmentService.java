@@ -1,7 +1,6 @@
 package com.datagami.edudron.content.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
 import com.datagami.edudron.content.domain.Assessment;
 import com.datagami.edudron.content.repo.AssessmentRepository;
@@ -17,17 +16,12 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -54,49 +48,8 @@ public class AssessmentService {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
     
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-    
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    log.debug("Initializing RestTemplate for identity service calls. Gateway URL: {}", gatewayUrl);
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token (Authorization header)
-                    interceptors.add((request, body, execution) -> {
-                        // Get current request to extract Authorization header
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                // Only add if not already present
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    log.debug("Propagated Authorization header (JWT token) to identity service: {}", request.getURI());
-                                } else {
-                                    log.debug("Authorization header already present in request to {}", request.getURI());
-                                }
-                            } else {
-                                log.debug("No Authorization header found in current request");
-                            }
-                        } else {
-                            log.debug("No ServletRequestAttributes found - cannot forward JWT token");
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    log.debug("RestTemplate initialized with TenantContextRestTemplateInterceptor and JWT token forwarding");
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
     
     public Assessment createAssessment(String courseId, String lectureId, Assessment.AssessmentType assessmentType,
                                       String title, String description, String instructions) {
@@ -211,7 +164,7 @@ public class AssessmentService {
             String meUrl = gatewayUrl + "/idp/users/me";
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl, HttpMethod.GET, new HttpEntity<>(headers),
                 new ParameterizedTypeReference<Map<String, Object>>() {});
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
@@ -242,7 +195,7 @@ public class AssessmentService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 entity,
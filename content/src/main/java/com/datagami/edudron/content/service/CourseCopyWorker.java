@@ -1,6 +1,5 @@
 package com.datagami.edudron.content.service;
 
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
 import com.datagami.edudron.content.dto.AIGenerationJobDTO;
 import com.datagami.edudron.content.dto.CourseCopyJobData;
@@ -17,20 +16,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -55,36 +47,8 @@ public class CourseCopyWorker {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
     
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-    
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank() && !request.getHeaders().containsKey("Authorization")) {
-                                request.getHeaders().add("Authorization", authHeader);
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
     
     /**
      * Submit course copy job to queue (called by API endpoint)
@@ -115,7 +79,6 @@ public class CourseCopyWorker {
     /**
      * Process course copy job (called by queue processor)
      */
-    @Async("aiJobTaskExecutor")
     public void processCourseCopyJob(String jobId) {
         AIGenerationJobDTO job = queueService.getJob(jobId);
         if (job == null) {
@@ -229,7 +192,7 @@ public class CourseCopyWorker {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 entity,
@@ -1,7 +1,6 @@
 package com.datagami.edudron.content.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
 import com.datagami.edudron.content.domain.CourseGenerationIndex;
 import com.datagami.edudron.content.dto.CourseGenerationIndexDTO;
@@ -18,19 +17,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -48,57 +42,19 @@ public class CourseGenerationIndexService {
     @Autowired(required = false)
     private MediaAssetService mediaAssetService;
     
+    @Autowired
+    private ReferenceRetrievalService referenceRetrievalService;
+    
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
     
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
+    @Autowired
+    private RestTemplate restTemplate;
     
     private final Tika tika = new Tika();
     
     private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
     
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    logger.debug("Initializing RestTemplate for identity service calls. Gateway URL: {}", gatewayUrl);
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token (Authorization header)
-                    interceptors.add((request, body, execution) -> {
-                        // Get current request to extract Authorization header
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                // Only add if not already present
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    logger.debug("Propagated Authorization header (JWT token) to identity service: {}", request.getURI());
-                                } else {
-                                    logger.debug("Authorization header already present in request to {}", request.getURI());
-                                }
-                            } else {
-                                logger.debug("No Authorization header found in current request");
-                            }
-                        } else {
-                            logger.debug("No ServletRequestAttributes found - cannot forward JWT token");
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    logger.debug("RestTemplate initialized with TenantContextRestTemplateInterceptor and JWT token forwarding");
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
-    
     /**
      * Safely parse clientId from TenantContext, handling SYSTEM_ADMIN users
      */
@@ -178,6 +134,7 @@ public class CourseGenerationIndexService {
         index.setIsActive(true);
         
         CourseGenerationIndex saved = indexRepository.save(index);
+        referenceRetrievalService.indexDocument(saved);
         logger.info("Uploaded reference content index: {}", saved.getId());
         
         return toDTO(saved);
@@ -288,6 +245,9 @@ public class CourseGenerationIndexService {
         CourseGenerationIndex index = indexRepository.findByIdAndClientId(id, clientId)
             .orElseThrow(() -> new IllegalArgumentException("Index not found: " + id));
         
+        if (index.getIndexType() == CourseGenerationIndex.IndexType.REFERENCE_CONTENT) {
+            referenceRetrievalService.deleteDocument(id, clientId);
+        }
         indexRepository.delete(index);
         logger.info("Deleted index: {}", id);
     }
@@ -310,7 +270,7 @@ public class CourseGenerationIndexService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 entity,
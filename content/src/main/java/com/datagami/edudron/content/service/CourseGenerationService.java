@@ -53,6 +53,9 @@ public class CourseGenerationService {
     @Autowired
     private CourseGenerationIndexService indexService;
     
+    @Autowired
+    private ReferenceRetrievalService referenceRetrievalService;
+    
     public CourseDTO generateCourseFromPrompt(GenerateCourseRequest request) {
         logger.info("Starting course generation from prompt");
         
@@ -62,13 +65,14 @@ public class CourseGenerationService {
         }
         UUID clientId = UUID.fromString(clientIdStr);
         
-        // Step 1: Load reference content and writing format
-        String referenceContent = loadReferenceContent(request.getReferenceIndexIds());
+        // Step 1: Load writing format; reference content is retrieved per prompt below
+        List<String> referenceIndexIds = request.getReferenceIndexIds();
         String writingFormat = loadWritingFormat(request.getWritingFormatId(), request.getWritingFormat());
         
         // Step 2: Parse requirements from prompt (with reference content context)
         logger.info("Parsing course requirements from prompt");
         String enhancedPrompt = request.getPrompt();
+        String referenceContent = referenceRetrievalService.retrieve(clientId, referenceIndexIds, request.getPrompt());
         if (referenceContent != null && !referenceContent.isEmpty()) {
             enhancedPrompt = "Context:\n" + referenceContent + "\n\nUser Request:\n" + request.getPrompt();
         }
@@ -150,14 +154,17 @@ public class CourseGenerationService {
                             lectureInfo.getDurationSeconds()
                         );
                     
-                    // Generate full lecture content
+                    // Generate full lecture content from the reference passages about this lecture
                     logger.info("Generating content for lecture: {}", lectureInfo.getTitle());
+                    String lectureReference = referenceRetrievalService.retrieve(clientId, referenceIndexIds,
+                        lectureInfo.getTitle() + " " + (lectureInfo.getDescription() != null ? lectureInfo.getDescription() : "")
+                            + " " + sectionInfo.getTitle());
                     String lectureContent = foundryAIService.generateLectureContent(
                         lectureInfo.getTitle(),
                         sectionInfo.getTitle() + ": " + sectionDescription,
                         courseContext,
                         writingFormat,
-                        referenceContent
+                        lectureReference
                     );
                     
                     // Generate and insert images if requested (premium feature)
@@ -214,37 +221,6 @@ public class CourseGenerationService {
         return courseService.getCourseById(courseId);
     }
     
-    private String loadReferenceContent(List<String> indexIds) {
-        if (indexIds == null || indexIds.isEmpty()) {
-            return null;
-        }
-        
-        StringBuilder contentBuilder = new StringBuilder();
-        for (String indexId : indexIds) {
-            try {
-                CourseGenerationIndexDTO index = indexService.getIndexById(indexId);
-                if (index.getIndexType() == com.datagami.edudron.content.domain.CourseGenerationIndex.IndexType.REFERENCE_CONTENT) {
-                    if (index.getExtractedText() != null && !index.getExtractedText().isEmpty()) {
-                        if (contentBuilder.length() > 0) {
-                            contentBuilder.append("\n\n---\n\n");
-                        }
-                        contentBuilder.append("Reference: ").append(index.getTitle()).append("\n");
-                        contentBuilder.append(index.getExtractedText());
-                    }
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to load reference index {}: {}", indexId, e.getMessage());
-            }
-        }
-        
-        String content = contentBuilder.toString();
-        // Limit total reference content to avoid token limits (50K chars)
-        if (content.length() > 50000) {
-            content = content.substring(0, 50000) + "... [truncated]";
-        }
-        return content.isEmpty() ? null : content;
-    }
-    
     private String loadWritingFormat(String writingFormatId, String directWritingFormat) {
         // Prefer direct writing format if provided
         if (directWritingFormat != null && !directWritingFormat.trim().isEmpty()) {
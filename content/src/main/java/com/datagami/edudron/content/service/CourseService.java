@@ -1,7 +1,6 @@
 package com.datagami.edudron.content.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
 import com.datagami.edudron.content.domain.Course;
 import com.datagami.edudron.content.dto.CourseDTO;
@@ -21,7 +20,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -29,9 +27,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -61,49 +56,8 @@ public class CourseService {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
     
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-    
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    log.debug("Initializing RestTemplate for student service calls. Gateway URL: {}", gatewayUrl);
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token (Authorization header)
-                    interceptors.add((request, body, execution) -> {
-                        // Get current request to extract Authorization header
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                // Only add if not already present
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    log.debug("Propagated Authorization header (JWT token) to student service: {}", request.getURI());
-                                } else {
-                                    log.debug("Authorization header already present in request to {}", request.getURI());
-                                }
-                            } else {
-                                log.warn("No Authorization header found in current request - student service call may fail with 403 Forbidden: {}", request.getURI());
-                            }
-                        } else {
-                            log.error("No request context available - cannot forward Authorization header to {}. This may cause 403 Forbidden errors.", request.getURI());
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    log.debug("RestTemplate initialized with TenantContextRestTemplateInterceptor and JWT token forwarding");
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
     
     public CourseDTO createCourse(CreateCourseRequest request) {
         // INSTRUCTOR, SUPPORT_STAFF, and STUDENT have view-only access - cannot create courses
@@ -505,7 +459,7 @@ public class CourseService {
         
         try {
             long startTime = System.currentTimeMillis();
-            ResponseEntity<Object> response = getRestTemplate().exchange(
+            ResponseEntity<Object> response = restTemplate.exchange(
                 enrollmentUrl,
                 HttpMethod.POST,
                 entity,
@@ -552,7 +506,7 @@ public class CourseService {
         
         try {
             long startTime = System.currentTimeMillis();
-            ResponseEntity<Object> response = getRestTemplate().exchange(
+            ResponseEntity<Object> response = restTemplate.exchange(
                 enrollmentUrl,
                 HttpMethod.POST,
                 entity,
@@ -816,7 +770,7 @@ public class CourseService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 entity,
@@ -851,7 +805,7 @@ public class CourseService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 entity,
@@ -880,7 +834,7 @@ public class CourseService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 accessUrl,
                 HttpMethod.GET,
                 entity,
@@ -923,7 +877,7 @@ public class CourseService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Boolean> response = getRestTemplate().exchange(
+            ResponseEntity<Boolean> response = restTemplate.exchange(
                 url,
                 HttpMethod.GET,
                 entity,
@@ -960,7 +914,7 @@ public class CourseService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                 meUrl,
                 HttpMethod.GET,
                 entity,
@@ -996,7 +950,7 @@ public class CourseService {
                 headers.setContentType(MediaType.APPLICATION_JSON);
                 HttpEntity<?> entity = new HttpEntity<>(headers);
                 
-                ResponseEntity<List<Map<String, Object>>> response = getRestTemplate().exchange(
+                ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                     classesUrl,
                     HttpMethod.GET,
                     entity,
@@ -1036,7 +990,7 @@ public class CourseService {
                 headers.setContentType(MediaType.APPLICATION_JSON);
                 HttpEntity<?> entity = new HttpEntity<>(headers);
                 
-                ResponseEntity<List<Map<String, Object>>> response = getRestTemplate().exchange(
+                ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                     sectionsUrl,
                     HttpMethod.GET,
                     entity,
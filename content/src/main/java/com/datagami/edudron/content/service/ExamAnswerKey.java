@@ -0,0 +1,125 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.content.domain.QuizOption;
+import com.datagami.edudron.content.domain.QuizQuestion;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What grading needs from an exam's questions, compiled once and shared by every submission of
+ * that exam: points, correct option ids, the TRUE_FALSE answer and the reference answer of
+ * subjective questions. Detached from the entities, so it can be cached and read from any thread.
+ */
+public final class ExamAnswerKey {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAnswerKey.class);
+
+    public enum Grading {
+        /** MULTIPLE_CHOICE and TRUE_FALSE, scored locally against the key */
+        OBJECTIVE,
+        /** Subjective with a reference answer, scored by semantic similarity */
+        REFERENCE_ANSWER,
+        /** Subjective without a usable reference answer, left for the instructor */
+        MANUAL
+    }
+
+    public record Question(String id, QuizQuestion.QuestionType type, double points,
+                           Set<String> correctOptionIds, boolean trueFalseAnswer, String referenceAnswer) {
+
+        public Grading grading() {
+            if (type == QuizQuestion.QuestionType.MULTIPLE_CHOICE || type == QuizQuestion.QuestionType.TRUE_FALSE) {
+                return Grading.OBJECTIVE;
+            }
+            return referenceAnswer != null ? Grading.REFERENCE_ANSWER : Grading.MANUAL;
+        }
+
+        /**
+         * Points for an objective answer: the selected option id for MULTIPLE_CHOICE, a boolean
+         * for TRUE_FALSE. Options are matched by id, so shuffled option order does not matter.
+         */
+        public double scoreObjective(JsonNode answer) {
+            if (type == QuizQuestion.QuestionType.MULTIPLE_CHOICE) {
+                return correctOptionIds.contains(answer.asText()) ? points : 0.0;
+            }
+            if (type == QuizQuestion.QuestionType.TRUE_FALSE) {
+                return answer.asBoolean() == trueFalseAnswer ? points : 0.0;
+            }
+            return 0.0;
+        }
+    }
+
+    private final List<Question> questions;
+    private final double maxScore;
+
+    private ExamAnswerKey(List<Question> questions) {
+        this.questions = Collections.unmodifiableList(questions);
+        this.maxScore = questions.stream().mapToDouble(Question::points).sum();
+    }
+
+    /**
+     * Compile the key from questions loaded with their options, keeping their order
+     */
+    public static ExamAnswerKey compile(List<QuizQuestion> quizQuestions) {
+        List<Question> questions = new ArrayList<>(quizQuestions.size());
+        for (QuizQuestion quizQuestion : quizQuestions) {
+            questions.add(compile(quizQuestion));
+        }
+        return new ExamAnswerKey(questions);
+    }
+
+    static Question compile(QuizQuestion question) {
+        List<QuizOption> options = question.getOptions() != null ? question.getOptions() : List.of();
+        Set<String> correctOptionIds = new HashSet<>();
+        boolean trueFalseAnswer = false;
+        boolean trueFalseAnswerFound = false;
+        for (QuizOption option : options) {
+            if (Boolean.TRUE.equals(option.getIsCorrect())) {
+                correctOptionIds.add(option.getId());
+                // TRUE_FALSE: the first correct option's text is the answer
+                if (!trueFalseAnswerFound) {
+                    trueFalseAnswer = Boolean.parseBoolean(option.getOptionText());
+                    trueFalseAnswerFound = true;
+                }
+            }
+        }
+
+        if ((question.getQuestionType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE
+                || question.getQuestionType() == QuizQuestion.QuestionType.TRUE_FALSE) && options.isEmpty()) {
+            logger.error("Question {} has no options loaded! Type: {}", question.getId(), question.getQuestionType());
+        }
+
+        // The instructor's edit takes precedence over the generated tentative answer
+        String referenceAnswer = question.getEditedTentativeAnswer() != null
+                ? question.getEditedTentativeAnswer()
+                : question.getTentativeAnswer();
+        if (!Boolean.TRUE.equals(question.getUseTentativeAnswerForGrading())) {
+            referenceAnswer = null;
+        }
+
+        double points = question.getPoints() != null ? question.getPoints() : 0.0;
+        return new Question(question.getId(), question.getQuestionType(), points,
+                Set.copyOf(correctOptionIds), trueFalseAnswer, referenceAnswer);
+    }
+
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public double getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Whether any question is scored by comparing with a reference answer, i.e. needs the AI
+     */
+    public boolean hasReferenceAnswers() {
+        return questions.stream().anyMatch(question -> question.grading() == Grading.REFERENCE_ANSWER);
+    }
+}
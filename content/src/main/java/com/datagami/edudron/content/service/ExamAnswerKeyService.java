@@ -0,0 +1,67 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.content.repo.QuizQuestionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compiled answer keys per exam version, so a burst of submissions for one exam loads and
+ * compiles its questions once instead of once per submission.
+ *
+ * The version is read on every lookup with a single aggregate query; any edit to the exam's
+ * questions or options produces a new version, so a cached key is never used after an edit.
+ * Keys stay on this node: they hold the correct answers and are never sent anywhere.
+ */
+@Service
+public class ExamAnswerKeyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAnswerKeyService.class);
+
+    @Autowired
+    private QuizQuestionRepository quizQuestionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // clientId::examId::version -> key; superseded versions are no longer read and expire
+    private final Cache<String, ExamAnswerKey> answerKeys = Caffeine.newBuilder()
+            .maximumSize(500)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    @Transactional(readOnly = true)
+    public ExamAnswerKey getAnswerKey(String examId, UUID clientId) {
+        String cacheKey = clientId + "::" + examId + "::" + version(examId, clientId);
+        ExamAnswerKey answerKey = answerKeys.getIfPresent(cacheKey);
+        if (answerKey != null) {
+            meterRegistry.counter("exam.grading.answer-key", "result", "hit").increment();
+            return answerKey;
+        }
+
+        answerKey = ExamAnswerKey.compile(
+                quizQuestionRepository.findByAssessmentIdAndClientIdWithOptions(examId, clientId));
+        answerKeys.put(cacheKey, answerKey);
+        meterRegistry.counter("exam.grading.answer-key", "result", "compiled").increment();
+        logger.debug("Compiled answer key for exam {} ({} questions)", examId, answerKey.getQuestions().size());
+        return answerKey;
+    }
+
+    private String version(String examId, UUID clientId) {
+        List<Object[]> rows = quizQuestionRepository.findAnswerKeyVersion(examId, clientId);
+        if (rows.isEmpty()) {
+            return "empty";
+        }
+        Object[] row = rows.get(0);
+        return row[0] + ":" + row[1] + ":" + row[2] + ":" + row[3];
+    }
+}
@@ -0,0 +1,329 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.AuthorizationContext;
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.content.domain.Assessment;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumes the exam grading queue.
+ *
+ * Each consumer claims a batch of submissions, groups it by exam and grades every group against
+ * one compiled {@link ExamAnswerKey}: the exam and its questions are read once per group, objective
+ * answers are scored in memory and the group's subjective answers are scored together by
+ * {@link SemanticSimilarityService}, so duplicates across students reach the AI once.
+ *
+ * A submission that fails for a reason a retry can fix (student or the AI provider unavailable) is
+ * left unacknowledged and is requeued once its claim lapses, up to grading.queue.max-deliveries
+ * times. Submissions that can never be graded automatically are dropped right away.
+ */
+@Component
+public class ExamGradingProcessor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamGradingProcessor.class);
+
+    private static final long POLL_ERROR_BACKOFF_MS = 2000;
+
+    @Autowired
+    private ExamGradingQueueService queueService;
+
+    @Autowired
+    private ExamAnswerKeyService answerKeyService;
+
+    @Autowired
+    private ExamReviewService examReviewService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${grading.queue.consumers:2}")
+    private int consumerCount;
+
+    @Value("${grading.queue.batch-size:50}")
+    private int batchSize;
+
+    @Value("${grading.queue.poll-timeout-seconds:2}")
+    private long pollTimeoutSeconds;
+
+    @Value("${grading.queue.visibility-timeout-seconds:120}")
+    private long visibilityTimeoutSeconds;
+
+    @Value("${grading.queue.max-deliveries:3}")
+    private int maxDeliveries;
+
+    @Value("${grading.queue.shutdown-grace-seconds:30}")
+    private long shutdownGraceSeconds;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private record ExamGroup(UUID clientId, String examId) {
+    }
+
+    // Submissions being graded on this node; their claims are renewed every tick
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong processingDepth = new AtomicLong();
+
+    private volatile boolean running = false;
+    private ExecutorService consumers;
+
+    @Override
+    public void start() {
+        consumers = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grading-queue-", 0).factory())
+                : Executors.newFixedThreadPool(Math.max(consumerCount, 1), new CustomizableThreadFactory("grading-queue-"));
+        Gauge.builder("exam.grading.depth", queueDepth, AtomicLong::get)
+                .description("Submissions waiting to be graded")
+                .register(meterRegistry);
+        Gauge.builder("exam.grading.in-flight", processingDepth, AtomicLong::get)
+                .description("Submissions claimed by a consumer on any node and not yet graded")
+                .register(meterRegistry);
+        running = true;
+
+        for (int i = 0; i < consumerCount; i++) {
+            consumers.submit(this::consume);
+        }
+        logger.info("Started {} grading consumer(s), batch size {}", Math.max(consumerCount, 0), batchSize);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (consumers == null) {
+            return;
+        }
+        // Unfinished submissions stay on the processing list and are requeued once their claim lapses
+        consumers.shutdown();
+        try {
+            if (!consumers.awaitTermination(shutdownGraceSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Grading consumers still busy after {}s; their submissions will be requeued", shutdownGraceSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Renew claims for submissions graded here, requeue lapsed claims and refresh queue gauges
+     */
+    @Scheduled(fixedDelayString = "${grading.queue.maintenance-interval-ms:15000}", initialDelay = 5000)
+    public void maintainQueue() {
+        if (!running) {
+            return;
+        }
+        try {
+            queueService.renewClaims(List.copyOf(inFlight));
+            for (String submissionId : queueService.requeueExpiredJobs(Duration.ofSeconds(visibilityTimeoutSeconds), maxDeliveries)) {
+                logger.error("Grading of submission {} failed {} times; it needs a manual review or regrade",
+                        submissionId, maxDeliveries);
+                count("abandoned");
+            }
+            queueDepth.set(queueService.getQueueDepth());
+            processingDepth.set(queueService.getInFlightCount());
+        } catch (Exception e) {
+            logger.error("Error maintaining the grading queue", e);
+        }
+    }
+
+    private void consume() {
+        Duration pollTimeout = Duration.ofSeconds(pollTimeoutSeconds);
+        while (running) {
+            List<String> submissionIds;
+            try {
+                submissionIds = queueService.claim(pollTimeout, Math.max(batchSize, 1));
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                logger.error("Error polling the grading queue", e);
+                try {
+                    Thread.sleep(POLL_ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+            if (!submissionIds.isEmpty()) {
+                processBatch(submissionIds);
+            }
+        }
+    }
+
+    void processBatch(List<String> submissionIds) {
+        inFlight.addAll(submissionIds);
+        DistributionSummary.builder("exam.grading.batch.size")
+                .description("Submissions claimed together by one consumer")
+                .register(meterRegistry)
+                .record(submissionIds.size());
+
+        Map<ExamGroup, List<ExamGradingQueueService.GradingJob>> groups = new LinkedHashMap<>();
+        for (String submissionId : submissionIds) {
+            ExamGradingQueueService.GradingJob job = queueService.getJob(submissionId);
+            if (job == null) {
+                logger.warn("Grading job for submission {} has expired; dropping it", submissionId);
+                finish(submissionId);
+                continue;
+            }
+            groups.computeIfAbsent(new ExamGroup(job.clientId(), job.examId()), k -> new ArrayList<>()).add(job);
+        }
+
+        for (Map.Entry<ExamGroup, List<ExamGradingQueueService.GradingJob>> group : groups.entrySet()) {
+            gradeGroup(group.getKey(), group.getValue());
+        }
+    }
+
+    private void gradeGroup(ExamGroup group, List<ExamGradingQueueService.GradingJob> jobs) {
+        TenantContext.setClientId(group.clientId().toString());
+        try {
+            Assessment exam;
+            ExamAnswerKey answerKey;
+            try {
+                exam = examReviewService.getReviewableExam(group.examId(), group.clientId());
+                answerKey = answerKeyService.getAnswerKey(group.examId(), group.clientId());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Submissions of exam {} cannot be graded automatically: {}", group.examId(), e.getMessage());
+                for (ExamGradingQueueService.GradingJob job : jobs) {
+                    count("rejected");
+                    finish(job.submissionId());
+                }
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to load exam {} for grading; {} submission(s) will be retried",
+                        group.examId(), jobs.size(), e);
+                for (ExamGradingQueueService.GradingJob job : jobs) {
+                    retryLater(job.submissionId());
+                }
+                return;
+            }
+
+            // Fetch every submission first so their subjective answers are scored together
+            Map<ExamGradingQueueService.GradingJob, JsonNode> submissions = new LinkedHashMap<>();
+            for (ExamGradingQueueService.GradingJob job : jobs) {
+                AuthorizationContext.setAuthorization(job.authorization());
+                try {
+                    submissions.put(job, examReviewService.fetchSubmission(job.submissionId()));
+                } catch (Exception e) {
+                    handleFailure(job, e);
+                } finally {
+                    AuthorizationContext.clear();
+                }
+            }
+            if (submissions.isEmpty()) {
+                return;
+            }
+
+            SemanticSimilarityService.SimilarityScores similarityScores;
+            try {
+                similarityScores = examReviewService.scoreSubjectiveAnswers(answerKey, List.copyOf(submissions.values()));
+            } catch (Exception e) {
+                // Each submission then scores its subjective answers on its own
+                logger.error("Failed to score subjective answers of exam {} together", group.examId(), e);
+                similarityScores = null;
+            }
+
+            for (Map.Entry<ExamGradingQueueService.GradingJob, JsonNode> submission : submissions.entrySet()) {
+                grade(submission.getKey(), submission.getValue(), exam, answerKey, similarityScores);
+            }
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private void grade(ExamGradingQueueService.GradingJob job, JsonNode submission, Assessment exam,
+                       ExamAnswerKey answerKey, SemanticSimilarityService.SimilarityScores similarityScores) {
+        AuthorizationContext.setAuthorization(job.authorization());
+        try {
+            examReviewService.gradeSubmission(job.submissionId(), submission, exam, answerKey, similarityScores);
+            count("graded");
+            Timer.builder("exam.grading.lag")
+                    .description("Time from exam submission until its grade is stored")
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(System.currentTimeMillis() - job.enqueuedAt()));
+            finish(job.submissionId());
+        } catch (Exception e) {
+            handleFailure(job, e);
+        } finally {
+            AuthorizationContext.clear();
+        }
+    }
+
+    private void handleFailure(ExamGradingQueueService.GradingJob job, Exception e) {
+        if (e instanceof IllegalArgumentException || e instanceof IllegalStateException
+                || (e instanceof HttpClientErrorException clientError && isPermanent(clientError.getStatusCode()))) {
+            // Missing submission or answers, or a request student refuses: a retry gets the same answer
+            logger.warn("Submission {} cannot be graded automatically: {}", job.submissionId(), e.getMessage());
+            count("rejected");
+            finish(job.submissionId());
+        } else {
+            logger.error("Failed to grade submission {}; it will be retried", job.submissionId(), e);
+            retryLater(job.submissionId());
+        }
+    }
+
+    /**
+     * Client errors a retry cannot fix. 401, 408 and 429 (an expiring token, a timeout, rate
+     * limiting) are retried; the job expires with its token, so an expired one is not retried forever.
+     */
+    private static boolean isPermanent(HttpStatusCode status) {
+        return status.value() == 400 || status.value() == 403 || status.value() == 404 || status.value() == 409;
+    }
+
+    private void finish(String submissionId) {
+        inFlight.remove(submissionId);
+        try {
+            queueService.complete(submissionId);
+        } catch (Exception e) {
+            // The claim lapses and the submission is graded again, which overwrites the same result
+            logger.error("Failed to acknowledge grading of submission {}", submissionId, e);
+        }
+    }
+
+    private void retryLater(String submissionId) {
+        // Stop renewing the claim; the maintenance tick requeues it once it lapses
+        inFlight.remove(submissionId);
+        count("retry");
+    }
+
+    private void count(String outcome) {
+        Counter.builder("exam.grading.submissions")
+                .description("Submissions taken off the grading queue, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
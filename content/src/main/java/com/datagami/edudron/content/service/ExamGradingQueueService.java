@@ -0,0 +1,166 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.common.security.JwtPrincipal;
+import com.datagami.edudron.content.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis queue of exam submissions waiting to be graded, fed when a student submits an exam.
+ *
+ * Uses the claim / acknowledge / requeue primitives of {@link AIJobQueueService}, so a submission
+ * claimed by a node that dies is graded by another one. The job id is the submission id: a
+ * submission that is already waiting is not queued twice. The job keeps the submitter's tenant
+ * and Authorization header, which the consumer needs to read and update the submission in student,
+ * so it lives in Redis no longer than that token is valid.
+ */
+@Service
+public class ExamGradingQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamGradingQueueService.class);
+
+    public static final String GRADING_QUEUE = "grading:queue:exam-submission";
+
+    private static final String JOB_PREFIX = "grading:job:";
+    private static final Duration MAX_JOB_TTL = Duration.ofHours(24);
+
+    public record GradingJob(String submissionId, String examId, UUID clientId, String authorization, long enqueuedAt) {
+    }
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private AIJobQueueService queueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    /**
+     * Queue a submission for grading.
+     *
+     * @throws RuntimeException if Redis is unavailable or the token cannot outlive the wait; the
+     *         caller grades the submission directly instead
+     */
+    public void enqueue(String examId, String submissionId, String authorization) {
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null) {
+            throw new IllegalStateException("Tenant context is not set");
+        }
+        Duration ttl = jobTtl(authorization);
+        GradingJob job = new GradingJob(submissionId, examId, UUID.fromString(clientIdStr), authorization,
+                System.currentTimeMillis());
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(job);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize grading job", e);
+        }
+
+        Boolean created = redisTemplate.opsForValue().setIfAbsent(JOB_PREFIX + submissionId, json, ttl);
+        if (!Boolean.TRUE.equals(created)) {
+            logger.debug("Submission {} is already queued for grading", submissionId);
+            return;
+        }
+        try {
+            redisTemplate.opsForList().rightPush(GRADING_QUEUE, submissionId);
+        } catch (RuntimeException e) {
+            // Without this the stored job would keep the submission from being queued again
+            redisTemplate.delete(JOB_PREFIX + submissionId);
+            throw e;
+        }
+        meterRegistry.counter("exam.grading.enqueued").increment();
+        logger.info("Submission {} of exam {} queued for grading", submissionId, examId);
+    }
+
+    /**
+     * How long the job may wait: until the submitter's token expires, at most MAX_JOB_TTL. A job
+     * that outlives its token could not be graded anyway and would only keep the token in Redis.
+     */
+    Duration jobTtl(String authorization) {
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        JwtPrincipal principal = token != null ? jwtUtil.parseToken(token) : null;
+        if (principal == null) {
+            throw new IllegalStateException("Grading job needs a valid bearer token");
+        }
+        if (principal.expiresAt() == null) {
+            return MAX_JOB_TTL;
+        }
+        Duration remaining = Duration.between(Instant.now(), principal.expiresAt());
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw new IllegalStateException("Bearer token has expired");
+        }
+        return remaining.compareTo(MAX_JOB_TTL) < 0 ? remaining : MAX_JOB_TTL;
+    }
+
+    /**
+     * Claim up to maxJobs submissions, waiting up to the timeout for the first
+     */
+    public List<String> claim(Duration timeout, int maxJobs) {
+        return queueService.claimJobs(GRADING_QUEUE, timeout, maxJobs);
+    }
+
+    /**
+     * Load a queued job, or null if it has expired
+     */
+    public GradingJob getJob(String submissionId) {
+        try {
+            String json = redisTemplate.opsForValue().get(JOB_PREFIX + submissionId);
+            return json != null ? objectMapper.readValue(json, GradingJob.class) : null;
+        } catch (Exception e) {
+            logger.error("Failed to load grading job {}", submissionId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Remove a job that is finished (graded or rejected); the submission may be queued again afterwards
+     */
+    public void complete(String submissionId) {
+        redisTemplate.delete(JOB_PREFIX + submissionId);
+        queueService.acknowledgeJob(GRADING_QUEUE, submissionId);
+    }
+
+    public void renewClaims(Collection<String> submissionIds) {
+        queueService.renewClaims(GRADING_QUEUE, submissionIds);
+    }
+
+    /**
+     * Requeue jobs whose claim has lapsed; jobs that ran out of deliveries are deleted and returned
+     */
+    public List<String> requeueExpiredJobs(Duration visibilityTimeout, int maxDeliveries) {
+        List<String> exhausted = queueService.requeueExpiredJobs(GRADING_QUEUE, visibilityTimeout, maxDeliveries);
+        for (String submissionId : exhausted) {
+            redisTemplate.delete(JOB_PREFIX + submissionId);
+        }
+        return exhausted;
+    }
+
+    public long getQueueDepth() {
+        return queueService.getQueueDepth(GRADING_QUEUE);
+    }
+
+    public long getInFlightCount() {
+        return queueService.getInFlightCount(GRADING_QUEUE);
+    }
+}
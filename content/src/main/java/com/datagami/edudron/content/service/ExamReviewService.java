@@ -1,9 +1,7 @@
 package com.datagami.edudron.content.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.content.domain.Assessment;
-import com.datagami.edudron.content.domain.QuizOption;
 import com.datagami.edudron.content.domain.QuizQuestion;
 import com.datagami.edudron.content.repo.AssessmentRepository;
 import com.datagami.edudron.content.repo.QuizQuestionRepository;
@@ -21,17 +19,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -44,6 +38,9 @@ public class ExamReviewService {
     @Autowired
     private ExamReviewAIService examReviewAIService;
 
+    @Autowired
+    private SemanticSimilarityService semanticSimilarityService;
+
     @Autowired
     private AssessmentRepository assessmentRepository;
 
@@ -56,65 +53,73 @@ public class ExamReviewService {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread-safe lazy initialization
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate newTemplate = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                                .getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    newTemplate.setInterceptors(interceptors);
-                    restTemplate = newTemplate;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * Review submission with AI - grades both objective and subjective questions
      */
     @org.springframework.scheduling.annotation.Async
     public java.util.concurrent.CompletableFuture<JsonNode> reviewSubmissionWithAI(String submissionId) {
+        return java.util.concurrent.CompletableFuture.completedFuture(reviewSubmission(submissionId));
+    }
+
+    /**
+     * Review a submission on the calling thread, against the exam's current questions.
+     * Used where grading must not wait for the grading queue (regrades, or the queue is unavailable).
+     */
+    public JsonNode reviewSubmission(String submissionId) {
         String clientIdStr = TenantContext.getClientId();
         if (clientIdStr == null) {
             throw new IllegalStateException("Tenant context is not set");
         }
         UUID clientId = UUID.fromString(clientIdStr);
 
-        // Fetch submission from student service
-        String submissionUrl = gatewayUrl + "/api/student/exams/submissions/" + submissionId;
-        ResponseEntity<JsonNode> submissionResponse = getRestTemplate().exchange(
-                submissionUrl,
-                HttpMethod.GET,
-                new HttpEntity<>(new HttpHeaders()),
-                JsonNode.class);
+        JsonNode submission = fetchSubmission(submissionId);
+        Assessment exam = getReviewableExam(submission.get("assessmentId").asText(), clientId);
 
-        if (!submissionResponse.getStatusCode().is2xxSuccessful() || submissionResponse.getBody() == null) {
-            throw new IllegalArgumentException("Submission not found: " + submissionId);
+        // Get all questions for this exam (with options eagerly loaded for grading)
+        List<QuizQuestion> questions = quizQuestionRepository.findByAssessmentIdAndClientIdWithOptions(
+                exam.getId(), clientId);
+
+        ExamAnswerKey answerKey = ExamAnswerKey.compile(questions);
+        return grade(submissionId, submission, exam, answerKey,
+                scoreSubjectiveAnswers(answerKey, List.of(submission)));
+    }
+
+    /**
+     * Score the subjective answers of several submissions of one exam together, so duplicate
+     * answers are scored once and the rest share batched model calls. Null when the exam has no
+     * questions graded against a reference answer.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SemanticSimilarityService.SimilarityScores scoreSubjectiveAnswers(ExamAnswerKey answerKey, List<JsonNode> submissions) {
+        if (!answerKey.hasReferenceAnswers()) {
+            return null;
         }
+        return semanticSimilarityService.score(answerKey,
+                submissions.stream().map(submission -> submission.get("answersJson")).toList());
+    }
 
-        JsonNode submission = submissionResponse.getBody();
-        String assessmentId = submission.get("assessmentId").asText();
+    /**
+     * Grade a queued submission against an answer key compiled earlier for its exam.
+     * Runs outside a transaction: nothing here reads the database, and the calls to student
+     * (and to the AI provider for subjective answers) should not hold a connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JsonNode gradeSubmission(String submissionId, JsonNode submission, Assessment exam, ExamAnswerKey answerKey,
+                                    SemanticSimilarityService.SimilarityScores similarityScores) {
+        if (!exam.getId().equals(submission.path("assessmentId").asText())) {
+            throw new IllegalArgumentException("Submission " + submissionId + " does not belong to exam " + exam.getId());
+        }
+        return grade(submissionId, submission, exam, answerKey, similarityScores);
+    }
 
+    /**
+     * Load an exam and check it may be reviewed automatically
+     */
+    @Transactional(readOnly = true)
+    public Assessment getReviewableExam(String assessmentId, UUID clientId) {
         Assessment exam = assessmentRepository.findByIdAndClientId(assessmentId, clientId)
                 .orElseThrow(() -> new IllegalArgumentException("Assessment not found: " + assessmentId));
 
@@ -127,80 +132,88 @@ public class ExamReviewService {
             throw new IllegalArgumentException(
                     "AI review is not allowed for this exam. Review method is set to INSTRUCTOR only.");
         }
+        return exam;
+    }
 
-        // Get all questions for this exam (with options eagerly loaded for grading)
-        List<QuizQuestion> questions = quizQuestionRepository.findByAssessmentIdAndClientIdWithOptions(
-                exam.getId(), clientId);
+    /**
+     * Load a submission from student with the caller's credentials
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JsonNode fetchSubmission(String submissionId) {
+        // Fetch submission from student service
+        String submissionUrl = gatewayUrl + "/api/student/exams/submissions/" + submissionId;
+        ResponseEntity<JsonNode> submissionResponse = restTemplate.exchange(
+                submissionUrl,
+                HttpMethod.GET,
+                new HttpEntity<>(new HttpHeaders()),
+                JsonNode.class);
 
+        if (!submissionResponse.getStatusCode().is2xxSuccessful() || submissionResponse.getBody() == null) {
+            throw new IllegalArgumentException("Submission not found: " + submissionId);
+        }
+        return submissionResponse.getBody();
+    }
+
+    /**
+     * Score every question of the key and store the result on the submission in student.
+     * Objective answers are scored locally; subjective answers with a reference answer use the
+     * precomputed similarity scores, and go to the AI one by one only if they are missing there.
+     */
+    private JsonNode grade(String submissionId, JsonNode submission, Assessment exam, ExamAnswerKey answerKey,
+                           SemanticSimilarityService.SimilarityScores similarityScores) {
         JsonNode answersJson = submission.get("answersJson");
         if (answersJson == null) {
             throw new IllegalStateException("No answers found in submission");
         }
 
-        logger.info("Grading submission {} with {} questions", submissionId, questions.size());
+        logger.info("Grading submission {} with {} questions", submissionId, answerKey.getQuestions().size());
 
         double totalScore = 0.0;
-        double maxScore = 0.0;
+        double maxScore = answerKey.getMaxScore();
         ObjectNode reviewFeedback = objectMapper.createObjectNode();
         ArrayNode questionReviews = objectMapper.createArrayNode();
 
-        for (QuizQuestion question : questions) {
-            maxScore += question.getPoints();
-
-            // Ensure options are loaded for multiple choice questions
-            if (question.getQuestionType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE ||
-                    question.getQuestionType() == QuizQuestion.QuestionType.TRUE_FALSE) {
-                if (question.getOptions() == null || question.getOptions().isEmpty()) {
-                    logger.error("Question {} has no options loaded! Type: {}",
-                            question.getId(), question.getQuestionType());
-                } else {
-                    logger.debug("Question {} has {} options loaded",
-                            question.getId(), question.getOptions().size());
-                }
-            }
-
-            JsonNode answerNode = answersJson.get(question.getId());
+        for (ExamAnswerKey.Question question : answerKey.getQuestions()) {
+            JsonNode answerNode = answersJson.get(question.id());
             if (answerNode == null || answerNode.isNull()
                     || (answerNode.isTextual() && answerNode.asText().trim().isEmpty())) {
                 // No answer provided
-                questionReviews.add(createQuestionReview(question.getId(), 0.0, question.getPoints(),
+                questionReviews.add(createQuestionReview(question.id(), 0.0, question.points(),
                         "No answer provided", false));
                 continue;
             }
 
             double pointsEarned = 0.0;
-            String feedback = "";
+            String feedback;
             boolean isCorrect = false;
 
-            if (question.getQuestionType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE ||
-                    question.getQuestionType() == QuizQuestion.QuestionType.TRUE_FALSE) {
-                // Objective question - exact match
-                pointsEarned = gradeObjectiveQuestion(question, answerNode);
-                isCorrect = pointsEarned == question.getPoints();
-                feedback = isCorrect ? "Correct" : "Incorrect";
-            } else {
-                // Subjective question - semantic similarity
-                String studentAnswer = answerNode.asText();
-                String tentativeAnswer = question.getEditedTentativeAnswer() != null
-                        ? question.getEditedTentativeAnswer()
-                        : question.getTentativeAnswer();
-
-                if (tentativeAnswer != null && question.getUseTentativeAnswerForGrading()) {
-                    double similarityScore = examReviewAIService.compareAnswersSemantically(
-                            studentAnswer, tentativeAnswer);
+            switch (question.grading()) {
+                case OBJECTIVE -> {
+                    // Objective question - exact match
+                    pointsEarned = question.scoreObjective(answerNode);
+                    isCorrect = pointsEarned == question.points();
+                    feedback = isCorrect ? "Correct" : "Incorrect";
+                }
+                case REFERENCE_ANSWER -> {
+                    // Subjective question - semantic similarity
+                    Double precomputed = similarityScores != null
+                            ? similarityScores.get(question, answerNode.asText())
+                            : null;
+                    double similarityScore = precomputed != null
+                            ? precomputed
+                            : examReviewAIService.compareAnswersSemantically(answerNode.asText(), question.referenceAnswer());
                     pointsEarned = examReviewAIService.calculateGradeFromSimilarity(
-                            similarityScore, question.getPoints());
+                            similarityScore, question.points());
                     feedback = String.format("Similarity: %.1f%%", similarityScore);
                     isCorrect = similarityScore >= 70.0;
-                } else {
+                }
+                default ->
                     // No tentative answer available - cannot auto-grade
                     feedback = "Requires manual review";
-                    pointsEarned = 0.0;
-                }
             }
 
             totalScore += pointsEarned;
-            questionReviews.add(createQuestionReview(question.getId(), pointsEarned, question.getPoints(),
+            questionReviews.add(createQuestionReview(question.id(), pointsEarned, question.points(),
                     feedback, isCorrect));
         }
 
@@ -237,7 +250,7 @@ public class ExamReviewService {
             logger.error("Failed to serialize update request", e);
             throw new RuntimeException("Failed to serialize update request", e);
         }
-        getRestTemplate().exchange(
+        restTemplate.exchange(
                 updateUrl,
                 HttpMethod.POST,
                 new HttpEntity<>(requestBody, headers),
@@ -246,57 +259,7 @@ public class ExamReviewService {
         logger.info("AI review completed for submission: {}, score: {}/{}",
                 submissionId, totalScore, maxScore);
 
-        return java.util.concurrent.CompletableFuture.completedFuture(reviewFeedback);
-    }
-
-    private double gradeObjectiveQuestion(QuizQuestion question, JsonNode answerNode) {
-        if (question.getQuestionType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE) {
-            String selectedOptionId = answerNode.asText();
-            logger.debug("Grading MC question {}: selected option ID = '{}'", question.getId(), selectedOptionId);
-
-            // Find the correct option
-            for (QuizOption option : question.getOptions()) {
-                logger.debug("  Checking option {}: id='{}', isCorrect={}",
-                        option.getSequence(), option.getId(), option.getIsCorrect());
-
-                if (option.getId().equals(selectedOptionId) && option.getIsCorrect()) {
-                    logger.info("Correct answer! Question {}, option {}, points: {}",
-                            question.getId(), option.getId(), question.getPoints());
-                    return question.getPoints();
-                }
-            }
-
-            // Check if the selected option exists but is incorrect
-            boolean optionFound = false;
-            for (QuizOption option : question.getOptions()) {
-                if (option.getId().equals(selectedOptionId)) {
-                    optionFound = true;
-                    logger.info("Incorrect answer selected. Question {}, selected option {}, correct option not found",
-                            question.getId(), selectedOptionId);
-                    break;
-                }
-            }
-
-            if (!optionFound) {
-                logger.warn("Selected option ID '{}' not found in question {} options",
-                        selectedOptionId, question.getId());
-            }
-
-            return 0.0;
-        } else if (question.getQuestionType() == QuizQuestion.QuestionType.TRUE_FALSE) {
-            boolean studentAnswer = answerNode.asBoolean();
-            // For TRUE_FALSE, we need to check against the correct answer
-            // Assuming the first option with isCorrect=true is the correct answer
-            boolean correctAnswer = false;
-            for (QuizOption option : question.getOptions()) {
-                if (option.getIsCorrect()) {
-                    correctAnswer = Boolean.parseBoolean(option.getOptionText());
-                    break;
-                }
-            }
-            return (studentAnswer == correctAnswer) ? question.getPoints() : 0.0;
-        }
-        return 0.0;
+        return reviewFeedback;
     }
 
     private ObjectNode createQuestionReview(String questionId, double pointsEarned, double maxPoints,
@@ -324,7 +287,7 @@ public class ExamReviewService {
 
         // Fetch submission to get assessment ID
         String submissionUrl = gatewayUrl + "/api/student/exams/submissions/" + submissionId;
-        ResponseEntity<JsonNode> submissionResponse = getRestTemplate().exchange(
+        ResponseEntity<JsonNode> submissionResponse = restTemplate.exchange(
                 submissionUrl,
                 HttpMethod.GET,
                 new HttpEntity<>(new HttpHeaders()),
@@ -379,7 +342,7 @@ public class ExamReviewService {
             logger.error("Failed to serialize update request", e);
             throw new RuntimeException("Failed to serialize update request", e);
         }
-        ResponseEntity<JsonNode> updateResponse = getRestTemplate().exchange(
+        ResponseEntity<JsonNode> updateResponse = restTemplate.exchange(
                 updateUrl,
                 HttpMethod.POST,
                 new HttpEntity<>(requestBody, instructorHeaders),
@@ -394,7 +357,7 @@ public class ExamReviewService {
     public String getReviewStatus(String submissionId) {
         try {
             String submissionUrl = gatewayUrl + "/api/student/exams/submissions/" + submissionId;
-            ResponseEntity<JsonNode> submissionResponse = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> submissionResponse = restTemplate.exchange(
                     submissionUrl,
                     HttpMethod.GET,
                     new HttpEntity<>(new HttpHeaders()),
@@ -452,7 +415,7 @@ public class ExamReviewService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<java.util.Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<java.util.Map<String, Object>> response = restTemplate.exchange(
                     meUrl,
                     HttpMethod.GET,
                     entity,
@@ -486,7 +449,7 @@ public class ExamReviewService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<java.util.Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<java.util.Map<String, Object>> response = restTemplate.exchange(
                     meUrl,
                     HttpMethod.GET,
                     entity,
@@ -514,7 +477,7 @@ public class ExamReviewService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<java.util.Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<java.util.Map<String, Object>> response = restTemplate.exchange(
                     accessUrl,
                     HttpMethod.GET,
                     entity,
@@ -2,8 +2,8 @@ package com.datagami.edudron.content.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
+import com.datagami.edudron.common.cache.CacheInvalidationBus;
 import com.datagami.edudron.content.domain.Assessment;
 import com.datagami.edudron.content.domain.ExamQuestion;
 import com.datagami.edudron.content.domain.QuestionBank;
@@ -12,8 +12,11 @@ import com.datagami.edudron.content.dto.BatchExamGenerationRequest;
 import com.datagami.edudron.content.dto.BatchExamGenerationResponse;
 import com.datagami.edudron.content.dto.ExamDetailDTO;
 import com.datagami.edudron.content.dto.InstructorAccessResponse;
+import com.datagami.edudron.content.dto.StudentExamVisibilityRequest;
 import com.datagami.edudron.content.repo.AssessmentRepository;
 import com.datagami.edudron.content.repo.CourseRepository;
+import com.datagami.edudron.content.repo.ExamQuestionRepository;
+import com.datagami.edudron.content.repo.QuizQuestionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,11 +29,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -43,10 +48,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -55,12 +62,36 @@ public class ExamService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExamService.class);
 
+    // SCHEDULED -> LIVE/COMPLETED once start_time has passed; LIVE -> COMPLETED after end_time
+    // (or back to SCHEDULED if the window was moved later)
+    private static final String EXAM_STATUS_TRANSITION_SQL = """
+            UPDATE content.assessments
+            SET status = CASE
+                    WHEN start_time > :now THEN 'SCHEDULED'
+                    WHEN end_time < :now THEN 'COMPLETED'
+                    ELSE 'LIVE'
+                END,
+                updated_at = :now
+            WHERE assessment_type = 'EXAM'
+              AND start_time IS NOT NULL
+              AND end_time IS NOT NULL
+              AND ((status = 'SCHEDULED' AND start_time <= :now)
+                OR (status = 'LIVE' AND (start_time > :now OR end_time < :now)))
+            RETURNING id, client_id, status
+            """;
+
     @Autowired
     private AssessmentRepository assessmentRepository;
 
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private ExamQuestionRepository examQuestionRepository;
+
+    @Autowired
+    private QuizQuestionRepository quizQuestionRepository;
+
     @Autowired
     private ExamGenerationService examGenerationService;
 
@@ -70,59 +101,20 @@ public class ExamService {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
     @Autowired
     private ContentAuditService auditService;
 
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread-safe lazy initialization
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    logger.debug("Initializing RestTemplate for identity service calls. Gateway URL: {}", gatewayUrl);
-                    RestTemplate newTemplate = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token (Authorization header)
-                    interceptors.add((request, body, execution) -> {
-                        // Get current request to extract Authorization header
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                                .getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                // Only add if not already present
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    logger.debug("Propagated Authorization header (JWT token) to identity service: {}",
-                                            request.getURI());
-                                } else {
-                                    logger.debug("Authorization header already present in request to {}",
-                                            request.getURI());
-                                }
-                            } else {
-                                logger.debug("No Authorization header found in current request");
-                            }
-                        } else {
-                            logger.debug("No ServletRequestAttributes found - cannot forward JWT token");
-                        }
-                        return execution.execute(request, body);
-                    });
-                    newTemplate.setInterceptors(interceptors);
-                    logger.debug(
-                            "RestTemplate initialized with TenantContextRestTemplateInterceptor and JWT token forwarding");
-                    restTemplate = newTemplate;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     public Assessment createExam(String courseId, String title, String description, String instructions,
             List<String> moduleIds, Assessment.ReviewMethod reviewMethod, String classId, String sectionId,
@@ -337,22 +329,111 @@ public class ExamService {
                 Assessment.AssessmentType.EXAM,
                 List.of(Assessment.ExamStatus.LIVE, Assessment.ExamStatus.SCHEDULED),
                 clientId).stream()
+                .filter(exam -> isCurrentlyLive(exam, now))
+                .toList();
+    }
+
+    private boolean isCurrentlyLive(Assessment exam, OffsetDateTime now) {
+        // FLEXIBLE_START exams with LIVE status are always available
+        if (exam.getTimingMode() == Assessment.TimingMode.FLEXIBLE_START) {
+            return exam.getStatus() == Assessment.ExamStatus.LIVE;
+        }
+
+        // FIXED_WINDOW exams need time-based filtering
+        if (exam.getStartTime() == null || exam.getEndTime() == null) {
+            // If no times set but exam is LIVE, include it
+            return exam.getStatus() == Assessment.ExamStatus.LIVE;
+        }
+        return !now.isBefore(exam.getStartTime()) && !now.isAfter(exam.getEndTime());
+    }
+
+    /**
+     * Resolve the exams a student can see in one query: live and scheduled exams for the
+     * student's courses plus the student's completed exams, filtered by section/class restriction.
+     * Equivalent to the union of {@link #getLiveExams()}, {@link #getScheduledExams()} and the
+     * completed exams, filtered with the student's enrollment scopes.
+     */
+    public List<Assessment> getVisibleExamsForStudent(StudentExamVisibilityRequest request) {
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null) {
+            throw new IllegalStateException("Tenant context is not set");
+        }
+        UUID clientId = UUID.fromString(clientIdStr);
+
+        // First scope per course wins, matching the student's primary enrollment for that course
+        Map<String, StudentExamVisibilityRequest.CourseScope> scopeByCourse = new HashMap<>();
+        if (request.getScopes() != null) {
+            for (StudentExamVisibilityRequest.CourseScope scope : request.getScopes()) {
+                if (scope.getCourseId() != null && !scope.getCourseId().isBlank()) {
+                    scopeByCourse.putIfAbsent(scope.getCourseId(), scope);
+                }
+            }
+        }
+        if (scopeByCourse.isEmpty()) {
+            return List.of();
+        }
+        Set<String> completedExamIds = request.getCompletedExamIds() != null
+                ? new HashSet<>(request.getCompletedExamIds())
+                : Set.of();
+
+        OffsetDateTime now = OffsetDateTime.now();
+        return assessmentRepository.findVisibleCandidates(
+                Assessment.AssessmentType.EXAM,
+                clientId,
+                scopeByCourse.keySet(),
+                List.of(Assessment.ExamStatus.LIVE, Assessment.ExamStatus.SCHEDULED),
+                completedExamIds).stream()
+                .filter(exam -> completedExamIds.contains(exam.getId())
+                        || exam.getStatus() == Assessment.ExamStatus.SCHEDULED
+                        || isCurrentlyLive(exam, now))
                 .filter(exam -> {
-                    // FLEXIBLE_START exams with LIVE status are always available
-                    if (exam.getTimingMode() == Assessment.TimingMode.FLEXIBLE_START) {
-                        return exam.getStatus() == Assessment.ExamStatus.LIVE;
+                    StudentExamVisibilityRequest.CourseScope scope = scopeByCourse.get(exam.getCourseId());
+                    // Priority 1: section-specific exams require the student's section
+                    if (exam.getSectionId() != null && !exam.getSectionId().isEmpty()) {
+                        return exam.getSectionId().equals(scope.getSectionId());
                     }
-
-                    // FIXED_WINDOW exams need time-based filtering
-                    if (exam.getStartTime() == null || exam.getEndTime() == null) {
-                        // If no times set but exam is LIVE, include it
-                        return exam.getStatus() == Assessment.ExamStatus.LIVE;
+                    // Priority 2: class-specific exams require the student's section to be in the class
+                    if (exam.getClassId() != null && !exam.getClassId().isEmpty()) {
+                        return scope.getSectionId() != null && exam.getClassId().equals(scope.getClassId());
                     }
-                    return !now.isBefore(exam.getStartTime()) && !now.isAfter(exam.getEndTime());
+                    return true;
                 })
                 .toList();
     }
 
+    /**
+     * Total points per exam for many exams in two aggregate queries, summing question bank
+     * questions (with point overrides) and inline questions, the same way the exam detail does.
+     * Exams without questions map to 0; IDs from other tenants are absent.
+     */
+    public Map<String, Integer> getExamMaxScores(Collection<String> examIds) {
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null) {
+            throw new IllegalStateException("Tenant context is not set");
+        }
+        UUID clientId = UUID.fromString(clientIdStr);
+
+        Map<String, Integer> maxScores = new HashMap<>();
+        if (examIds == null || examIds.isEmpty()) {
+            return maxScores;
+        }
+        for (Assessment exam : assessmentRepository.findAllById(examIds)) {
+            if (clientId.equals(exam.getClientId())) {
+                maxScores.put(exam.getId(), 0);
+            }
+        }
+        if (maxScores.isEmpty()) {
+            return maxScores;
+        }
+        for (Object[] row : examQuestionRepository.sumTotalPointsByExamIds(maxScores.keySet(), clientId)) {
+            maxScores.merge((String) row[0], ((Number) row[1]).intValue(), Integer::sum);
+        }
+        for (Object[] row : quizQuestionRepository.sumPointsByAssessmentIds(maxScores.keySet(), clientId)) {
+            maxScores.merge((String) row[0], ((Number) row[1]).intValue(), Integer::sum);
+        }
+        return maxScores;
+    }
+
     public List<Assessment> getScheduledExams() {
         String clientIdStr = TenantContext.getClientId();
         if (clientIdStr == null) {
@@ -808,6 +889,7 @@ public class ExamService {
             cache.evict(key);
             logger.debug("Evicted exam cache for key: {}", key);
         }
+        cacheInvalidationBus.evict(CacheConfig.STUDENT_EXAM_CACHE, key);
     }
 
     /**
@@ -824,6 +906,7 @@ public class ExamService {
             cache.evict(key);
             logger.debug("Evicted exam cache for key: {}", key);
         }
+        cacheInvalidationBus.evict(CacheConfig.STUDENT_EXAM_CACHE, key);
     }
 
     /**
@@ -870,44 +953,33 @@ public class ExamService {
      * Auto-update exam status based on current time
      * This is called periodically by a scheduled task
      * Works across all tenants without requiring tenant context
+     *
+     * One set-based UPDATE moves every exam whose window disagrees with its stored status
+     * (same rules as getRealTimeStatus) and returns only the changed rows, so the cost tracks
+     * the number of transitions rather than the number of open exams. It is idempotent, so
+     * running on every node is safe. Not transactional: the UPDATE commits before the cache
+     * is evicted, so a concurrent read cannot re-cache the old status.
      */
     @Scheduled(fixedRate = 60000) // Run every minute
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateExamStatus() {
         try {
             OffsetDateTime now = OffsetDateTime.now();
 
-            // Get all exams across all tenants that might need status updates
-            List<Assessment> exams = assessmentRepository.findByAssessmentTypeAndStatusInOrderByStartTimeAsc(
-                    Assessment.AssessmentType.EXAM,
-                    List.of(Assessment.ExamStatus.SCHEDULED, Assessment.ExamStatus.LIVE));
-
-            int updatedCount = 0;
-            for (Assessment exam : exams) {
-                if (exam.getStartTime() == null || exam.getEndTime() == null) {
-                    continue;
-                }
-
-                Assessment.ExamStatus newStatus = null;
-                if (now.isBefore(exam.getStartTime())) {
-                    newStatus = Assessment.ExamStatus.SCHEDULED;
-                } else if (now.isAfter(exam.getEndTime())) {
-                    newStatus = Assessment.ExamStatus.COMPLETED;
-                } else {
-                    newStatus = Assessment.ExamStatus.LIVE;
-                }
+            List<Object[]> transitions = jdbcTemplate.query(EXAM_STATUS_TRANSITION_SQL,
+                    new MapSqlParameterSource("now", now),
+                    (rs, rowNum) -> new Object[] {
+                            rs.getString("id"), rs.getObject("client_id", UUID.class), rs.getString("status") });
 
-                if (newStatus != null && newStatus != exam.getStatus()) {
-                    exam.setStatus(newStatus);
-                    assessmentRepository.save(exam);
-                    evictExamCache(exam.getId(), exam.getClientId());
-                    updatedCount++;
-                    logger.info("Updated exam status: examId={}, oldStatus={}, newStatus={}, clientId={}",
-                            exam.getId(), exam.getStatus(), newStatus, exam.getClientId());
-                }
+            for (Object[] row : transitions) {
+                String examId = (String) row[0];
+                UUID clientId = (UUID) row[1];
+                evictExamCache(examId, clientId);
+                logger.info("Updated exam status: examId={}, newStatus={}, clientId={}", examId, row[2], clientId);
             }
 
-            if (updatedCount > 0) {
-                logger.info("Exam status update completed: {} exams updated", updatedCount);
+            if (!transitions.isEmpty()) {
+                logger.info("Exam status update completed: {} exams updated", transitions.size());
             }
         } catch (Exception e) {
             logger.error("Error updating exam statuses in scheduled task", e);
@@ -1344,7 +1416,7 @@ public class ExamService {
     public int getSubmissionCount(String examId) {
         try {
             String url = gatewayUrl + "/api/assessments/" + examId + "/submissions";
-            ResponseEntity<List<Map<String, Object>>> response = getRestTemplate().exchange(
+            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(new HttpHeaders()),
@@ -1531,7 +1603,7 @@ public class ExamService {
         try {
             for (String sectionId : sectionIds) {
                 String url = gatewayUrl + "/api/sections/" + sectionId;
-                ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+                ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                         url,
                         HttpMethod.GET,
                         new HttpEntity<>(new HttpHeaders()),
@@ -1639,7 +1711,7 @@ public class ExamService {
             }
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<InstructorAccessResponse> response = getRestTemplate().exchange(
+            ResponseEntity<InstructorAccessResponse> response = restTemplate.exchange(
                     accessUrl,
                     HttpMethod.GET,
                     entity,
@@ -1887,7 +1959,7 @@ public class ExamService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     meUrl,
                     HttpMethod.GET,
                     entity,
@@ -1920,7 +1992,7 @@ public class ExamService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     meUrl,
                     HttpMethod.GET,
                     entity,
@@ -1955,7 +2027,7 @@ public class ExamService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     meUrl,
                     HttpMethod.GET,
                     entity,
@@ -8,18 +8,25 @@ import com.azure.ai.openai.models.ChatRequestMessage;
 import com.azure.ai.openai.models.ChatRequestSystemMessage;
 import com.azure.ai.openai.models.ChatRequestUserMessage;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.HttpClient;
 import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.http.policy.FixedDelayOptions;
+import com.azure.core.http.policy.RetryOptions;
 import com.datagami.edudron.content.dto.CourseRequirements;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class FoundryAIService {
@@ -30,14 +37,29 @@ public class FoundryAIService {
     private final String deploymentName;
     private final String endpoint;
     private final ObjectMapper objectMapper;
+    private final AIRequestGovernor governor;
+    private final AIResponseCache responseCache;
     
+    @Autowired
     public FoundryAIService(
             @Value("${azure.openai.endpoint:}") String endpoint,
             @Value("${azure.openai.api-key:}") String apiKey,
             @Value("${azure.openai.deployment-name:gpt-4}") String deploymentName,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            AIRequestGovernor governor,
+            AIResponseCache responseCache) {
+        this(endpoint, apiKey, deploymentName, objectMapper, governor, responseCache, null);
+    }
+    
+    /**
+     * httpClient replaces the Netty client, so tests can answer for the model endpoint in-process
+     */
+    FoundryAIService(String endpoint, String apiKey, String deploymentName, ObjectMapper objectMapper,
+                     AIRequestGovernor governor, AIResponseCache responseCache, HttpClient httpClient) {
         this.deploymentName = deploymentName;
         this.objectMapper = objectMapper;
+        this.governor = governor;
+        this.responseCache = responseCache;
         
         if (endpoint == null || endpoint.isEmpty() || apiKey == null || apiKey.isEmpty()) {
             logger.warn("Azure OpenAI endpoint or API key not configured. AI course generation will be disabled.");
@@ -61,9 +83,12 @@ public class FoundryAIService {
             this.client = new OpenAIClientBuilder()
                     .endpoint(normalizedEndpoint)
                     .credential(new AzureKeyCredential(apiKey))
-                    .httpClient(new NettyAsyncHttpClientBuilder()
-                            .responseTimeout(java.time.Duration.ofSeconds(180))
+                    .httpClient(httpClient != null ? httpClient : new NettyAsyncHttpClientBuilder()
+                            .responseTimeout(Duration.ofSeconds(180))
                             .build())
+                    // Retries happen in callOpenAI, outside the governor's slots; the SDK's own
+                    // policy would sleep through 429s while holding one
+                    .retryOptions(new RetryOptions(new FixedDelayOptions(0, Duration.ZERO)))
                     .buildClient();
             logger.info("Azure OpenAI client initialized successfully with deployment: {}", deploymentName);
             logger.warn("⚠️  If you get 404 errors, verify the deployment name '{}' exists in Azure AI Studio", deploymentName);
@@ -104,7 +129,7 @@ public class FoundryAIService {
         
         try {
             logger.info("Calling OpenAI API with deployment: {}", deploymentName);
-            String response = callOpenAI(systemPrompt, prompt);
+            String response = callOpenAI(systemPrompt, prompt, AIPriority.BACKGROUND, true);
             logger.info("Received response from OpenAI (length: {} chars)", response != null ? response.length() : 0);
             
             // Extract JSON from response (handles conversational text)
@@ -237,7 +262,7 @@ public class FoundryAIService {
         String userPrompt = "Course: " + requirements.getTitle() + "\nDescription: " + requirements.getDescription();
         
         try {
-            String response = callOpenAI(systemPrompt, userPrompt);
+            String response = callOpenAI(systemPrompt, userPrompt, AIPriority.BACKGROUND, true);
             
             // Try to extract JSON from response
             String jsonResponse;
@@ -293,7 +318,7 @@ public class FoundryAIService {
                         """.formatted(requirements.getNumberOfModules(), requirements.getLecturesPerModule(), fallbackTargetTotalLectures);
                     
                     // Retry with standard prompt
-                    response = callOpenAI(fallbackPrompt, userPrompt);
+                    response = callOpenAI(fallbackPrompt, userPrompt, AIPriority.BACKGROUND, true);
                     jsonResponse = extractJsonFromResponse(response);
                 } else {
                     // Re-throw if it wasn't a PDF structure case
@@ -390,7 +415,7 @@ public class FoundryAIService {
         String userPrompt = "Course Context: " + courseContext + "\n\nSection: " + sectionTitle + "\n\nGenerate a detailed section description.";
         
         try {
-            return callOpenAI(systemPrompt, userPrompt);
+            return callOpenAI(systemPrompt, userPrompt, AIPriority.BACKGROUND, true);
         } catch (Exception e) {
             logger.error("Error generating section content", e);
             throw new RuntimeException("Failed to generate section content: " + e.getMessage(), e);
@@ -459,7 +484,7 @@ public class FoundryAIService {
         String userPrompt = userPromptBuilder.toString();
         
         try {
-            return callOpenAI(systemPrompt, userPrompt);
+            return callOpenAI(systemPrompt, userPrompt, AIPriority.BACKGROUND, true);
         } catch (Exception e) {
             logger.error("Error generating lecture content", e);
             throw new RuntimeException("Failed to generate lecture content: " + e.getMessage(), e);
@@ -509,7 +534,7 @@ public class FoundryAIService {
         String userPrompt = "Course Context: " + courseContext + "\n\nUser Request: " + prompt;
         
         try {
-            String response = callOpenAI(systemPrompt, userPrompt);
+            String response = callOpenAI(systemPrompt, userPrompt, AIPriority.BACKGROUND, true);
             
             // Extract JSON from response (handles conversational text)
             String jsonResponse = extractJsonFromResponse(response);
@@ -572,7 +597,7 @@ public class FoundryAIService {
         );
         
         try {
-            String response = callOpenAI(systemPrompt, userPrompt);
+            String response = callOpenAI(systemPrompt, userPrompt, AIPriority.BACKGROUND, true);
             
             // Extract JSON from response (handles conversational text)
             String jsonResponse = extractJsonFromResponse(response);
@@ -665,10 +690,33 @@ public class FoundryAIService {
     }
     
     public String callOpenAI(String systemPrompt, String userPrompt) {
+        return callOpenAI(systemPrompt, userPrompt, AIPriority.BACKGROUND);
+    }
+    
+    public String callOpenAI(String systemPrompt, String userPrompt, AIPriority priority) {
+        return callOpenAI(systemPrompt, userPrompt, priority, false);
+    }
+    
+    /**
+     * Call the chat deployment through the gateway; calls to the model are admitted by
+     * {@link AIRequestGovernor} in the given lane. With cacheResponse an identical prompt is answered
+     * from {@link AIResponseCache}: only for prompts whose answer should not change when asked again
+     * (grading, generation jobs replayed after a failure). Without it every call reaches the model,
+     * so a user asking to regenerate gets a new answer.
+     */
+    public String callOpenAI(String systemPrompt, String userPrompt, AIPriority priority, boolean cacheResponse) {
         if (client == null) {
             throw new IllegalStateException("Azure OpenAI is not configured");
         }
         
+        if (cacheResponse) {
+            String cached = responseCache.get(deploymentName, systemPrompt, userPrompt);
+            if (cached != null) {
+                logger.info("Serving OpenAI response from cache (length: {} chars)", cached.length());
+                return cached;
+            }
+        }
+        
         List<ChatRequestMessage> messages = new ArrayList<>();
         messages.add(new ChatRequestSystemMessage(systemPrompt));
         messages.add(new ChatRequestUserMessage(userPrompt));
@@ -700,13 +748,22 @@ public class FoundryAIService {
         while (retryCount < maxRetries) {
             try {
                 logger.info("Calling OpenAI API (attempt {}/{}) with deployment: {}", retryCount + 1, maxRetries, deploymentName);
-                ChatCompletions completions = client.getChatCompletions(deploymentName, options);
+                ChatCompletionsOptions request = options;
+                ChatCompletions completions = governor.execute(deploymentName, priority,
+                        () -> client.getChatCompletions(deploymentName, request));
                 logger.info("OpenAI API call successful");
+                if (completions.getUsage() != null) {
+                    governor.recordUsage(deploymentName, completions.getUsage().getPromptTokens(),
+                            completions.getUsage().getCompletionTokens());
+                }
                 
                 if (completions.getChoices() != null && !completions.getChoices().isEmpty()) {
                     String content = completions.getChoices().get(0).getMessage().getContent();
                     if (content != null && !content.isEmpty()) {
                         logger.info("Received content from OpenAI (length: {} chars)", content.length());
+                        if (cacheResponse) {
+                            responseCache.put(deploymentName, systemPrompt, userPrompt, content);
+                        }
                         return content;
                     } else {
                         logger.warn("OpenAI returned empty content in response");
@@ -718,14 +775,7 @@ public class FoundryAIService {
                 // If we get here, content was empty - retry
                 retryCount++;
                 if (retryCount < maxRetries) {
-                    long waitSeconds = (long) Math.pow(2, retryCount);
-                    logger.info("Retrying in {} seconds (attempt {}/{})", waitSeconds, retryCount + 1, maxRetries);
-                    try {
-                        TimeUnit.SECONDS.sleep(waitSeconds);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Interrupted while waiting for retry", e);
-                    }
+                    waitBeforeRetry(retryCount, maxRetries);
                 }
             } catch (com.azure.core.exception.ResourceNotFoundException e) {
                 // Handle deployment not found error
@@ -832,19 +882,21 @@ public class FoundryAIService {
                     }
                 }
                 
-                // Handle rate limiting
+                // Handle rate limiting: pause the deployment for everyone, the next attempt waits in the governor
                 if (statusCode == 429) {
                     logger.warn("Rate limited (429). Retrying...");
                     retryCount++;
                     if (retryCount < maxRetries) {
-                        long waitSeconds = (long) Math.pow(2, retryCount);
-                        logger.info("Retrying in {} seconds (attempt {}/{})", waitSeconds, retryCount + 1, maxRetries);
-                        try {
-                            TimeUnit.SECONDS.sleep(waitSeconds);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException("Interrupted while waiting for retry", ie);
-                        }
+                        governor.backOff(deploymentName, retryAfter(e, retryCount));
+                        continue;
+                    }
+                }
+                
+                // Transient server errors
+                if (statusCode == 408 || (statusCode >= 500 && statusCode != 501 && statusCode != 505)) {
+                    retryCount++;
+                    if (retryCount < maxRetries) {
+                        waitBeforeRetry(retryCount, maxRetries);
                         continue;
                     }
                 }
@@ -880,7 +932,17 @@ public class FoundryAIService {
                 }
                 
                 throw new RuntimeException("Failed to call OpenAI API: Status " + statusCode + " - " + e.getMessage() + ". Response: " + responseBody, e);
+            } catch (AIRequestGovernor.AdmissionTimeoutException e) {
+                throw e;
             } catch (Exception e) {
+                if (isConnectionFailure(e)) {
+                    retryCount++;
+                    if (retryCount < maxRetries) {
+                        logger.warn("Connection to OpenAI failed: {}", e.getMessage());
+                        waitBeforeRetry(retryCount, maxRetries);
+                        continue;
+                    }
+                }
                 logger.error("Unexpected error calling OpenAI API:");
                 logger.error("  - Deployment: {}", deploymentName);
                 logger.error("  - Error Type: {}", e.getClass().getName());
@@ -893,6 +955,47 @@ public class FoundryAIService {
         throw new RuntimeException("Failed to get response from OpenAI after " + maxRetries + " retries");
     }
     
+    private static void waitBeforeRetry(int retryCount, int maxRetries) {
+        long waitSeconds = (long) Math.pow(2, retryCount);
+        logger.info("Retrying in {} seconds (attempt {}/{})", waitSeconds, retryCount + 1, maxRetries);
+        try {
+            TimeUnit.SECONDS.sleep(waitSeconds);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for retry", ie);
+        }
+    }
+    
+    /**
+     * How long the deployment asked us to wait (retry-after-ms or Retry-After), else exponential
+     */
+    private static Duration retryAfter(com.azure.core.exception.HttpResponseException e, int retryCount) {
+        if (e.getResponse() != null) {
+            try {
+                String millis = e.getResponse().getHeaderValue("retry-after-ms");
+                if (millis != null) {
+                    return Duration.ofMillis(Long.parseLong(millis.trim()));
+                }
+                String seconds = e.getResponse().getHeaderValue("Retry-After");
+                if (seconds != null) {
+                    return Duration.ofSeconds(Long.parseLong(seconds.trim()));
+                }
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form; fall back to exponential
+            }
+        }
+        return Duration.ofSeconds((long) Math.pow(2, retryCount));
+    }
+    
+    private static boolean isConnectionFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     public String generateExamQuestions(String moduleContent, Integer numberOfQuestions, String difficulty) {
         if (client == null) {
             throw new IllegalStateException("Azure OpenAI is not configured");
@@ -0,0 +1,203 @@
+package com.datagami.edudron.content.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BM25 inverted index over the chunks of one reference document. Immutable once built, so one
+ * instance is shared by every generation job that reads the document.
+ */
+public final class ReferenceIndex {
+
+    // Standard BM25 parameters: term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "been", "but", "by", "can", "do", "does", "for",
+            "from", "has", "have", "how", "if", "in", "into", "is", "it", "its", "of", "on", "or", "our",
+            "so", "such", "than", "that", "the", "their", "then", "there", "these", "they", "this", "to",
+            "was", "we", "were", "what", "when", "which", "while", "who", "will", "with", "you", "your");
+
+    public record Hit(int chunk, double score) {
+    }
+
+    private record Postings(int[] chunks, int[] frequencies) {
+    }
+
+    private final List<String> chunks;
+    private final int[] lengths;
+    private final double averageLength;
+    private final Map<String, Postings> postings;
+
+    private ReferenceIndex(List<String> chunks, int[] lengths, Map<String, Postings> postings) {
+        this.chunks = chunks;
+        this.lengths = lengths;
+        this.postings = postings;
+        long total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        this.averageLength = lengths.length > 0 ? Math.max((double) total / lengths.length, 1) : 1;
+    }
+
+    public static ReferenceIndex build(List<String> chunks) {
+        int[] lengths = new int[chunks.size()];
+        Map<String, List<int[]>> building = new HashMap<>();
+        for (int chunk = 0; chunk < chunks.size(); chunk++) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            List<String> terms = tokenize(chunks.get(chunk));
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            lengths[chunk] = terms.size();
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                building.computeIfAbsent(frequency.getKey(), k -> new ArrayList<>())
+                        .add(new int[] {chunk, frequency.getValue()});
+            }
+        }
+
+        Map<String, Postings> postings = new HashMap<>(building.size() * 2);
+        building.forEach((term, entries) -> {
+            int[] chunkIds = new int[entries.size()];
+            int[] frequencies = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                chunkIds[i] = entries.get(i)[0];
+                frequencies[i] = entries.get(i)[1];
+            }
+            postings.put(term, new Postings(chunkIds, frequencies));
+        });
+        return new ReferenceIndex(List.copyOf(chunks), lengths, postings);
+    }
+
+    /**
+     * Up to k chunks matching the query, best first; chunks sharing no term with it are left out
+     */
+    public List<Hit> search(String query, int k) {
+        double[] scores = new double[chunks.size()];
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            int documentFrequency = termPostings.chunks().length;
+            double idf = Math.log(1 + (chunks.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (int i = 0; i < documentFrequency; i++) {
+                int chunk = termPostings.chunks()[i];
+                int frequency = termPostings.frequencies()[i];
+                double norm = K1 * (1 - B + B * lengths[chunk] / averageLength);
+                scores[chunk] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (int chunk = 0; chunk < scores.length; chunk++) {
+            if (scores[chunk] <= 0) {
+                continue;
+            }
+            best.add(new Hit(chunk, scores[chunk]));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits;
+    }
+
+    public String chunkText(int chunk) {
+        return chunks.get(chunk);
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Split extracted text into passages of about targetChars: whole paragraphs are packed
+     * together, longer paragraphs are split between sentences and cut only as a last resort.
+     */
+    public static List<String> chunk(String text, int targetChars) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        int target = Math.max(targetChars, 200);
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : PARAGRAPH_BREAK.split(text)) {
+            // Extracted PDFs wrap lines mid-sentence; spacing carries no meaning in a prompt
+            String normalized = WHITESPACE.matcher(paragraph).replaceAll(" ").trim();
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            List<String> pieces = normalized.length() > target ? split(normalized, target) : List.of(normalized);
+            for (String piece : pieces) {
+                if (current.length() > 0 && current.length() + piece.length() + 1 > target) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) {
+                    current.append('\n');
+                }
+                current.append(piece);
+            }
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private static List<String> split(String paragraph, int target) {
+        List<String> pieces = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String sentence : SENTENCE_END.split(paragraph)) {
+            if (current.length() > 0 && current.length() + sentence.length() + 1 > target) {
+                pieces.add(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(sentence);
+            while (current.length() > target) {
+                pieces.add(current.substring(0, target));
+                current.delete(0, target);
+            }
+        }
+        if (current.length() > 0) {
+            pieces.add(current.toString());
+        }
+        return pieces;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String term = matcher.group();
+            if (term.length() > 1 && !STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,266 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.UlidGenerator;
+import com.datagami.edudron.content.domain.CourseGenerationIndex;
+import com.datagami.edudron.content.domain.ReferenceContentChunk;
+import com.datagami.edudron.content.repo.CourseGenerationIndexRepository;
+import com.datagami.edudron.content.repo.ReferenceContentChunkRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retrieval of reference content for course generation prompts.
+ *
+ * Uploaded reference documents are split into chunks once, at upload, and the chunks are stored.
+ * Each node builds a BM25 {@link ReferenceIndex} per document from its chunks on first use and
+ * keeps it in memory, so a generation job asks for the few passages relevant to the lecture at
+ * hand instead of pasting the whole document into every prompt.
+ *
+ * Documents uploaded before chunking existed are chunked from their extracted text the first
+ * time they are read, and those chunks are stored like an upload's.
+ */
+@Service
+public class ReferenceRetrievalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceRetrievalService.class);
+
+    // What generation sent before retrieval: every document, cut at 50K characters
+    private static final int FULL_CONTEXT_CHARS = 50000;
+
+    // Rough OpenAI tokenizer ratio for English text, for the savings metric only
+    private static final int CHARS_PER_TOKEN = 4;
+
+    @Autowired
+    private ReferenceContentChunkRepository chunkRepository;
+
+    @Autowired
+    private CourseGenerationIndexRepository indexRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${course-generation.reference.chunk-size-chars:1200}")
+    private int chunkSizeChars;
+
+    @Value("${course-generation.reference.top-k:6}")
+    private int topK;
+
+    @Value("${course-generation.reference.max-context-chars:12000}")
+    private int maxContextChars;
+
+    private record Document(String title, ReferenceIndex index, int textLength) {
+    }
+
+    private record Passage(int document, int chunk, double score) {
+    }
+
+    // clientId::indexId -> index of the document's chunks; documents never change after upload
+    private final Cache<String, Document> documents = Caffeine.newBuilder()
+            .maximumSize(200)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    /**
+     * Chunk a newly uploaded reference document and store the chunks
+     */
+    @Transactional
+    public void indexDocument(CourseGenerationIndex reference) {
+        long start = System.nanoTime();
+        List<String> chunks = ReferenceIndex.chunk(reference.getExtractedText(), chunkSizeChars);
+        chunkRepository.saveAll(toEntities(reference.getClientId(), reference.getId(), chunks));
+
+        Document document = build(reference.getTitle(), chunks, "upload");
+        documents.put(key(reference.getClientId(), reference.getId()), document);
+        logger.info("Indexed reference content {}: {} chunks in {} ms", reference.getId(), chunks.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Transactional
+    public void deleteDocument(String indexId, UUID clientId) {
+        chunkRepository.deleteByIndexIdAndClientId(indexId, clientId);
+        documents.invalidate(key(clientId, indexId));
+    }
+
+    /**
+     * The passages of the given reference documents most relevant to the query, formatted for a
+     * prompt, or null if none of the documents has content. When nothing matches, the opening
+     * passages are used: they usually introduce the material.
+     */
+    @Transactional(readOnly = true)
+    public String retrieve(UUID clientId, List<String> indexIds, String query) {
+        if (indexIds == null || indexIds.isEmpty()) {
+            return null;
+        }
+        long start = System.nanoTime();
+
+        List<Document> loaded = new ArrayList<>();
+        for (String indexId : indexIds) {
+            try {
+                load(clientId, indexId).ifPresent(loaded::add);
+            } catch (Exception e) {
+                logger.warn("Failed to load reference index {}: {}", indexId, e.getMessage());
+            }
+        }
+
+        // Scores from different documents are compared directly: each document's idf differs,
+        // but the top passages of a relevant document still outscore an unrelated one's
+        List<Passage> passages = new ArrayList<>();
+        for (int d = 0; d < loaded.size(); d++) {
+            for (ReferenceIndex.Hit hit : loaded.get(d).index().search(query, topK)) {
+                passages.add(new Passage(d, hit.chunk(), hit.score()));
+            }
+        }
+        if (passages.isEmpty()) {
+            for (int d = 0; d < loaded.size(); d++) {
+                for (int chunk = 0; chunk < Math.min(loaded.get(d).index().size(), topK); chunk++) {
+                    passages.add(new Passage(d, chunk, 0));
+                }
+            }
+        }
+        passages.sort(Comparator.comparingDouble(Passage::score).reversed());
+
+        List<Passage> selected = new ArrayList<>();
+        int chars = 0;
+        for (Passage passage : passages) {
+            if (selected.size() >= topK) {
+                break;
+            }
+            int length = loaded.get(passage.document()).index().chunkText(passage.chunk()).length();
+            if (chars + length > maxContextChars && !selected.isEmpty()) {
+                continue;
+            }
+            selected.add(passage);
+            chars += length;
+        }
+        // Back in document order, so passages read as they do in the source
+        selected.sort(Comparator.comparingInt(Passage::document).thenComparingInt(Passage::chunk));
+
+        StringBuilder context = new StringBuilder();
+        int currentDocument = -1;
+        for (Passage passage : selected) {
+            Document document = loaded.get(passage.document());
+            if (passage.document() != currentDocument) {
+                if (context.length() > 0) {
+                    context.append("\n\n---\n\n");
+                }
+                context.append("Reference: ").append(document.title()).append("\n");
+                currentDocument = passage.document();
+            } else {
+                context.append("\n\n");
+            }
+            context.append(document.index().chunkText(passage.chunk()));
+        }
+
+        Timer.builder("course.generation.reference.query")
+                .description("Time to select reference passages for a generation prompt")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        int fullContext = Math.min(loaded.stream().mapToInt(Document::textLength).sum(), FULL_CONTEXT_CHARS);
+        DistributionSummary.builder("course.generation.reference.tokens-saved")
+                .description("Estimated prompt tokens saved per prompt by sending passages instead of whole documents")
+                .register(meterRegistry)
+                .record(Math.max(fullContext - context.length(), 0) / (double) CHARS_PER_TOKEN);
+
+        return context.length() > 0 ? context.toString() : null;
+    }
+
+    private Optional<Document> load(UUID clientId, String indexId) {
+        // Checked every time so a document deleted through another node is not used
+        Optional<String> title = indexRepository.findTitleByIdAndClientIdAndIndexType(
+                indexId, clientId, CourseGenerationIndex.IndexType.REFERENCE_CONTENT);
+        if (title.isEmpty()) {
+            return Optional.empty();
+        }
+        Document document = documents.getIfPresent(key(clientId, indexId));
+        if (document != null) {
+            return Optional.of(document);
+        }
+
+        List<String> chunks = chunkRepository.findByIndexIdAndClientIdOrderBySequenceAsc(indexId, clientId).stream()
+                .map(ReferenceContentChunk::getContent)
+                .toList();
+        if (chunks.isEmpty()) {
+            chunks = indexRepository.findByIdAndClientId(indexId, clientId)
+                    .map(reference -> ReferenceIndex.chunk(reference.getExtractedText(), chunkSizeChars))
+                    .orElse(List.of());
+            storeLegacyChunks(clientId, indexId, chunks);
+        }
+        document = build(title.get(), chunks, "load");
+        documents.put(key(clientId, indexId), document);
+        return Optional.of(document);
+    }
+
+    /**
+     * Store the chunks of a document uploaded before chunking, so no node chunks it again. Runs in
+     * its own transaction: retrieval is read-only, and a failure here must not fail the prompt.
+     */
+    private void storeLegacyChunks(UUID clientId, String indexId, List<String> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> chunkRepository.saveAll(toEntities(clientId, indexId, chunks)));
+            logger.info("Stored {} chunks of reference content {} uploaded before chunking", chunks.size(), indexId);
+        } catch (DataIntegrityViolationException e) {
+            // Another node stored them first (index_id, sequence is unique); its chunks are the same
+            logger.debug("Chunks of reference content {} were already stored", indexId);
+        } catch (Exception e) {
+            logger.warn("Failed to store chunks of reference content {}: {}", indexId, e.getMessage());
+        }
+    }
+
+    private static List<ReferenceContentChunk> toEntities(UUID clientId, String indexId, List<String> chunks) {
+        List<ReferenceContentChunk> entities = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            ReferenceContentChunk chunk = new ReferenceContentChunk();
+            chunk.setId(UlidGenerator.nextUlid());
+            chunk.setClientId(clientId);
+            chunk.setIndexId(indexId);
+            chunk.setSequence(i);
+            chunk.setContent(chunks.get(i));
+            entities.add(chunk);
+        }
+        return entities;
+    }
+
+    private Document build(String title, List<String> chunks, String source) {
+        long start = System.nanoTime();
+        ReferenceIndex index = ReferenceIndex.build(chunks);
+        Timer.builder("course.generation.reference.index.build")
+                .description("Time to build the in-memory index of a reference document")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Document(title, index, chunks.stream().mapToInt(String::length).sum());
+    }
+
+    private static String key(UUID clientId, String indexId) {
+        return clientId + "::" + indexId;
+    }
+}
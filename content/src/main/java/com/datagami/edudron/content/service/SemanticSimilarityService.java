@@ -0,0 +1,274 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.concurrent.BoundedVirtualThreadExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Similarity scores for subjective answers, computed for many submissions at once.
+ *
+ * Answers are normalized (Unicode form, case, whitespace, trailing punctuation) and fingerprinted
+ * per question, so identical answers from different students are scored once. Scores are kept in
+ * Redis under the hash of the reference answer and the hash of the normalized answer: the
+ * reference answer is all the score depends on, so editing it starts a new set of entries.
+ * The remaining answers of a question are sent to the model together, a batch per call, and
+ * calls for different questions run in parallel up to grading.semantic.parallelism.
+ *
+ * Only scores returned by the model for a batch are cached. An answer the batch response left out
+ * is scored on its own with {@link ExamReviewAIService#compareAnswersSemantically}. When the batch
+ * call fails, the word-overlap fallback of {@link ExamReviewAIService} is used for that run and the
+ * answer is scored again next time.
+ */
+@Service
+public class SemanticSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticSimilarityService.class);
+
+    // Bump when the grading prompt changes so earlier scores are not reused
+    private static final String CACHE_PREFIX = "grading:similarity:v1:";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}\\s]+$");
+
+    @Autowired
+    private ExamReviewAIService examReviewAIService;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${grading.semantic.batch-size:20}")
+    private int batchSize;
+
+    @Value("${grading.semantic.parallelism:4}")
+    private int parallelism;
+
+    @Value("${grading.semantic.cache-ttl-days:30}")
+    private long cacheTtlDays;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    /**
+     * Scores of the answers of one set of submissions, looked up by question and raw answer text
+     */
+    public static final class SimilarityScores {
+
+        private final Map<String, Double> scores;
+
+        private SimilarityScores(Map<String, Double> scores) {
+            this.scores = scores;
+        }
+
+        /**
+         * Score of an answer, or null if it was not part of the scored submissions
+         */
+        public Double get(ExamAnswerKey.Question question, String answer) {
+            return scores.get(entryKey(question.id(), fingerprint(answer)));
+        }
+    }
+
+    private record Pending(String cacheKey, String answer) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // The parallelism bounds concurrent model calls; further batches wait their turn
+        executor = virtualThreads
+                ? new BoundedVirtualThreadExecutor("semantic-grading-", Math.max(parallelism, 1), 1000, true)
+                : Executors.newFixedThreadPool(Math.max(parallelism, 1), new CustomizableThreadFactory("semantic-grading-"));
+    }
+
+    /**
+     * Score every answer to a reference-answer question in the given submissions' answers
+     * (submission answersJson objects keyed by question id)
+     */
+    public SimilarityScores score(ExamAnswerKey answerKey, List<JsonNode> answerSets) {
+        Map<String, Double> scores = new HashMap<>();
+        // question -> fingerprint -> answer still to score; one representative answer per fingerprint
+        Map<ExamAnswerKey.Question, Map<String, Pending>> toScore = new LinkedHashMap<>();
+        int answers = 0;
+
+        for (ExamAnswerKey.Question question : answerKey.getQuestions()) {
+            if (question.grading() != ExamAnswerKey.Grading.REFERENCE_ANSWER) {
+                continue;
+            }
+            String referenceHash = sha256(question.referenceAnswer());
+            Map<String, Pending> unique = new LinkedHashMap<>();
+            for (JsonNode answersJson : answerSets) {
+                JsonNode answerNode = answersJson != null ? answersJson.get(question.id()) : null;
+                // Blank answers are not graded; "null" scores 0 without asking the model
+                if (answerNode == null || answerNode.isNull() || answerNode.asText().trim().isEmpty()
+                        || answerNode.asText().equalsIgnoreCase("null")) {
+                    continue;
+                }
+                answers++;
+                String fingerprint = fingerprint(answerNode.asText());
+                unique.putIfAbsent(fingerprint, new Pending(CACHE_PREFIX + referenceHash + ":" + fingerprint, answerNode.asText()));
+            }
+            if (!unique.isEmpty()) {
+                toScore.put(question, unique);
+            }
+        }
+
+        int distinct = toScore.values().stream().mapToInt(Map::size).sum();
+        loadCached(toScore, scores);
+        int cached = distinct - toScore.values().stream().mapToInt(Map::size).sum();
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (Map.Entry<ExamAnswerKey.Question, Map<String, Pending>> entry : toScore.entrySet()) {
+            ExamAnswerKey.Question question = entry.getKey();
+            List<Map.Entry<String, Pending>> pending = new ArrayList<>(entry.getValue().entrySet());
+            for (int from = 0; from < pending.size(); from += Math.max(batchSize, 1)) {
+                List<Map.Entry<String, Pending>> batch = pending.subList(from, Math.min(from + Math.max(batchSize, 1), pending.size()));
+                calls.add(CompletableFuture.runAsync(() -> scoreBatch(question, batch, scores), executor));
+            }
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+
+        meterRegistry.counter("exam.grading.semantic.answers", "source", "duplicate").increment(answers - distinct);
+        meterRegistry.counter("exam.grading.semantic.answers", "source", "cache").increment(cached);
+        meterRegistry.counter("exam.grading.semantic.answers", "source", "model").increment(distinct - cached);
+        meterRegistry.counter("exam.grading.semantic.calls").increment(calls.size());
+        if (answers > 0) {
+            logger.info("Scored {} subjective answers: {} distinct, {} from cache, {} model call(s)",
+                    answers, distinct, cached, calls.size());
+        }
+        return new SimilarityScores(scores);
+    }
+
+    private void loadCached(Map<ExamAnswerKey.Question, Map<String, Pending>> toScore, Map<String, Double> scores) {
+        if (redisTemplate == null || toScore.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>();
+            toScore.values().forEach(unique -> unique.values().forEach(pending -> keys.add(pending.cacheKey())));
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return;
+            }
+            int i = 0;
+            for (Map.Entry<ExamAnswerKey.Question, Map<String, Pending>> entry : toScore.entrySet()) {
+                var iterator = entry.getValue().entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Pending> pending = iterator.next();
+                    String value = values.get(i++);
+                    if (value != null) {
+                        scores.put(entryKey(entry.getKey().id(), pending.getKey()), Double.parseDouble(value));
+                        iterator.remove();
+                    }
+                }
+            }
+            toScore.values().removeIf(Map::isEmpty);
+        } catch (Exception e) {
+            // Scoring works without the cache, just slower
+            logger.warn("Failed to read cached similarity scores: {}", e.getMessage());
+        }
+    }
+
+    private void scoreBatch(ExamAnswerKey.Question question, List<Map.Entry<String, Pending>> batch, Map<String, Double> scores) {
+        List<String> answers = batch.stream().map(entry -> entry.getValue().answer()).toList();
+        List<Double> modelScores;
+        try {
+            modelScores = examReviewAIService.compareAnswersSemanticallyBatch(question.referenceAnswer(), answers);
+        } catch (Exception e) {
+            logger.error("Failed to compare {} answers to question {} semantically", answers.size(), question.id(), e);
+            modelScores = null;
+        }
+
+        Map<String, Double> results = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<String, Pending> entry = batch.get(i);
+            Double score = modelScores != null ? modelScores.get(i) : null;
+            if (score != null) {
+                cache(entry.getValue().cacheKey(), score);
+            } else if (modelScores != null) {
+                // The batch answered but left this one out: ask for it alone. That call falls back to
+                // word overlap itself, so its score is not cached here either.
+                score = examReviewAIService.compareAnswersSemantically(entry.getValue().answer(), question.referenceAnswer());
+                meterRegistry.counter("exam.grading.semantic.answers", "source", "single").increment();
+            } else {
+                // Fallback: simple text comparison, not cached
+                score = examReviewAIService.calculateSimpleSimilarity(entry.getValue().answer(), question.referenceAnswer());
+                meterRegistry.counter("exam.grading.semantic.answers", "source", "fallback").increment();
+            }
+            results.put(entryKey(question.id(), entry.getKey()), score);
+        }
+        synchronized (scores) {
+            scores.putAll(results);
+        }
+    }
+
+    private void cache(String cacheKey, double score) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(cacheKey, String.valueOf(score), Duration.ofDays(cacheTtlDays));
+        } catch (Exception e) {
+            logger.warn("Failed to cache similarity score: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Normalize an answer so trivially different copies of it (case, spacing, a trailing period)
+     * compare equal, then hash it
+     */
+    static String fingerprint(String answer) {
+        String normalized = Normalizer.normalize(answer, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        normalized = TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+        return sha256(normalized);
+    }
+
+    private static String entryKey(String questionId, String fingerprint) {
+        return questionId + ":" + fingerprint;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
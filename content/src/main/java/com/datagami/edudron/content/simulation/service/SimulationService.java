@@ -7,6 +7,7 @@ import com.datagami.edudron.content.domain.LectureContent;
 import com.datagami.edudron.content.repo.CourseRepository;
 import com.datagami.edudron.content.repo.LectureContentRepository;
 import com.datagami.edudron.content.repo.LectureRepository;
+import com.datagami.edudron.content.service.AIPriority;
 import com.datagami.edudron.content.service.FoundryAIService;
 import com.datagami.edudron.content.simulation.domain.Simulation;
 import com.datagami.edudron.content.simulation.domain.SimulationPlay;
@@ -451,7 +452,8 @@ public class SimulationService {
 
         String userPrompt = "Analyze this course and suggest a simulation concept. Return ONLY the JSON object.";
 
-        String response = foundryAIService.callOpenAI(systemPrompt, userPrompt);
+        // Asking again should give a different idea, so the response is not cached
+        String response = foundryAIService.callOpenAI(systemPrompt, userPrompt, AIPriority.INTERACTIVE, false);
         String json = simulationGenerationService.extractJsonObject(response);
 
         try {
@@ -1,10 +1,8 @@
 package com.datagami.edudron.content.simulation.web;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.content.dto.AIGenerationJobDTO;
 import com.datagami.edudron.content.service.AIJobQueueService;
-import com.datagami.edudron.content.service.AIJobWorker;
 import com.datagami.edudron.content.service.LectureService;
 import com.datagami.edudron.content.simulation.domain.Simulation;
 import com.datagami.edudron.content.simulation.dto.GenerateSimulationRequest;
@@ -16,7 +14,6 @@ import com.datagami.edudron.content.simulation.repo.SimulationRepository;
 import com.datagami.edudron.content.simulation.service.SimulationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +27,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
@@ -38,7 +34,6 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,9 +52,6 @@ public class SimulationAdminController {
     @Autowired
     private AIJobQueueService aiJobQueueService;
 
-    @Autowired
-    private AIJobWorker aiJobWorker;
-
     @Autowired
     private SimulationRepository simulationRepository;
 
@@ -69,8 +61,8 @@ public class SimulationAdminController {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * Check that current user is SYSTEM_ADMIN or TENANT_ADMIN.
@@ -83,38 +75,6 @@ public class SimulationAdminController {
         }
     }
 
-    /**
-     * Get a RestTemplate configured with tenant context and auth header forwarding.
-     */
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes =
-                                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
-
     /**
      * Check that the SIMULATION feature flag is enabled for the current tenant.
      * Calls the identity service via gateway to verify.
@@ -141,7 +101,7 @@ public class SimulationAdminController {
                 }
             }
 
-            ResponseEntity<Boolean> response = getRestTemplate().exchange(
+            ResponseEntity<Boolean> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -212,7 +172,7 @@ public class SimulationAdminController {
             jobRequest.put("decisionsPerYear", String.valueOf(request.getDecisionsPerYear()));
         }
 
-        AIGenerationJobDTO job = aiJobQueueService.submitSimulationGenerationJob(jobRequest, aiJobWorker);
+        AIGenerationJobDTO job = aiJobQueueService.submitSimulationGenerationJob(jobRequest);
         logger.info("Simulation generation job {} submitted for simulation {}", job.getJobId(), sim.getId());
 
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
@@ -1,7 +1,6 @@
 package com.datagami.edudron.content.simulation.web;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.content.simulation.dto.DecisionInputDTO;
 import com.datagami.edudron.content.simulation.dto.SimulationDTO;
 import com.datagami.edudron.content.simulation.dto.SimulationPlayDTO;
@@ -9,7 +8,6 @@ import com.datagami.edudron.content.simulation.dto.SimulationStateDTO;
 import com.datagami.edudron.content.simulation.service.SimulationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -18,7 +16,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
@@ -29,7 +26,6 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -47,41 +43,8 @@ public class SimulationStudentController {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    /**
-     * Get a RestTemplate configured with tenant context and auth header forwarding.
-     * Same pattern as PsychTestController.
-     */
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes =
-                                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * Resolve the current user's ULID via the identity service (/idp/users/me).
@@ -95,7 +58,7 @@ public class SimulationStudentController {
 
         try {
             String meUrl = gatewayUrl + "/idp/users/me";
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     meUrl,
                     HttpMethod.GET,
                     new HttpEntity<>(new HttpHeaders()),
@@ -122,7 +85,7 @@ public class SimulationStudentController {
     private String getStudentSectionId(String studentId) {
         try {
             String url = gatewayUrl + "/api/students/" + studentId + "/class-section";
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(new HttpHeaders()),
@@ -165,7 +128,7 @@ public class SimulationStudentController {
                 }
             }
 
-            ResponseEntity<Boolean> response = getRestTemplate().exchange(
+            ResponseEntity<Boolean> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
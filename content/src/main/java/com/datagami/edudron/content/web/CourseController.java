@@ -130,9 +130,6 @@ public class CourseController {
     @Autowired
     private com.datagami.edudron.content.service.AIJobQueueService aiJobQueueService;
     
-    @Autowired
-    private com.datagami.edudron.content.service.AIJobWorker aiJobWorker;
-    
     @PostMapping(value = "/generate", consumes = {"application/json"})
     @Operation(
         summary = "Generate course from prompt (JSON)",
@@ -145,7 +142,7 @@ public class CourseController {
             throw new IllegalArgumentException("AI generation features are only available to SYSTEM_ADMIN and TENANT_ADMIN");
         }
         
-        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitCourseGenerationJob(request, aiJobWorker);
+        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitCourseGenerationJob(request);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
     
@@ -228,7 +225,7 @@ public class CourseController {
             }
         }
         
-        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitCourseGenerationJob(request, aiJobWorker);
+        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitCourseGenerationJob(request);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
     
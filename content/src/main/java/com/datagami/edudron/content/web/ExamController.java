@@ -6,12 +6,13 @@ import com.datagami.edudron.content.domain.QuizQuestion;
 import com.datagami.edudron.content.dto.BatchExamGenerationRequest;
 import com.datagami.edudron.content.dto.BatchExamGenerationResponse;
 import com.datagami.edudron.content.dto.ExamDetailDTO;
+import com.datagami.edudron.content.dto.StudentExamVisibilityRequest;
 import com.datagami.edudron.content.repo.QuizQuestionRepository;
 import com.datagami.edudron.content.service.ExamService;
+import com.datagami.edudron.content.service.ExamGradingQueueService;
 import com.datagami.edudron.content.service.ExamReviewService;
 import com.datagami.edudron.content.service.QuestionService;
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.content.domain.QuizOption;
 import com.datagami.edudron.content.repo.AssessmentRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -30,12 +31,8 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.data.domain.Page;
 import com.datagami.edudron.content.dto.PagedExamsResponse;
@@ -65,6 +62,9 @@ public class ExamController {
     @Autowired
     private ExamReviewService examReviewService;
 
+    @Autowired
+    private ExamGradingQueueService examGradingQueueService;
+
     @Autowired
     private QuestionService questionService;
 
@@ -83,37 +83,8 @@ public class ExamController {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                                .getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * Fetch student name and email from identity (one call per student). Returns
@@ -124,7 +95,7 @@ public class ExamController {
             String url = gatewayUrl + "/idp/users/" + studentId;
             HttpHeaders headers = new HttpHeaders();
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
-            ResponseEntity<Map<String, Object>> resp = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> resp = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -303,7 +274,7 @@ public class ExamController {
             HttpHeaders headers = new HttpHeaders();
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
 
-            ResponseEntity<Object[]> response = getRestTemplate().exchange(
+            ResponseEntity<Object[]> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -335,7 +306,7 @@ public class ExamController {
             HttpHeaders headers = new HttpHeaders();
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
 
-            ResponseEntity<Object[]> response = getRestTemplate().exchange(
+            ResponseEntity<Object[]> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -565,6 +536,26 @@ public class ExamController {
         return ResponseEntity.ok(exams);
     }
 
+    @PostMapping("/visible")
+    @Operation(summary = "Get exams visible to a student", description = "Get live, scheduled and completed exams for the given course/section/class scopes in a single call")
+    public ResponseEntity<List<Assessment>> getVisibleExams(@RequestBody StudentExamVisibilityRequest request) {
+        List<Assessment> exams = examService.getVisibleExamsForStudent(request);
+        return ResponseEntity.ok(exams);
+    }
+
+    @PostMapping("/max-scores")
+    @Operation(summary = "Get exam max scores", description = "Get the total points of many exams in a single call. Body: {\"examIds\": [...]}")
+    public ResponseEntity<Map<String, Integer>> getExamMaxScores(@RequestBody Map<String, List<String>> request) {
+        List<String> examIds = request.get("examIds");
+        if (examIds == null) {
+            throw new IllegalArgumentException("examIds is required");
+        }
+        if (examIds.size() > 500) {
+            throw new IllegalArgumentException("At most 500 examIds can be requested at once");
+        }
+        return ResponseEntity.ok(examService.getExamMaxScores(examIds));
+    }
+
     @GetMapping("/{id}/submissions")
     @Operation(summary = "Get all submissions", description = "Get all submissions for an exam")
     public ResponseEntity<List<Map<String, Object>>> getSubmissions(@PathVariable String id) {
@@ -579,7 +570,7 @@ public class ExamController {
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
             headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
 
-            ResponseEntity<List<Map<String, Object>>> response = getRestTemplate().exchange(
+            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -612,7 +603,7 @@ public class ExamController {
                     String sectionStudentsUrl = gatewayUrl + "/api/sections/" + sectionId + "/students";
                     org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>> sectionListType = new org.springframework.core.ParameterizedTypeReference<List<Map<String, Object>>>() {
                     };
-                    ResponseEntity<List<Map<String, Object>>> sectionResp = getRestTemplate().exchange(
+                    ResponseEntity<List<Map<String, Object>>> sectionResp = restTemplate.exchange(
                             sectionStudentsUrl,
                             HttpMethod.GET,
                             new HttpEntity<>(headers),
@@ -671,7 +662,7 @@ public class ExamController {
             HttpHeaders headers = new HttpHeaders();
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
 
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -701,7 +692,7 @@ public class ExamController {
             @PathVariable String submissionId) {
         try {
             String url = gatewayUrl + "/api/assessments/" + id + "/submissions/" + submissionId;
-            getRestTemplate().exchange(
+            restTemplate.exchange(
                     url,
                     HttpMethod.DELETE,
                     new HttpEntity<>(new HttpHeaders()),
@@ -725,9 +716,10 @@ public class ExamController {
     @Operation(summary = "Review submission with AI", description = "Trigger AI review for a submission")
     public ResponseEntity<?> reviewSubmission(
             @PathVariable String id,
-            @PathVariable String submissionId) {
+            @PathVariable String submissionId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
         try {
-            examReviewService.reviewSubmissionWithAI(submissionId);
+            queueForReview(id, submissionId, authorization);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             logger.error("Failed to review submission", e);
@@ -735,6 +727,19 @@ public class ExamController {
         }
     }
 
+    /**
+     * Queue a submitted exam for grading. When the queue is unavailable the submission is graded
+     * right away on this thread, as before the queue existed.
+     */
+    private void queueForReview(String examId, String submissionId, String authorization) {
+        try {
+            examGradingQueueService.enqueue(examId, submissionId, authorization);
+        } catch (Exception e) {
+            logger.warn("Grading queue unavailable, reviewing submission {} directly: {}", submissionId, e.getMessage());
+            examReviewService.reviewSubmission(submissionId);
+        }
+    }
+
     @PostMapping("/{id}/submissions/{submissionId}/regrade")
     @Operation(summary = "Re-grade submission", description = "Re-trigger AI grading for a specific submission (admin only)")
     public ResponseEntity<?> regradeSubmission(
@@ -764,7 +769,7 @@ public class ExamController {
             headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(
                     requestBody != null ? requestBody : new java.util.HashMap<>(), headers);
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     url,
                     HttpMethod.PUT,
                     entity,
@@ -845,7 +850,7 @@ public class ExamController {
             headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
             String bodyStr = objectMapper.writeValueAsString(Map.of("submissionIds", submissionIds));
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     url,
                     HttpMethod.POST,
                     new HttpEntity<>(bodyStr, headers),
@@ -903,7 +908,7 @@ public class ExamController {
             String submissionsUrl = gatewayUrl + "/api/assessments/" + id + "/submissions";
             HttpHeaders headers = new HttpHeaders();
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
-            ResponseEntity<List<Map<String, Object>>> submissionsResponse = getRestTemplate().exchange(
+            ResponseEntity<List<Map<String, Object>>> submissionsResponse = restTemplate.exchange(
                     submissionsUrl,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -971,7 +976,7 @@ public class ExamController {
             postHeaders.setAccept(
                     java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
             String bodyStr = objectMapper.writeValueAsString(bulkBody);
-            ResponseEntity<Map<String, Object>> bulkResponse = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> bulkResponse = restTemplate.exchange(
                     bulkGradeUrl,
                     HttpMethod.POST,
                     new HttpEntity<>(bodyStr, postHeaders),
@@ -1335,7 +1340,7 @@ public class ExamController {
                     submissionHeaders.setAccept(
                             java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
 
-                    ResponseEntity<List<Map<String, Object>>> submissionsResponse = getRestTemplate().exchange(
+                    ResponseEntity<List<Map<String, Object>>> submissionsResponse = restTemplate.exchange(
                             submissionsUrl,
                             HttpMethod.GET,
                             new HttpEntity<>(submissionHeaders),
@@ -1501,7 +1506,7 @@ public class ExamController {
             HttpHeaders getHeaders = new HttpHeaders();
             getHeaders.setAccept(
                     java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
-            ResponseEntity<JsonNode> submissionResponse = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> submissionResponse = restTemplate.exchange(
                     submissionUrl,
                     HttpMethod.GET,
                     new HttpEntity<>(getHeaders),
@@ -1709,7 +1714,7 @@ public class ExamController {
             headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
             headers.setAccept(java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
 
-            ResponseEntity<Map<String, Object>> response = getRestTemplate().exchange(
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
                     updateUrl,
                     HttpMethod.PUT,
                     new HttpEntity<>(objectMapper.writeValueAsString(updateRequest), headers),
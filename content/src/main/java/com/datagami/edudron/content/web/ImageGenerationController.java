@@ -2,7 +2,6 @@ package com.datagami.edudron.content.web;
 
 import com.datagami.edudron.content.dto.AIGenerationJobDTO;
 import com.datagami.edudron.content.service.AIJobQueueService;
-import com.datagami.edudron.content.service.AIJobWorker;
 import com.datagami.edudron.content.service.ImageGenerationService;
 import com.datagami.edudron.content.service.LectureService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,9 +31,6 @@ public class ImageGenerationController {
     @Autowired
     private AIJobQueueService aiJobQueueService;
 
-    @Autowired
-    private AIJobWorker aiJobWorker;
-
     /**
      * Generate a single image synchronously from a prompt.
      */
@@ -100,7 +96,7 @@ public class ImageGenerationController {
         jobRequest.put("lectureId", lectureId);
         jobRequest.put("count", String.valueOf(count));
 
-        AIGenerationJobDTO job = aiJobQueueService.submitImageGenerationJob(jobRequest, aiJobWorker);
+        AIGenerationJobDTO job = aiJobQueueService.submitImageGenerationJob(jobRequest);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
 
@@ -37,9 +37,6 @@ public class LectureController {
     @Autowired
     private com.datagami.edudron.content.service.AIJobQueueService aiJobQueueService;
     
-    @Autowired
-    private com.datagami.edudron.content.service.AIJobWorker aiJobWorker;
-
     @GetMapping("/sections/{sectionId}/lectures")
     @Operation(summary = "List lectures", description = "Get all lectures for a section")
     public ResponseEntity<List<LectureDTO>> getLectures(@PathVariable String sectionId) {
@@ -146,7 +143,7 @@ public class LectureController {
             jobRequest.put("generateImages", generateImages);
         }
 
-        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitSubLectureGenerationJob(jobRequest, aiJobWorker);
+        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitSubLectureGenerationJob(jobRequest);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
 
@@ -177,7 +174,7 @@ public class LectureController {
             jobRequest.put("generateImages", generateImages);
         }
 
-        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitSubLectureGenerationJob(jobRequest, aiJobWorker);
+        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitSubLectureGenerationJob(jobRequest);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
     
@@ -41,9 +41,6 @@ public class LecturesController {
     @Autowired
     private com.datagami.edudron.content.service.AIJobQueueService aiJobQueueService;
     
-    @Autowired
-    private com.datagami.edudron.content.service.AIJobWorker aiJobWorker;
-
     @GetMapping("/{courseId}/lectures")
     @Operation(summary = "List lectures", description = "Get all lectures (modules) for a course")
     public ResponseEntity<List<SectionDTO>> getLectures(@PathVariable String courseId) {
@@ -164,7 +161,7 @@ public class LecturesController {
         jobRequest.put("courseId", courseId);
         jobRequest.put("prompt", finalPrompt);
         
-        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitLectureGenerationJob(jobRequest, aiJobWorker);
+        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitLectureGenerationJob(jobRequest);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
     
@@ -189,7 +186,7 @@ public class LecturesController {
         jobRequest.put("courseId", courseId);
         jobRequest.put("prompt", prompt);
         
-        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitLectureGenerationJob(jobRequest, aiJobWorker);
+        com.datagami.edudron.content.dto.AIGenerationJobDTO job = aiJobQueueService.submitLectureGenerationJob(jobRequest);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
     
@@ -0,0 +1,170 @@
+package com.datagami.edudron.content.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisListCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the claim, acknowledge and requeue scripts against a real Redis: the outcomes live in Lua.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("AI Job Queue Tests")
+class AIJobQueueServiceTest {
+
+    private static final Duration VISIBILITY_TIMEOUT = Duration.ofMinutes(5);
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private AIJobQueueService queueService;
+    private String queue;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        queueService = new AIJobQueueService();
+        ReflectionTestUtils.setField(queueService, "redisTemplate", redisTemplate);
+        queue = "test:queue:" + UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should move a claimed job to the processing list and stamp its claim")
+    void testClaimStampsJob() {
+        redisTemplate.opsForList().rightPush(queue, "job1");
+
+        assertEquals("job1", queueService.claimJob(queue, Duration.ofSeconds(1)));
+
+        assertEquals(0, queueService.getQueueDepth(queue));
+        assertEquals(1, queueService.getInFlightCount(queue));
+        assertNotNull(redisTemplate.opsForHash().get(queue + ":claims", "job1"));
+        assertNull(queueService.claimJob(queue, Duration.ofMillis(100)));
+    }
+
+    @Test
+    @DisplayName("Should remove an acknowledged job and its bookkeeping")
+    void testAcknowledgeRemovesJob() {
+        redisTemplate.opsForList().rightPush(queue, "job1");
+        queueService.claimJob(queue, Duration.ofSeconds(1));
+        redisTemplate.opsForHash().put(queue + ":deliveries", "job1", "1");
+
+        queueService.acknowledgeJob(queue, "job1");
+
+        assertEquals(0, queueService.getInFlightCount(queue));
+        assertFalse(redisTemplate.opsForHash().hasKey(queue + ":claims", "job1"));
+        assertFalse(redisTemplate.opsForHash().hasKey(queue + ":deliveries", "job1"));
+    }
+
+    @Test
+    @DisplayName("Should leave a job whose claim is within the visibility timeout")
+    void testJobStillClaimedIsLeftAlone() {
+        redisTemplate.opsForList().rightPush(queue, "job1");
+        queueService.claimJob(queue, Duration.ofSeconds(1));
+
+        assertTrue(queueService.requeueExpiredJobs(queue, VISIBILITY_TIMEOUT, 3).isEmpty());
+
+        assertEquals(0, queueService.getQueueDepth(queue));
+        assertEquals(1, queueService.getInFlightCount(queue));
+    }
+
+    @Test
+    @DisplayName("Should requeue a job whose claim has lapsed and count the delivery")
+    void testLapsedJobIsRequeued() {
+        redisTemplate.opsForList().rightPush(queue, "job1");
+        queueService.claimJob(queue, Duration.ofSeconds(1));
+        expireClaim("job1");
+
+        assertTrue(queueService.requeueExpiredJobs(queue, VISIBILITY_TIMEOUT, 3).isEmpty());
+
+        assertEquals(List.of("job1"), redisTemplate.opsForList().range(queue, 0, -1));
+        assertEquals(0, queueService.getInFlightCount(queue));
+        assertFalse(redisTemplate.opsForHash().hasKey(queue + ":claims", "job1"));
+        assertEquals("1", redisTemplate.opsForHash().get(queue + ":deliveries", "job1"));
+    }
+
+    @Test
+    @DisplayName("Should drop a job and report it once it has lapsed max-deliveries times")
+    void testJobIsDroppedAfterMaxDeliveries() {
+        redisTemplate.opsForList().rightPush(queue, "job1");
+        queueService.claimJob(queue, Duration.ofSeconds(1));
+        expireClaim("job1");
+        assertTrue(queueService.requeueExpiredJobs(queue, VISIBILITY_TIMEOUT, 2).isEmpty());
+
+        queueService.claimJob(queue, Duration.ofSeconds(1));
+        expireClaim("job1");
+        assertEquals(List.of("job1"), queueService.requeueExpiredJobs(queue, VISIBILITY_TIMEOUT, 2));
+
+        assertEquals(0, queueService.getQueueDepth(queue));
+        assertEquals(0, queueService.getInFlightCount(queue));
+        assertFalse(redisTemplate.opsForHash().hasKey(queue + ":claims", "job1"));
+        assertFalse(redisTemplate.opsForHash().hasKey(queue + ":deliveries", "job1"));
+    }
+
+    @Test
+    @DisplayName("Should start the clock on a claim that was moved but never stamped")
+    void testUnstampedClaimIsStampedNotRequeued() {
+        // The consumer died between BLMOVE and stamping the claim
+        redisTemplate.opsForList().rightPush(queue, "job1");
+        redisTemplate.opsForList().move(queue, RedisListCommands.Direction.LEFT,
+                queue + ":processing", RedisListCommands.Direction.RIGHT);
+
+        assertTrue(queueService.requeueExpiredJobs(queue, Duration.ZERO, 3).isEmpty());
+
+        assertEquals(1, queueService.getInFlightCount(queue));
+        assertNotNull(redisTemplate.opsForHash().get(queue + ":claims", "job1"));
+
+        // Once that claim lapses the job is requeued like any other
+        expireClaim("job1");
+        assertTrue(queueService.requeueExpiredJobs(queue, VISIBILITY_TIMEOUT, 3).isEmpty());
+        assertEquals(List.of("job1"), redisTemplate.opsForList().range(queue, 0, -1));
+    }
+
+    @Test
+    @DisplayName("Should keep renewed claims from being requeued")
+    void testRenewedClaimIsNotRequeued() {
+        redisTemplate.opsForList().rightPush(queue, "job1");
+        queueService.claimJob(queue, Duration.ofSeconds(1));
+        expireClaim("job1");
+
+        queueService.renewClaims(queue, List.of("job1"));
+
+        assertTrue(queueService.requeueExpiredJobs(queue, VISIBILITY_TIMEOUT, 3).isEmpty());
+        assertEquals(1, queueService.getInFlightCount(queue));
+    }
+
+    private void expireClaim(String jobId) {
+        long lapsed = System.currentTimeMillis() - VISIBILITY_TIMEOUT.toMillis() - 1000;
+        redisTemplate.opsForHash().put(queue + ":claims", jobId, String.valueOf(lapsed));
+    }
+}
@@ -0,0 +1,130 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.content.dto.AIGenerationJobDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AI Queue Processor Tests")
+class AIQueueProcessorTest {
+
+    @Mock
+    private AIJobQueueService queueService;
+
+    @Mock
+    private AIJobWorker jobWorker;
+
+    @Mock
+    private CourseCopyWorker courseCopyWorker;
+
+    @InjectMocks
+    private AIQueueProcessor processor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(processor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(processor, "courseGenerationConsumers", 0);
+        ReflectionTestUtils.setField(processor, "lectureGenerationConsumers", 0);
+        ReflectionTestUtils.setField(processor, "imageGenerationConsumers", 0);
+        ReflectionTestUtils.setField(processor, "simulationGenerationConsumers", 0);
+        ReflectionTestUtils.setField(processor, "courseCopyConsumers", 0);
+        ReflectionTestUtils.setField(processor, "pollTimeoutSeconds", 0L);
+        ReflectionTestUtils.setField(processor, "visibilityTimeoutSeconds", 300L);
+        ReflectionTestUtils.setField(processor, "maxDeliveries", 3);
+        ReflectionTestUtils.setField(processor, "shutdownGraceSeconds", 5L);
+        when(queueService.requeueExpiredJobs(anyString(), any(), anyInt())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.stop();
+    }
+
+    @Test
+    @DisplayName("Should mark a job failed and drop its request once it exceeds max deliveries")
+    void testAbandonedJobIsFailed() {
+        AIGenerationJobDTO job = job("job1", AIGenerationJobDTO.JobStatus.PROCESSING);
+        when(queueService.requeueExpiredJobs(eq(AIJobQueueService.COURSE_GENERATION_QUEUE), any(), eq(3)))
+                .thenReturn(List.of("job1"));
+        when(queueService.getJob("job1")).thenReturn(job);
+
+        processor.start();
+        processor.maintainQueues();
+
+        assertEquals(AIGenerationJobDTO.JobStatus.FAILED, job.getStatus());
+        assertNotNull(job.getError());
+        verify(queueService).updateJob(job);
+        verify(queueService).deleteJobRequest("job1");
+        assertEquals(1.0, meterRegistry.counter("ai.queue.abandoned", "queue", "course-generation").count());
+    }
+
+    @Test
+    @DisplayName("Should not overwrite the status of an abandoned job that had already finished")
+    void testFinishedAbandonedJobKeepsStatus() {
+        AIGenerationJobDTO job = job("job1", AIGenerationJobDTO.JobStatus.COMPLETED);
+        when(queueService.requeueExpiredJobs(eq(AIJobQueueService.COURSE_COPY_QUEUE), any(), eq(3)))
+                .thenReturn(List.of("job1"));
+        when(queueService.getJob("job1")).thenReturn(job);
+
+        processor.start();
+        processor.maintainQueues();
+
+        assertEquals(AIGenerationJobDTO.JobStatus.COMPLETED, job.getStatus());
+        verify(queueService, never()).updateJob(any());
+        verify(queueService).deleteJobRequest("job1");
+    }
+
+    @Test
+    @DisplayName("Should acknowledge a job even when its handler fails")
+    void testFailedJobIsAcknowledged() {
+        ReflectionTestUtils.setField(processor, "courseCopyConsumers", 1);
+        when(queueService.claimJob(eq(AIJobQueueService.COURSE_COPY_QUEUE), any())).thenReturn("job1", (String) null);
+        when(queueService.getJob("job1")).thenReturn(job("job1", AIGenerationJobDTO.JobStatus.PENDING));
+        doThrow(new IllegalStateException("model unavailable")).when(courseCopyWorker).processCourseCopyJob("job1");
+
+        processor.start();
+
+        verify(queueService, timeout(2000)).acknowledgeJob(AIJobQueueService.COURSE_COPY_QUEUE, "job1");
+    }
+
+    @Test
+    @DisplayName("Should acknowledge a redelivered job that already finished without running it again")
+    void testFinishedJobIsSkipped() {
+        ReflectionTestUtils.setField(processor, "courseCopyConsumers", 1);
+        when(queueService.claimJob(eq(AIJobQueueService.COURSE_COPY_QUEUE), any())).thenReturn("job1", (String) null);
+        when(queueService.getJob("job1")).thenReturn(job("job1", AIGenerationJobDTO.JobStatus.COMPLETED));
+
+        processor.start();
+
+        verify(queueService, timeout(2000)).acknowledgeJob(AIJobQueueService.COURSE_COPY_QUEUE, "job1");
+        verifyNoInteractions(courseCopyWorker);
+    }
+
+    private static AIGenerationJobDTO job(String jobId, AIGenerationJobDTO.JobStatus status) {
+        AIGenerationJobDTO job = new AIGenerationJobDTO();
+        job.setJobId(jobId);
+        job.setJobType(AIGenerationJobDTO.JobType.COURSE_COPY);
+        job.setStatus(status);
+        return job;
+    }
+}
@@ -0,0 +1,149 @@
+package com.datagami.edudron.content.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AI Request Governor Tests")
+class AIRequestGovernorTest {
+
+    private static final String DEPLOYMENT = "gpt-test";
+
+    private AIRequestGovernor governor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        governor = new AIRequestGovernor();
+        ReflectionTestUtils.setField(governor, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(governor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(governor, "requestsPerMinute", 6000);
+        ReflectionTestUtils.setField(governor, "burst", 100);
+        ReflectionTestUtils.setField(governor, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(governor, "interactiveReserve", 0);
+        ReflectionTestUtils.setField(governor, "admissionTimeoutSeconds", 10L);
+    }
+
+    @Test
+    @DisplayName("Should admit a waiting interactive call before background calls that queued earlier")
+    void testInteractiveCallsGoFirst() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Thread holder = Thread.ofVirtual().start(() -> governor.execute(DEPLOYMENT, AIPriority.BACKGROUND, () -> {
+            running.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        Thread background = Thread.ofVirtual().start(() ->
+                governor.execute(DEPLOYMENT, AIPriority.BACKGROUND, () -> order.add("background")));
+        waitUntilWaiting(background);
+        Thread interactive = Thread.ofVirtual().start(() ->
+                governor.execute(DEPLOYMENT, AIPriority.INTERACTIVE, () -> order.add("interactive")));
+        waitUntilWaiting(interactive);
+
+        release.countDown();
+        holder.join(5000);
+        background.join(5000);
+        interactive.join(5000);
+
+        assertEquals(List.of("interactive", "background"), order);
+    }
+
+    @Test
+    @DisplayName("Should keep reserved slots for interactive calls")
+    void testReservedSlotsAreNotUsedByBackgroundCalls() throws Exception {
+        ReflectionTestUtils.setField(governor, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(governor, "interactiveReserve", 1);
+        ReflectionTestUtils.setField(governor, "admissionTimeoutSeconds", 0L);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = Thread.ofVirtual().start(() -> governor.execute(DEPLOYMENT, AIPriority.BACKGROUND, () -> {
+            running.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertThrows(AIRequestGovernor.AdmissionTimeoutException.class,
+                () -> governor.execute(DEPLOYMENT, AIPriority.BACKGROUND, () -> "second background"));
+        assertEquals("interactive", governor.execute(DEPLOYMENT, AIPriority.INTERACTIVE, () -> "interactive"));
+
+        release.countDown();
+        holder.join(5000);
+        assertEquals(1, meterRegistry.timer("ai.requests", "deployment", DEPLOYMENT, "priority", "background",
+                "outcome", "not-admitted").count());
+    }
+
+    @Test
+    @DisplayName("Should limit calls to the bucket's burst and stop admitting while backing off")
+    void testRateLimitAndBackOff() {
+        ReflectionTestUtils.setField(governor, "requestsPerMinute", 1);
+        ReflectionTestUtils.setField(governor, "burst", 2);
+        ReflectionTestUtils.setField(governor, "admissionTimeoutSeconds", 0L);
+
+        governor.execute(DEPLOYMENT, AIPriority.BACKGROUND, () -> "first");
+        governor.execute(DEPLOYMENT, AIPriority.BACKGROUND, () -> "second");
+        assertThrows(AIRequestGovernor.AdmissionTimeoutException.class,
+                () -> governor.execute(DEPLOYMENT, AIPriority.INTERACTIVE, () -> "third"));
+
+        // Another deployment has its own bucket, until it is throttled too
+        assertEquals("other", governor.execute("gpt-other", AIPriority.BACKGROUND, () -> "other"));
+        governor.backOff("gpt-other", Duration.ofMinutes(1));
+        assertThrows(AIRequestGovernor.AdmissionTimeoutException.class,
+                () -> governor.execute("gpt-other", AIPriority.INTERACTIVE, () -> "paused"));
+    }
+
+    @Test
+    @DisplayName("Should not let tokens pile up while a deployment is paused")
+    void testNoTokensAccrueDuringPause() {
+        // 10 tokens a second, burst of 5
+        AIRequestGovernor.DeploymentLimiter limiter = new AIRequestGovernor.DeploymentLimiter(DEPLOYMENT, 600, 5, 10, 0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(AIPriority.BACKGROUND, deadline);
+            limiter.release();
+        }
+
+        limiter.pause(Duration.ofMillis(300));
+        long start = System.nanoTime();
+        limiter.acquire(AIPriority.INTERACTIVE, deadline);
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+        // The 300 ms pause would have bought 3 tokens; the bucket starts refilling only when it ends
+        double tokens = (double) ReflectionTestUtils.getField(limiter, "tokens");
+        assertTrue(tokens < 1, "tokens after pause: " + tokens);
+    }
+
+    private static void waitUntilWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "thread never blocked");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.AuthorizationContext;
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.content.domain.Assessment;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Exam Grading Queue Tests")
+class ExamGradingProcessorTest {
+
+    @Mock
+    private ExamGradingQueueService queueService;
+
+    @Mock
+    private ExamAnswerKeyService answerKeyService;
+
+    @Mock
+    private ExamReviewService examReviewService;
+
+    @InjectMocks
+    private ExamGradingProcessor processor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clientId = UUID.randomUUID();
+        ReflectionTestUtils.setField(processor, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should load each exam and answer key once per batch and grade every submission")
+    void testBatchIsGradedPerExam() {
+        Assessment examA = exam("examA");
+        Assessment examB = exam("examB");
+        ExamAnswerKey keyA = ExamAnswerKey.compile(List.of());
+        ExamAnswerKey keyB = ExamAnswerKey.compile(List.of());
+        for (String submissionId : List.of("s1", "s2", "s3")) {
+            when(queueService.getJob(submissionId)).thenReturn(job(submissionId, "examA"));
+        }
+        when(queueService.getJob("s4")).thenReturn(job("s4", "examB"));
+        when(examReviewService.getReviewableExam("examA", clientId)).thenReturn(examA);
+        when(examReviewService.getReviewableExam("examB", clientId)).thenReturn(examB);
+        when(answerKeyService.getAnswerKey("examA", clientId)).thenReturn(keyA);
+        when(answerKeyService.getAnswerKey("examB", clientId)).thenReturn(keyB);
+        // Each submission is read and graded with its submitter's credentials and tenant
+        when(examReviewService.fetchSubmission(anyString())).thenAnswer(invocation -> {
+            assertEquals("Bearer " + invocation.getArgument(0), AuthorizationContext.getAuthorization());
+            assertEquals(clientId.toString(), TenantContext.getClientId());
+            return submission(invocation.getArgument(0));
+        });
+        when(examReviewService.gradeSubmission(anyString(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            assertEquals("Bearer " + invocation.getArgument(0), AuthorizationContext.getAuthorization());
+            assertEquals(clientId.toString(), TenantContext.getClientId());
+            return null;
+        });
+
+        processor.processBatch(List.of("s1", "s2", "s3", "s4"));
+
+        verify(examReviewService, times(1)).getReviewableExam("examA", clientId);
+        verify(answerKeyService, times(1)).getAnswerKey("examA", clientId);
+        // Subjective answers are scored once per exam, for all of its submissions together
+        verify(examReviewService).scoreSubjectiveAnswers(eq(keyA), argThat(submissions -> submissions.size() == 3));
+        verify(examReviewService).scoreSubjectiveAnswers(eq(keyB), argThat(submissions -> submissions.size() == 1));
+        verify(examReviewService).gradeSubmission(eq("s1"), any(), eq(examA), eq(keyA), any());
+        verify(examReviewService).gradeSubmission(eq("s2"), any(), eq(examA), eq(keyA), any());
+        verify(examReviewService).gradeSubmission(eq("s3"), any(), eq(examA), eq(keyA), any());
+        verify(examReviewService).gradeSubmission(eq("s4"), any(), eq(examB), eq(keyB), any());
+        verify(queueService, times(4)).complete(anyString());
+        assertEquals(4.0, meterRegistry.counter("exam.grading.submissions", "outcome", "graded").count());
+        assertEquals(4, meterRegistry.timer("exam.grading.lag").count());
+        assertNull(TenantContext.getClientId());
+        assertNull(AuthorizationContext.getAuthorization());
+    }
+
+    @Test
+    @DisplayName("Should leave submissions for retry on transient failures and drop ones that cannot be graded")
+    void testFailuresAreRetriedOrRejected() {
+        Assessment examA = exam("examA");
+        ExamAnswerKey keyA = ExamAnswerKey.compile(List.of());
+        when(queueService.getJob("s1")).thenReturn(job("s1", "examA"));
+        when(queueService.getJob("s2")).thenReturn(job("s2", "examA"));
+        when(queueService.getJob("s3")).thenReturn(null);
+        when(examReviewService.getReviewableExam("examA", clientId)).thenReturn(examA);
+        when(answerKeyService.getAnswerKey("examA", clientId)).thenReturn(keyA);
+        when(examReviewService.fetchSubmission("s1")).thenReturn(submission("s1"));
+        when(examReviewService.gradeSubmission(eq("s1"), any(), eq(examA), eq(keyA), any()))
+                .thenThrow(new ResourceAccessException("student unavailable"));
+        when(examReviewService.fetchSubmission("s2"))
+                .thenThrow(new IllegalArgumentException("Submission not found: s2"));
+
+        processor.processBatch(List.of("s1", "s2", "s3"));
+
+        // s1 stays claimed and is requeued when its claim lapses; s2 and the expired s3 are removed
+        verify(queueService, never()).complete("s1");
+        verify(queueService).complete("s2");
+        verify(queueService).complete("s3");
+        assertEquals(1.0, meterRegistry.counter("exam.grading.submissions", "outcome", "retry").count());
+        assertEquals(1.0, meterRegistry.counter("exam.grading.submissions", "outcome", "rejected").count());
+    }
+
+    @Test
+    @DisplayName("Should retry expired-token, timeout and rate-limit responses and reject the other client errors")
+    void testClientErrorsAreClassifiedByStatus() {
+        Assessment examA = exam("examA");
+        ExamAnswerKey keyA = ExamAnswerKey.compile(List.of());
+        List<HttpStatus> statuses = List.of(HttpStatus.UNAUTHORIZED, HttpStatus.REQUEST_TIMEOUT,
+                HttpStatus.TOO_MANY_REQUESTS, HttpStatus.BAD_REQUEST, HttpStatus.FORBIDDEN,
+                HttpStatus.NOT_FOUND, HttpStatus.CONFLICT);
+        List<String> submissionIds = new ArrayList<>();
+        for (HttpStatus status : statuses) {
+            String submissionId = "s" + status.value();
+            submissionIds.add(submissionId);
+            when(queueService.getJob(submissionId)).thenReturn(job(submissionId, "examA"));
+            when(examReviewService.fetchSubmission(submissionId)).thenThrow(HttpClientErrorException.create(
+                    status, status.getReasonPhrase(), HttpHeaders.EMPTY, new byte[0], null));
+        }
+        when(examReviewService.getReviewableExam("examA", clientId)).thenReturn(examA);
+        when(answerKeyService.getAnswerKey("examA", clientId)).thenReturn(keyA);
+
+        processor.processBatch(submissionIds);
+
+        verify(queueService, never()).complete("s401");
+        verify(queueService, never()).complete("s408");
+        verify(queueService, never()).complete("s429");
+        verify(queueService).complete("s400");
+        verify(queueService).complete("s403");
+        verify(queueService).complete("s404");
+        verify(queueService).complete("s409");
+        assertEquals(3.0, meterRegistry.counter("exam.grading.submissions", "outcome", "retry").count());
+        assertEquals(4.0, meterRegistry.counter("exam.grading.submissions", "outcome", "rejected").count());
+    }
+
+    @Test
+    @DisplayName("Should reject every submission of an exam that does not allow AI review")
+    void testInstructorReviewedExamIsRejected() {
+        when(queueService.getJob("s1")).thenReturn(job("s1", "examA"));
+        when(queueService.getJob("s2")).thenReturn(job("s2", "examA"));
+        when(examReviewService.getReviewableExam("examA", clientId))
+                .thenThrow(new IllegalArgumentException("AI review is not allowed for this exam"));
+
+        processor.processBatch(List.of("s1", "s2"));
+
+        verify(examReviewService, never()).gradeSubmission(anyString(), any(), any(), any(), any());
+        verifyNoInteractions(answerKeyService);
+        verify(queueService).complete("s1");
+        verify(queueService).complete("s2");
+    }
+
+    private Assessment exam(String examId) {
+        Assessment exam = new Assessment();
+        exam.setId(examId);
+        exam.setClientId(clientId);
+        exam.setAssessmentType(Assessment.AssessmentType.EXAM);
+        exam.setReviewMethod(Assessment.ReviewMethod.AI);
+        exam.setPassingScorePercentage(70);
+        return exam;
+    }
+
+    private JsonNode submission(String submissionId) {
+        ObjectNode submission = objectMapper.createObjectNode();
+        submission.put("id", submissionId);
+        submission.set("answersJson", objectMapper.createObjectNode());
+        return submission;
+    }
+
+    private ExamGradingQueueService.GradingJob job(String submissionId, String examId) {
+        return new ExamGradingQueueService.GradingJob(submissionId, examId, clientId, "Bearer " + submissionId,
+                System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,64 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.security.JwtPrincipal;
+import com.datagami.edudron.content.security.JwtUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Exam Grading Queue Job TTL Tests")
+class ExamGradingQueueServiceTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private ExamGradingQueueService queueService;
+
+    @Test
+    @DisplayName("Should keep a job no longer than the submitter's token is valid")
+    void testJobExpiresWithToken() {
+        when(jwtUtil.parseToken("short")).thenReturn(principal(Instant.now().plus(Duration.ofMinutes(30))));
+
+        Duration ttl = queueService.jobTtl("Bearer short");
+
+        assertTrue(ttl.compareTo(Duration.ofMinutes(30)) <= 0);
+        assertTrue(ttl.compareTo(Duration.ofMinutes(29)) > 0);
+    }
+
+    @Test
+    @DisplayName("Should keep a job at most 24 hours even when the token lives longer")
+    void testJobTtlIsCapped() {
+        when(jwtUtil.parseToken("long")).thenReturn(principal(Instant.now().plus(Duration.ofDays(7))));
+        when(jwtUtil.parseToken("no-exp")).thenReturn(principal(null));
+
+        assertEquals(Duration.ofHours(24), queueService.jobTtl("Bearer long"));
+        assertEquals(Duration.ofHours(24), queueService.jobTtl("Bearer no-exp"));
+    }
+
+    @Test
+    @DisplayName("Should refuse to queue a job without a valid bearer token")
+    void testJobWithoutValidTokenIsRefused() {
+        when(jwtUtil.parseToken("invalid")).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> queueService.jobTtl("Bearer invalid"));
+        assertThrows(IllegalStateException.class, () -> queueService.jobTtl(null));
+        assertThrows(IllegalStateException.class, () -> queueService.jobTtl("Basic abc"));
+    }
+
+    private static JwtPrincipal principal(Instant expiresAt) {
+        return new JwtPrincipal("student@example.com", null, "tenant", "STUDENT", "student@example.com",
+                expiresAt, Map.of());
+    }
+}
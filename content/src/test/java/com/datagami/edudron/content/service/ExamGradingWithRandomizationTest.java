@@ -4,8 +4,6 @@ import com.datagami.edudron.common.TenantContext;
 import com.datagami.edudron.content.domain.Assessment;
 import com.datagami.edudron.content.domain.QuizOption;
 import com.datagami.edudron.content.domain.QuizQuestion;
-import com.datagami.edudron.content.repo.AssessmentRepository;
-import com.datagami.edudron.content.repo.QuizQuestionRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -14,10 +12,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -33,18 +28,6 @@ import static org.mockito.Mockito.*;
 @DisplayName("Exam Grading with Randomization Tests")
 class ExamGradingWithRandomizationTest {
 
-    @Mock
-    private AssessmentRepository assessmentRepository;
-
-    @Mock
-    private QuizQuestionRepository quizQuestionRepository;
-
-    @Mock
-    private ExamReviewAIService examReviewAIService;
-
-    @InjectMocks
-    private ExamReviewService examReviewService;
-
     private ObjectMapper objectMapper;
     private UUID clientId;
     private String examId;
@@ -60,9 +43,6 @@ class ExamGradingWithRandomizationTest {
         // Set tenant context
         TenantContext.setClientId(clientId.toString());
 
-        // Set objectMapper via reflection
-        ReflectionTestUtils.setField(examReviewService, "objectMapper", objectMapper);
-
         // Setup mock exam
         exam = new Assessment();
         exam.setId(examId);
@@ -90,15 +70,10 @@ class ExamGradingWithRandomizationTest {
         studentAnswers.put("q1", "q1opt1"); // Correct answer for Q1
         studentAnswers.put("q2", "q2opt1"); // Correct answer for Q2
 
-        // Get the gradeObjectiveQuestion method via reflection
-        java.lang.reflect.Method method = ExamReviewService.class.getDeclaredMethod(
-            "gradeObjectiveQuestion", QuizQuestion.class, JsonNode.class);
-        method.setAccessible(true);
-
         // When: Grade each answer
-        double scoreQ1 = (double) method.invoke(examReviewService, questions.get(0), studentAnswers.get("q1"));
-        double scoreQ2 = (double) method.invoke(examReviewService, questions.get(1), studentAnswers.get("q2"));
-        double scoreQ3 = (double) method.invoke(examReviewService, questions.get(2), studentAnswers.get("q3"));
+        double scoreQ1 = grade(questions.get(0), studentAnswers.get("q1"));
+        double scoreQ2 = grade(questions.get(1), studentAnswers.get("q2"));
+        double scoreQ3 = grade(questions.get(2), studentAnswers.get("q3"));
 
         // Then: All should be correct regardless of order
         assertEquals(2.0, scoreQ1, "Q1 should be graded correctly");
@@ -116,14 +91,9 @@ class ExamGradingWithRandomizationTest {
         studentAnswers.put("q1", "q1opt1"); // Correct answer (might be displayed at position 3)
         studentAnswers.put("q2", "q2opt2"); // Wrong answer (might be displayed at position 1)
 
-        // Get the gradeObjectiveQuestion method via reflection
-        java.lang.reflect.Method method = ExamReviewService.class.getDeclaredMethod(
-            "gradeObjectiveQuestion", QuizQuestion.class, JsonNode.class);
-        method.setAccessible(true);
-
         // When
-        double scoreQ1 = (double) method.invoke(examReviewService, questions.get(0), studentAnswers.get("q1"));
-        double scoreQ2 = (double) method.invoke(examReviewService, questions.get(1), studentAnswers.get("q2"));
+        double scoreQ1 = grade(questions.get(0), studentAnswers.get("q1"));
+        double scoreQ2 = grade(questions.get(1), studentAnswers.get("q2"));
 
         // Then
         assertEquals(2.0, scoreQ1, "Correct answer should be graded correctly regardless of position");
@@ -139,15 +109,10 @@ class ExamGradingWithRandomizationTest {
         studentAnswers.put("q2", "q1opt3"); // Wrong answer
         studentAnswers.put("q3", "q3opt4"); // Wrong answer
 
-        // Get the gradeObjectiveQuestion method via reflection
-        java.lang.reflect.Method method = ExamReviewService.class.getDeclaredMethod(
-            "gradeObjectiveQuestion", QuizQuestion.class, JsonNode.class);
-        method.setAccessible(true);
-
         // When
-        double scoreQ1 = (double) method.invoke(examReviewService, questions.get(0), studentAnswers.get("q1"));
-        double scoreQ2 = (double) method.invoke(examReviewService, questions.get(1), studentAnswers.get("q2"));
-        double scoreQ3 = (double) method.invoke(examReviewService, questions.get(2), studentAnswers.get("q3"));
+        double scoreQ1 = grade(questions.get(0), studentAnswers.get("q1"));
+        double scoreQ2 = grade(questions.get(1), studentAnswers.get("q2"));
+        double scoreQ3 = grade(questions.get(2), studentAnswers.get("q3"));
 
         // Then
         assertEquals(0.0, scoreQ1, "Wrong answer should get 0 points");
@@ -203,13 +168,8 @@ class ExamGradingWithRandomizationTest {
         // Student selects option by ID (opt3), which is correct
         JsonNode studentAnswer = objectMapper.valueToTree("opt3");
 
-        // Get the gradeObjectiveQuestion method via reflection
-        java.lang.reflect.Method method = ExamReviewService.class.getDeclaredMethod(
-            "gradeObjectiveQuestion", QuizQuestion.class, JsonNode.class);
-        method.setAccessible(true);
-
         // When
-        double score = (double) method.invoke(examReviewService, question, studentAnswer);
+        double score = grade(question, studentAnswer);
 
         // Then
         assertEquals(3.0, score, "Should grade by ID, not position - opt3 is correct regardless of being at position 3");
@@ -224,21 +184,21 @@ class ExamGradingWithRandomizationTest {
         studentAnswers.put("q2", "q2opt2"); // Wrong (0 points)
         studentAnswers.put("q3", "q3opt1"); // Correct (2 points)
 
-        // Get the gradeObjectiveQuestion method via reflection
-        java.lang.reflect.Method method = ExamReviewService.class.getDeclaredMethod(
-            "gradeObjectiveQuestion", QuizQuestion.class, JsonNode.class);
-        method.setAccessible(true);
-
         // When
         double totalScore = 0;
-        totalScore += (double) method.invoke(examReviewService, questions.get(0), studentAnswers.get("q1"));
-        totalScore += (double) method.invoke(examReviewService, questions.get(1), studentAnswers.get("q2"));
-        totalScore += (double) method.invoke(examReviewService, questions.get(2), studentAnswers.get("q3"));
+        totalScore += grade(questions.get(0), studentAnswers.get("q1"));
+        totalScore += grade(questions.get(1), studentAnswers.get("q2"));
+        totalScore += grade(questions.get(2), studentAnswers.get("q3"));
 
         // Then
         assertEquals(4.0, totalScore, "Should calculate partial credit correctly: 2 + 0 + 2 = 4");
     }
 
+    // Grades one answer the way submissions are graded: through the compiled answer key
+    private double grade(QuizQuestion question, JsonNode answer) {
+        return ExamAnswerKey.compile(question).scoreObjective(answer);
+    }
+
     // Helper method to create mock questions
     private List<QuizQuestion> createMockQuestions() {
         List<QuizQuestion> questionList = new ArrayList<>();
@@ -0,0 +1,161 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.content.domain.Assessment;
+import com.datagami.edudron.content.dto.StudentExamVisibilityRequest;
+import com.datagami.edudron.content.repo.AssessmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExamService Student Visibility Tests")
+class ExamServiceVisibilityTest {
+
+    @Mock
+    private AssessmentRepository assessmentRepository;
+
+    @InjectMocks
+    private ExamService examService;
+
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        clientId = UUID.randomUUID();
+        TenantContext.setClientId(clientId.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("Should query live, scheduled and completed exams for the student's courses only")
+    void testCandidateQueryArguments() {
+        when(assessmentRepository.findVisibleCandidates(any(), any(), anyCollection(), anyList(), anyCollection()))
+                .thenReturn(List.of());
+
+        examService.getVisibleExamsForStudent(request(
+                List.of(scope("course1", "section1", "class1"), scope("course2", null, null)),
+                List.of("done1")));
+
+        verify(assessmentRepository).findVisibleCandidates(
+                Assessment.AssessmentType.EXAM,
+                clientId,
+                Set.of("course1", "course2"),
+                List.of(Assessment.ExamStatus.LIVE, Assessment.ExamStatus.SCHEDULED),
+                Set.of("done1"));
+    }
+
+    @Test
+    @DisplayName("Should not query when the student has no course scopes")
+    void testNoScopesSkipsQuery() {
+        assertTrue(examService.getVisibleExamsForStudent(request(List.of(), List.of("done1"))).isEmpty());
+        assertTrue(examService.getVisibleExamsForStudent(request(List.of(scope(" ", null, null)), List.of())).isEmpty());
+
+        verifyNoInteractions(assessmentRepository);
+    }
+
+    @Test
+    @DisplayName("Should keep only live exams inside their window, scheduled exams and completed exams")
+    void testStatusAndWindowFilter() {
+        OffsetDateTime now = OffsetDateTime.now();
+        Assessment liveInWindow = exam("live", "course1", Assessment.ExamStatus.LIVE, now.minusHours(1), now.plusHours(1));
+        Assessment liveExpired = exam("expired", "course1", Assessment.ExamStatus.LIVE, now.minusHours(2), now.minusHours(1));
+        Assessment scheduled = exam("scheduled", "course1", Assessment.ExamStatus.SCHEDULED, now.plusHours(1), now.plusHours(2));
+        Assessment completed = exam("done1", "course1", Assessment.ExamStatus.COMPLETED, now.minusDays(2), now.minusDays(1));
+        Assessment flexible = exam("flexible", "course1", Assessment.ExamStatus.LIVE, null, null);
+        flexible.setTimingMode(Assessment.TimingMode.FLEXIBLE_START);
+        when(assessmentRepository.findVisibleCandidates(any(), any(), anyCollection(), anyList(), anyCollection()))
+                .thenReturn(List.of(liveInWindow, liveExpired, scheduled, completed, flexible));
+
+        List<Assessment> visible = examService.getVisibleExamsForStudent(request(
+                List.of(scope("course1", "section1", "class1")), List.of("done1")));
+
+        assertEquals(List.of("live", "scheduled", "done1", "flexible"), visible.stream().map(Assessment::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should hide section and class restricted exams outside the student's enrollment")
+    void testSectionAndClassRestrictionFilter() {
+        Assessment courseWide = exam("course-wide", "course1", Assessment.ExamStatus.SCHEDULED, null, null);
+        Assessment ownSection = exam("own-section", "course1", Assessment.ExamStatus.SCHEDULED, null, null);
+        ownSection.setSectionId("section1");
+        Assessment otherSection = exam("other-section", "course1", Assessment.ExamStatus.SCHEDULED, null, null);
+        otherSection.setSectionId("section2");
+        Assessment ownClass = exam("own-class", "course1", Assessment.ExamStatus.SCHEDULED, null, null);
+        ownClass.setClassId("class1");
+        Assessment otherClass = exam("other-class", "course1", Assessment.ExamStatus.SCHEDULED, null, null);
+        otherClass.setClassId("class2");
+        // A student without a section never sees class-restricted exams
+        Assessment classWithoutSection = exam("class-no-section", "course2", Assessment.ExamStatus.SCHEDULED, null, null);
+        classWithoutSection.setClassId("class1");
+        when(assessmentRepository.findVisibleCandidates(any(), any(), anyCollection(), anyList(), anyCollection()))
+                .thenReturn(List.of(courseWide, ownSection, otherSection, ownClass, otherClass, classWithoutSection));
+
+        List<Assessment> visible = examService.getVisibleExamsForStudent(request(
+                List.of(scope("course1", "section1", "class1"), scope("course2", null, "class1")), List.of()));
+
+        assertEquals(List.of("course-wide", "own-section", "own-class"), visible.stream().map(Assessment::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should use the first scope listed for a course")
+    void testFirstScopePerCourseWins() {
+        Assessment sectionExam = exam("section-exam", "course1", Assessment.ExamStatus.SCHEDULED, null, null);
+        sectionExam.setSectionId("section2");
+        when(assessmentRepository.findVisibleCandidates(any(), any(), anyCollection(), anyList(), anyCollection()))
+                .thenReturn(List.of(sectionExam));
+
+        List<Assessment> visible = examService.getVisibleExamsForStudent(request(
+                List.of(scope("course1", "section1", "class1"), scope("course1", "section2", "class1")), List.of()));
+
+        assertTrue(visible.isEmpty());
+    }
+
+    private StudentExamVisibilityRequest request(List<StudentExamVisibilityRequest.CourseScope> scopes,
+                                                 List<String> completedExamIds) {
+        StudentExamVisibilityRequest request = new StudentExamVisibilityRequest();
+        request.setScopes(scopes);
+        request.setCompletedExamIds(completedExamIds);
+        return request;
+    }
+
+    private StudentExamVisibilityRequest.CourseScope scope(String courseId, String sectionId, String classId) {
+        StudentExamVisibilityRequest.CourseScope scope = new StudentExamVisibilityRequest.CourseScope();
+        scope.setCourseId(courseId);
+        scope.setSectionId(sectionId);
+        scope.setClassId(classId);
+        return scope;
+    }
+
+    private Assessment exam(String id, String courseId, Assessment.ExamStatus status,
+                            OffsetDateTime startTime, OffsetDateTime endTime) {
+        Assessment exam = new Assessment();
+        exam.setId(id);
+        exam.setClientId(clientId);
+        exam.setCourseId(courseId);
+        exam.setAssessmentType(Assessment.AssessmentType.EXAM);
+        exam.setStatus(status);
+        exam.setTimingMode(Assessment.TimingMode.FIXED_WINDOW);
+        exam.setStartTime(startTime);
+        exam.setEndTime(endTime);
+        return exam;
+    }
+}
@@ -0,0 +1,183 @@
+package com.datagami.edudron.content.service;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls through the real Azure OpenAI client against a stub model endpoint answered in-process.
+ */
+@DisplayName("Foundry AI Gateway Tests")
+class FoundryAIServiceGatewayTest {
+
+    private static final String DEPLOYMENT = "gpt-test";
+
+    private final StubModel model = new StubModel();
+    private SimpleMeterRegistry meterRegistry;
+    private FoundryAIService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        AIRequestGovernor governor = new AIRequestGovernor();
+        ReflectionTestUtils.setField(governor, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(governor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(governor, "requestsPerMinute", 6000);
+        ReflectionTestUtils.setField(governor, "burst", 100);
+        ReflectionTestUtils.setField(governor, "maxConcurrent", 4);
+        ReflectionTestUtils.setField(governor, "interactiveReserve", 1);
+        ReflectionTestUtils.setField(governor, "admissionTimeoutSeconds", 10L);
+
+        AIResponseCache responseCache = new AIResponseCache();
+        ReflectionTestUtils.setField(responseCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        ReflectionTestUtils.setField(responseCache, "ttlHours", 24L);
+
+        service = new FoundryAIService("https://stub-openai.local", "test-key", DEPLOYMENT, new ObjectMapper(),
+                governor, responseCache, model);
+    }
+
+    @Test
+    @DisplayName("Should answer an identical prompt from the cache only when the caller opts in")
+    void testIdenticalPromptsAreCached() {
+        String first = service.callOpenAI("You grade answers.", "Answer: 42", AIPriority.BACKGROUND, true);
+        String second = service.callOpenAI("You grade answers.", "Answer: 42", AIPriority.BACKGROUND, true);
+        String other = service.callOpenAI("You grade answers.", "Answer: 43", AIPriority.BACKGROUND, true);
+        // The default is a fresh response, as regenerating a result needs
+        String fresh = service.callOpenAI("You grade answers.", "Answer: 42");
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertNotEquals(first, fresh);
+        assertEquals(3, model.requests.get());
+        assertEquals(1.0, meterRegistry.counter("ai.response.cache", "result", "local").count());
+        assertEquals(30.0, meterRegistry.counter("ai.tokens", "deployment", DEPLOYMENT, "type", "prompt").count());
+        assertEquals(15.0, meterRegistry.counter("ai.tokens", "deployment", DEPLOYMENT, "type", "completion").count());
+    }
+
+    @Test
+    @DisplayName("Should wait out a 429 in the governor and retry")
+    void testThrottledCallIsRetried() {
+        model.failures.add(429);
+
+        String response = service.callOpenAI("You grade answers.", "Answer: 42", AIPriority.INTERACTIVE);
+
+        assertEquals("response 2", response);
+        assertEquals(2, model.requests.get());
+        assertEquals(1, meterRegistry.timer("ai.requests", "deployment", DEPLOYMENT, "priority", "interactive",
+                "outcome", "throttled").count());
+        assertEquals(1, meterRegistry.timer("ai.requests", "deployment", DEPLOYMENT, "priority", "interactive",
+                "outcome", "success").count());
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed call")
+    void testFailuresAreNotCached() {
+        model.failures.add(400);
+
+        assertThrows(RuntimeException.class,
+                () -> service.callOpenAI("You grade answers.", "Answer: 42", AIPriority.BACKGROUND, true));
+        assertEquals("response 2", service.callOpenAI("You grade answers.", "Answer: 42", AIPriority.BACKGROUND, true));
+    }
+
+    /**
+     * Chat completions endpoint: answers "response N" for the Nth request, after returning the
+     * queued failure statuses first
+     */
+    private static final class StubModel implements HttpClient {
+
+        final AtomicInteger requests = new AtomicInteger();
+        final Queue<Integer> failures = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public Mono<HttpResponse> send(HttpRequest request) {
+            int n = requests.incrementAndGet();
+            Integer failure = failures.poll();
+            if (failure != null) {
+                return Mono.just(new StubResponse(request, failure,
+                        "{\"error\": {\"code\": \"" + failure + "\", \"message\": \"stub failure\"}}"));
+            }
+            return Mono.just(new StubResponse(request, 200, """
+                    {
+                      "id": "chatcmpl-%d",
+                      "object": "chat.completion",
+                      "created": 1700000000,
+                      "model": "gpt-test",
+                      "choices": [{"index": 0, "finish_reason": "stop",
+                                   "message": {"role": "assistant", "content": "response %d"}}],
+                      "usage": {"prompt_tokens": 10, "completion_tokens": 5, "total_tokens": 15}
+                    }
+                    """.formatted(n, n)));
+        }
+    }
+
+    private static final class StubResponse extends HttpResponse {
+
+        private final int statusCode;
+        private final byte[] body;
+        private final HttpHeaders headers = new HttpHeaders()
+                .set("Content-Type", "application/json")
+                .set("retry-after-ms", "10");
+
+        StubResponse(HttpRequest request, int statusCode, String body) {
+            super(request);
+            this.statusCode = statusCode;
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return headers.getValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody() {
+            return Flux.just(ByteBuffer.wrap(body));
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray() {
+            return Mono.just(body);
+        }
+
+        @Override
+        public Mono<String> getBodyAsString() {
+            return Mono.just(new String(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset) {
+            return Mono.just(new String(body, charset));
+        }
+    }
+}
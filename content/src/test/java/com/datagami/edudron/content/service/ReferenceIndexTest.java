@@ -0,0 +1,87 @@
+package com.datagami.edudron.content.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Reference Index Tests")
+class ReferenceIndexTest {
+
+    private static final String[] TOPICS = {
+            "photosynthesis chlorophyll light reactions glucose",
+            "mitochondria cellular respiration ATP synthesis",
+            "supply demand equilibrium price elasticity",
+            "recursion base case stack frames memoization",
+            "french revolution estates general bastille",
+            "plate tectonics subduction earthquakes volcanoes"
+    };
+
+    @Test
+    @DisplayName("Should pack paragraphs into chunks of about the target size without losing text")
+    void testChunking() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            text.append("Paragraph ").append(i).append(" talks about\nwrapped lines of a PDF page.\n\n");
+        }
+        text.append("One very long paragraph. ".repeat(100));
+
+        List<String> chunks = ReferenceIndex.chunk(text.toString(), 300);
+
+        assertTrue(chunks.size() > 5);
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 300, "chunk of " + chunk.length() + " chars");
+            assertFalse(chunk.contains("\n\n"));
+        }
+        assertTrue(chunks.get(0).startsWith("Paragraph 0 talks about wrapped lines"));
+        assertEquals(100, String.join(" ", chunks).split("One very long paragraph\\.", -1).length - 1);
+        assertTrue(ReferenceIndex.chunk("   \n\n  ", 300).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should rank the chunks about the query's topic first")
+    void testRanking() {
+        ReferenceIndex index = ReferenceIndex.build(List.of(
+                "The French Revolution began when the Estates General met in 1789.",
+                "Photosynthesis turns light into chemical energy; chlorophyll absorbs the light.",
+                "In the light reactions of photosynthesis, water is split and oxygen released.",
+                "Supply and demand set the equilibrium price of a good."));
+
+        List<ReferenceIndex.Hit> hits = index.search("How does photosynthesis use light?", 3);
+
+        assertEquals(2, hits.size());
+        assertTrue(List.of(1, 2).contains(hits.get(0).chunk()));
+        assertTrue(hits.get(0).score() >= hits.get(1).score());
+        assertTrue(index.search("the of and", 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep a lecture prompt's reference context far below the whole 100K-character document")
+    void testRetrievedContextIsSmall() {
+        // The largest document extraction keeps: 100K characters
+        StringBuilder text = new StringBuilder();
+        int paragraph = 0;
+        while (text.length() < 100_000) {
+            String topic = TOPICS[paragraph % TOPICS.length];
+            text.append("Section ").append(paragraph).append(" covers ").append(topic)
+                    .append(". It explains how ").append(topic).append(" relate to each other with worked examples, ")
+                    .append("common misconceptions and a short summary for revision.\n\n");
+            paragraph++;
+        }
+        ReferenceIndex index = ReferenceIndex.build(ReferenceIndex.chunk(text.toString(), 1200));
+
+        for (String topic : TOPICS) {
+            String query = "Lecture on " + topic.split(" ")[0] + " and " + topic.split(" ")[1];
+            int contextChars = 0;
+            for (ReferenceIndex.Hit hit : index.search(query, 6)) {
+                contextChars += index.chunkText(hit.chunk()).length();
+            }
+            // Before retrieval every lecture prompt carried the document up to 50K characters
+            assertTrue(contextChars > 0, query);
+            assertTrue(contextChars <= 6 * 1200, query);
+            assertTrue(contextChars < 0.2 * Math.min(text.length(), 50_000), query);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.datagami.edudron.content.service;
+
+import com.datagami.edudron.content.domain.CourseGenerationIndex;
+import com.datagami.edudron.content.domain.ReferenceContentChunk;
+import com.datagami.edudron.content.repo.CourseGenerationIndexRepository;
+import com.datagami.edudron.content.repo.ReferenceContentChunkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Reference Retrieval Tests")
+class ReferenceRetrievalServiceTest {
+
+    @Mock
+    private ReferenceContentChunkRepository chunkRepository;
+
+    @Mock
+    private CourseGenerationIndexRepository indexRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ReferenceRetrievalService service;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clientId = UUID.randomUUID();
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "chunkSizeChars", 200);
+        ReflectionTestUtils.setField(service, "topK", 2);
+        ReflectionTestUtils.setField(service, "maxContextChars", 12000);
+    }
+
+    @Test
+    @DisplayName("Should send only the relevant passages, in document order, under the document title")
+    void testRelevantPassagesAreRetrieved() {
+        stubDocument("ref1", "Biology Notes", List.of(
+                "Photosynthesis happens in the chloroplast.",
+                "Cell division: mitosis and meiosis.",
+                "Chlorophyll absorbs light for photosynthesis.",
+                "Enzymes speed up reactions."));
+
+        String context = service.retrieve(clientId, List.of("ref1"), "Lecture: Photosynthesis and light");
+
+        assertEquals("Reference: Biology Notes\nPhotosynthesis happens in the chloroplast.\n\n"
+                + "Chlorophyll absorbs light for photosynthesis.", context);
+        assertEquals(1, meterRegistry.timer("course.generation.reference.query").count());
+
+        // The built index is kept; later prompts do not read the chunks again
+        service.retrieve(clientId, List.of("ref1"), "Enzymes");
+        verify(chunkRepository, times(1)).findByIndexIdAndClientIdOrderBySequenceAsc("ref1", clientId);
+    }
+
+    @Test
+    @DisplayName("Should chunk documents uploaded before chunking from their extracted text")
+    @SuppressWarnings("unchecked")
+    void testDocumentsWithoutChunksAreChunkedFromText() {
+        CourseGenerationIndex reference = new CourseGenerationIndex();
+        reference.setId("legacy");
+        reference.setExtractedText("Supply and demand.\n\nRecursion needs a base case.\n\nMarkets clear at equilibrium.");
+        when(indexRepository.findTitleByIdAndClientIdAndIndexType("legacy", clientId,
+                CourseGenerationIndex.IndexType.REFERENCE_CONTENT)).thenReturn(Optional.of("Old Upload"));
+        when(chunkRepository.findByIndexIdAndClientIdOrderBySequenceAsc("legacy", clientId)).thenReturn(List.of());
+        when(indexRepository.findByIdAndClientId("legacy", clientId)).thenReturn(Optional.of(reference));
+
+        String context = service.retrieve(clientId, List.of("legacy"), "recursion base case");
+
+        assertEquals("Reference: Old Upload\nSupply and demand.\nRecursion needs a base case.\nMarkets clear at equilibrium.",
+                context);
+        // The chunks are stored, in a transaction of their own, so the document is not chunked again
+        ArgumentCaptor<List<ReferenceContentChunk>> stored = ArgumentCaptor.forClass(List.class);
+        verify(chunkRepository).saveAll(stored.capture());
+        assertEquals(List.of(0), stored.getValue().stream().map(ReferenceContentChunk::getSequence).toList());
+        assertEquals("legacy", stored.getValue().get(0).getIndexId());
+        assertEquals(clientId, stored.getValue().get(0).getClientId());
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    @DisplayName("Should still answer from a document uploaded before chunking when its chunks cannot be stored")
+    void testFailedChunkStoreDoesNotFailRetrieval() {
+        CourseGenerationIndex reference = new CourseGenerationIndex();
+        reference.setId("legacy");
+        reference.setExtractedText("Recursion needs a base case.");
+        when(indexRepository.findTitleByIdAndClientIdAndIndexType("legacy", clientId,
+                CourseGenerationIndex.IndexType.REFERENCE_CONTENT)).thenReturn(Optional.of("Old Upload"));
+        when(chunkRepository.findByIndexIdAndClientIdOrderBySequenceAsc("legacy", clientId)).thenReturn(List.of());
+        when(indexRepository.findByIdAndClientId("legacy", clientId)).thenReturn(Optional.of(reference));
+        // Another node stored the same chunks first
+        when(chunkRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("uk_content_reference_chunk_sequence"));
+
+        String context = service.retrieve(clientId, List.of("legacy"), "recursion");
+
+        assertEquals("Reference: Old Upload\nRecursion needs a base case.", context);
+    }
+
+    @Test
+    @DisplayName("Should skip deleted documents and return null when nothing is left")
+    void testDeletedDocumentsAreSkipped() {
+        when(indexRepository.findTitleByIdAndClientIdAndIndexType(eq("gone"), eq(clientId), any()))
+                .thenReturn(Optional.empty());
+
+        assertNull(service.retrieve(clientId, List.of("gone"), "anything"));
+        assertNull(service.retrieve(clientId, List.of(), "anything"));
+        verifyNoInteractions(chunkRepository);
+    }
+
+    private void stubDocument(String indexId, String title, List<String> texts) {
+        List<ReferenceContentChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            ReferenceContentChunk chunk = new ReferenceContentChunk();
+            chunk.setIndexId(indexId);
+            chunk.setClientId(clientId);
+            chunk.setSequence(i);
+            chunk.setContent(texts.get(i));
+            chunks.add(chunk);
+        }
+        when(indexRepository.findTitleByIdAndClientIdAndIndexType(indexId, clientId,
+                CourseGenerationIndex.IndexType.REFERENCE_CONTENT)).thenReturn(Optional.of(title));
+        when(chunkRepository.findByIndexIdAndClientIdOrderBySequenceAsc(indexId, clientId)).thenReturn(chunks);
+    }
+}
@@ -0,0 +1,86 @@
+package com.datagami.edudron.coreapi.client;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.identity.dto.UserDTO;
+import com.datagami.edudron.identity.service.TenantFeatureService;
+import com.datagami.edudron.identity.service.UserService;
+import com.datagami.edudron.student.client.HttpIdentityLookup;
+import com.datagami.edudron.student.client.IdentityLookup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * {@link IdentityLookup} that calls the identity module's services directly, for core-api where
+ * identity and student share one JVM. Saves the gateway round trip (serialization, auth filters,
+ * a pooled connection) on every lookup.
+ *
+ * Identity DTOs are mapped onto the caller's type through the ObjectMapper, so callers see the
+ * same fields as in the HTTP response body. All user lookups use the directory entry, which skips
+ * the student class/section enrichment identity would otherwise fetch from student over HTTP.
+ * Lookups that find nothing return null rather than throwing: an exception from a
+ * {@code @Transactional} identity method would mark the caller's transaction rollback-only.
+ */
+public class InProcessIdentityLookup implements IdentityLookup {
+
+    private final UserService userService;
+    private final TenantFeatureService tenantFeatureService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public InProcessIdentityLookup(UserService userService, TenantFeatureService tenantFeatureService,
+                                   ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.tenantFeatureService = tenantFeatureService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> T getCurrentUser(Class<T> type) {
+        return timed("current_user", () -> convert(userService.findCurrentUserDirectoryEntry(), type));
+    }
+
+    @Override
+    public <T> T getUser(String userId, Class<T> type) {
+        return timed("user", () -> {
+            List<UserDTO> users = userService.getUsersByIds(List.of(userId));
+            return users.isEmpty() ? null : convert(users.get(0), type);
+        });
+    }
+
+    @Override
+    public <T> T getUserByEmail(String email, Class<T> type) {
+        return timed("user_by_email", () -> convert(userService.findUserDirectoryEntryByEmail(email), type));
+    }
+
+    @Override
+    public <T> List<T> getUsersByIds(List<String> userIds, Class<T> type) {
+        return timed("users_batch", () -> userService.getUsersByIds(userIds).stream()
+                .map(user -> convert(user, type))
+                .toList());
+    }
+
+    @Override
+    public boolean isStudentSelfEnrollmentEnabled() {
+        return timed("student_self_enrollment", () -> {
+            // Same answer as the HTTP endpoint, which rejects requests without a tenant
+            String clientIdStr = TenantContext.getClientId();
+            if (clientIdStr == null || "SYSTEM".equals(clientIdStr) || "PENDING_TENANT_SELECTION".equals(clientIdStr)) {
+                return false;
+            }
+            return tenantFeatureService.isStudentSelfEnrollmentEnabled(UUID.fromString(clientIdStr));
+        });
+    }
+
+    private <T> T convert(UserDTO user, Class<T> type) {
+        return user != null ? objectMapper.convertValue(user, type) : null;
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        return meterRegistry.timer(HttpIdentityLookup.METRIC, "mode", "in-process", "operation", operation).record(call);
+    }
+}
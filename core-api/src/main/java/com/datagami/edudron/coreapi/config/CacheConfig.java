@@ -1,5 +1,6 @@
 package com.datagami.edudron.coreapi.config;
 
+import com.datagami.edudron.common.cache.CacheInvalidationBus;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -14,7 +15,7 @@ import java.util.concurrent.TimeUnit;
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheInvalidationBus cacheInvalidationBus) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
             // From identity
             "tenantBranding",
@@ -35,6 +36,7 @@ public class CacheConfig {
                 .expireAfterWrite(5, TimeUnit.MINUTES)
                 .recordStats()
         );
-        return cacheManager;
+        // Evictions are broadcast so every replica drops the entry, not just this one
+        return cacheInvalidationBus.broadcasting(cacheManager);
     }
 }
@@ -0,0 +1,43 @@
+package com.datagami.edudron.coreapi.config;
+
+import com.datagami.edudron.coreapi.client.InProcessIdentityLookup;
+import com.datagami.edudron.identity.service.TenantFeatureService;
+import com.datagami.edudron.identity.service.UserService;
+import com.datagami.edudron.student.client.HttpIdentityLookup;
+import com.datagami.edudron.student.client.IdentityLookup;
+import com.datagami.edudron.student.util.UserUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class IdentityLookupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdentityLookupConfig.class);
+
+    // Identity is hosted in this JVM, so student's identity lookups call it directly by default.
+    // Set IDENTITY_LOOKUP_IN_PROCESS=false to go through the gateway as the split services do
+    // (for comparison, see scripts/benchmark-identity-lookup.sh)
+    @Value("${identity.lookup.in-process:true}")
+    private boolean inProcess;
+
+    @Bean
+    @Primary
+    public IdentityLookup identityLookup(HttpIdentityLookup httpIdentityLookup, UserService userService,
+                                         TenantFeatureService tenantFeatureService, ObjectMapper objectMapper,
+                                         MeterRegistry meterRegistry) {
+        if (!inProcess) {
+            logger.info("Identity lookups go through the gateway");
+            return httpIdentityLookup;
+        }
+        IdentityLookup lookup = new InProcessIdentityLookup(userService, tenantFeatureService, objectMapper, meterRegistry);
+        UserUtil.setIdentityLookup(lookup);
+        logger.info("Identity lookups call the co-located identity module in-process");
+        return lookup;
+    }
+}
@@ -88,14 +88,11 @@ export default function ResultsExportPage() {
     if (!selectedId) return
     setExporting(true)
     try {
-      let blob: Blob
-      if (scope === 'section') {
-        blob = await resultsApi.exportBySection(selectedId)
-      } else if (scope === 'class') {
-        blob = await resultsApi.exportByClass(selectedId)
-      } else {
-        blob = await resultsApi.exportByCourse(selectedId)
-      }
+      // Class and course scopes can span thousands of students, build those in the background
+      const blob =
+        scope === 'section'
+          ? await resultsApi.exportBySection(selectedId)
+          : await resultsApi.exportViaJob(scope, selectedId)
 
       const selectedName =
         currentOptions.find((o) => o.id === selectedId)?.name ?? scope
@@ -1,5 +1,23 @@
 import { ApiClient } from './ApiClient'
 
+export type ResultsExportScope = 'section' | 'class' | 'course'
+
+export interface ResultsExportJob {
+  jobId: string
+  status: 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED'
+  scope: ResultsExportScope
+  scopeId: string
+  fileName: string
+  studentCount: number
+  courseCount: number
+  // Absolute (time-limited blob URL) or relative to the API base URL
+  downloadUrl?: string
+  errorMessage?: string
+  createdAt: string
+  startedAt?: string
+  completedAt?: string
+}
+
 export class ResultsApi {
   constructor(private apiClient: ApiClient) {}
 
@@ -14,4 +32,47 @@ export class ResultsApi {
   async exportByCourse(courseId: string): Promise<Blob> {
     return this.apiClient.downloadFile(`/api/results/export?courseId=${courseId}`, { timeout: 120000 })
   }
+
+  /**
+   * Start a background export; poll getExportJob until status is COMPLETED or FAILED.
+   */
+  async startExportJob(scope: ResultsExportScope, id: string): Promise<ResultsExportJob> {
+    const response = await this.apiClient.post<ResultsExportJob>(`/api/results/export/jobs?${scope}Id=${id}`)
+    return response.data
+  }
+
+  async getExportJob(jobId: string): Promise<ResultsExportJob> {
+    const response = await this.apiClient.get<ResultsExportJob>(`/api/results/export/jobs/${jobId}`)
+    return response.data
+  }
+
+  async downloadExportJob(job: ResultsExportJob): Promise<Blob> {
+    if (!job.downloadUrl) {
+      throw new Error('Export is not ready yet')
+    }
+    if (/^https?:\/\//.test(job.downloadUrl)) {
+      // Pre-signed storage URL, must not carry our Authorization header
+      const response = await fetch(job.downloadUrl)
+      if (!response.ok) {
+        throw new Error(`Download failed with status ${response.status}`)
+      }
+      return response.blob()
+    }
+    return this.apiClient.downloadFile(job.downloadUrl, { timeout: 120000 })
+  }
+
+  /**
+   * Run an export as a background job and resolve with the workbook once it is ready.
+   */
+  async exportViaJob(scope: ResultsExportScope, id: string, pollIntervalMs = 2000): Promise<Blob> {
+    let job = await this.startExportJob(scope, id)
+    while (job.status === 'QUEUED' || job.status === 'RUNNING') {
+      await new Promise((resolve) => setTimeout(resolve, pollIntervalMs))
+      job = await this.getExportJob(job.jobId)
+    }
+    if (job.status === 'FAILED') {
+      throw new Error(job.errorMessage || 'Export failed')
+    }
+    return this.downloadExportJob(job)
+  }
 }
@@ -18,6 +18,22 @@ export interface BulkStudentImportResult {
   rowResults: StudentImportRowResult[]
 }
 
+export interface StudentImportJob {
+  jobId: string
+  status: 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED'
+  fileName: string
+  totalRows?: number
+  processedRows: number
+  successfulRows: number
+  failedRows: number
+  skippedRows: number
+  failedRowResults: StudentImportRowResult[]
+  errorMessage?: string
+  createdAt: string
+  startedAt?: string
+  completedAt?: string
+}
+
 export interface BulkEnrollmentResult {
   totalStudents: number
   enrolledStudents: number
@@ -27,18 +43,51 @@ export interface BulkEnrollmentResult {
   errorMessages?: string[]
 }
 
+export interface BulkImportOptions {
+  autoGeneratePassword?: boolean
+  upsertExisting?: boolean
+  autoEnroll?: boolean
+  defaultCourseIds?: string[]
+}
+
 export class StudentsApi {
   constructor(private apiClient: ApiClient) {}
 
   async bulkImport(
     file: File,
-    options: {
-      autoGeneratePassword?: boolean
-      upsertExisting?: boolean
-      autoEnroll?: boolean
-      defaultCourseIds?: string[]
-    } = {}
+    options: BulkImportOptions = {}
   ): Promise<BulkStudentImportResult> {
+    const formData = this.buildImportForm(file, options)
+
+    // Use a longer timeout for bulk import (5 minutes = 300000ms)
+    // Bulk imports can process hundreds of students and may take time
+    const response = await this.apiClient.postForm<BulkStudentImportResult>(
+      '/api/students/bulk-import',
+      formData,
+      {
+        timeout: 300000, // 5 minutes
+      }
+    )
+    return response.data
+  }
+
+  /**
+   * Start a background import; poll getBulkImportJob until status is COMPLETED or FAILED.
+   */
+  async startBulkImportJob(file: File, options: BulkImportOptions = {}): Promise<StudentImportJob> {
+    const response = await this.apiClient.postForm<StudentImportJob>(
+      '/api/students/bulk-import/jobs',
+      this.buildImportForm(file, options)
+    )
+    return response.data
+  }
+
+  async getBulkImportJob(jobId: string): Promise<StudentImportJob> {
+    const response = await this.apiClient.get<StudentImportJob>(`/api/students/bulk-import/jobs/${jobId}`)
+    return response.data
+  }
+
+  private buildImportForm(file: File, options: BulkImportOptions): FormData {
     const formData = new FormData()
     formData.append('file', file)
     
@@ -54,17 +103,7 @@ export class StudentsApi {
     if (options.defaultCourseIds && options.defaultCourseIds.length > 0) {
       formData.append('defaultCourseIds', options.defaultCourseIds.join(','))
     }
-
-    // Use a longer timeout for bulk import (5 minutes = 300000ms)
-    // Bulk imports can process hundreds of students and may take time
-    const response = await this.apiClient.postForm<BulkStudentImportResult>(
-      '/api/students/bulk-import',
-      formData,
-      {
-        timeout: 300000, // 5 minutes
-      }
-    )
-    return response.data
+    return formData
   }
 }
 
@@ -27,7 +27,7 @@ export type { Note, CreateNoteRequest } from './api/notes'
 export { IssuesApi } from './api/issues'
 export type { IssueReport, CreateIssueReportRequest, IssueType, IssueStatus } from './api/issues'
 export { StudentsApi } from './api/students'
-export type { BulkStudentImportResult, StudentImportRowResult, BulkEnrollmentResult } from './api/students'
+export type { BulkStudentImportResult, StudentImportRowResult, BulkEnrollmentResult, BulkImportOptions, StudentImportJob } from './api/students'
 export type { BulkEnrollmentResult as EnrollmentBulkEnrollmentResult } from './api/enrollments'
 export { AnalyticsApi } from './api/analytics'
 export { SimulationsApi } from './api/simulations'
@@ -35,6 +35,7 @@ export { ProjectsApi, ProjectQuestionsApi } from './api/projects'
 export { CalendarEventsApi, EventType, EventAudience } from './api/calendarEvents'
 export type { CalendarEvent, CreateCalendarEventInput, CalendarEventImportResult } from './api/calendarEvents'
 export { ResultsApi } from './api/results'
+export type { ResultsExportJob, ResultsExportScope } from './api/results'
 export { CertificatesApi } from './api/certificates'
 export type {
   CertificateTemplate,
@@ -1,8 +1,13 @@
 package com.datagami.edudron.gateway.filter;
 
+import com.datagami.edudron.common.security.InternalIdentityHeaders;
+import com.datagami.edudron.common.security.JwtPrincipal;
+import com.datagami.edudron.gateway.security.GatewayIdentityResolver;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -12,10 +17,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 /**
- * Global filter to extract and forward JWT tokens.
- * Currently passes through tokens without validation (validation happens in downstream services).
- * Can be enhanced later to validate tokens in the gateway.
+ * Global filter to verify and forward JWT tokens.
+ * When edge verification is configured, a valid token is verified here once, enriched with the
+ * user's id and role from identity and forwarded as signed internal identity headers that
+ * downstream services trust instead of re-verifying. Invalid tokens are forwarded unchanged so
+ * services keep answering 401 as before. Identity headers sent by clients are always removed.
  */
 @Component
 public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
@@ -24,6 +33,9 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
 
+    @Autowired
+    private GatewayIdentityResolver identityResolver;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
@@ -44,6 +56,10 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
         
         final String authHeader = request.getHeaders().getFirst(AUTHORIZATION_HEADER);
 
+        // Only the gateway may mint identity headers
+        ServerHttpRequest.Builder forwarded = request.mutate()
+                .headers(headers -> InternalIdentityHeaders.ALL.forEach(headers::remove));
+
         if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
             String token = authHeader.substring(BEARER_PREFIX.length());
             
@@ -70,6 +86,26 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
             
             // Log all authorization-related headers
             log.debug("Authorization headers - Authorization present: true, path={}, traceId={}", path, traceId);
+
+            if (identityResolver.isEnabled()) {
+                JwtPrincipal principal = null;
+                try {
+                    principal = identityResolver.verify(token);
+                } catch (JwtException | IllegalArgumentException e) {
+                    log.debug("JWT rejected at the edge, forwarding for the service to answer: path={}, error={}, traceId={}",
+                            path, e.getMessage(), traceId);
+                }
+                if (principal != null) {
+                    String clientIdHeader = request.getHeaders().getFirst("X-Client-Id");
+                    return identityResolver.resolve(principal, authHeader, clientIdHeader)
+                            .flatMap(resolved -> {
+                                Map<String, String> identityHeaders = identityResolver.sign(token, resolved);
+                                forwarded.headers(headers -> identityHeaders.forEach(headers::set));
+                                return forward(exchange.mutate().request(forwarded.build()).build(), chain,
+                                        method, path, traceId, clientId, authHeader);
+                            });
+                }
+            }
         } else {
             if (authHeader != null) {
                 log.warn("Authorization header present but invalid format (expected 'Bearer <token>'): path={}, headerPrefix={}, traceId={}, clientId={}", 
@@ -80,6 +116,11 @@ public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
             }
         }
 
+        return forward(exchange.mutate().request(forwarded.build()).build(), chain, method, path, traceId, clientId, authHeader);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, String method, String path,
+                               String traceId, String clientId, String authHeader) {
         // Forward request and log response status
         return chain.filter(exchange)
                 .doOnSuccess(aVoid -> {
@@ -0,0 +1,141 @@
+package com.datagami.edudron.gateway.security;
+
+import com.datagami.edudron.common.security.InternalIdentityHeaders;
+import com.datagami.edudron.common.security.JwtClaimsParser;
+import com.datagami.edudron.common.security.JwtPrincipal;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies bearer tokens at the edge and enriches them with the user's id and role.
+ *
+ * Users are looked up through identity's /idp/users/me with the caller's own token and kept in
+ * a gateway-local cache (same 5 minute TTL the services used for their own lookups), so a
+ * returning user costs one cached signature check and no extra hop. The cache holds at most
+ * MAX_CACHED_USERS users; an entry past its TTL is looked up again but kept for one more TTL as
+ * a fallback while identity is unreachable. The result is forwarded to services as signed
+ * {@link InternalIdentityHeaders}.
+ */
+@Component
+public class GatewayIdentityResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayIdentityResolver.class);
+
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final Duration LOOKUP_TIMEOUT = Duration.ofSeconds(5);
+
+    @Value("${internal-identity.secret:}")
+    private String internalIdentitySecret;
+
+    @Value("${gateway.identity.users-me-url:http://localhost:8085/idp/users/me}")
+    private String usersMeUrl;
+
+    private final WebClient webClient;
+    private final long cacheTtlSeconds;
+    private final Cache<String, CachedUser> users;
+    // Null when the JWT secret is missing or too short; the filter then leaves verification to the services
+    private final JwtClaimsParser claimsParser;
+
+    public GatewayIdentityResolver(WebClient.Builder webClientBuilder,
+                                   @Value("${jwt.secret:}") String jwtSecret,
+                                   @Value("${gateway.identity.cache-ttl-seconds:300}") long cacheTtlSeconds) {
+        this.claimsParser = jwtSecret != null && jwtSecret.length() >= 32 ? new JwtClaimsParser(jwtSecret) : null;
+        this.webClient = webClientBuilder.build();
+        this.cacheTtlSeconds = cacheTtlSeconds;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_USERS)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds * 2))
+                .build();
+    }
+
+    /**
+     * Edge verification needs the JWT secret to verify and the internal secret to sign
+     */
+    public boolean isEnabled() {
+        return claimsParser != null
+                && internalIdentitySecret != null && !internalIdentitySecret.isBlank();
+    }
+
+    /**
+     * @throws io.jsonwebtoken.JwtException if the token does not verify
+     */
+    public JwtPrincipal verify(String token) {
+        if (claimsParser == null) {
+            throw new IllegalStateException("Edge verification is disabled: jwt.secret is not configured");
+        }
+        return claimsParser.verify(token);
+    }
+
+    /**
+     * Add the identity user id and current role to a verified principal. Falls back to the
+     * token's own claims (no user id) if identity cannot be reached.
+     */
+    public Mono<JwtPrincipal> resolve(JwtPrincipal principal, String authHeader, String clientIdHeader) {
+        String tenant = clientIdHeader != null && !clientIdHeader.isBlank() ? clientIdHeader : principal.tenantId();
+        String key = principal.username() + "|" + tenant;
+
+        CachedUser cached = users.getIfPresent(key);
+        if (cached != null && !cached.isExpired(cacheTtlSeconds)) {
+            return Mono.just(enrich(principal, cached.user()));
+        }
+
+        return webClient.get()
+                .uri(usersMeUrl)
+                .headers(headers -> {
+                    headers.set(HttpHeaders.AUTHORIZATION, authHeader);
+                    if (clientIdHeader != null && !clientIdHeader.isBlank()) {
+                        headers.set("X-Client-Id", clientIdHeader);
+                    }
+                })
+                .retrieve()
+                .bodyToMono(UserSummary.class)
+                .timeout(LOOKUP_TIMEOUT)
+                .map(user -> {
+                    users.put(key, new CachedUser(user, System.currentTimeMillis()));
+                    return enrich(principal, user);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to resolve user {} from identity: {}", principal.username(), e.getMessage());
+                    // Prefer stale data over dropping the user id
+                    return Mono.just(cached != null ? enrich(principal, cached.user()) : principal);
+                })
+                .defaultIfEmpty(principal);
+    }
+
+    public Map<String, String> sign(String token, JwtPrincipal principal) {
+        return InternalIdentityHeaders.sign(internalIdentitySecret, token, principal, System.currentTimeMillis());
+    }
+
+    private static JwtPrincipal enrich(JwtPrincipal principal, UserSummary user) {
+        return new JwtPrincipal(
+                principal.username(),
+                user.id(),
+                principal.tenantId(),
+                user.role() != null ? user.role() : principal.role(),
+                user.email() != null ? user.email() : principal.email(),
+                principal.expiresAt(),
+                Map.of());
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record UserSummary(String id, String email, String role) {
+    }
+
+    private record CachedUser(UserSummary user, long fetchedAt) {
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - fetchedAt > TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.datagami.edudron.gateway.filter;
+
+import com.datagami.edudron.common.security.InternalIdentityHeaders;
+import com.datagami.edudron.common.security.JwtPrincipal;
+import com.datagami.edudron.gateway.security.GatewayIdentityResolver;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String JWT_SECRET = "gateway-test-secret-gateway-test-secret-0123";
+    private static final String INTERNAL_SECRET = "internal-identity-secret";
+
+    private final AtomicInteger identityCalls = new AtomicInteger();
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+
+    private GatewayIdentityResolver identityResolver;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        WebClient.Builder identity = WebClient.builder().exchangeFunction(request -> {
+            identityCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"id\":\"user1\",\"email\":\"student@example.com\",\"role\":\"STUDENT\"}")
+                    .build());
+        });
+        identityResolver = new GatewayIdentityResolver(identity, JWT_SECRET, 300);
+        ReflectionTestUtils.setField(identityResolver, "internalIdentitySecret", INTERNAL_SECRET);
+        ReflectionTestUtils.setField(identityResolver, "usersMeUrl", "http://identity/idp/users/me");
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "identityResolver", identityResolver);
+    }
+
+    @Test
+    void identityHeadersSentByClientsAreStripped() {
+        filter.filter(exchange(spoofed(MockServerHttpRequest.get("/api/courses"))), chain).block();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        InternalIdentityHeaders.ALL.forEach(name -> assertFalse(headers.containsKey(name), name));
+    }
+
+    @Test
+    void spoofedHeadersWithAnInvalidTokenAreStrippedAndNotReplaced() {
+        String forged = token("another-secret-another-secret-0123456789");
+
+        filter.filter(exchange(spoofed(MockServerHttpRequest.get("/api/courses")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + forged))), chain).block();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        InternalIdentityHeaders.ALL.forEach(name -> assertFalse(headers.containsKey(name), name));
+        assertEquals("Bearer " + forged, headers.getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals(0, identityCalls.get());
+    }
+
+    @Test
+    void validTokenIsForwardedWithSignedIdentityHeaders() {
+        String token = token(JWT_SECRET);
+
+        filter.filter(exchange(spoofed(MockServerHttpRequest.get("/api/courses")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))), chain).block();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        assertEquals("user1", headers.getFirst(InternalIdentityHeaders.USER_ID));
+        assertEquals("STUDENT", headers.getFirst(InternalIdentityHeaders.USER_ROLE));
+        JwtPrincipal trusted = InternalIdentityHeaders.verify(INTERNAL_SECRET, token, headers::getFirst);
+        assertNotNull(trusted);
+        assertEquals("student@example.com", trusted.username());
+        assertEquals("tenant1", trusted.tenantId());
+    }
+
+    @Test
+    void resolvedUsersAreCached() {
+        String token = token(JWT_SECRET);
+
+        for (int i = 0; i < 3; i++) {
+            filter.filter(exchange(MockServerHttpRequest.get("/api/courses")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)), chain).block();
+        }
+
+        assertEquals(1, identityCalls.get());
+    }
+
+    // Headers a client might send to impersonate someone
+    private static MockServerHttpRequest.BaseBuilder<?> spoofed(MockServerHttpRequest.BaseBuilder<?> request) {
+        return request
+                .header(InternalIdentityHeaders.USER_ID, "admin1")
+                .header(InternalIdentityHeaders.USERNAME, "admin@example.com")
+                .header(InternalIdentityHeaders.USER_ROLE, "SYSTEM_ADMIN")
+                .header(InternalIdentityHeaders.TENANT_ID, "tenant2")
+                .header(InternalIdentityHeaders.ISSUED_AT, String.valueOf(System.currentTimeMillis()))
+                .header(InternalIdentityHeaders.SIGNATURE, "forged");
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return MockServerWebExchange.from(request);
+    }
+
+    private static String token(String secret) {
+        return Jwts.builder()
+                .setClaims(Map.of("tenant", "tenant1", "role", "STUDENT", "email", "student@example.com"))
+                .setSubject("student@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
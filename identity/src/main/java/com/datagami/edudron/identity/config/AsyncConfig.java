@@ -1,5 +1,7 @@
 package com.datagami.edudron.identity.config;
 
+import com.datagami.edudron.common.concurrent.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -10,9 +12,17 @@ import java.util.concurrent.Executor;
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    
+
+    // spring.threads.virtual.enabled also moves Tomcat and @Scheduled onto virtual threads; here the
+    // pools become one virtual thread per task, with the same limits kept by semaphores
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean(name = "eventTaskExecutor")
     public Executor eventTaskExecutor() {
+        if (virtualThreads) {
+            return new BoundedVirtualThreadExecutor("event-logging-", 5, 100, false);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
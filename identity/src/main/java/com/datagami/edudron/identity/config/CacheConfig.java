@@ -1,20 +1,24 @@
 package com.datagami.edudron.identity.config;
 
+import com.datagami.edudron.common.cache.CacheInvalidationBus;
+import com.datagami.edudron.common.cache.CacheInvalidationConfig;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
+@Import(CacheInvalidationConfig.class)
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheInvalidationBus cacheInvalidationBus) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
             "tenantBranding",
             "tenantFeature",
@@ -27,6 +31,7 @@ public class CacheConfig {
                 .expireAfterWrite(10, TimeUnit.MINUTES)
                 .recordStats()
         );
-        return cacheManager;
+        // Evictions are broadcast so every replica drops the entry, not just this one
+        return cacheInvalidationBus.broadcasting(cacheManager);
     }
 }
@@ -1,23 +1,13 @@
 package com.datagami.edudron.identity.config;
 
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
-import org.springframework.context.annotation.Bean;
+import com.datagami.edudron.common.http.InterServiceClientConfig;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.springframework.context.annotation.Import;
 
+/**
+ * The shared RestTemplate bean is registered by {@link InterServiceClientConfig}.
+ */
 @Configuration
+@Import(InterServiceClientConfig.class)
 public class RestTemplateConfig {
-    
-    @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-        interceptors.add(new TenantContextRestTemplateInterceptor());
-        restTemplate.setInterceptors(interceptors);
-        return restTemplate;
-    }
 }
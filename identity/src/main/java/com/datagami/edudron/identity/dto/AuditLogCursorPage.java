@@ -0,0 +1,28 @@
+package com.datagami.edudron.identity.dto;
+
+import java.util.List;
+
+/**
+ * One page of audit logs in keyset order (newest first). Pass nextCursor back as the cursor
+ * parameter to get the following page; it is null on the last page.
+ */
+public class AuditLogCursorPage {
+    private List<AuditLogDTO> items;
+    private String nextCursor;
+
+    public AuditLogCursorPage() {
+    }
+
+    public AuditLogCursorPage(List<AuditLogDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AuditLogDTO> getItems() { return items; }
+    public void setItems(List<AuditLogDTO> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,16 @@
+package com.datagami.edudron.identity.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class UserBatchRequest {
+    @NotEmpty(message = "At least one user ID is required")
+    @Size(max = 500, message = "At most 500 user IDs can be requested at once")
+    private List<String> ids;
+
+    // Getters and Setters
+    public List<String> getIds() { return ids; }
+    public void setIds(List<String> ids) { this.ids = ids; }
+}
@@ -0,0 +1,17 @@
+package com.datagami.edudron.identity.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class UserBulkCreateRequest {
+    // Entries are validated individually by the service so one bad row does not reject the batch
+    @NotEmpty(message = "At least one user is required")
+    @Size(max = 500, message = "At most 500 users can be created at once")
+    private List<CreateUserRequest> users;
+
+    // Getters and Setters
+    public List<CreateUserRequest> getUsers() { return users; }
+    public void setUsers(List<CreateUserRequest> users) { this.users = users; }
+}
@@ -0,0 +1,36 @@
+package com.datagami.edudron.identity.dto;
+
+public class UserBulkCreateResult {
+    public static final String CREATED = "CREATED";
+    public static final String EXISTS = "EXISTS";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private String email;
+    private String status;
+    private UserDTO user;
+    private String error;
+
+    public UserBulkCreateResult() {}
+
+    public UserBulkCreateResult(int index, String email) {
+        this.index = index;
+        this.email = email;
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public UserDTO getUser() { return user; }
+    public void setUser(UserDTO user) { this.user = user; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
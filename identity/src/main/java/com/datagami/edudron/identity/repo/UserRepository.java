@@ -5,8 +5,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +26,10 @@ public interface UserRepository extends JpaRepository<User, String>, JpaSpecific
     Optional<User> findByEmailIgnoreCaseAndClientIdAndActiveTrue(String email, UUID clientId);
     boolean existsByEmailIgnoreCaseAndClientId(String email, UUID clientId);
     
+    // Bulk existence check for imports; emails must already be lowercased
+    @Query("SELECT u FROM User u WHERE u.clientId = :clientId AND LOWER(u.email) IN :emails")
+    List<User> findByClientIdAndLowerEmailIn(@Param("clientId") UUID clientId, @Param("emails") Collection<String> emails);
+    
     // Find all users with the same email across all tenants
     List<User> findByEmailAndActiveTrue(String email);
     List<User> findByEmailIgnoreCaseAndActiveTrue(String email);
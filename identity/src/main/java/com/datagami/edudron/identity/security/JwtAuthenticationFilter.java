@@ -1,6 +1,7 @@
 package com.datagami.edudron.identity.security;
 
 import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.common.security.JwtPrincipal;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -38,13 +39,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String username = null;
         String jwt = null;
+        JwtPrincipal principal = null;
         boolean tokenExpired = false;
         boolean tokenInvalid = false;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                principal = jwtUtil.authenticate(jwt, request::getHeader);
+                username = principal.username();
             } catch (ExpiredJwtException e) {
                 tokenExpired = true;
             } catch (JwtException | IllegalArgumentException e) {
@@ -72,45 +75,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             if (tenantHeader != null && !tenantHeader.isBlank()) {
                 TenantContext.setClientId(tenantHeader);
-            } else if (jwt != null && username != null) {
-                // If header is not present, try to extract tenant from JWT token
-                try {
-                    String tenantFromToken = jwtUtil.extractTenantId(jwt);
-                    if (tenantFromToken != null && !tenantFromToken.isBlank()) {
-                        TenantContext.setClientId(tenantFromToken);
-                    }
-                } catch (Exception e) {
+            } else if (principal != null) {
+                // If header is not present, use the tenant from the JWT token
+                String tenantFromToken = principal.tenantId();
+                if (tenantFromToken != null && !tenantFromToken.isBlank()) {
+                    TenantContext.setClientId(tenantFromToken);
                 }
             }
 
+            // The token was fully verified above, so its principal can be used directly
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtUtil.validateToken(jwt)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            username, null, new ArrayList<>());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    // Set user info as request attributes for downstream use
-                    request.setAttribute("userId", username);
-                    try {
-                        String role = jwtUtil.extractRole(jwt);
-                        if (role != null) request.setAttribute("userRole", role);
-                    } catch (Exception ignored) {}
-                    try {
-                        String email = jwtUtil.extractClaim(jwt, claims -> {
-                            Object e = claims.get("email");
-                            return e != null ? e.toString() : null;
-                        });
-                        if (email != null) request.setAttribute("userEmail", email);
-                    } catch (Exception ignored) {}
-                } else {
-                    // Token is invalid (not expired, but validation failed)
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.setContentType("application/json");
-                    response.setCharacterEncoding("UTF-8");
-                    response.getWriter().write("{\"error\":\"Invalid token\",\"code\":\"UNAUTHORIZED\"}");
-                    return;
-                }
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        username, null, new ArrayList<>());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                // Set user info as request attributes for downstream use
+                request.setAttribute("userId", username);
+                request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
+                if (principal.role() != null) request.setAttribute("userRole", principal.role());
+                if (principal.email() != null) request.setAttribute("userEmail", principal.email());
             }
 
             filterChain.doFilter(request, response);
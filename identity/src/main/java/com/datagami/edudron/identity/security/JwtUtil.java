@@ -1,7 +1,9 @@
 package com.datagami.edudron.identity.security;
 
+import com.datagami.edudron.common.security.InternalIdentityHeaders;
+import com.datagami.edudron.common.security.JwtClaimsParser;
+import com.datagami.edudron.common.security.JwtPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -14,8 +16,8 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    @Value("${internal-identity.secret:}")
+    private String internalIdentitySecret;
 
     @Value("${jwt.expiration:86400}") // 24 hours in seconds
     private Long expiration;
@@ -23,13 +25,15 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration:604800}") // 7 days in seconds (default)
     private Long refreshExpiration;
 
+    // Key and parser are built once; the secret does not change while the service runs
+    private final JwtClaimsParser claimsParser;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret) {
+        this.claimsParser = new JwtClaimsParser(secret);
+    }
+
     private SecretKey getSigningKey() {
-        // Ensure secret is at least 32 bytes (256 bits) for HS256
-        if (secret == null || secret.length() < 32) {
-            throw new IllegalStateException("JWT secret must be at least 32 characters long. Current length: " + 
-                (secret != null ? secret.length() : 0));
-        }
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return claimsParser.getSigningKey();
     }
 
     public String generateToken(String username, String tenantId, String role) {
@@ -78,10 +82,26 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsParser.parseClaims(token);
+    }
+
+    /**
+     * Verify an access token and return its principal. Verified tokens are cached until exp.
+     *
+     * @throws ExpiredJwtException if the token has expired
+     * @throws JwtException if the token is malformed or badly signed
+     */
+    public JwtPrincipal verifyToken(String token) {
+        return claimsParser.verify(token);
+    }
+
+    /**
+     * Like {@link #verifyToken}, but accepts the gateway's signed identity headers for this token
+     * instead of verifying it again.
+     */
+    public JwtPrincipal authenticate(String token, Function<String, String> headers) {
+        JwtPrincipal trusted = InternalIdentityHeaders.verify(internalIdentitySecret, token, headers);
+        return trusted != null ? trusted : verifyToken(token);
     }
 
     private Boolean isTokenExpired(String token) {
@@ -95,9 +115,7 @@ public class JwtUtil {
 
     public Boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token);
+            verifyToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -109,10 +127,7 @@ public class JwtUtil {
      */
     public Boolean validateRefreshToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+            claimsParser.parseClaims(token);
             return true;
         } catch (ExpiredJwtException e) {
             Claims claims = e.getClaims();
@@ -128,10 +143,7 @@ public class JwtUtil {
 
     public Claims extractClaimsIgnoringExpiration(String token) {
         try {
-            return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+            return claimsParser.parseClaims(token);
         } catch (ExpiredJwtException e) {
             return e.getClaims();
         }
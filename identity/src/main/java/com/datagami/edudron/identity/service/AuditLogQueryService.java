@@ -2,30 +2,76 @@ package com.datagami.edudron.identity.service;
 
 import com.datagami.edudron.common.TenantContext;
 import com.datagami.edudron.common.domain.AuditLog;
+import com.datagami.edudron.identity.dto.AuditLogCursorPage;
 import com.datagami.edudron.identity.dto.AuditLogDTO;
 import com.datagami.edudron.identity.repo.AuditLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 
 @Service
 public class AuditLogQueryService {
 
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     @Autowired
     private AuditLogRepository auditLogRepository;
 
     @Transactional(readOnly = true)
     public Page<AuditLogDTO> getAuditLogs(Pageable pageable, String entity, String action, String actor,
                                           OffsetDateTime from, OffsetDateTime to) {
+        return auditLogRepository.findAll(filters(entity, action, actor, from, to), pageable).map(this::toDTO);
+    }
+
+    /**
+     * Keyset page ordered by (createdAt, id) descending. Cost depends on the page size only,
+     * not on how far back the caller has paged, and no count query is run.
+     *
+     * @param cursor nextCursor from the previous page, or null for the newest entries
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public AuditLogCursorPage getAuditLogsAfter(String cursor, int size, String entity, String action, String actor,
+                                                OffsetDateTime from, OffsetDateTime to) {
+        Specification<AuditLog> spec = filters(entity, action, actor, from, to);
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = Cursor.decode(cursor);
+            spec = spec.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("createdAt"), position.createdAt()),
+                    cb.and(cb.equal(root.get("createdAt"), position.createdAt()),
+                            cb.lessThan(root.get("id"), position.id()))));
+        }
+
+        // One extra row tells us whether there is a next page
+        List<AuditLog> rows = auditLogRepository.findBy(spec, q -> q
+                .sortBy(KEYSET_ORDER)
+                .limit(size + 1)
+                .all());
+
+        boolean hasMore = rows.size() > size;
+        List<AuditLog> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            AuditLog last = page.get(page.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new AuditLogCursorPage(page.stream().map(this::toDTO).toList(), nextCursor);
+    }
+
+    private Specification<AuditLog> filters(String entity, String action, String actor,
+                                            OffsetDateTime from, OffsetDateTime to) {
         String clientIdStr = TenantContext.getClientId();
         UUID parsed = null;
         if (clientIdStr != null && !"SYSTEM".equals(clientIdStr) && !"PENDING_TENANT_SELECTION".equals(clientIdStr)) {
@@ -36,7 +82,7 @@ public class AuditLogQueryService {
         }
         final UUID filterClientId = parsed;
 
-        Specification<AuditLog> spec = (root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             if (filterClientId != null) {
                 predicates.add(cb.equal(root.get("clientId"), filterClientId));
@@ -58,8 +104,28 @@ public class AuditLogQueryService {
             }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
+
+    /**
+     * Position of the last row of a page, as an opaque URL-safe token.
+     */
+    record Cursor(OffsetDateTime createdAt, UUID id) {
+
+        String encode() {
+            String raw = createdAt.toString() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
 
-        return auditLogRepository.findAll(spec, pageable).map(this::toDTO);
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(OffsetDateTime.parse(raw.substring(0, separator)),
+                        UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid audit log cursor", e);
+            }
+        }
     }
 
     private AuditLogDTO toDTO(AuditLog log) {
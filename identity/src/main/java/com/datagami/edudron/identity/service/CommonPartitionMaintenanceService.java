@@ -0,0 +1,132 @@
+package com.datagami.edudron.identity.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of common.audit_logs and common.events rolling
+ * (see db.changelog-0010-common-partitioning.yaml).
+ *
+ * Each run creates partitions for the current month and the next few, then detaches monthly
+ * partitions that ended before the retention window and moves them to the common_archive
+ * schema, where they can be dumped or dropped without touching the live tables. The legacy
+ * partition (pre-partitioning history) is archived the same way once its upper bound falls out
+ * of the window. An advisory lock keeps replicas from running this concurrently.
+ */
+@Service
+public class CommonPartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(CommonPartitionMaintenanceService.class);
+
+    private static final long ADVISORY_LOCK_KEY = 0x65647564726f6e01L;
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("_p(\\d{4})_(\\d{2})$");
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_namespace n ON n.oid = c.relnamespace
+            WHERE i.inhparent = ('common.' || ?)::regclass AND n.nspname = 'common'
+            """;
+
+    // Whether the partition's range ends on or before the given instant, from its
+    // FOR VALUES FROM (MINVALUE) TO ('...') bound; no row once it has been detached
+    private static final String PARTITION_ENDS_BEFORE_SQL = """
+            SELECT (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz <= ?
+            FROM pg_class c
+            JOIN pg_namespace n ON n.oid = c.relnamespace
+            WHERE n.nspname = 'common' AND c.relname = ? AND c.relispartition
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${common.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${common.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${common.partitions.audit-logs-retention-months:24}")
+    private int auditLogsRetentionMonths;
+
+    @Value("${common.partitions.events-retention-months:6}")
+    private int eventsRetentionMonths;
+
+    @Scheduled(cron = "${common.partitions.cron:0 15 3 * * *}", zone = "UTC")
+    @Transactional
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Partition maintenance already running on another node");
+            return;
+        }
+        maintain("audit_logs", auditLogsRetentionMonths);
+        maintain("events", eventsRetentionMonths);
+    }
+
+    private void maintain(String table, int retentionMonths) {
+        if (!isPartitioned(table)) {
+            log.warn("common.{} is not partitioned yet; skipping partition maintenance", table);
+            return;
+        }
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT common.ensure_monthly_partitions(?, ?)", Integer.class, table, monthsAhead);
+        if (created != null && created > 0) {
+            log.info("Created {} monthly partition(s) for common.{}", created, table);
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, table);
+        for (String partition : partitions) {
+            Matcher m = MONTHLY_PARTITION.matcher(partition);
+            if (!m.find()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (month.isBefore(oldestKept)) {
+                archive(table, partition);
+            }
+        }
+
+        String legacy = table + "_legacy";
+        OffsetDateTime windowStart = oldestKept.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        List<Boolean> legacyExpired = jdbcTemplate.queryForList(PARTITION_ENDS_BEFORE_SQL, Boolean.class, windowStart, legacy);
+        if (!legacyExpired.isEmpty() && Boolean.TRUE.equals(legacyExpired.get(0))) {
+            archive(table, legacy);
+        }
+    }
+
+    private void archive(String table, String partition) {
+        // Identifiers are fixed table names or partition names read from pg_class, so quoting is enough
+        jdbcTemplate.execute("ALTER TABLE common.\"" + table + "\" DETACH PARTITION common.\"" + partition + "\"");
+        jdbcTemplate.execute("ALTER TABLE common.\"" + partition + "\" SET SCHEMA common_archive");
+        log.info("Archived partition {} of common.{} to common_archive", partition, table);
+    }
+
+    private boolean isPartitioned(String table) {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('common.' || ?))",
+                Boolean.class, table);
+        return Boolean.TRUE.equals(partitioned);
+    }
+}
@@ -17,6 +17,7 @@ import com.datagami.edudron.identity.domain.UserInstitute;
 import com.datagami.edudron.identity.dto.CreateUserRequest;
 import com.datagami.edudron.identity.dto.PasswordResetResponse;
 import com.datagami.edudron.identity.dto.UpdateUserRequest;
+import com.datagami.edudron.identity.dto.UserBulkCreateResult;
 import com.datagami.edudron.identity.dto.UserDTO;
 import com.datagami.edudron.identity.repo.UserInstituteRepository;
 import com.datagami.edudron.identity.repo.UserRepository;
@@ -28,7 +29,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -38,6 +43,7 @@ import jakarta.persistence.criteria.Predicate;
 import java.security.SecureRandom;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -67,6 +73,9 @@ public class UserService {
 
     @Autowired
     private IdentityAuditService auditService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
     
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
@@ -138,12 +147,71 @@ public class UserService {
         return toDTO(user);
     }
     
+    /**
+     * Batched user-directory lookup. Loads all requested users in one query (plus one for
+     * institute links) and skips the per-student class/section enrichment that {@link #toDTO}
+     * performs over HTTP, since batch callers (student rosters) already know the section/class.
+     * Unknown IDs and users from other tenants are silently omitted.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> getUsersByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        List<String> distinctIds = ids.stream()
+            .filter(id -> id != null && !id.isBlank())
+            .distinct()
+            .collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        
+        String clientIdStr = TenantContext.getClientId();
+        UUID clientId = null;
+        if (clientIdStr != null && !"SYSTEM".equals(clientIdStr) && !"PENDING_TENANT_SELECTION".equals(clientIdStr)) {
+            clientId = UUID.fromString(clientIdStr);
+        }
+        final UUID tenantId = clientId;
+        
+        List<User> users = userRepository.findAllById(distinctIds).stream()
+            .filter(user -> tenantId == null || user.getClientId() == null || user.getClientId().equals(tenantId))
+            .collect(Collectors.toList());
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<String, List<String>> institutesByUser = userInstituteRepository.findByUserIdIn(
+                users.stream().map(User::getId).collect(Collectors.toList())).stream()
+            .collect(Collectors.groupingBy(UserInstitute::getUserId,
+                Collectors.mapping(UserInstitute::getInstituteId, Collectors.toList())));
+        
+        log.debug("Batch user lookup: requested={}, found={}", distinctIds.size(), users.size());
+        return users.stream()
+            .map(user -> toDirectoryDTO(user, institutesByUser.getOrDefault(user.getId(), List.of())))
+            .collect(Collectors.toList());
+    }
+    
     @Transactional(readOnly = true)
     public UserDTO getUserByEmail(String email) {
+        return findUserByEmail(email).map(this::toDTO).orElse(null);
+    }
+    
+    /**
+     * The directory entry of the user with this email, or null if there is none. Like
+     * {@link #findCurrentUserDirectoryEntry()} it skips the student class/section lookup.
+     */
+    @Transactional(readOnly = true)
+    public UserDTO findUserDirectoryEntryByEmail(String email) {
+        return findUserByEmail(email)
+            .map(user -> toDirectoryDTO(user, getUserInstitutes(user.getId())))
+            .orElse(null);
+    }
+    
+    private Optional<User> findUserByEmail(String email) {
         // Email is trimmed but we'll use case-insensitive search
         String trimmedEmail = email != null ? email.trim() : null;
         if (trimmedEmail == null || trimmedEmail.isEmpty()) {
-            return null;
+            return Optional.empty();
         }
         
         String clientIdStr = TenantContext.getClientId();
@@ -152,18 +220,14 @@ public class UserService {
         if (clientIdStr != null && !"SYSTEM".equals(clientIdStr) && !"PENDING_TENANT_SELECTION".equals(clientIdStr)) {
             UUID clientId = UUID.fromString(clientIdStr);
             log.info("Finding user by email {} for tenant: {} (case-insensitive)", trimmedEmail, clientId);
-            Optional<User> user = userRepository.findByEmailIgnoreCaseAndClientId(trimmedEmail, clientId);
-            return user.map(this::toDTO).orElse(null);
+            return userRepository.findByEmailIgnoreCaseAndClientId(trimmedEmail, clientId);
         }
         
         // For SYSTEM context, search all users with this email
         log.info("Finding user by email {} (SYSTEM_ADMIN context, case-insensitive)", trimmedEmail);
         List<User> users = userRepository.findByEmailAndActiveTrue(trimmedEmail);
-        if (users.isEmpty()) {
-            return null;
-        }
         // Return the first active user found
-        return toDTO(users.get(0));
+        return users.stream().findFirst();
     }
     
     @Transactional(readOnly = true)
@@ -490,6 +554,216 @@ public class UserService {
         return toDTO(user);
     }
     
+    /**
+     * Create many users in one transaction (bulk student imports).
+     * Permissions and tenant are checked once, existing emails are found with a single query and
+     * passwords are hashed in parallel. Every entry gets its own result so one bad row does not
+     * reject the batch: existing users are returned as EXISTS, invalid entries as FAILED. A row
+     * that fails at insert time (a concurrent create of the same email) makes the batch retry
+     * row by row, and only that row is reported. SYSTEM_ADMIN users cannot be created here.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<UserBulkCreateResult> createUsersBulk(List<CreateUserRequest> requests) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new IllegalArgumentException("Authentication required");
+        }
+        if (!currentUser.canManageUsers()) {
+            throw new IllegalArgumentException("Only SYSTEM_ADMIN and TENANT_ADMIN can create users");
+        }
+
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null || "SYSTEM".equals(clientIdStr) || "PENDING_TENANT_SELECTION".equals(clientIdStr)) {
+            throw new IllegalArgumentException("Tenant context required for user creation");
+        }
+        UUID clientId = UUID.fromString(clientIdStr);
+
+        List<UserBulkCreateResult> results = new ArrayList<>(requests.size());
+        Map<String, Integer> indexByEmail = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateUserRequest request = requests.get(i);
+            String normalizedEmail = request.getEmail() != null ? request.getEmail().toLowerCase().trim() : null;
+            request.setEmail(normalizedEmail);
+
+            UserBulkCreateResult result = new UserBulkCreateResult(i, normalizedEmail);
+            results.add(result);
+
+            String error = validateBulkCreateRequest(request, currentUser.getRole());
+            if (error == null && indexByEmail.putIfAbsent(normalizedEmail, i) != null) {
+                error = "Duplicate email in batch";
+            }
+            if (error != null) {
+                result.setStatus(UserBulkCreateResult.FAILED);
+                result.setError(error);
+                continue;
+            }
+            candidates.add(i);
+        }
+
+        Map<String, User> existingByEmail = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            for (User existing : userRepository.findByClientIdAndLowerEmailIn(clientId, indexByEmail.keySet())) {
+                existingByEmail.putIfAbsent(existing.getEmail().toLowerCase(), existing);
+            }
+        }
+
+        List<Integer> toCreate = new ArrayList<>();
+        for (int i : candidates) {
+            User existing = existingByEmail.get(requests.get(i).getEmail());
+            if (existing != null) {
+                results.get(i).setStatus(UserBulkCreateResult.EXISTS);
+                results.get(i).setUser(toDirectoryDTO(existing, List.of()));
+                results.get(i).setError("User already exists with this email in this tenant");
+            } else {
+                toCreate.add(i);
+            }
+        }
+        if (toCreate.isEmpty()) {
+            return results;
+        }
+
+        // BCrypt dominates the cost of a large batch; hash on all cores
+        List<String> encodedPasswords = toCreate.parallelStream()
+            .map(i -> passwordEncoder.encode(resolveBulkPassword(requests.get(i))))
+            .collect(Collectors.toList());
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<User> users = new ArrayList<>(toCreate.size());
+        List<List<UserInstitute>> institutes = new ArrayList<>(toCreate.size());
+        for (int n = 0; n < toCreate.size(); n++) {
+            CreateUserRequest request = requests.get(toCreate.get(n));
+            User user = new User(
+                UlidGenerator.nextUlid(),
+                clientId,
+                request.getEmail(),
+                encodedPasswords.get(n),
+                request.getName(),
+                request.getPhone(),
+                User.Role.valueOf(request.getRole().toUpperCase())
+            );
+            user.setActive(request.getActive() != null ? request.getActive() : true);
+            user.setPasswordResetRequired(Boolean.TRUE.equals(request.getAutoGeneratePassword()));
+            user.setCreatedAt(now);
+            users.add(user);
+            List<UserInstitute> userInstitutes = new ArrayList<>();
+            for (String instituteId : request.getInstituteIds()) {
+                if (instituteId != null && !instituteId.trim().isEmpty()) {
+                    userInstitutes.add(new UserInstitute(user.getId(), instituteId.trim()));
+                }
+            }
+            institutes.add(userInstitutes);
+        }
+
+        // One transaction for the whole batch. If it fails (a user created concurrently with the
+        // same email, say) every row is retried in its own transaction so only the offending rows fail.
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Integer> created = new ArrayList<>(toCreate.size());
+        try {
+            transaction.executeWithoutResult(status -> {
+                userRepository.saveAll(users);
+                userInstituteRepository.saveAll(institutes.stream().flatMap(List::stream).toList());
+                userRepository.flush();
+            });
+            for (int n = 0; n < toCreate.size(); n++) {
+                created.add(n);
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Bulk user create failed as a batch, retrying row by row: {}", e.getMostSpecificCause().getMessage());
+            for (int n = 0; n < toCreate.size(); n++) {
+                User user = users.get(n);
+                List<UserInstitute> userInstitutes = institutes.get(n);
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        userRepository.save(user);
+                        userInstituteRepository.saveAll(userInstitutes);
+                        userRepository.flush();
+                    });
+                    created.add(n);
+                } catch (DataIntegrityViolationException rowError) {
+                    UserBulkCreateResult result = results.get(toCreate.get(n));
+                    Optional<User> existing = userRepository.findByEmailIgnoreCaseAndClientId(user.getEmail(), clientId);
+                    if (existing.isPresent()) {
+                        result.setStatus(UserBulkCreateResult.EXISTS);
+                        result.setUser(toDirectoryDTO(existing.get(), List.of()));
+                        result.setError("User already exists with this email in this tenant");
+                    } else {
+                        result.setStatus(UserBulkCreateResult.FAILED);
+                        result.setError("Failed to create user: " + rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        String currentUserId = currentUser.getId();
+        String currentUserEmail = currentUser.getEmail();
+        for (int n : created) {
+            CreateUserRequest request = requests.get(toCreate.get(n));
+            User user = users.get(n);
+            Map<String, Object> eventData = Map.of(
+                "userId", user.getId(),
+                "userEmail", user.getEmail(),
+                "userName", user.getName() != null ? user.getName() : "",
+                "role", user.getRole().name(),
+                "isActive", user.getActive() != null ? user.getActive() : false,
+                "instituteIds", request.getInstituteIds()
+            );
+            auditService.logCrud(clientId, "CREATE", "User", user.getId(), currentUserId, currentUserEmail, eventData);
+
+            UserBulkCreateResult result = results.get(toCreate.get(n));
+            result.setStatus(UserBulkCreateResult.CREATED);
+            result.setUser(toDirectoryDTO(user, request.getInstituteIds()));
+        }
+        eventService.logUserAction("USERS_BULK_CREATED", currentUserId, currentUserEmail, "/idp/users/bulk",
+            Map.of("requested", requests.size(), "created", created.size()));
+
+        log.info("Bulk user create: requested={}, created={}, existing={}",
+            requests.size(), created.size(), candidates.size() - toCreate.size());
+        return results;
+    }
+
+    /**
+     * Same rules as {@link #createUser}, returned as a message instead of thrown.
+     */
+    private String validateBulkCreateRequest(CreateUserRequest request, User.Role currentUserRole) {
+        if (request.getEmail() == null || request.getEmail().isEmpty() || !request.getEmail().contains("@")) {
+            return "Email must be valid";
+        }
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "Name is required";
+        }
+        User.Role role;
+        try {
+            role = User.Role.valueOf(request.getRole() != null ? request.getRole().toUpperCase() : "");
+        } catch (IllegalArgumentException e) {
+            return "Invalid role: " + request.getRole();
+        }
+        if (role == User.Role.SYSTEM_ADMIN) {
+            return "SYSTEM_ADMIN users cannot be created in bulk";
+        }
+        if ((role == User.Role.TENANT_ADMIN || role == User.Role.CONTENT_MANAGER) && currentUserRole != User.Role.SYSTEM_ADMIN) {
+            return "Only SYSTEM_ADMIN can create platform-side roles (TENANT_ADMIN, CONTENT_MANAGER)";
+        }
+        if (currentUserRole == User.Role.TENANT_ADMIN
+                && role != User.Role.INSTRUCTOR && role != User.Role.SUPPORT_STAFF && role != User.Role.STUDENT) {
+            return "TENANT_ADMIN can only create university-side roles (INSTRUCTOR, SUPPORT_STAFF, STUDENT)";
+        }
+        if (request.getInstituteIds() == null || request.getInstituteIds().isEmpty()) {
+            return "At least one institute must be assigned to the user";
+        }
+        if (!Boolean.TRUE.equals(request.getAutoGeneratePassword())
+                && (request.getPassword() == null || request.getPassword().isBlank())) {
+            return "Password is required when autoGeneratePassword is false";
+        }
+        return null;
+    }
+
+    private String resolveBulkPassword(CreateUserRequest request) {
+        return Boolean.TRUE.equals(request.getAutoGeneratePassword())
+            ? generatePasswordFromUserInfo(request.getName(), request.getEmail())
+            : request.getPassword();
+    }
+
     @Transactional
     public UserDTO updateUser(String id, UpdateUserRequest request) {
         // Normalize email to lowercase for case-insensitive handling
@@ -791,6 +1065,17 @@ public class UserService {
         return toDTO(currentUser);
     }
     
+    /**
+     * The current user's directory entry, or null if the caller is not a known user.
+     * Unlike {@link #getCurrentUserProfile()} this neither throws nor fetches student
+     * class/section info, so in-process callers can use it inside their own transaction.
+     */
+    @Transactional(readOnly = true)
+    public UserDTO findCurrentUserDirectoryEntry() {
+        User currentUser = getCurrentUser();
+        return currentUser != null ? toDirectoryDTO(currentUser, getUserInstitutes(currentUser.getId())) : null;
+    }
+    
     @Transactional
     public void changePassword(String currentPassword, String newPassword) {
         User currentUser = getCurrentUser();
@@ -957,20 +1242,7 @@ public class UserService {
     }
     
     private UserDTO toDTO(User user) {
-        List<String> instituteIds = getUserInstitutes(user.getId());
-        UserDTO dto = new UserDTO(
-            user.getId(),
-            user.getClientId(),
-            user.getEmail(),
-            user.getName(),
-            user.getPhone(),
-            user.getRole().name(),
-            user.getActive(),
-            user.getPasswordResetRequired() != null ? user.getPasswordResetRequired() : false,
-            instituteIds,
-            user.getCreatedAt(),
-            user.getLastLoginAt()
-        );
+        UserDTO dto = toDirectoryDTO(user, getUserInstitutes(user.getId()));
         
         // If user is a STUDENT, fetch class and section info
         if (user.getRole() == User.Role.STUDENT && user.getClientId() != null) {
@@ -991,6 +1263,25 @@ public class UserService {
         return dto;
     }
     
+    /**
+     * Map a user to its DTO without the remote class/section enrichment.
+     */
+    private UserDTO toDirectoryDTO(User user, List<String> instituteIds) {
+        return new UserDTO(
+            user.getId(),
+            user.getClientId(),
+            user.getEmail(),
+            user.getName(),
+            user.getPhone(),
+            user.getRole().name(),
+            user.getActive(),
+            user.getPasswordResetRequired() != null ? user.getPasswordResetRequired() : false,
+            instituteIds,
+            user.getCreatedAt(),
+            user.getLastLoginAt()
+        );
+    }
+    
     /**
      * Inner class to deserialize student class/section info from student service
      */
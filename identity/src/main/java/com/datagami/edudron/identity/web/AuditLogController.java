@@ -1,5 +1,6 @@
 package com.datagami.edudron.identity.web;
 
+import com.datagami.edudron.identity.dto.AuditLogCursorPage;
 import com.datagami.edudron.identity.dto.AuditLogDTO;
 import com.datagami.edudron.identity.service.AuditLogQueryService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -36,4 +37,23 @@ public class AuditLogController {
         Page<AuditLogDTO> result = auditLogQueryService.getAuditLogs(pageable, entity, action, actor, from, to);
         return ResponseEntity.ok(result);
     }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "List audit logs (keyset)", description = "Newest first, paged by an opaque cursor on (createdAt, id). Pass nextCursor from the previous response to continue; same filters as the paginated list, without totals.")
+    public ResponseEntity<AuditLogCursorPage> getAuditLogsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String entity,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String actor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        try {
+            AuditLogCursorPage result = auditLogQueryService.getAuditLogsAfter(
+                    cursor, Math.max(1, Math.min(size, 100)), entity, action, actor, from, to);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -4,6 +4,9 @@ import com.datagami.edudron.identity.dto.ChangePasswordRequest;
 import com.datagami.edudron.identity.dto.CreateUserRequest;
 import com.datagami.edudron.identity.dto.PasswordResetResponse;
 import com.datagami.edudron.identity.dto.UpdateUserRequest;
+import com.datagami.edudron.identity.dto.UserBatchRequest;
+import com.datagami.edudron.identity.dto.UserBulkCreateRequest;
+import com.datagami.edudron.identity.dto.UserBulkCreateResult;
 import com.datagami.edudron.identity.dto.UserDTO;
 import com.datagami.edudron.identity.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -62,6 +65,13 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Get users in batch", description = "Get details for many users by ID in a single call. Unknown IDs and users outside the current tenant are omitted. Class/section info is not populated.")
+    public ResponseEntity<List<UserDTO>> getUsersBatch(@Valid @RequestBody UserBatchRequest request) {
+        List<UserDTO> users = userService.getUsersByIds(request.getIds());
+        return ResponseEntity.ok(users);
+    }
+    
     @GetMapping("/role/{role}")
     @Operation(summary = "List users by role", description = "Get all users with a specific role for the current tenant")
     public ResponseEntity<List<UserDTO>> getUsersByRole(@PathVariable String role) {
@@ -103,6 +113,13 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(user);
     }
     
+    @PostMapping("/bulk")
+    @Operation(summary = "Create users in bulk", description = "Create up to 500 users in one call for imports. Returns one result per entry, in request order: CREATED, EXISTS (with the existing user) or FAILED (with the reason). SYSTEM_ADMIN users cannot be created in bulk.")
+    public ResponseEntity<List<UserBulkCreateResult>> createUsersBulk(@Valid @RequestBody UserBulkCreateRequest request) {
+        List<UserBulkCreateResult> results = userService.createUsersBulk(request.getUsers());
+        return ResponseEntity.ok(results);
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update user", description = "Update user details. SYSTEM_ADMIN users can only be modified by existing SYSTEM_ADMIN users. Non-SYSTEM_ADMIN users must have at least one institute assigned.")
     public ResponseEntity<UserDTO> updateUser(
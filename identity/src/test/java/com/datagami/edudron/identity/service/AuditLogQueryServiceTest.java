@@ -0,0 +1,170 @@
+package com.datagami.edudron.identity.service;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.common.domain.AuditLog;
+import com.datagami.edudron.identity.dto.AuditLogCursorPage;
+import com.datagami.edudron.identity.repo.AuditLogRepository;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Keyset paging of the audit log (/idp/audit-logs/cursor) and its cursor token.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AuditLogQueryService Cursor Paging Tests")
+class AuditLogQueryServiceTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 3, 14, 9, 30, 15, 123_000_000, ZoneOffset.UTC);
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @Mock
+    private FluentQuery.FetchableFluentQuery<AuditLog> fluentQuery;
+
+    @InjectMocks
+    private AuditLogQueryService auditLogQueryService;
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("Cursor round-trips through its URL-safe token")
+    void cursorRoundTrip() {
+        UUID id = UUID.randomUUID();
+        AuditLogQueryService.Cursor cursor = new AuditLogQueryService.Cursor(NOW, id);
+
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "token is URL-safe and unpadded: " + token);
+        assertEquals(cursor, AuditLogQueryService.Cursor.decode(token));
+    }
+
+    @Test
+    @DisplayName("Malformed cursors are rejected with IllegalArgumentException")
+    void malformedCursorRejected() {
+        String notBase64 = "not a cursor!";
+        String noSeparator = encode(NOW.toString());
+        String badId = encode(NOW + "|not-a-uuid");
+        String badTime = encode("yesterday|" + UUID.randomUUID());
+
+        for (String token : List.of(notBase64, noSeparator, badId, badTime)) {
+            assertThrows(IllegalArgumentException.class, () -> AuditLogQueryService.Cursor.decode(token), token);
+            assertThrows(IllegalArgumentException.class,
+                    () -> auditLogQueryService.getAuditLogsAfter(token, 10, null, null, null, null, null), token);
+        }
+        verifyNoInteractions(auditLogRepository);
+    }
+
+    @Test
+    @DisplayName("A full page fetches one extra row and returns a cursor at its last row")
+    void fullPageReturnsNextCursor() {
+        List<AuditLog> rows = rows(4);
+        stubQuery(rows);
+
+        AuditLogCursorPage page = auditLogQueryService.getAuditLogsAfter(null, 3, null, null, null, null, null);
+
+        assertEquals(3, page.getItems().size());
+        assertEquals(rows.get(0).getId(), page.getItems().get(0).getId());
+        assertTrue(page.isHasMore());
+        AuditLogQueryService.Cursor next = AuditLogQueryService.Cursor.decode(page.getNextCursor());
+        assertEquals(rows.get(2).getCreatedAt(), next.createdAt());
+        assertEquals(rows.get(2).getId(), next.id());
+        verify(fluentQuery).sortBy(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        verify(fluentQuery).limit(4);
+    }
+
+    @Test
+    @DisplayName("The last page has no cursor")
+    void lastPageHasNoCursor() {
+        stubQuery(rows(2));
+
+        AuditLogCursorPage page = auditLogQueryService.getAuditLogsAfter(null, 3, null, null, null, null, null);
+
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    @DisplayName("A cursor restricts the query to rows strictly after it in (createdAt, id) order")
+    @SuppressWarnings("unchecked")
+    void cursorAddsKeysetPredicate() {
+        UUID lastId = UUID.randomUUID();
+        String token = new AuditLogQueryService.Cursor(NOW, lastId).encode();
+        stubQuery(List.of());
+
+        auditLogQueryService.getAuditLogsAfter(token, 10, null, null, null, null, null);
+
+        ArgumentCaptor<Specification<AuditLog>> spec = ArgumentCaptor.forClass(Specification.class);
+        verify(auditLogRepository).findBy(spec.capture(), any(Function.class));
+
+        Root<AuditLog> root = mock(Root.class);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<OffsetDateTime> createdAt = mock(Path.class);
+        Path<UUID> id = mock(Path.class);
+        when(root.<OffsetDateTime>get("createdAt")).thenReturn(createdAt);
+        when(root.<UUID>get("id")).thenReturn(id);
+
+        spec.getValue().toPredicate(root, query, cb);
+
+        verify(cb).lessThan(createdAt, NOW);
+        verify(cb).equal(createdAt, NOW);
+        verify(cb).lessThan(id, lastId);
+    }
+
+    private void stubQuery(List<AuditLog> rows) {
+        lenient().when(fluentQuery.sortBy(any())).thenReturn(fluentQuery);
+        lenient().when(fluentQuery.limit(anyInt())).thenReturn(fluentQuery);
+        lenient().when(fluentQuery.all()).thenReturn(rows);
+        when(auditLogRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenAnswer(invocation -> invocation.<Function<FluentQuery.FetchableFluentQuery<AuditLog>, Object>>getArgument(1)
+                        .apply(fluentQuery));
+    }
+
+    private static List<AuditLog> rows(int count) {
+        List<AuditLog> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AuditLog log = new AuditLog();
+            log.setId(UUID.randomUUID());
+            log.setAction("UPDATE");
+            log.setEntity("User");
+            log.setCreatedAt(NOW.minusMinutes(i));
+            rows.add(log);
+        }
+        return rows;
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+package com.datagami.edudron.identity.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CommonPartitionMaintenanceService Retention Tests")
+class CommonPartitionMaintenanceServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CommonPartitionMaintenanceService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "monthsAhead", 3);
+        ReflectionTestUtils.setField(service, "auditLogsRetentionMonths", 24);
+        ReflectionTestUtils.setField(service, "eventsRetentionMonths", 6);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class), any()))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), anyString()))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForObject(contains("ensure_monthly_partitions"), eq(Integer.class), anyString(), anyInt()))
+                .thenReturn(0);
+    }
+
+    @Test
+    @DisplayName("Monthly partitions older than the retention window are archived, newer ones kept")
+    void archivesExpiredMonthlyPartitions() {
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("events")))
+                .thenReturn(List.of(partition("events", now.minusMonths(7)), partition("events", now.minusMonths(6)),
+                        "events_legacy", "events_default"));
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("audit_logs")))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("relpartbound"), eq(Boolean.class), any(), anyString()))
+                .thenReturn(List.of(false));
+
+        service.maintainPartitions();
+
+        verify(jdbcTemplate).execute("ALTER TABLE common.\"events\" DETACH PARTITION common.\""
+                + partition("events", now.minusMonths(7)) + "\"");
+        verify(jdbcTemplate).execute("ALTER TABLE common.\"" + partition("events", now.minusMonths(7))
+                + "\" SET SCHEMA common_archive");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("The legacy partition is archived once its upper bound is older than the retention window")
+    void archivesLegacyPartitionPastRetention() {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), anyString()))
+                .thenReturn(List.of());
+        OffsetDateTime eventsWindow = YearMonth.now(ZoneOffset.UTC).minusMonths(6)
+                .atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime auditWindow = YearMonth.now(ZoneOffset.UTC).minusMonths(24)
+                .atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        when(jdbcTemplate.queryForList(contains("relpartbound"), eq(Boolean.class), eq(eventsWindow), eq("events_legacy")))
+                .thenReturn(List.of(true));
+        when(jdbcTemplate.queryForList(contains("relpartbound"), eq(Boolean.class), eq(auditWindow), eq("audit_logs_legacy")))
+                .thenReturn(List.of(false));
+
+        service.maintainPartitions();
+
+        verify(jdbcTemplate).execute("ALTER TABLE common.\"events\" DETACH PARTITION common.\"events_legacy\"");
+        verify(jdbcTemplate).execute("ALTER TABLE common.\"events_legacy\" SET SCHEMA common_archive");
+        verify(jdbcTemplate, never()).execute(contains("audit_logs_legacy"));
+    }
+
+    @Test
+    @DisplayName("Nothing is archived when the legacy partition is already gone")
+    void skipsMissingLegacyPartition() {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), anyString()))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("relpartbound"), eq(Boolean.class), any(), anyString()))
+                .thenReturn(List.of());
+
+        service.maintainPartitions();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private static String partition(String table, YearMonth month) {
+        return String.format("%s_p%04d_%02d", table, month.getYear(), month.getMonthValue());
+    }
+}
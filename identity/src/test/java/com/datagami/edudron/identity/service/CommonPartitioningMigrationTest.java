@@ -0,0 +1,97 @@
+package com.datagami.edudron.identity.service;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the identity changelog against Postgres with rows in audit_logs and events before the
+ * partitioning changesets, and checks the tables end up partitioned with those rows in the
+ * legacy partition and none of the temporary CHECK constraints left behind.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Common Partitioning Migration Tests")
+class CommonPartitioningMigrationTest {
+
+    private static final String CHANGELOG = "db/changelog/identity-master.yaml";
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    @DisplayName("Should attach the existing tables as legacy partitions keeping their rows")
+    void testExistingRowsEndUpInLegacyPartitions() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            Liquibase liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+            List<ChangeSet> changeSets = liquibase.getDatabaseChangeLog().getChangeSets();
+            int beforePartitioning = 0;
+            while (!changeSets.get(beforePartitioning).getId().equals("common-0010-audit-logs-backfill-created-at")) {
+                beforePartitioning++;
+            }
+            liquibase.update(beforePartitioning, new Contexts(), new LabelExpression());
+
+            UUID clientId = UUID.randomUUID();
+            UUID undated = UUID.randomUUID();
+            jdbc.update("INSERT INTO common.audit_logs (id, client_id, action, created_at) VALUES (?, ?, 'OLD', now() - interval '400 days')",
+                    UUID.randomUUID(), clientId);
+            jdbc.update("INSERT INTO common.audit_logs (id, client_id, action, created_at) VALUES (?, ?, 'UNDATED', NULL)",
+                    undated, clientId);
+            jdbc.update("INSERT INTO common.events (id, client_id, event_type, service_name) VALUES ('01JLEGACYEVENT000000000000', ?, 'HTTP_REQUEST', 'identity')",
+                    clientId);
+
+            liquibase.update(new Contexts(), new LabelExpression());
+
+            for (String table : List.of("audit_logs", "events")) {
+                assertEquals(1, jdbc.queryForObject(
+                        "SELECT count(*) FROM pg_partitioned_table WHERE partrelid = ('common.' || ?)::regclass",
+                        Integer.class, table), table);
+                assertEquals(Boolean.TRUE, jdbc.queryForObject(
+                        "SELECT relispartition FROM pg_class WHERE oid = ('common.' || ? || '_legacy')::regclass",
+                        Boolean.class, table), table);
+                assertEquals(0, jdbc.queryForObject(
+                        "SELECT count(*) FROM pg_constraint WHERE conname = ? || '_partition_bound'",
+                        Integer.class, table), table);
+                // The legacy key is the index built concurrently, now attached to the parent's key
+                assertEquals("PRIMARY KEY (id, created_at)", jdbc.queryForObject(
+                        "SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conname = ? || '_legacy_pkey'",
+                        String.class, table), table);
+            }
+            assertEquals(2, jdbc.queryForObject(
+                    "SELECT count(*) FROM common.audit_logs_legacy WHERE client_id = ?", Integer.class, clientId));
+            assertNotNull(jdbc.queryForObject(
+                    "SELECT created_at FROM common.audit_logs WHERE id = ?", Object.class, undated));
+            assertEquals(1, jdbc.queryForObject(
+                    "SELECT count(*) FROM common.events_legacy WHERE client_id = ?", Integer.class, clientId));
+
+            // New rows go to the monthly partitions
+            jdbc.update("INSERT INTO common.audit_logs (id, client_id, action, created_at) VALUES (?, ?, 'NEW', now() + interval '1 month')",
+                    UUID.randomUUID(), clientId);
+            assertEquals(2, jdbc.queryForObject(
+                    "SELECT count(*) FROM common.audit_logs_legacy WHERE client_id = ?", Integer.class, clientId));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.datagami.edudron.identity.service;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.identity.domain.User;
+import com.datagami.edudron.identity.dto.CreateUserRequest;
+import com.datagami.edudron.identity.dto.UserBulkCreateResult;
+import com.datagami.edudron.identity.repo.UserInstituteRepository;
+import com.datagami.edudron.identity.repo.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserService Bulk Create Tests")
+class UserServiceBulkCreateTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserInstituteRepository userInstituteRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CommonEventService eventService;
+
+    @Mock
+    private IdentityAuditService auditService;
+
+    @Mock
+    private SecurityContext securityContext;
+
+    @Mock
+    private Authentication authentication;
+
+    @InjectMocks
+    private UserService userService;
+
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        clientId = UUID.randomUUID();
+        TenantContext.setClientId(clientId.toString());
+        SecurityContextHolder.setContext(securityContext);
+
+        User admin = user("admin@example.com", User.Role.TENANT_ADMIN);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(admin.getEmail());
+        when(authentication.getName()).thenReturn(admin.getEmail());
+        when(userRepository.findByEmailIgnoreCaseAndClientId("admin@example.com", clientId)).thenReturn(Optional.of(admin));
+        when(userRepository.findByClientIdAndLowerEmailIn(eq(clientId), anyCollection())).thenReturn(List.of());
+        when(passwordEncoder.encode(anyString())).thenReturn("encoded-password");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should create the whole batch in one transaction")
+    void testBatchIsCreatedTogether() {
+        List<UserBulkCreateResult> results = userService.createUsersBulk(
+                List.of(request("first@example.com"), request("second@example.com")));
+
+        assertEquals(List.of(UserBulkCreateResult.CREATED, UserBulkCreateResult.CREATED),
+                results.stream().map(UserBulkCreateResult::getStatus).toList());
+        verify(userRepository, times(1)).saveAll(anyList());
+        verify(userRepository, never()).save(any(User.class));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should retry row by row and report only the rows that still fail")
+    void testConstraintViolationFailsOnlyItsRow() {
+        User concurrent = user("second@example.com", User.Role.STUDENT);
+        when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("uk_users_email_client_tenant"));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if (user.getEmail().startsWith("first") || user.getEmail().startsWith("third")) {
+                return user;
+            }
+            throw new DataIntegrityViolationException("uk_users_email_client_tenant");
+        });
+        when(userRepository.findByEmailIgnoreCaseAndClientId("second@example.com", clientId)).thenReturn(Optional.of(concurrent));
+
+        List<UserBulkCreateResult> results = userService.createUsersBulk(List.of(
+                request("first@example.com"), request("second@example.com"), request("third@example.com")));
+
+        assertEquals(UserBulkCreateResult.CREATED, results.get(0).getStatus());
+        assertEquals(UserBulkCreateResult.EXISTS, results.get(1).getStatus());
+        assertEquals(concurrent.getId(), results.get(1).getUser().getId());
+        assertEquals(UserBulkCreateResult.CREATED, results.get(2).getStatus());
+        // The failed batch and the failed row roll back; the other two rows commit on their own
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(auditService, times(2)).logCrud(eq(clientId), eq("CREATE"), eq("User"), anyString(), any(), any(), anyMap());
+    }
+
+    private CreateUserRequest request(String email) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setEmail(email);
+        request.setName("Student");
+        request.setRole("STUDENT");
+        request.setPassword("password123");
+        request.setInstituteIds(List.of("institute1"));
+        return request;
+    }
+
+    private User user(String email, User.Role role) {
+        User user = new User();
+        user.setId("user-" + UUID.randomUUID());
+        user.setClientId(clientId);
+        user.setEmail(email);
+        user.setName("Test User");
+        user.setRole(role);
+        user.setActive(true);
+        return user;
+    }
+}
@@ -1,6 +1,7 @@
 package com.datagami.edudron.payment.security;
 
 import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.common.security.JwtPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -42,10 +43,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             final String token = authHeader.substring(7);
             
-            if (jwtUtil.validateToken(token)) {
-                String tenantId = jwtUtil.extractTenantId(token);
-                String role = jwtUtil.extractRole(token);
-                String username = jwtUtil.extractUsername(token);
+            JwtPrincipal principal = jwtUtil.authenticate(token, request::getHeader);
+            if (principal != null) {
+                String tenantId = principal.tenantId();
+                String role = principal.role();
+                String username = principal.username();
                 
                 // Set tenant context from token or header
                 // For SYSTEM_ADMIN users, token may have "PENDING_TENANT_SELECTION" or "SYSTEM"
@@ -1,26 +1,25 @@
 package com.datagami.edudron.payment.security;
 
+import com.datagami.edudron.common.security.InternalIdentityHeaders;
+import com.datagami.edudron.common.security.JwtClaimsParser;
+import com.datagami.edudron.common.security.JwtPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    @Value("${internal-identity.secret:}")
+    private String internalIdentitySecret;
 
-    private SecretKey getSigningKey() {
-        // Ensure secret is at least 32 bytes (256 bits) for HS256
-        if (secret == null || secret.length() < 32) {
-            throw new IllegalStateException("JWT secret must be at least 32 characters long. Current length: " + 
-                (secret != null ? secret.length() : 0));
-        }
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Key and parser are built once; the secret does not change while the service runs
+    private final JwtClaimsParser claimsParser;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret) {
+        this.claimsParser = new JwtClaimsParser(secret);
     }
 
     public String extractTenantId(String token) {
@@ -41,21 +40,29 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsParser.parseClaims(token);
     }
 
-    public Boolean validateToken(String token) {
+    /**
+     * Verify once and return the token's principal; null when the token does not verify.
+     */
+    public JwtPrincipal parseToken(String token) {
         try {
-            Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token);
-            return true;
+            return claimsParser.verify(token);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
-}
 
+    public Boolean validateToken(String token) {
+        return parseToken(token) != null;
+    }
+
+    /**
+     * Gateway-signed identity for this token when available, else the locally verified principal.
+     */
+    public JwtPrincipal authenticate(String token, Function<String, String> headers) {
+        JwtPrincipal trusted = InternalIdentityHeaders.verify(internalIdentitySecret, token, headers);
+        return trusted != null ? trusted : parseToken(token);
+    }
+}
@@ -0,0 +1,85 @@
+#!/bin/bash
+
+# Compare identity lookups in core-api made in-process against the same lookups made through the gateway.
+#
+# Start core-api once with IDENTITY_LOOKUP_IN_PROCESS=false and run this script with label "http",
+# then restart it with IDENTITY_LOOKUP_IN_PROCESS=true (the default) and run it with label "in-process".
+# Each run appends one line to the results file; the summary at the end compares all runs.
+#
+# Two numbers are reported: the mean time of one identity lookup, from the identity.lookup timer
+# core-api records in both modes, and the request latency of ENDPOINT as seen by clients.
+# The default endpoint reads a class coordinator, which looks the coordinator up in identity on
+# every request; any endpoint that resolves users works. Requires `hey` and `jq`.
+
+GATEWAY_URL="${GATEWAY_URL:-http://localhost:8080}"
+CORE_API_URL="${CORE_API_URL:-http://localhost:8085}"
+ENDPOINT="${ENDPOINT:-/api/classes/$CLASS_ID/coordinator}"
+CONCURRENCY="${CONCURRENCY:-20}"
+REQUESTS="${REQUESTS:-5000}"
+RESULTS_FILE="${RESULTS_FILE:-benchmark-identity-lookup.tsv}"
+LABEL="${1}"
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+NC='\033[0m' # No Color
+
+# The label is also the mode tag of the identity.lookup timer
+case "$LABEL" in
+    http|in-process) MODE="$LABEL" ;;
+    *) LABEL="" ;;
+esac
+
+if [ -z "$LABEL" ] || [ -z "$JWT_TOKEN" ] || [ -z "$CLIENT_ID" ]; then
+    echo -e "${RED}Usage: JWT_TOKEN=... CLIENT_ID=... CLASS_ID=... $0 <http|in-process>${NC}"
+    echo ""
+    echo "Optional: GATEWAY_URL, CORE_API_URL, ENDPOINT, CONCURRENCY (default 20), REQUESTS (default 5000), RESULTS_FILE"
+    exit 1
+fi
+
+for tool in hey jq; do
+    if ! command -v "$tool" > /dev/null; then
+        echo -e "${RED}$tool is not installed${NC}"
+        exit 1
+    fi
+done
+
+metric() {
+    # Prints COUNT TOTAL_TIME (seconds) of identity.lookup for this run's mode
+    curl -s -H "Authorization: Bearer $JWT_TOKEN" -H "X-Client-Id: $CLIENT_ID" \
+        "$CORE_API_URL/actuator/metrics/identity.lookup?tag=mode:$MODE" \
+        | jq -r '[(.measurements[] | select(.statistic=="COUNT") | .value),
+                  (.measurements[] | select(.statistic=="TOTAL_TIME") | .value)] | "\(.[0] // 0) \(.[1] // 0)"'
+}
+
+# Short warm-up so JIT, caches and connection pools do not count against the measured run
+hey -n 500 -c "$CONCURRENCY" \
+    -H "Authorization: Bearer $JWT_TOKEN" -H "X-Client-Id: $CLIENT_ID" \
+    "$GATEWAY_URL$ENDPOINT" > /dev/null
+
+read -r COUNT_BEFORE TIME_BEFORE <<< "$(metric)"
+
+OUTPUT=$(hey -n "$REQUESTS" -c "$CONCURRENCY" \
+    -H "Authorization: Bearer $JWT_TOKEN" -H "X-Client-Id: $CLIENT_ID" \
+    "$GATEWAY_URL$ENDPOINT")
+
+read -r COUNT_AFTER TIME_AFTER <<< "$(metric)"
+
+LOOKUPS=$(awk -v a="$COUNT_AFTER" -v b="$COUNT_BEFORE" 'BEGIN {printf "%d", a - b}')
+LOOKUP_MEAN_MS=$(awk -v t="$TIME_AFTER" -v tb="$TIME_BEFORE" -v n="$LOOKUPS" \
+    'BEGIN {if (n > 0) printf "%.3f", (t - tb) * 1000 / n; else print "n/a"}')
+RPS=$(echo "$OUTPUT" | awk '/Requests\/sec:/ {print $2}')
+P50=$(echo "$OUTPUT" | awk '/ 50% in / {print $3}')
+P99=$(echo "$OUTPUT" | awk '/ 99% in / {print $3}')
+
+if [ "$LOOKUPS" -eq 0 ]; then
+    echo -e "${RED}No identity lookups were recorded in mode $MODE; check IDENTITY_LOOKUP_IN_PROCESS and ENDPOINT${NC}"
+fi
+
+if [ ! -f "$RESULTS_FILE" ]; then
+    echo -e "label\tendpoint\tlookups\tlookup_mean_ms\treq_per_sec\tp50_s\tp99_s" > "$RESULTS_FILE"
+fi
+echo -e "$LABEL\t$ENDPOINT\t$LOOKUPS\t$LOOKUP_MEAN_MS\t$RPS\t$P50\t$P99" >> "$RESULTS_FILE"
+
+echo -e "${GREEN}$LABEL: $LOOKUPS lookups, ${LOOKUP_MEAN_MS}ms per lookup, $RPS req/s, p50 ${P50}s, p99 ${P99}s${NC}"
+echo ""
+column -t -s $'\t' "$RESULTS_FILE"
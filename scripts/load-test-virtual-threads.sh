@@ -0,0 +1,56 @@
+#!/bin/bash
+
+# Compare throughput of a service with and without virtual threads under I/O-bound traffic.
+#
+# Start the service once with VIRTUAL_THREADS_ENABLED=false and run this script with label
+# "platform", then restart it with VIRTUAL_THREADS_ENABLED=true and run it with label "virtual".
+# Each run appends one line to the results file; the summary at the end compares all runs.
+#
+# Pick an endpoint that waits on the database or on another service (the default lists enrollments,
+# which reads Postgres and calls content). Requires `hey` (https://github.com/rakyll/hey).
+
+GATEWAY_URL="${GATEWAY_URL:-http://localhost:8080}"
+ENDPOINT="${ENDPOINT:-/api/enrollments/paged?page=0&size=20}"
+CONCURRENCY="${CONCURRENCY:-200}"
+DURATION="${DURATION:-60s}"
+RESULTS_FILE="${RESULTS_FILE:-load-test-virtual-threads.tsv}"
+LABEL="${1}"
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+NC='\033[0m' # No Color
+
+if [ -z "$LABEL" ] || [ -z "$JWT_TOKEN" ] || [ -z "$CLIENT_ID" ]; then
+    echo -e "${RED}Usage: JWT_TOKEN=... CLIENT_ID=... $0 <platform|virtual>${NC}"
+    echo ""
+    echo "Optional: GATEWAY_URL, ENDPOINT, CONCURRENCY (default 200), DURATION (default 60s), RESULTS_FILE"
+    exit 1
+fi
+
+if ! command -v hey > /dev/null; then
+    echo -e "${RED}hey is not installed: go install github.com/rakyll/hey@latest${NC}"
+    exit 1
+fi
+
+# Short warm-up so JIT and connection pools do not count against the first run
+hey -z 10s -c "$CONCURRENCY" \
+    -H "Authorization: Bearer $JWT_TOKEN" -H "X-Client-Id: $CLIENT_ID" \
+    "$GATEWAY_URL$ENDPOINT" > /dev/null
+
+OUTPUT=$(hey -z "$DURATION" -c "$CONCURRENCY" \
+    -H "Authorization: Bearer $JWT_TOKEN" -H "X-Client-Id: $CLIENT_ID" \
+    "$GATEWAY_URL$ENDPOINT")
+
+RPS=$(echo "$OUTPUT" | awk '/Requests\/sec:/ {print $2}')
+P50=$(echo "$OUTPUT" | awk '/ 50% in / {print $3}')
+P99=$(echo "$OUTPUT" | awk '/ 99% in / {print $3}')
+NON_200=$(echo "$OUTPUT" | awk '/\[[0-9]+\]/ && !/\[200\]/ {sum += $2} END {print sum + 0}')
+
+if [ ! -f "$RESULTS_FILE" ]; then
+    echo -e "label\tconcurrency\tendpoint\treq_per_sec\tp50_s\tp99_s\tnon_200" > "$RESULTS_FILE"
+fi
+echo -e "$LABEL\t$CONCURRENCY\t$ENDPOINT\t$RPS\t$P50\t$P99\t$NON_200" >> "$RESULTS_FILE"
+
+echo -e "${GREEN}$LABEL: $RPS req/s, p50 ${P50}s, p99 ${P99}s, $NON_200 non-200 responses${NC}"
+echo ""
+column -t -s $'\t' "$RESULTS_FILE"
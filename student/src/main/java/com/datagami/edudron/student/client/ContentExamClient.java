@@ -1,24 +1,23 @@
 package com.datagami.edudron.student.client;
 
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
-import jakarta.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Client for fetching exam details from Content service. Results are cached by (clientId, examId)
@@ -29,39 +28,14 @@ public class ContentExamClient {
 
     private static final Logger logger = LoggerFactory.getLogger(ContentExamClient.class);
 
+    // Content caps a single max-scores request at 500 IDs
+    private static final int MAX_SCORE_BATCH_SIZE = 500;
+
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate newTemplate = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        var attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    newTemplate.setInterceptors(interceptors);
-                    restTemplate = newTemplate;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * Fetch exam by ID from Content service. Result is cached per (clientId, examId) with 5 min TTL.
@@ -76,7 +50,7 @@ public class ContentExamClient {
         headers.setAccept(List.of(org.springframework.http.MediaType.APPLICATION_JSON));
 
         try {
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -105,7 +79,7 @@ public class ContentExamClient {
         headers.setAccept(List.of(org.springframework.http.MediaType.APPLICATION_JSON));
 
         try {
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -120,4 +94,77 @@ public class ContentExamClient {
             return null;
         }
     }
+
+    /**
+     * Fetch all exams visible to a student (live, scheduled and completed, filtered by
+     * section/class restriction) in a single call. Not cached: depends on live status.
+     *
+     * @param scopes list of {courseId, sectionId, classId} maps, one per enrolled course
+     * @param completedExamIds exams the student has completed
+     * @return JSON array of exams, or null on error
+     */
+    public JsonNode getVisibleExams(List<Map<String, String>> scopes, Collection<String> completedExamIds) {
+        String url = gatewayUrl + "/api/exams/visible";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(org.springframework.http.MediaType.APPLICATION_JSON));
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("scopes", scopes);
+        body.put("completedExamIds", completedExamIds);
+
+        try {
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    new HttpEntity<>(body, headers),
+                    JsonNode.class
+            );
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                return response.getBody();
+            }
+            return null;
+        } catch (Exception e) {
+            logger.warn("Failed to fetch visible exams from Content: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fetch the total points of many exams in chunked bulk calls instead of one exam detail
+     * request per exam. Not cached: used by exports that need each exam only once.
+     *
+     * @param examIds exam IDs
+     * @return map of exam ID to total points; exams that could not be resolved are absent
+     */
+    public Map<String, Integer> getExamMaxScores(Collection<String> examIds) {
+        Map<String, Integer> maxScores = new HashMap<>();
+        if (examIds == null || examIds.isEmpty()) {
+            return maxScores;
+        }
+        String url = gatewayUrl + "/api/exams/max-scores";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(org.springframework.http.MediaType.APPLICATION_JSON));
+
+        List<String> ids = new ArrayList<>(examIds);
+        for (int start = 0; start < ids.size(); start += MAX_SCORE_BATCH_SIZE) {
+            List<String> chunk = ids.subList(start, Math.min(start + MAX_SCORE_BATCH_SIZE, ids.size()));
+            try {
+                ResponseEntity<JsonNode> response = restTemplate.exchange(
+                        url,
+                        HttpMethod.POST,
+                        new HttpEntity<>(Map.of("examIds", chunk), headers),
+                        JsonNode.class
+                );
+                JsonNode body = response.getBody();
+                if (response.getStatusCode().is2xxSuccessful() && body != null) {
+                    body.fields().forEachRemaining(entry -> maxScores.put(entry.getKey(), entry.getValue().asInt()));
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to fetch max scores for {} exams from Content: {}", chunk.size(), e.getMessage());
+            }
+        }
+        return maxScores;
+    }
 }
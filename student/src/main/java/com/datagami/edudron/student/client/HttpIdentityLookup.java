@@ -0,0 +1,96 @@
+package com.datagami.edudron.student.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link IdentityLookup} over HTTP through the gateway, used when identity runs as its own service.
+ */
+@Component
+public class HttpIdentityLookup implements IdentityLookup {
+
+    /** Shared with the in-process implementation so both modes are compared on one metric. */
+    public static final String METRIC = "identity.lookup";
+
+    @Value("${GATEWAY_URL:http://localhost:8080}")
+    private String gatewayUrl;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Override
+    public <T> T getCurrentUser(Class<T> type) {
+        return timed("current_user", () -> get(gatewayUrl + "/idp/users/me", type));
+    }
+
+    @Override
+    public <T> T getUser(String userId, Class<T> type) {
+        return timed("user", () -> get(gatewayUrl + "/idp/users/" + userId, type));
+    }
+
+    @Override
+    public <T> T getUserByEmail(String email, Class<T> type) {
+        return timed("user_by_email", () -> get(gatewayUrl + "/idp/users/by-email?email=" + email, type));
+    }
+
+    @Override
+    public <T> List<T> getUsersByIds(List<String> userIds, Class<T> type) {
+        return timed("users_batch", () -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
+                    gatewayUrl + "/idp/users/batch",
+                    HttpMethod.POST,
+                    new HttpEntity<>(Map.of("ids", userIds), headers),
+                    JsonNode.class);
+
+            List<T> users = new ArrayList<>();
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null
+                    && response.getBody().isArray()) {
+                for (JsonNode user : response.getBody()) {
+                    users.add(objectMapper.convertValue(user, type));
+                }
+            }
+            return users;
+        });
+    }
+
+    @Override
+    public boolean isStudentSelfEnrollmentEnabled() {
+        return timed("student_self_enrollment", () ->
+                Boolean.TRUE.equals(get(gatewayUrl + "/api/tenant/features/student-self-enrollment", Boolean.class)));
+    }
+
+    private <T> T get(String url, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+        return response.getStatusCode().is2xxSuccessful() ? response.getBody() : null;
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        return meterRegistry.timer(METRIC, "mode", "http", "operation", operation).record(call);
+    }
+}
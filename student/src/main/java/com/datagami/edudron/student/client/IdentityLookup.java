@@ -0,0 +1,42 @@
+package com.datagami.edudron.student.client;
+
+import java.util.List;
+
+/**
+ * User and tenant-feature lookups against the identity module.
+ *
+ * Standalone, the student service reaches identity through the gateway ({@link HttpIdentityLookup}).
+ * When core-api hosts both modules in one JVM it provides an in-process implementation instead,
+ * so these lookups never leave the process.
+ *
+ * Results are mapped onto the caller's type the same way the HTTP response body would be.
+ * Methods return null (or an empty list) when the user does not exist or belongs to another
+ * tenant; other failures are thrown and left to the caller.
+ */
+public interface IdentityLookup {
+
+    /**
+     * The authenticated user of the current request ({@code /idp/users/me}).
+     */
+    <T> T getCurrentUser(Class<T> type);
+
+    /**
+     * A user by ID ({@code /idp/users/{id}}). Student class/section details may be absent.
+     */
+    <T> T getUser(String userId, Class<T> type);
+
+    /**
+     * A user by email within the current tenant ({@code /idp/users/by-email}).
+     */
+    <T> T getUserByEmail(String email, Class<T> type);
+
+    /**
+     * Many users by ID in one call ({@code /idp/users/batch}); unknown IDs are omitted.
+     */
+    <T> List<T> getUsersByIds(List<String> userIds, Class<T> type);
+
+    /**
+     * Whether students of the current tenant may enroll themselves.
+     */
+    boolean isStudentSelfEnrollmentEnabled();
+}
@@ -1,67 +1,47 @@
 package com.datagami.edudron.student.client;
 
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
+import com.datagami.edudron.common.TenantContext;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
-import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
- * Client for looking up user details from the Identity service (via gateway).
- * Used to validate coordinator assignments — checks that a user exists and has the INSTRUCTOR role.
+ * Client for looking up user details from the Identity service (via gateway, or in-process
+ * under core-api; see {@link IdentityLookup}).
+ * Used to validate coordinator assignments — checks that a user exists and has the INSTRUCTOR role,
+ * and to resolve roster details in bulk via {@link #getUsersByIds(Collection)}.
  */
 @Component
 public class IdentityUserClient {
 
     private static final Logger logger = LoggerFactory.getLogger(IdentityUserClient.class);
 
-    @Value("${GATEWAY_URL:http://localhost:8080}")
-    private String gatewayUrl;
+    // Identity caps a single batch request at 500 IDs
+    private static final int BATCH_SIZE = 500;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
+    // Short-lived roster cache keyed by tenant + user ID so paging through a section does not
+    // re-fetch the same users. Kept short because identity does not push invalidations here.
+    private final Cache<String, JsonNode> userBatchCache = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
 
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate newTemplate = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        var attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    newTemplate.setInterceptors(interceptors);
-                    restTemplate = newTemplate;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private IdentityLookup identityLookup;
 
     /**
      * Fetch a user by ID from the Identity service.
@@ -70,21 +50,8 @@ public class IdentityUserClient {
      * @return user as JsonNode containing id, name, email, role, active, etc., or null if not found
      */
     public JsonNode getUser(String userId) {
-        String url = gatewayUrl + "/idp/users/" + userId;
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-
         try {
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    JsonNode.class
-            );
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody();
-            }
-            return null;
+            return identityLookup.getUser(userId, JsonNode.class);
         } catch (Exception e) {
             logger.warn("Failed to fetch user {} from Identity: {}", userId, e.getMessage());
             return null;
@@ -98,24 +65,65 @@ public class IdentityUserClient {
      * @return user as JsonNode containing id, name, email, role, active, etc., or null if not found
      */
     public JsonNode getUserByEmail(String email) {
-        String url = gatewayUrl + "/idp/users/by-email?email=" + email;
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-
         try {
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    JsonNode.class
-            );
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody();
-            }
-            return null;
+            return identityLookup.getUserByEmail(email, JsonNode.class);
         } catch (Exception e) {
             logger.warn("Failed to fetch user by email {} from Identity: {}", email, e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Fetch many users by ID from the Identity service using the batch endpoint.
+     * Results are cached per tenant for a short TTL; only cache misses go over the wire,
+     * in chunks of at most {@value #BATCH_SIZE} IDs.
+     *
+     * @param userIds the user IDs
+     * @return map of user ID to user JsonNode, in request order; unknown users are absent
+     */
+    public Map<String, JsonNode> getUsersByIds(Collection<String> userIds) {
+        Map<String, JsonNode> result = new LinkedHashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+
+        String tenantKey = TenantContext.getClientId() != null ? TenantContext.getClientId() : "SYSTEM";
+        Set<String> missing = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId == null || userId.isBlank()) {
+                continue;
+            }
+            JsonNode cached = userBatchCache.getIfPresent(tenantKey + ":" + userId);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                result.put(userId, null); // reserve position to keep request order
+                missing.add(userId);
+            }
+        }
+
+        List<String> pending = new ArrayList<>(missing);
+        for (int start = 0; start < pending.size(); start += BATCH_SIZE) {
+            List<String> chunk = pending.subList(start, Math.min(start + BATCH_SIZE, pending.size()));
+            for (JsonNode user : fetchUserBatch(chunk)) {
+                String id = user.path("id").asText(null);
+                if (id != null && result.containsKey(id)) {
+                    result.put(id, user);
+                    userBatchCache.put(tenantKey + ":" + id, user);
+                }
+            }
+        }
+
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
+
+    private List<JsonNode> fetchUserBatch(List<String> userIds) {
+        try {
+            return identityLookup.getUsersByIds(userIds, JsonNode.class);
+        } catch (Exception e) {
+            logger.warn("Failed to fetch batch of {} users from Identity: {}", userIds.size(), e.getMessage());
+            return List.of();
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package com.datagami.edudron.student.config;
 
+import com.datagami.edudron.common.concurrent.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -12,8 +14,16 @@ import java.util.concurrent.ThreadPoolExecutor;
 @EnableAsync
 public class AsyncConfig {
 
+    // spring.threads.virtual.enabled also moves Tomcat and @Scheduled onto virtual threads; here the
+    // pools become one virtual thread per task, with the same limits kept by semaphores
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean(name = "eventTaskExecutor")
     public Executor eventTaskExecutor() {
+        if (virtualThreads) {
+            return new BoundedVirtualThreadExecutor("event-logging-", 12, 500, true);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(12);
@@ -0,0 +1,45 @@
+package com.datagami.edudron.student.config;
+
+import com.datagami.edudron.common.concurrent.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executors for {@link com.datagami.edudron.student.service.BackgroundJobRunner}. Kept out of
+ * AsyncConfig, which core-api excludes, so the student service and core-api share one definition.
+ */
+@Configuration
+public class JobExecutorConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Bulk student imports: few, long-running jobs; rejected when full so callers get a clear error
+    @Bean(name = "importTaskExecutor")
+    public Executor importTaskExecutor() {
+        return jobExecutor("student-import-");
+    }
+
+    // Background results exports: CPU and temp-disk heavy, so only a couple run at once
+    @Bean(name = "exportTaskExecutor")
+    public Executor exportTaskExecutor() {
+        return jobExecutor("results-export-");
+    }
+
+    private Executor jobExecutor(String threadNamePrefix) {
+        if (virtualThreads) {
+            return new BoundedVirtualThreadExecutor(threadNamePrefix, 2, 20, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
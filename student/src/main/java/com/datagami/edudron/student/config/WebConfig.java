@@ -1,11 +1,14 @@
 package com.datagami.edudron.student.config;
 
+import com.datagami.edudron.common.http.InterServiceClientConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@Import(InterServiceClientConfig.class)
 public class WebConfig implements WebMvcConfigurer {
     
     @Autowired
@@ -3,6 +3,7 @@ package com.datagami.edudron.student.domain;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -11,7 +12,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "calendar_events", schema = "calendar")
-public class CalendarEvent {
+public class CalendarEvent implements Persistable<String> {
 
     @Id
     private String id; // ULID
@@ -91,6 +92,11 @@ public class CalendarEvent {
     @Column(name = "updated_at", nullable = false)
     private OffsetDateTime updatedAt;
 
+    // Ids are assigned before save(); without this Spring Data would merge (SELECT, then INSERT)
+    // every new event, which also keeps recurrence occurrences out of the JDBC insert batch.
+    @Transient
+    private boolean isNew = true;
+
     // Constructors
     public CalendarEvent() {}
 
@@ -107,6 +113,17 @@ public class CalendarEvent {
         this.updatedAt = OffsetDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
     // Getters and Setters
 
     public String getId() { return id; }
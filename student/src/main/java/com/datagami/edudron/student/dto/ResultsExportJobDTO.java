@@ -0,0 +1,61 @@
+package com.datagami.edudron.student.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Status of a background results export. downloadUrl is set once the workbook is ready:
+ * a time-limited blob URL, or the job's download endpoint when blob storage is not configured.
+ */
+public class ResultsExportJobDTO {
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private String jobId;
+    private Status status;
+    private String scope;
+    private String scopeId;
+    private String fileName;
+    private int studentCount;
+    private int courseCount;
+    private String downloadUrl;
+    private String errorMessage;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime completedAt;
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+
+    public String getScopeId() { return scopeId; }
+    public void setScopeId(String scopeId) { this.scopeId = scopeId; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public int getStudentCount() { return studentCount; }
+    public void setStudentCount(int studentCount) { this.studentCount = studentCount; }
+
+    public int getCourseCount() { return courseCount; }
+    public void setCourseCount(int courseCount) { this.courseCount = courseCount; }
+
+    public String getDownloadUrl() { return downloadUrl; }
+    public void setDownloadUrl(String downloadUrl) { this.downloadUrl = downloadUrl; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(OffsetDateTime startedAt) { this.startedAt = startedAt; }
+
+    public OffsetDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(OffsetDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,68 @@
+package com.datagami.edudron.student.dto;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a background bulk student import. Counts are updated after every chunk;
+ * totalRows is only known once the whole file has been read.
+ */
+public class StudentImportJobDTO {
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private String jobId;
+    private Status status;
+    private String fileName;
+    private Long totalRows;
+    private long processedRows;
+    private long successfulRows;
+    private long failedRows;
+    private long skippedRows;
+    // Capped, see StudentImportJobStore
+    private List<StudentImportRowResult> failedRowResults = new ArrayList<>();
+    private String errorMessage;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime completedAt;
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public Long getTotalRows() { return totalRows; }
+    public void setTotalRows(Long totalRows) { this.totalRows = totalRows; }
+
+    public long getProcessedRows() { return processedRows; }
+    public void setProcessedRows(long processedRows) { this.processedRows = processedRows; }
+
+    public long getSuccessfulRows() { return successfulRows; }
+    public void setSuccessfulRows(long successfulRows) { this.successfulRows = successfulRows; }
+
+    public long getFailedRows() { return failedRows; }
+    public void setFailedRows(long failedRows) { this.failedRows = failedRows; }
+
+    public long getSkippedRows() { return skippedRows; }
+    public void setSkippedRows(long skippedRows) { this.skippedRows = skippedRows; }
+
+    public List<StudentImportRowResult> getFailedRowResults() { return failedRowResults; }
+    public void setFailedRowResults(List<StudentImportRowResult> failedRowResults) { this.failedRowResults = failedRowResults; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(OffsetDateTime startedAt) { this.startedAt = startedAt; }
+
+    public OffsetDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(OffsetDateTime completedAt) { this.completedAt = completedAt; }
+}
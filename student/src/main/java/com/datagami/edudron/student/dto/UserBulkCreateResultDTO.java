@@ -0,0 +1,32 @@
+package com.datagami.edudron.student.dto;
+
+/**
+ * One entry of the identity service's POST /idp/users/bulk response.
+ */
+public class UserBulkCreateResultDTO {
+    public static final String CREATED = "CREATED";
+    public static final String EXISTS = "EXISTS";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private String email;
+    private String status;
+    private UserResponseDTO user;
+    private String error;
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public UserResponseDTO getUser() { return user; }
+    public void setUser(UserResponseDTO user) { this.user = user; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
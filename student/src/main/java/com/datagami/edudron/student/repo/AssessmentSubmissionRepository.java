@@ -34,6 +34,15 @@ public interface AssessmentSubmissionRepository extends JpaRepository<Assessment
 
     long countByClientIdAndStudentIdAndAssessmentId(UUID clientId, String studentId, String assessmentId);
 
+    /**
+     * Per-exam attempt counts for one student in a single grouped query.
+     * Each row is [assessmentId, attemptCount, completedCount].
+     */
+    @Query("SELECT s.assessmentId, COUNT(s), COUNT(s.completedAt) FROM AssessmentSubmission s " +
+           "WHERE s.clientId = :clientId AND s.studentId = :studentId AND s.assessmentId IS NOT NULL " +
+           "GROUP BY s.assessmentId")
+    List<Object[]> countAttemptsByAssessment(@Param("clientId") UUID clientId, @Param("studentId") String studentId);
+
     List<AssessmentSubmission> findByClientIdAndAssessmentIdAndIdIn(UUID clientId, String assessmentId, List<String> ids);
 
     List<AssessmentSubmission> findByClientIdAndCourseId(UUID clientId, String courseId);
@@ -0,0 +1,101 @@
+package com.datagami.edudron.student.repo;
+
+import com.datagami.edudron.student.domain.Enrollment;
+import com.datagami.edudron.student.domain.ProjectEventAttendance;
+import com.datagami.edudron.student.domain.ProjectEventGrade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Roster-scale writes as JDBC batches: one statement per chunk of rows instead of a save() per
+ * row, which for our assigned ULID ids is a SELECT (merge) plus an INSERT each.
+ *
+ * Runs in the caller's transaction; JdbcTemplate joins the JPA transaction's connection.
+ * Rows written here bypass the persistence context, so callers must not hold managed copies
+ * of them.
+ */
+@Repository
+public class BulkWriteRepository {
+
+    static final String DELETE_ATTENDANCE_SQL =
+            "DELETE FROM student.project_event_attendance WHERE event_id = ? AND client_id = ?";
+
+    // (event_id, student_id) is unique; a student listed twice keeps the last entry
+    static final String UPSERT_ATTENDANCE_SQL = """
+            INSERT INTO student.project_event_attendance (id, client_id, event_id, student_id, group_id, present)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (event_id, student_id)
+            DO UPDATE SET group_id = EXCLUDED.group_id, present = EXCLUDED.present
+            """;
+
+    static final String DELETE_GRADES_SQL =
+            "DELETE FROM student.project_event_grade WHERE event_id = ? AND client_id = ?";
+
+    static final String UPSERT_GRADE_SQL = """
+            INSERT INTO student.project_event_grade (id, client_id, event_id, student_id, group_id, marks)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (event_id, student_id)
+            DO UPDATE SET group_id = EXCLUDED.group_id, marks = EXCLUDED.marks
+            """;
+
+    static final String INSERT_ENROLLMENT_SQL = """
+            INSERT INTO student.enrollments
+                (id, client_id, student_id, course_id, batch_id, institute_id, class_id, enrolled_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Replace every attendance record of an event with the given rows.
+     */
+    public void replaceAttendance(UUID clientId, String eventId, List<ProjectEventAttendance> rows) {
+        jdbcTemplate.update(DELETE_ATTENDANCE_SQL, eventId, clientId);
+        if (rows.isEmpty()) return;
+
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (ProjectEventAttendance a : rows) {
+            batch.add(new Object[] { a.getId(), a.getClientId(), a.getEventId(), a.getStudentId(),
+                    a.getGroupId(), a.getPresent() });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_ATTENDANCE_SQL, batch);
+    }
+
+    /**
+     * Replace every grade of an event with the given rows.
+     */
+    public void replaceGrades(UUID clientId, String eventId, List<ProjectEventGrade> rows) {
+        jdbcTemplate.update(DELETE_GRADES_SQL, eventId, clientId);
+        if (rows.isEmpty()) return;
+
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (ProjectEventGrade g : rows) {
+            batch.add(new Object[] { g.getId(), g.getClientId(), g.getEventId(), g.getStudentId(),
+                    g.getGroupId(), g.getMarks() });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_GRADE_SQL, batch);
+    }
+
+    /**
+     * Insert new enrollments. Duplicates are not checked here; callers filter existing
+     * (student, course) pairs first.
+     */
+    public void insertEnrollments(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) return;
+
+        List<Object[]> batch = new ArrayList<>(enrollments.size());
+        for (Enrollment e : enrollments) {
+            batch.add(new Object[] { e.getId(), e.getClientId(), e.getStudentId(), e.getCourseId(),
+                    e.getBatchId(), e.getInstituteId(), e.getClassId(),
+                    Timestamp.from(e.getEnrolledAt().toInstant()) });
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENROLLMENT_SQL, batch);
+    }
+}
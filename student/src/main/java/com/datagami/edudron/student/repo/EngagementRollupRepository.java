@@ -0,0 +1,443 @@
+package com.datagami.edudron.student.repo;
+
+import com.datagami.edudron.student.domain.LectureViewSession;
+import com.datagami.edudron.student.dto.LectureEngagementAggregateDTO;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Native access to the engagement rollup tables (changelog 0034).
+ *
+ * engagement_lecture_rollups holds session counters per (lecture, section, class, day) and
+ * engagement_daily_viewers holds the distinct students behind them, so unique-student counts
+ * stay exact at any grain. Both are maintained by {@code EngagementRollupService}, which
+ * recomputes every (lecture, day) touched by a session whose updated_at moved past the
+ * watermark. Section/class are taken from the session's enrollment; sessions without one
+ * are stored with '' so they only contribute to course-level figures.
+ *
+ * Read queries return the same row shapes as the raw queries in
+ * {@link LectureViewSessionRepository} so AnalyticsService can switch between them.
+ */
+public interface EngagementRollupRepository extends Repository<LectureViewSession, String> {
+
+        // ==================== FOLD ====================
+
+        /**
+         * Lock the watermark row. Returns nothing when another node is already folding.
+         */
+        @Query(value = """
+                        SELECT r.watermark
+                        FROM student.engagement_rollup_state r
+                        WHERE r.id = :id
+                        FOR UPDATE SKIP LOCKED
+                        """, nativeQuery = true)
+        List<Object> lockWatermark(@Param("id") String id);
+
+        @Modifying
+        @Query(value = """
+                        UPDATE student.engagement_rollup_state
+                        SET watermark = :watermark, updated_at = NOW()
+                        WHERE id = :id
+                        """, nativeQuery = true)
+        int advanceWatermark(@Param("id") String id, @Param("watermark") OffsetDateTime watermark);
+
+        /**
+         * Course/section/class keys touched in the window, used to evict the analytics caches.
+         * Each row is [courseId, sectionId, classId]; section/class may be null. Besides the
+         * scopes of the touched sessions' current enrollments this returns the scopes already
+         * stored for the dirty lecture-days, so a session that moved section also evicts the
+         * section it is being removed from. Must run before the dirty rows are deleted.
+         */
+        @Query(value = """
+                        WITH dirty AS (
+                            SELECT DISTINCT s.client_id, s.lecture_id, CAST(s.session_started_at AS DATE) AS activity_date
+                            FROM student.lecture_view_sessions s
+                            WHERE s.updated_at > :fromTs AND s.updated_at <= :toTs
+                        )
+                        SELECT s.course_id, e.batch_id, e.class_id
+                        FROM student.lecture_view_sessions s
+                        LEFT JOIN student.enrollments e ON s.enrollment_id = e.id
+                        WHERE s.updated_at > :fromTs AND s.updated_at <= :toTs
+                        UNION
+                        SELECT r.course_id, NULLIF(r.section_id, ''), NULLIF(r.class_id, '')
+                        FROM student.engagement_lecture_rollups r
+                        INNER JOIN dirty d
+                            ON r.client_id = d.client_id AND r.lecture_id = d.lecture_id AND r.activity_date = d.activity_date
+                        """, nativeQuery = true)
+        List<Object[]> findTouchedScopes(
+                        @Param("fromTs") OffsetDateTime fromTs,
+                        @Param("toTs") OffsetDateTime toTs);
+
+        @Modifying
+        @Query(value = """
+                        WITH dirty AS (
+                            SELECT DISTINCT s.client_id, s.lecture_id, CAST(s.session_started_at AS DATE) AS activity_date
+                            FROM student.lecture_view_sessions s
+                            WHERE s.updated_at > :fromTs AND s.updated_at <= :toTs
+                        )
+                        DELETE FROM student.engagement_lecture_rollups r
+                        USING dirty d
+                        WHERE r.client_id = d.client_id AND r.lecture_id = d.lecture_id AND r.activity_date = d.activity_date
+                        """, nativeQuery = true)
+        int deleteDirtyLectureRollups(
+                        @Param("fromTs") OffsetDateTime fromTs,
+                        @Param("toTs") OffsetDateTime toTs);
+
+        @Modifying
+        @Query(value = """
+                        WITH dirty AS (
+                            SELECT DISTINCT s.client_id, s.lecture_id, CAST(s.session_started_at AS DATE) AS activity_date
+                            FROM student.lecture_view_sessions s
+                            WHERE s.updated_at > :fromTs AND s.updated_at <= :toTs
+                        )
+                        DELETE FROM student.engagement_daily_viewers v
+                        USING dirty d
+                        WHERE v.client_id = d.client_id AND v.lecture_id = d.lecture_id AND v.activity_date = d.activity_date
+                        """, nativeQuery = true)
+        int deleteDirtyDailyViewers(
+                        @Param("fromTs") OffsetDateTime fromTs,
+                        @Param("toTs") OffsetDateTime toTs);
+
+        @Modifying
+        @Query(value = """
+                        WITH dirty AS (
+                            SELECT DISTINCT s.client_id, s.lecture_id, CAST(s.session_started_at AS DATE) AS activity_date
+                            FROM student.lecture_view_sessions s
+                            WHERE s.updated_at > :fromTs AND s.updated_at <= :toTs
+                        )
+                        INSERT INTO student.engagement_lecture_rollups (
+                            client_id, course_id, lecture_id, section_id, class_id, activity_date,
+                            total_sessions, completed_sessions, ended_sessions, ended_duration_seconds,
+                            timed_sessions, timed_duration_seconds, short_sessions, updated_at)
+                        SELECT
+                            s.client_id,
+                            MAX(s.course_id),
+                            s.lecture_id,
+                            COALESCE(e.batch_id, ''),
+                            COALESCE(e.class_id, ''),
+                            d.activity_date,
+                            COUNT(*),
+                            SUM(CASE WHEN s.is_completed_in_session IS TRUE THEN 1 ELSE 0 END),
+                            SUM(CASE WHEN s.duration_seconds IS NOT NULL AND s.session_ended_at IS NOT NULL THEN 1 ELSE 0 END),
+                            COALESCE(SUM(CASE WHEN s.duration_seconds IS NOT NULL AND s.session_ended_at IS NOT NULL
+                                THEN s.duration_seconds ELSE 0 END), 0),
+                            COUNT(s.duration_seconds),
+                            COALESCE(SUM(s.duration_seconds), 0),
+                            SUM(CASE WHEN s.duration_seconds IS NOT NULL AND s.session_ended_at IS NOT NULL
+                                AND s.duration_seconds < :thresholdSeconds THEN 1 ELSE 0 END),
+                            NOW()
+                        FROM dirty d
+                        INNER JOIN student.lecture_view_sessions s
+                            ON s.client_id = d.client_id AND s.lecture_id = d.lecture_id
+                            AND s.session_started_at >= CAST(d.activity_date AS timestamptz)
+                            AND s.session_started_at < CAST(d.activity_date + 1 AS timestamptz)
+                        LEFT JOIN student.enrollments e ON s.enrollment_id = e.id
+                        GROUP BY s.client_id, s.lecture_id, COALESCE(e.batch_id, ''), COALESCE(e.class_id, ''), d.activity_date
+                        """, nativeQuery = true)
+        int insertLectureRollups(
+                        @Param("fromTs") OffsetDateTime fromTs,
+                        @Param("toTs") OffsetDateTime toTs,
+                        @Param("thresholdSeconds") Integer thresholdSeconds);
+
+        @Modifying
+        @Query(value = """
+                        WITH dirty AS (
+                            SELECT DISTINCT s.client_id, s.lecture_id, CAST(s.session_started_at AS DATE) AS activity_date
+                            FROM student.lecture_view_sessions s
+                            WHERE s.updated_at > :fromTs AND s.updated_at <= :toTs
+                        )
+                        INSERT INTO student.engagement_daily_viewers (
+                            client_id, course_id, lecture_id, section_id, class_id, activity_date, student_id, session_count)
+                        SELECT
+                            s.client_id,
+                            MAX(s.course_id),
+                            s.lecture_id,
+                            COALESCE(e.batch_id, ''),
+                            COALESCE(e.class_id, ''),
+                            d.activity_date,
+                            s.student_id,
+                            COUNT(*)
+                        FROM dirty d
+                        INNER JOIN student.lecture_view_sessions s
+                            ON s.client_id = d.client_id AND s.lecture_id = d.lecture_id
+                            AND s.session_started_at >= CAST(d.activity_date AS timestamptz)
+                            AND s.session_started_at < CAST(d.activity_date + 1 AS timestamptz)
+                        LEFT JOIN student.enrollments e ON s.enrollment_id = e.id
+                        GROUP BY s.client_id, s.lecture_id, COALESCE(e.batch_id, ''), COALESCE(e.class_id, ''),
+                            d.activity_date, s.student_id
+                        """, nativeQuery = true)
+        int insertDailyViewers(
+                        @Param("fromTs") OffsetDateTime fromTs,
+                        @Param("toTs") OffsetDateTime toTs);
+
+        // ==================== COURSE ====================
+
+        /**
+         * Same shape as {@link LectureViewSessionRepository#getCourseAggregatesList}.
+         */
+        @Query(value = """
+                        SELECT
+                            COALESCE(SUM(r.total_sessions), 0)::bigint as totalSessions,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = CAST(:clientId AS uuid) AND v.course_id = :courseId)::bigint as uniqueStudents,
+                            COALESCE(SUM(r.ended_duration_seconds)::double precision / NULLIF(SUM(r.ended_sessions), 0), 0.0)::double precision as avgDuration,
+                            COALESCE(SUM(r.completed_sessions), 0)::bigint as completedSessions
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.course_id = :courseId
+                        """, nativeQuery = true)
+        List<Object[]> getCourseAggregatesList(
+                        @Param("clientId") UUID clientId,
+                        @Param("courseId") String courseId);
+
+        default Object[] getCourseAggregates(UUID clientId, String courseId) {
+                List<Object[]> results = getCourseAggregatesList(clientId, courseId);
+                if (results != null && !results.isEmpty()) {
+                        return results.get(0);
+                }
+                return new Object[] { 0L, 0L, 0.0, 0L };
+        }
+
+        /**
+         * Per-lecture rows [lectureId, courseId, totalSessions, uniqueViewers, avgDuration,
+         * completedSessions, shortSessions]; see {@link #toLectureAggregates}.
+         */
+        @Query(value = """
+                        SELECT
+                            r.lecture_id,
+                            MAX(r.course_id),
+                            SUM(r.total_sessions)::bigint,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.lecture_id = r.lecture_id)::bigint,
+                            (SUM(r.ended_duration_seconds)::double precision / NULLIF(SUM(r.ended_sessions), 0))::double precision,
+                            SUM(r.completed_sessions)::bigint,
+                            SUM(r.short_sessions)::bigint
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.course_id = :courseId
+                        GROUP BY r.client_id, r.lecture_id
+                        ORDER BY SUM(r.total_sessions) DESC
+                        """, nativeQuery = true)
+        List<Object[]> getLectureRowsByCourse(
+                        @Param("clientId") UUID clientId,
+                        @Param("courseId") String courseId);
+
+        @Query(value = """
+                        SELECT
+                            v.activity_date as date,
+                            SUM(v.session_count)::bigint as sessionCount,
+                            COUNT(DISTINCT v.student_id)::bigint as uniqueStudents
+                        FROM student.engagement_daily_viewers v
+                        WHERE v.client_id = CAST(:clientId AS uuid) AND v.course_id = :courseId
+                        GROUP BY v.activity_date
+                        ORDER BY v.activity_date ASC
+                        """, nativeQuery = true)
+        List<Object[]> getActivityTimelineByCourse(
+                        @Param("clientId") UUID clientId,
+                        @Param("courseId") String courseId);
+
+        // ==================== SECTION ====================
+
+        @Query(value = """
+                        SELECT
+                            COALESCE(SUM(r.total_sessions), 0)::bigint as totalSessions,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = CAST(:clientId AS uuid) AND v.section_id = :sectionId)::bigint as uniqueStudents,
+                            COALESCE(SUM(r.ended_duration_seconds)::double precision / NULLIF(SUM(r.ended_sessions), 0), 0.0)::double precision as avgDuration,
+                            COALESCE(SUM(r.completed_sessions), 0)::bigint as completedSessions,
+                            COUNT(DISTINCT r.course_id)::bigint as totalCourses
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.section_id = :sectionId
+                        """, nativeQuery = true)
+        List<Object[]> getSectionAggregatesList(
+                        @Param("clientId") UUID clientId,
+                        @Param("sectionId") String sectionId);
+
+        default Object[] getSectionAggregates(UUID clientId, String sectionId) {
+                List<Object[]> results = getSectionAggregatesList(clientId, sectionId);
+                if (results != null && !results.isEmpty()) {
+                        return results.get(0);
+                }
+                return new Object[] { 0L, 0L, 0.0, 0L, 0L };
+        }
+
+        @Query(value = """
+                        SELECT
+                            r.lecture_id,
+                            MAX(r.course_id),
+                            SUM(r.total_sessions)::bigint,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.lecture_id = r.lecture_id
+                                AND v.section_id = :sectionId)::bigint,
+                            (SUM(r.ended_duration_seconds)::double precision / NULLIF(SUM(r.ended_sessions), 0))::double precision,
+                            SUM(r.completed_sessions)::bigint,
+                            SUM(r.short_sessions)::bigint
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.section_id = :sectionId
+                        GROUP BY r.client_id, r.lecture_id
+                        ORDER BY SUM(r.total_sessions) DESC
+                        """, nativeQuery = true)
+        List<Object[]> getLectureRowsBySection(
+                        @Param("clientId") UUID clientId,
+                        @Param("sectionId") String sectionId);
+
+        @Query(value = """
+                        SELECT
+                            r.course_id as courseId,
+                            SUM(r.total_sessions)::bigint as totalSessions,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.course_id = r.course_id
+                                AND v.section_id = :sectionId)::bigint as uniqueStudents,
+                            COALESCE(SUM(r.completed_sessions) * 100.0 / NULLIF(SUM(r.total_sessions), 0), 0.0)::double precision as completionRate,
+                            COALESCE(ROUND(SUM(r.timed_duration_seconds)::numeric / NULLIF(SUM(r.timed_sessions), 0)), 0)::integer as avgTimeSpentSeconds
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.section_id = :sectionId
+                        GROUP BY r.client_id, r.course_id
+                        ORDER BY totalSessions DESC
+                        """, nativeQuery = true)
+        List<Object[]> getCourseBreakdownBySection(
+                        @Param("clientId") UUID clientId,
+                        @Param("sectionId") String sectionId);
+
+        @Query(value = """
+                        SELECT
+                            v.activity_date as date,
+                            SUM(v.session_count)::bigint as sessionCount,
+                            COUNT(DISTINCT v.student_id)::bigint as uniqueStudents
+                        FROM student.engagement_daily_viewers v
+                        WHERE v.client_id = CAST(:clientId AS uuid) AND v.section_id = :sectionId
+                        GROUP BY v.activity_date
+                        ORDER BY v.activity_date ASC
+                        """, nativeQuery = true)
+        List<Object[]> getActivityTimelineBySection(
+                        @Param("clientId") UUID clientId,
+                        @Param("sectionId") String sectionId);
+
+        // ==================== CLASS ====================
+
+        @Query(value = """
+                        SELECT
+                            COALESCE(SUM(r.total_sessions), 0)::bigint as totalSessions,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = CAST(:clientId AS uuid) AND v.class_id = :classId)::bigint as uniqueStudents,
+                            COALESCE(SUM(r.ended_duration_seconds)::double precision / NULLIF(SUM(r.ended_sessions), 0), 0.0)::double precision as avgDuration,
+                            COALESCE(SUM(r.completed_sessions), 0)::bigint as completedSessions,
+                            COUNT(DISTINCT r.course_id)::bigint as totalCourses,
+                            COUNT(DISTINCT NULLIF(r.section_id, ''))::bigint as totalSections
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.class_id = :classId
+                        """, nativeQuery = true)
+        List<Object[]> getClassAggregatesList(
+                        @Param("clientId") UUID clientId,
+                        @Param("classId") String classId);
+
+        default Object[] getClassAggregates(UUID clientId, String classId) {
+                List<Object[]> results = getClassAggregatesList(clientId, classId);
+                if (results != null && !results.isEmpty()) {
+                        return results.get(0);
+                }
+                return new Object[] { 0L, 0L, 0.0, 0L, 0L, 0L };
+        }
+
+        @Query(value = """
+                        SELECT
+                            r.lecture_id,
+                            MAX(r.course_id),
+                            SUM(r.total_sessions)::bigint,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.lecture_id = r.lecture_id
+                                AND v.class_id = :classId)::bigint,
+                            (SUM(r.ended_duration_seconds)::double precision / NULLIF(SUM(r.ended_sessions), 0))::double precision,
+                            SUM(r.completed_sessions)::bigint,
+                            SUM(r.short_sessions)::bigint
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.class_id = :classId
+                        GROUP BY r.client_id, r.lecture_id
+                        ORDER BY SUM(r.total_sessions) DESC
+                        """, nativeQuery = true)
+        List<Object[]> getLectureRowsByClass(
+                        @Param("clientId") UUID clientId,
+                        @Param("classId") String classId);
+
+        @Query(value = """
+                        SELECT
+                            r.course_id as courseId,
+                            SUM(r.total_sessions)::bigint as totalSessions,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.course_id = r.course_id
+                                AND v.class_id = :classId)::bigint as uniqueStudents,
+                            COALESCE(SUM(r.completed_sessions) * 100.0 / NULLIF(SUM(r.total_sessions), 0), 0.0)::double precision as completionRate,
+                            COALESCE(ROUND(SUM(r.timed_duration_seconds)::numeric / NULLIF(SUM(r.timed_sessions), 0)), 0)::integer as avgTimeSpentSeconds
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.class_id = :classId
+                        GROUP BY r.client_id, r.course_id
+                        ORDER BY totalSessions DESC
+                        """, nativeQuery = true)
+        List<Object[]> getCourseBreakdownByClass(
+                        @Param("clientId") UUID clientId,
+                        @Param("classId") String classId);
+
+        @Query(value = """
+                        SELECT
+                            v.activity_date as date,
+                            SUM(v.session_count)::bigint as sessionCount,
+                            COUNT(DISTINCT v.student_id)::bigint as uniqueStudents
+                        FROM student.engagement_daily_viewers v
+                        WHERE v.client_id = CAST(:clientId AS uuid) AND v.class_id = :classId
+                        GROUP BY v.activity_date
+                        ORDER BY v.activity_date ASC
+                        """, nativeQuery = true)
+        List<Object[]> getActivityTimelineByClass(
+                        @Param("clientId") UUID clientId,
+                        @Param("classId") String classId);
+
+        /**
+         * Same shape as {@link LectureViewSessionRepository#getSectionComparisonByClass}. Active
+         * students are those with a view on or after the day 30 days ago (day granularity).
+         */
+        @Query(value = """
+                        SELECT
+                            r.section_id as sectionId,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.class_id = :classId
+                                AND v.section_id = r.section_id)::bigint as totalStudents,
+                            (SELECT COUNT(DISTINCT v.student_id) FROM student.engagement_daily_viewers v
+                                WHERE v.client_id = r.client_id AND v.class_id = :classId
+                                AND v.section_id = r.section_id
+                                AND v.activity_date >= CURRENT_DATE - 30)::bigint as activeStudents,
+                            COALESCE(SUM(r.completed_sessions) * 100.0 / NULLIF(SUM(r.total_sessions), 0), 0.0)::double precision as avgCompletionRate,
+                            COALESCE(ROUND(SUM(r.timed_duration_seconds)::numeric / NULLIF(SUM(r.timed_sessions), 0)), 0)::integer as avgTimeSpentSeconds
+                        FROM student.engagement_lecture_rollups r
+                        WHERE r.client_id = CAST(:clientId AS uuid) AND r.class_id = :classId AND r.section_id <> ''
+                        GROUP BY r.client_id, r.section_id
+                        ORDER BY avgCompletionRate DESC
+                        """, nativeQuery = true)
+        List<Object[]> getSectionComparisonByClass(
+                        @Param("clientId") UUID clientId,
+                        @Param("classId") String classId);
+
+        /**
+         * Map rows from the getLectureRowsBy* queries onto the DTO the raw JPQL queries build.
+         */
+        default List<LectureEngagementAggregateDTO> toLectureAggregates(List<Object[]> rows) {
+                List<LectureEngagementAggregateDTO> aggregates = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                        Long totalSessions = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+                        aggregates.add(new LectureEngagementAggregateDTO(
+                                        (String) row[0],
+                                        (String) row[1],
+                                        totalSessions,
+                                        row[3] != null ? ((Number) row[3]).longValue() : 0L,
+                                        row[4] != null ? ((Number) row[4]).doubleValue() : null,
+                                        row[5] != null ? ((Number) row[5]).longValue() : 0L,
+                                        totalSessions,
+                                        row[6] != null ? ((Number) row[6]).longValue() : 0L));
+                }
+                return aggregates;
+        }
+}
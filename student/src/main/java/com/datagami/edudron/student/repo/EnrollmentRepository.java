@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -46,10 +47,49 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, String>,
     
     List<Enrollment> findByClientIdAndStudentIdAndBatchId(UUID clientId, String studentId, String batchId);
 
+    // Bulk enrollment: resolve a whole roster in one query instead of one per student
+    @Query("SELECT DISTINCT e.studentId FROM Enrollment e WHERE e.clientId = :clientId AND e.courseId = :courseId " +
+           "AND e.studentId IN :studentIds")
+    List<String> findStudentIdsEnrolledInCourse(
+        @Param("clientId") UUID clientId,
+        @Param("courseId") String courseId,
+        @Param("studentIds") Collection<String> studentIds
+    );
+
+    @Query("SELECT DISTINCT e.studentId FROM Enrollment e WHERE e.clientId = :clientId AND e.batchId = :sectionId " +
+           "AND e.studentId IN :studentIds")
+    List<String> findStudentIdsInSection(
+        @Param("clientId") UUID clientId,
+        @Param("sectionId") String sectionId,
+        @Param("studentIds") Collection<String> studentIds
+    );
+
+    List<Enrollment> findByClientIdAndCourseIdAndStudentIdIn(UUID clientId, String courseId, Collection<String> studentIds);
+
+    List<Enrollment> findByClientIdAndStudentIdInAndCourseIdIn(UUID clientId, Collection<String> studentIds,
+                                                               Collection<String> courseIds);
+
     List<Enrollment> findByClientIdAndBatchId(UUID clientId, String batchId);
     
     long countByClientIdAndBatchId(UUID clientId, String batchId);
     
+    // Roster pagination: page distinct student IDs in the database before resolving user details
+    @Query(value = "SELECT DISTINCT e.studentId FROM Enrollment e WHERE e.clientId = :clientId AND e.batchId = :sectionId ORDER BY e.studentId",
+           countQuery = "SELECT COUNT(DISTINCT e.studentId) FROM Enrollment e WHERE e.clientId = :clientId AND e.batchId = :sectionId")
+    Page<String> findDistinctStudentIdsByClientIdAndSectionId(
+        @Param("clientId") UUID clientId,
+        @Param("sectionId") String sectionId,
+        Pageable pageable
+    );
+    
+    @Query(value = "SELECT DISTINCT e.studentId FROM Enrollment e WHERE e.clientId = :clientId AND e.classId = :classId ORDER BY e.studentId",
+           countQuery = "SELECT COUNT(DISTINCT e.studentId) FROM Enrollment e WHERE e.clientId = :clientId AND e.classId = :classId")
+    Page<String> findDistinctStudentIdsByClientIdAndClassId(
+        @Param("clientId") UUID clientId,
+        @Param("classId") String classId,
+        Pageable pageable
+    );
+    
     List<Enrollment> findByClientIdAndClassId(UUID clientId, String classId);
     
     @Query("SELECT COUNT(DISTINCT e.studentId) FROM Enrollment e WHERE e.clientId = :clientId AND e.classId = :classId")
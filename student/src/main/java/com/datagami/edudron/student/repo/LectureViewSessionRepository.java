@@ -197,6 +197,32 @@ public interface LectureViewSessionRepository extends JpaRepository<LectureViewS
                         @Param("courseId") String courseId,
                         @Param("studentId") String studentId);
 
+        /**
+         * Per-lecture engagement for one student in one course, aggregated in the database
+         * so only that student's sessions are touched.
+         * Each row is [lectureId, totalSessions, totalDurationSeconds, avgDurationSeconds,
+         * firstView, lastView, isCompleted]. Durations only count ended sessions.
+         */
+        @Query(value = """
+                        SELECT
+                            s.lecture_id as lectureId,
+                            COUNT(*)::bigint as totalSessions,
+                            COALESCE(SUM(CASE WHEN s.duration_seconds IS NOT NULL AND s.session_ended_at IS NOT NULL
+                                THEN s.duration_seconds ELSE 0 END), 0)::bigint as totalDurationSeconds,
+                            COALESCE(AVG(CASE WHEN s.duration_seconds IS NOT NULL AND s.session_ended_at IS NOT NULL
+                                THEN s.duration_seconds ELSE NULL END), 0.0)::double precision as avgDurationSeconds,
+                            MIN(s.session_started_at) as firstView,
+                            MAX(s.session_started_at) as lastView,
+                            COALESCE(BOOL_OR(s.is_completed_in_session), false) as isCompleted
+                        FROM student.lecture_view_sessions s
+                        WHERE s.client_id = CAST(:clientId AS uuid) AND s.course_id = :courseId AND s.student_id = :studentId
+                        GROUP BY s.lecture_id
+                        """, nativeQuery = true)
+        List<Object[]> getStudentLectureAggregatesByCourse(
+                        @Param("clientId") UUID clientId,
+                        @Param("courseId") String courseId,
+                        @Param("studentId") String studentId);
+
         /**
          * Wrapper method that returns Object[] for backward compatibility.
          * Extracts the first row from the list result.
@@ -2,8 +2,11 @@ package com.datagami.edudron.student.repo;
 
 import com.datagami.edudron.student.domain.ProjectEventAttendance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,4 +16,13 @@ public interface ProjectEventAttendanceRepository extends JpaRepository<ProjectE
     List<ProjectEventAttendance> findByEventIdAndClientId(String eventId, UUID clientId);
 
     List<ProjectEventAttendance> findByStudentIdAndEventIdIn(String studentId, List<String> eventIds);
+
+    /**
+     * Attendance totals per event in a single grouped query. Each row is [eventId, total, present].
+     */
+    @Query("SELECT a.eventId, COUNT(a), SUM(CASE WHEN a.present = true THEN 1L ELSE 0L END) " +
+           "FROM ProjectEventAttendance a " +
+           "WHERE a.clientId = :clientId AND a.eventId IN :eventIds GROUP BY a.eventId")
+    List<Object[]> countByEvent(@Param("clientId") UUID clientId,
+                                @Param("eventIds") Collection<String> eventIds);
 }
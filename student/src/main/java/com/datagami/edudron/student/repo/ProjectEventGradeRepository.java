@@ -2,8 +2,11 @@ package com.datagami.edudron.student.repo;
 
 import com.datagami.edudron.student.domain.ProjectEventGrade;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,4 +18,14 @@ public interface ProjectEventGradeRepository extends JpaRepository<ProjectEventG
     List<ProjectEventGrade> findByStudentIdAndEventIdIn(String studentId, List<String> eventIds);
 
     List<ProjectEventGrade> findByClientIdAndEventIdIn(UUID clientId, List<String> eventIds);
+
+    /**
+     * Grade statistics per event in a single grouped query.
+     * Each row is [eventId, count, avgMarks, minMarks, maxMarks].
+     */
+    @Query("SELECT g.eventId, COUNT(g), AVG(g.marks), MIN(g.marks), MAX(g.marks) " +
+           "FROM ProjectEventGrade g " +
+           "WHERE g.clientId = :clientId AND g.eventId IN :eventIds GROUP BY g.eventId")
+    List<Object[]> summarizeByEvent(@Param("clientId") UUID clientId,
+                                    @Param("eventIds") Collection<String> eventIds);
 }
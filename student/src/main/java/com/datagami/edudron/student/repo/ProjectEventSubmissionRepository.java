@@ -2,7 +2,10 @@ package com.datagami.edudron.student.repo;
 
 import com.datagami.edudron.student.domain.ProjectEventSubmission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,4 +19,19 @@ public interface ProjectEventSubmissionRepository extends JpaRepository<ProjectE
     List<ProjectEventSubmission> findByEventIdAndClientId(String eventId, UUID clientId);
     List<ProjectEventSubmission> findByProjectIdAndClientId(String projectId, UUID clientId);
     Optional<ProjectEventSubmission> findByIdAndClientId(String id, UUID clientId);
+
+    /**
+     * Distinct submitting groups per event in a single grouped query, counting a group once
+     * however many versions it submitted. Each row is
+     * [eventId, submittedGroups, reviewedGroups, needsRevisionGroups].
+     */
+    @Query("SELECT s.eventId, COUNT(DISTINCT s.groupId), " +
+           "COUNT(DISTINCT CASE WHEN s.status IN :reviewedStatuses THEN s.groupId END), " +
+           "COUNT(DISTINCT CASE WHEN s.status = :needsRevisionStatus THEN s.groupId END) " +
+           "FROM ProjectEventSubmission s " +
+           "WHERE s.clientId = :clientId AND s.eventId IN :eventIds GROUP BY s.eventId")
+    List<Object[]> countGroupsByEvent(@Param("clientId") UUID clientId,
+                                      @Param("eventIds") Collection<String> eventIds,
+                                      @Param("reviewedStatuses") Collection<ProjectEventSubmission.SubmissionStatus> reviewedStatuses,
+                                      @Param("needsRevisionStatus") ProjectEventSubmission.SubmissionStatus needsRevisionStatus);
 }
@@ -2,8 +2,11 @@ package com.datagami.edudron.student.repo;
 
 import com.datagami.edudron.student.domain.ProjectGroupMember;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,6 +15,17 @@ public interface ProjectGroupMemberRepository extends JpaRepository<ProjectGroup
 
     List<ProjectGroupMember> findByGroupIdAndClientId(String groupId, UUID clientId);
 
+    List<ProjectGroupMember> findByGroupIdInAndClientId(Collection<String> groupIds, UUID clientId);
+
+    /**
+     * Member count per group in a single grouped query. Each row is [groupId, memberCount];
+     * groups without members are absent.
+     */
+    @Query("SELECT m.groupId, COUNT(m) FROM ProjectGroupMember m " +
+           "WHERE m.clientId = :clientId AND m.groupId IN :groupIds GROUP BY m.groupId")
+    List<Object[]> countMembersByGroup(@Param("clientId") UUID clientId,
+                                       @Param("groupIds") Collection<String> groupIds);
+
     List<ProjectGroupMember> findByStudentIdAndClientId(String studentId, UUID clientId);
 
     void deleteByGroupId(String groupId);
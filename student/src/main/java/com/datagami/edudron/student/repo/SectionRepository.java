@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +26,8 @@ public interface SectionRepository extends JpaRepository<Section, String> {
     long countByClientIdAndIsActive(UUID clientId, Boolean isActive);
     
     Optional<Section> findByIdAndClientId(String id, UUID clientId);
+
+    List<Section> findByClientIdAndIdIn(UUID clientId, Collection<String> ids);
     
     @Query("SELECT COUNT(DISTINCT e.studentId) FROM Enrollment e WHERE e.batchId = :sectionId AND e.clientId = :clientId")
     long countStudentsInSection(@Param("clientId") UUID clientId, @Param("sectionId") String sectionId);
@@ -1,6 +1,7 @@
 package com.datagami.edudron.student.security;
 
 import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.common.security.JwtPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -64,10 +65,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         requestId);
             }
             
-            if (jwtUtil.validateToken(token)) {
-                String tenantId = jwtUtil.extractTenantId(token);
-                String role = jwtUtil.extractRole(token);
-                String username = jwtUtil.extractUsername(token);
+            JwtPrincipal principal = jwtUtil.authenticate(token, request::getHeader);
+            if (principal != null) {
+                String tenantId = principal.tenantId();
+                String role = principal.role();
+                String username = principal.username();
                 
                 if (isInstitutesEndpoint) {
                     logger.info("JWT validated for /api/institutes: username={}, role={}, tenantId={}, X-Request-Id={}", 
@@ -121,20 +123,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     
                     // Set user information as request attributes for event logging
                     request.setAttribute("userId", username); // Using username as userId for now
+                    request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
                     if (role != null) {
                         request.setAttribute("userRole", role);
                     }
-                    // Try to extract email from token if available
-                    try {
-                        String email = jwtUtil.extractClaim(token, claims -> {
-                            Object emailObj = claims.get("email");
-                            return emailObj != null ? emailObj.toString() : null;
-                        });
-                        if (email != null) {
-                            request.setAttribute("userEmail", email);
-                        }
-                    } catch (Exception e) {
-                        // Email not in token, that's okay
+                    // Email is optional in the token
+                    if (principal.email() != null) {
+                        request.setAttribute("userEmail", principal.email());
                     }
                     
                     if (isInstitutesEndpoint) {
@@ -1,26 +1,25 @@
 package com.datagami.edudron.student.security;
 
+import com.datagami.edudron.common.security.InternalIdentityHeaders;
+import com.datagami.edudron.common.security.JwtClaimsParser;
+import com.datagami.edudron.common.security.JwtPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    @Value("${internal-identity.secret:}")
+    private String internalIdentitySecret;
 
-    private SecretKey getSigningKey() {
-        // Ensure secret is at least 32 bytes (256 bits) for HS256
-        if (secret == null || secret.length() < 32) {
-            throw new IllegalStateException("JWT secret must be at least 32 characters long. Current length: " + 
-                (secret != null ? secret.length() : 0));
-        }
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Key and parser are built once; the secret does not change while the service runs
+    private final JwtClaimsParser claimsParser;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret) {
+        this.claimsParser = new JwtClaimsParser(secret);
     }
 
     public String extractTenantId(String token) {
@@ -41,55 +40,66 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsParser.parseClaims(token);
     }
 
-    public Boolean validateToken(String token) {
+    /**
+     * Verify the token and return its principal, or null if it is not valid.
+     * Verified tokens are cached until they expire, so the filter pays for one signature check
+     * per token rather than one per claim per request.
+     */
+    public JwtPrincipal parseToken(String token) {
         try {
-            Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token);
-            return true;
+            return claimsParser.verify(token);
         } catch (ExpiredJwtException e) {
             // Log expiration details
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JwtUtil.class);
             logger.warn("JWT token expired: expiredAt={}, tokenPrefix={}", 
                     e.getClaims().getExpiration(), 
                     token.length() > 30 ? token.substring(0, 30) + "..." : token);
-            return false;
+            return null;
         } catch (MalformedJwtException e) {
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JwtUtil.class);
             logger.warn("JWT token malformed: error={}, tokenPrefix={}", 
                     e.getMessage(), 
                     token.length() > 30 ? token.substring(0, 30) + "..." : token);
-            return false;
+            return null;
         } catch (io.jsonwebtoken.security.SignatureException e) {
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JwtUtil.class);
             logger.warn("JWT token signature invalid: error={}, tokenPrefix={}", 
                     e.getMessage(), 
                     token.length() > 30 ? token.substring(0, 30) + "..." : token);
-            return false;
+            return null;
         } catch (IllegalArgumentException e) {
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JwtUtil.class);
             logger.warn("JWT token validation failed - illegal argument: error={}, tokenPrefix={}", 
                     e.getMessage(), 
                     token != null && token.length() > 30 ? token.substring(0, 30) + "..." : token);
-            return false;
+            return null;
         } catch (JwtException e) {
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JwtUtil.class);
             logger.warn("JWT token validation failed: error={}, errorType={}, tokenPrefix={}", 
                     e.getMessage(), e.getClass().getSimpleName(),
                     token.length() > 30 ? token.substring(0, 30) + "..." : token);
-            return false;
+            return null;
         } catch (Exception e) {
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JwtUtil.class);
             logger.error("Unexpected error during JWT token validation: error={}, errorType={}", 
                     e.getMessage(), e.getClass().getSimpleName(), e);
-            return false;
+            return null;
         }
     }
-}
 
+    public Boolean validateToken(String token) {
+        return parseToken(token) != null;
+    }
+
+    /**
+     * Principal for a request: from the gateway's signed identity headers when they are valid for
+     * this token, otherwise from verifying the token here. Null if neither checks out.
+     */
+    public JwtPrincipal authenticate(String token, Function<String, String> headers) {
+        JwtPrincipal trusted = InternalIdentityHeaders.verify(internalIdentitySecret, token, headers);
+        return trusted != null ? trusted : parseToken(token);
+    }
+}
@@ -1,9 +1,9 @@
 package com.datagami.edudron.student.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.student.domain.LectureViewSession;
 import com.datagami.edudron.student.dto.*;
+import com.datagami.edudron.student.repo.EngagementRollupRepository;
 import com.datagami.edudron.student.repo.LectureViewSessionRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
@@ -15,11 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
-import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -42,6 +38,9 @@ public class AnalyticsService {
     @Autowired
     private LectureViewSessionRepository sessionRepository;
 
+    @Autowired
+    private EngagementRollupRepository rollupRepository;
+
     @Autowired
     private SectionService sectionService;
 
@@ -51,38 +50,13 @@ public class AnalyticsService {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                                .getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    // Course/section/class dashboards read the pre-aggregated tables maintained by
+    // EngagementRollupService instead of scanning lecture_view_sessions.
+    @Value("${analytics.rollup.enabled:true}")
+    private boolean rollupsEnabled;
+
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * Batch fetch all lecture metadata for a course in one HTTP call.
@@ -92,7 +66,7 @@ public class AnalyticsService {
         Map<String, LectureMetadata> metadataMap = new HashMap<>();
         try {
             String url = gatewayUrl + "/content/courses/" + courseId + "/lectures";
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url, HttpMethod.GET, null, JsonNode.class);
             JsonNode responseBody = response.getBody();
             if (response.getStatusCode().is2xxSuccessful() && responseBody != null) {
@@ -173,7 +147,7 @@ public class AnalyticsService {
         // Get course title from content service
         try {
             String url = gatewayUrl + "/content/courses/" + courseId;
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url, HttpMethod.GET, null, JsonNode.class);
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode course = response.getBody();
@@ -188,7 +162,9 @@ public class AnalyticsService {
         // aggregation)
         Object[] courseAggregates = null;
         try {
-            courseAggregates = sessionRepository.getCourseAggregates(clientId, courseId);
+            courseAggregates = rollupsEnabled
+                    ? rollupRepository.getCourseAggregates(clientId, courseId)
+                    : sessionRepository.getCourseAggregates(clientId, courseId);
         } catch (Exception e) {
             log.error("Error executing course aggregates query for courseId={}, clientId={}: {}", courseId, clientId,
                     e.getMessage(), e);
@@ -226,8 +202,9 @@ public class AnalyticsService {
         // aggregation)
         // Use a default threshold of 60 seconds for skip detection (will be refined per
         // lecture)
-        List<LectureEngagementAggregateDTO> aggregates = sessionRepository.getLectureEngagementAggregatesByCourse(
-                clientId, courseId, 60);
+        List<LectureEngagementAggregateDTO> aggregates = rollupsEnabled
+                ? rollupRepository.toLectureAggregates(rollupRepository.getLectureRowsByCourse(clientId, courseId))
+                : sessionRepository.getLectureEngagementAggregatesByCourse(clientId, courseId, 60);
 
         // Convert aggregates to DTOs with metadata
         List<LectureEngagementSummaryDTO> lectureEngagements = new ArrayList<>();
@@ -280,7 +257,9 @@ public class AnalyticsService {
         dto.setSkippedLectures(skippedLectures);
 
         // OPTIMIZED: Get activity timeline (aggregated by day at database level)
-        List<Object[]> timelineData = sessionRepository.getActivityTimelineByCourse(clientId, courseId);
+        List<Object[]> timelineData = rollupsEnabled
+                ? rollupRepository.getActivityTimelineByCourse(clientId, courseId)
+                : sessionRepository.getActivityTimelineByCourse(clientId, courseId);
         List<ActivityTimelinePointDTO> timeline = new ArrayList<>();
         for (Object[] row : timelineData) {
             LocalDate date = convertToLocalDate(row[0]);
@@ -341,7 +320,7 @@ public class AnalyticsService {
     private LectureMetadata fetchLectureMetadata(String courseId, String lectureId) {
         try {
             String url = gatewayUrl + "/content/courses/" + courseId + "/lectures/" + lectureId;
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url, HttpMethod.GET, null, JsonNode.class);
             JsonNode responseBody = response.getBody();
             if (response.getStatusCode().is2xxSuccessful() && responseBody != null) {
@@ -495,7 +474,7 @@ public class AnalyticsService {
                 // Use the correct endpoint with courseId
                 String url = gatewayUrl + "/content/courses/" + courseId + "/lectures/" + lectureId;
                 log.debug("Fetching lecture info for skipped detection from: {}", url);
-                ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+                ResponseEntity<JsonNode> response = restTemplate.exchange(
                         url, HttpMethod.GET, null, JsonNode.class);
                 if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                     JsonNode lecture = response.getBody();
@@ -605,7 +584,7 @@ public class AnalyticsService {
             // Get student email from identity service
             try {
                 String url = gatewayUrl + "/idp/users/" + studentId;
-                ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+                ResponseEntity<JsonNode> response = restTemplate.exchange(
                         url, HttpMethod.GET, null, JsonNode.class);
                 if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                     JsonNode user = response.getBody();
@@ -699,7 +678,7 @@ public class AnalyticsService {
     private String fetchCourseTitle(String courseId) {
         try {
             String url = gatewayUrl + "/content/courses/" + courseId;
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url, HttpMethod.GET, null, JsonNode.class);
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode course = response.getBody();
@@ -748,7 +727,9 @@ public class AnalyticsService {
         // Get section-level aggregates (includes totalCourses count)
         Object[] sectionAggregates = null;
         try {
-            sectionAggregates = sessionRepository.getSectionAggregates(clientId, sectionId);
+            sectionAggregates = rollupsEnabled
+                    ? rollupRepository.getSectionAggregates(clientId, sectionId)
+                    : sessionRepository.getSectionAggregates(clientId, sectionId);
         } catch (Exception e) {
             log.error("Error executing section aggregates query for sectionId={}: {}", sectionId, e.getMessage(), e);
         }
@@ -778,7 +759,9 @@ public class AnalyticsService {
         }
 
         // Get course breakdown
-        List<Object[]> courseBreakdownData = sessionRepository.getCourseBreakdownBySection(clientId, sectionId);
+        List<Object[]> courseBreakdownData = rollupsEnabled
+                ? rollupRepository.getCourseBreakdownBySection(clientId, sectionId)
+                : sessionRepository.getCourseBreakdownBySection(clientId, sectionId);
         Set<String> courseIds = new HashSet<>();
         List<CourseBreakdownDTO> courseBreakdown = new ArrayList<>();
 
@@ -804,8 +787,9 @@ public class AnalyticsService {
         Map<String, LectureMetadata> lectureMetadata = batchFetchLectureMetadataForCourses(courseIds);
 
         // Get lecture engagement aggregates (across all courses)
-        List<LectureEngagementAggregateDTO> aggregates = sessionRepository.getLectureEngagementAggregatesBySection(
-                clientId, sectionId, 60);
+        List<LectureEngagementAggregateDTO> aggregates = rollupsEnabled
+                ? rollupRepository.toLectureAggregates(rollupRepository.getLectureRowsBySection(clientId, sectionId))
+                : sessionRepository.getLectureEngagementAggregatesBySection(clientId, sectionId, 60);
 
         // Convert aggregates to DTOs with metadata
         List<LectureEngagementSummaryDTO> lectureEngagements = new ArrayList<>();
@@ -856,7 +840,9 @@ public class AnalyticsService {
         dto.setSkippedLectures(skippedLectures);
 
         // Get activity timeline (across all courses)
-        List<Object[]> timelineData = sessionRepository.getActivityTimelineBySection(clientId, sectionId);
+        List<Object[]> timelineData = rollupsEnabled
+                ? rollupRepository.getActivityTimelineBySection(clientId, sectionId)
+                : sessionRepository.getActivityTimelineBySection(clientId, sectionId);
         List<ActivityTimelinePointDTO> timeline = new ArrayList<>();
         for (Object[] row : timelineData) {
             LocalDate date = convertToLocalDate(row[0]);
@@ -899,7 +885,9 @@ public class AnalyticsService {
         // Get class-level aggregates (includes totalCourses and totalSections)
         Object[] classAggregates = null;
         try {
-            classAggregates = sessionRepository.getClassAggregates(clientId, classId);
+            classAggregates = rollupsEnabled
+                    ? rollupRepository.getClassAggregates(clientId, classId)
+                    : sessionRepository.getClassAggregates(clientId, classId);
         } catch (Exception e) {
             log.error("Error executing class aggregates query for classId={}: {}", classId, e.getMessage(), e);
         }
@@ -932,7 +920,9 @@ public class AnalyticsService {
         }
 
         // Get course breakdown
-        List<Object[]> courseBreakdownData = sessionRepository.getCourseBreakdownByClass(clientId, classId);
+        List<Object[]> courseBreakdownData = rollupsEnabled
+                ? rollupRepository.getCourseBreakdownByClass(clientId, classId)
+                : sessionRepository.getCourseBreakdownByClass(clientId, classId);
         Set<String> courseIds = new HashSet<>();
         List<CourseBreakdownDTO> courseBreakdown = new ArrayList<>();
 
@@ -958,8 +948,9 @@ public class AnalyticsService {
         Map<String, LectureMetadata> lectureMetadata = batchFetchLectureMetadataForCourses(courseIds);
 
         // Get lecture engagement aggregates (across all sections and courses)
-        List<LectureEngagementAggregateDTO> aggregates = sessionRepository.getLectureEngagementAggregatesByClass(
-                clientId, classId, 60);
+        List<LectureEngagementAggregateDTO> aggregates = rollupsEnabled
+                ? rollupRepository.toLectureAggregates(rollupRepository.getLectureRowsByClass(clientId, classId))
+                : sessionRepository.getLectureEngagementAggregatesByClass(clientId, classId, 60);
 
         // Convert aggregates to DTOs with metadata
         List<LectureEngagementSummaryDTO> lectureEngagements = new ArrayList<>();
@@ -1010,7 +1001,9 @@ public class AnalyticsService {
         dto.setSkippedLectures(skippedLectures);
 
         // Get activity timeline (across all sections and courses)
-        List<Object[]> timelineData = sessionRepository.getActivityTimelineByClass(clientId, classId);
+        List<Object[]> timelineData = rollupsEnabled
+                ? rollupRepository.getActivityTimelineByClass(clientId, classId)
+                : sessionRepository.getActivityTimelineByClass(clientId, classId);
         List<ActivityTimelinePointDTO> timeline = new ArrayList<>();
         for (Object[] row : timelineData) {
             LocalDate date = convertToLocalDate(row[0]);
@@ -1023,7 +1016,9 @@ public class AnalyticsService {
         dto.setActivityTimeline(timeline);
 
         // Get section comparison data
-        List<Object[]> sectionComparisonData = sessionRepository.getSectionComparisonByClass(clientId, classId);
+        List<Object[]> sectionComparisonData = rollupsEnabled
+                ? rollupRepository.getSectionComparisonByClass(clientId, classId)
+                : sessionRepository.getSectionComparisonByClass(clientId, classId);
         List<SectionComparisonDTO> sectionComparison = new ArrayList<>();
 
         for (Object[] row : sectionComparisonData) {
@@ -1066,7 +1061,7 @@ public class AnalyticsService {
         // Fetch student email
         try {
             String url = gatewayUrl + "/idp/users/" + studentId;
-            ResponseEntity<JsonNode> response = getRestTemplate().exchange(
+            ResponseEntity<JsonNode> response = restTemplate.exchange(
                     url, HttpMethod.GET, null, JsonNode.class);
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode user = response.getBody();
@@ -1117,22 +1112,15 @@ public class AnalyticsService {
         Map<String, LectureMetadata> metadataMap = batchFetchLectureMetadata(courseId);
         int totalLectures = metadataMap.size();
 
-        // Let's get sessions for the student in this course. Since not explicitly in
-        // repo, filter findByClientIdAndCourseId.
-        List<LectureViewSession> courseSessions = sessionRepository.findByClientIdAndCourseId(clientId, courseId);
-        List<LectureViewSession> studentSessions = courseSessions.stream()
-                .filter(s -> studentId.equals(s.getStudentId()))
-                .collect(Collectors.toList());
+        // Per-lecture aggregates for this student only (no whole-course session scan)
+        List<Object[]> lectureRows = sessionRepository.getStudentLectureAggregatesByCourse(clientId, courseId,
+                studentId);
 
         List<StudentLectureEngagementDTO> lectureActivities = new ArrayList<>();
-        Map<String, List<LectureViewSession>> sessionsByLecture = studentSessions.stream()
-                .collect(Collectors.groupingBy(LectureViewSession::getLectureId));
-
         int completedLecturesCount = 0;
 
-        for (Map.Entry<String, List<LectureViewSession>> entry : sessionsByLecture.entrySet()) {
-            String lectureId = entry.getKey();
-            List<LectureViewSession> lSessions = entry.getValue();
+        for (Object[] row : lectureRows) {
+            String lectureId = (String) row[0];
 
             StudentLectureEngagementDTO activity = new StudentLectureEngagementDTO();
             activity.setStudentId(studentId);
@@ -1150,40 +1138,13 @@ public class AnalyticsService {
                 activity.setLectureTitle("Lecture " + lectureId.substring(0, Math.min(8, lectureId.length())));
             }
 
-            activity.setTotalSessions((long) lSessions.size());
-
-            List<LectureViewSession> completedLSessions = lSessions.stream()
-                    .filter(s -> s.getSessionEndedAt() != null && s.getDurationSeconds() != null)
-                    .collect(Collectors.toList());
-
-            if (!completedLSessions.isEmpty()) {
-                int totDuration = completedLSessions.stream()
-                        .mapToInt(LectureViewSession::getDurationSeconds)
-                        .sum();
-                activity.setTotalDurationSeconds(totDuration);
-
-                double avgDuration = completedLSessions.stream()
-                        .mapToInt(LectureViewSession::getDurationSeconds)
-                        .average()
-                        .orElse(0.0);
-                activity.setAverageSessionDurationSeconds((int) avgDuration);
-            } else {
-                activity.setTotalDurationSeconds(0);
-                activity.setAverageSessionDurationSeconds(0);
-            }
-
-            Optional<OffsetDateTime> firstView = lSessions.stream()
-                    .map(LectureViewSession::getSessionStartedAt)
-                    .min(OffsetDateTime::compareTo);
-            activity.setFirstViewAt(firstView.orElse(null));
-
-            Optional<OffsetDateTime> lastView = lSessions.stream()
-                    .map(LectureViewSession::getSessionStartedAt)
-                    .max(OffsetDateTime::compareTo);
-            activity.setLastViewAt(lastView.orElse(null));
+            activity.setTotalSessions(row[1] != null ? ((Number) row[1]).longValue() : 0L);
+            activity.setTotalDurationSeconds(row[2] != null ? ((Number) row[2]).intValue() : 0);
+            activity.setAverageSessionDurationSeconds(row[3] != null ? ((Number) row[3]).intValue() : 0);
+            activity.setFirstViewAt(convertToOffsetDateTime(row[4]));
+            activity.setLastViewAt(convertToOffsetDateTime(row[5]));
 
-            boolean isCompleted = lSessions.stream()
-                    .anyMatch(s -> s.getIsCompletedInSession() != null && s.getIsCompletedInSession());
+            boolean isCompleted = Boolean.TRUE.equals(row[6]);
             activity.setIsCompleted(isCompleted);
 
             if (isCompleted) {
@@ -0,0 +1,61 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.common.AuthorizationContext;
+import com.datagami.edudron.common.TenantContext;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Runs jobs submitted by a request (bulk imports, results exports) on a background executor with
+ * that request's tenant, security context and Authorization header. Permission checks and
+ * auditing read the first two; the identity and content clients forward the header.
+ */
+@Component
+public class BackgroundJobRunner {
+
+    /**
+     * What a job needs from the request that submitted it, captured before the request completes
+     * and its thread-bound state is cleared.
+     */
+    public record JobContext(String clientId, SecurityContext securityContext, String authorization) {
+
+        public static JobContext capture() {
+            SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+            securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+            String authorization = null;
+            if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                authorization = attributes.getRequest().getHeader("Authorization");
+            }
+            return new JobContext(TenantContext.getClientId(), securityContext, authorization);
+        }
+    }
+
+    // Bulk student imports
+    @Async("importTaskExecutor")
+    public void runImport(JobContext context, Runnable task) {
+        run(context, task);
+    }
+
+    // Results exports
+    @Async("exportTaskExecutor")
+    public void runExport(JobContext context, Runnable task) {
+        run(context, task);
+    }
+
+    private static void run(JobContext context, Runnable task) {
+        TenantContext.setClientId(context.clientId());
+        SecurityContextHolder.setContext(context.securityContext());
+        AuthorizationContext.setAuthorization(context.authorization());
+        try {
+            task.run();
+        } finally {
+            AuthorizationContext.clear();
+            SecurityContextHolder.clearContext();
+            TenantContext.clear();
+        }
+    }
+}
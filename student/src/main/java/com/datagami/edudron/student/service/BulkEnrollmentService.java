@@ -1,14 +1,12 @@
 package com.datagami.edudron.student.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.student.domain.Class;
 import com.datagami.edudron.student.domain.Enrollment;
 import com.datagami.edudron.student.domain.Section;
 import com.datagami.edudron.student.dto.BatchEnrollmentRequest;
 import com.datagami.edudron.student.dto.BulkEnrollmentResult;
 import com.datagami.edudron.student.dto.CreateEnrollmentRequest;
-import com.datagami.edudron.student.dto.EnrollmentDTO;
 import com.datagami.edudron.student.repo.ClassRepository;
 import com.datagami.edudron.student.repo.EnrollmentRepository;
 import com.datagami.edudron.student.repo.SectionRepository;
@@ -21,13 +19,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -56,46 +50,8 @@ public class BulkEnrollmentService {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
     
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-    
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token (Authorization header)
-                    interceptors.add((request, body, execution) -> {
-                        // Get current request to extract Authorization header
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                // Only add if not already present
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    log.debug("Propagated Authorization header (JWT token) to service: {}", request.getURI());
-                                } else {
-                                    log.debug("Authorization header already present in request to {}", request.getURI());
-                                }
-                            } else {
-                                log.warn("No Authorization header found in current request - service call may fail with 403 Forbidden: {}", request.getURI());
-                            }
-                        } else {
-                            log.error("No request context available - cannot forward Authorization header to {}. This may cause 403 Forbidden errors.", request.getURI());
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
     
     public BulkEnrollmentResult enrollClassToCourse(String classId, String courseId) {
         String clientIdStr = TenantContext.getClientId();
@@ -450,7 +406,7 @@ public class BulkEnrollmentService {
         
         try {
             log.debug("Calling content service at URL: {}", courseUrl);
-            ResponseEntity<CourseResponseDTO> response = getRestTemplate().exchange(
+            ResponseEntity<CourseResponseDTO> response = restTemplate.exchange(
                 courseUrl,
                 HttpMethod.GET,
                 entity,
@@ -523,70 +479,20 @@ public class BulkEnrollmentService {
     
     private BulkEnrollmentResult enrollStudentsToCourse(Set<String> studentIds, String courseId, 
                                                         String classId, String sectionId, String instituteId, UUID clientId) {
-        BulkEnrollmentResult result = new BulkEnrollmentResult();
-        result.setTotalStudents((long) studentIds.size());
-        result.setEnrolledStudents(0L);
-        result.setSkippedStudents(0L);
-        result.setFailedStudents(0L);
-        List<String> enrolledStudentIds = new ArrayList<>();
-        List<String> errorMessages = new ArrayList<>();
-        
         log.info("Enrolling {} students to course {} (classId={}, sectionId={}, clientId={})", 
             studentIds.size(), courseId, classId, sectionId, clientId);
         log.debug("Student IDs to enroll: {}", studentIds);
         
-        for (String studentId : studentIds) {
-            try {
-                // Check if already enrolled
-                if (enrollmentRepository.existsByClientIdAndStudentIdAndCourseId(clientId, studentId, courseId)) {
-                    result.setSkippedStudents(result.getSkippedStudents() + 1);
-                    continue;
-                }
-                
-                // Remove placeholder enrollment if it exists (student was associated but not enrolled in any course)
-                List<Enrollment> placeholderEnrollments = enrollmentRepository.findByClientIdAndStudentId(clientId, studentId)
-                    .stream()
-                    .filter(e -> "__PLACEHOLDER_ASSOCIATION__".equals(e.getCourseId()) && 
-                                 (classId != null && classId.equals(e.getClassId())) &&
-                                 (sectionId == null || sectionId.equals(e.getBatchId())))
-                    .collect(Collectors.toList());
-                for (Enrollment placeholder : placeholderEnrollments) {
-                    enrollmentRepository.delete(placeholder);
-                    log.debug("Removed placeholder enrollment for student {} when enrolling in course {}", studentId, courseId);
-                }
-                
-                // Create enrollment
-                CreateEnrollmentRequest enrollmentRequest = new CreateEnrollmentRequest();
-                enrollmentRequest.setCourseId(courseId);
-                enrollmentRequest.setClassId(classId);
-                enrollmentRequest.setBatchId(sectionId); // batchId is used for sectionId
-                enrollmentRequest.setInstituteId(instituteId);
-                
-                EnrollmentDTO enrollment = enrollmentService.enrollStudent(studentId, enrollmentRequest);
-                enrolledStudentIds.add(studentId);
-                result.setEnrolledStudents(result.getEnrolledStudents() + 1);
-                log.info("Successfully enrolled student {} in course {} (classId={}, sectionId={}). Enrollment ID: {}, Course ID: {}", 
-                    studentId, courseId, classId, sectionId, enrollment.getId(), enrollment.getCourseId());
-                
-                // Verify enrollment was created by querying it back
-                boolean exists = enrollmentRepository.existsByClientIdAndStudentIdAndCourseId(clientId, studentId, courseId);
-                if (exists) {
-                    log.debug("Verified: Enrollment exists for student {} and course {}", studentId, courseId);
-                } else {
-                    log.error("ERROR: Enrollment was created but verification query returned false for student {} and course {}", 
-                        studentId, courseId);
-                }
-                
-            } catch (Exception e) {
-                log.warn("Failed to enroll student {} to course {}: {}", studentId, courseId, e.getMessage());
-                errorMessages.add("Student " + studentId + ": " + e.getMessage());
-                result.setFailedStudents(result.getFailedStudents() + 1);
-            }
-        }
-        
-        result.setEnrolledStudentIds(enrolledStudentIds);
-        result.setErrorMessages(errorMessages);
+        // Checks and writes are done for the whole roster at once rather than per student
+        CreateEnrollmentRequest enrollmentRequest = new CreateEnrollmentRequest();
+        enrollmentRequest.setCourseId(courseId);
+        enrollmentRequest.setClassId(classId);
+        enrollmentRequest.setBatchId(sectionId); // batchId is used for sectionId
+        enrollmentRequest.setInstituteId(instituteId);
         
+        BulkEnrollmentResult result = enrollmentService.enrollStudentsInBulk(studentIds, enrollmentRequest);
+        log.info("Enrolled {} students in course {}: {} skipped (already enrolled), {} failed", 
+            result.getEnrolledStudents(), courseId, result.getSkippedStudents(), result.getFailedStudents());
         return result;
     }
     
@@ -609,7 +515,7 @@ public class BulkEnrollmentService {
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
             log.debug("Fetching students from student service for section {} at URL: {}", sectionId, url);
-            ResponseEntity<SectionStudentDTO[]> response = getRestTemplate().exchange(
+            ResponseEntity<SectionStudentDTO[]> response = restTemplate.exchange(
                 url,
                 HttpMethod.GET,
                 entity,
@@ -1,7 +1,8 @@
 package com.datagami.edudron.student.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
+import com.datagami.edudron.common.UlidGenerator;
+import com.datagami.edudron.common.http.InterServiceClients;
 import com.datagami.edudron.student.dto.UserResponseDTO;
 import com.datagami.edudron.student.domain.Class;
 import com.datagami.edudron.student.domain.Enrollment;
@@ -10,686 +11,476 @@ import com.datagami.edudron.student.domain.Section;
 import com.datagami.edudron.student.dto.BulkStudentImportRequest;
 import com.datagami.edudron.student.dto.BulkStudentImportResult;
 import com.datagami.edudron.student.dto.CreateEnrollmentRequest;
+import com.datagami.edudron.student.dto.CreateUserRequestDTO;
+import com.datagami.edudron.student.dto.StudentImportJobDTO;
 import com.datagami.edudron.student.dto.StudentImportRowResult;
 import com.datagami.edudron.student.dto.UpdateUserRequestDTO;
+import com.datagami.edudron.student.dto.UserBulkCreateResultDTO;
 import com.datagami.edudron.student.repo.ClassRepository;
 import com.datagami.edudron.student.repo.EnrollmentRepository;
 import com.datagami.edudron.student.repo.InstituteRepository;
 import com.datagami.edudron.student.repo.SectionRepository;
 import com.datagami.edudron.student.util.PasswordGenerator;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.datagami.edudron.student.util.SpreadsheetRowReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
-import jakarta.servlet.http.HttpServletRequest;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+/**
+ * Imports students from CSV or XLSX uploads.
+ *
+ * The file is streamed (CSVParser / POI SAX reader) in chunks of {@link #CHUNK_SIZE} rows.
+ * For each chunk the rows are validated against cached section/class/institute lookups, the
+ * users are created with one call to the identity bulk endpoint and the enrollments are written
+ * in one transaction. If that transaction fails the chunk is retried row by row, so one bad row
+ * only loses its own enrollments. Imports can run synchronously or as a background job whose
+ * progress is polled through {@link StudentImportJobStore}.
+ */
 @Service
-@Transactional
 public class BulkStudentImportService {
-    
+
     private static final Logger log = LoggerFactory.getLogger(BulkStudentImportService.class);
-    
-    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
-            .setSkipHeaderRecord(true)
-            .setIgnoreSurroundingSpaces(true)
-            .setTrim(true)
-            .setIgnoreEmptyLines(true)
-            .setHeader()
-            .build();
-    
+
+    // Matches the identity service's bulk create limit
+    static final int CHUNK_SIZE = 500;
+
+    private static final String PLACEHOLDER_COURSE_ID = "__PLACEHOLDER_ASSOCIATION__";
+
     @Autowired
     private EnrollmentService enrollmentService;
-    
+
     @Autowired
     private ClassRepository classRepository;
-    
+
     @Autowired
     private SectionRepository sectionRepository;
-    
+
     @Autowired
     private InstituteRepository instituteRepository;
-    
+
     @Autowired
     private EnrollmentRepository enrollmentRepository;
-    
+
+    @Autowired
+    private StudentImportJobStore jobStore;
+
+    @Autowired
+    private BackgroundJobRunner jobRunner;
+
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
-    
+
     @Value("${IDENTITY_SERVICE_URL:http://localhost:8081}")
     private String identityServiceUrl;
-    
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-    
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    
-                    // Add tenant context interceptor
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    
-                    // Add JWT forwarding interceptor - forwards Authorization header from incoming request
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    log.debug("Forwarding Authorization header to identity service");
-                                }
-                            } else {
-                                log.warn("No Authorization header found in current request - identity service call may fail");
-                            }
-                        } else {
-                            log.warn("No request context available - cannot forward Authorization header");
-                        }
-                        return execution.execute(request, body);
-                    });
-                    
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
+
+    private final RestTemplate restTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkStudentImportService(InterServiceClients interServiceClients, PlatformTransactionManager transactionManager) {
+        this.restTemplate = interServiceClients.restTemplate();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
-    
+
+    /**
+     * Import synchronously and return every row result.
+     * Prefer {@link #submitImportJob} for large files.
+     */
     public BulkStudentImportResult importStudents(MultipartFile file, BulkStudentImportRequest options) {
+        UUID clientId = requireClientId();
+        String fileName = requireFileName(file);
+        ImportContext context = new ImportContext(clientId, options, currentAuthorizationHeader());
+
         BulkStudentImportResult result = new BulkStudentImportResult();
         List<StudentImportRowResult> rowResults = new ArrayList<>();
-        
-        String clientIdStr = TenantContext.getClientId();
-        if (clientIdStr == null) {
-            throw new IllegalStateException("Tenant context is not set");
-        }
-        UUID clientId = UUID.fromString(clientIdStr);
-        
-        String fileName = file.getOriginalFilename();
-        if (fileName == null) {
-            throw new IllegalArgumentException("File name is required");
-        }
-        
-        boolean isExcel = fileName.toLowerCase().endsWith(".xlsx") || fileName.toLowerCase().endsWith(".xls");
-        
+
+        Path tempFile = storeUpload(file, fileName);
         try {
-            if (isExcel) {
-                importFromExcel(file, options, clientId, result, rowResults);
-            } else {
-                importFromCSV(file, options, clientId, result, rowResults);
-            }
+            runImport(tempFile, fileName, context, rowResults::addAll);
         } catch (Exception e) {
             log.error("Error during bulk import: {}", e.getMessage());
             throw new RuntimeException("Failed to import students: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(tempFile);
         }
-        
+
         result.setRowResults(rowResults);
         result.setTotalRows((long) rowResults.size());
         result.setProcessedRows((long) rowResults.size());
         result.setSuccessfulRows(rowResults.stream().filter(StudentImportRowResult::getSuccess).count());
         result.setFailedRows(rowResults.stream().filter(r -> !r.getSuccess()).count());
         result.setSkippedRows(0L); // Could be enhanced to track skipped rows
-        
+
         return result;
     }
-    
-    private void importFromCSV(MultipartFile file, BulkStudentImportRequest options, UUID clientId,
-                              BulkStudentImportResult result, List<StudentImportRowResult> rowResults) throws Exception {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
-             CSVParser parser = CSV_FORMAT.parse(reader)) {
-            
-            for (CSVRecord record : parser) {
-                if (isBlankRecord(record)) {
-                    continue;
+
+    /**
+     * Store the upload and import it in the background. Poll {@link #getImportJob} for progress.
+     */
+    public StudentImportJobDTO submitImportJob(MultipartFile file, BulkStudentImportRequest options) {
+        UUID clientId = requireClientId();
+        String fileName = requireFileName(file);
+        if (fileName.toLowerCase().endsWith(".xls")) {
+            throw new IllegalArgumentException("Legacy .xls files are not supported, please save the sheet as .xlsx or .csv");
+        }
+        BackgroundJobRunner.JobContext jobContext = BackgroundJobRunner.JobContext.capture();
+
+        StudentImportJobDTO job = new StudentImportJobDTO();
+        job.setJobId(UlidGenerator.nextUlid());
+        job.setStatus(StudentImportJobDTO.Status.QUEUED);
+        job.setFileName(fileName);
+        job.setCreatedAt(OffsetDateTime.now());
+
+        Path tempFile = storeUpload(file, fileName);
+        jobStore.save(clientId, job);
+        try {
+            jobRunner.runImport(jobContext, () -> {
+                try {
+                    runImportJob(job, tempFile, new ImportContext(clientId, options, jobContext.authorization()));
+                } finally {
+                    deleteQuietly(tempFile);
                 }
-                
-                processStudentRow(record.getRecordNumber(), record, options, clientId, rowResults);
-            }
+            });
+        } catch (TaskRejectedException e) {
+            deleteQuietly(tempFile);
+            job.setStatus(StudentImportJobDTO.Status.FAILED);
+            job.setErrorMessage("Too many imports are running");
+            job.setCompletedAt(OffsetDateTime.now());
+            jobStore.save(clientId, job);
+            throw new IllegalStateException("Too many imports are running, please try again later", e);
+        }
+
+        log.info("Queued bulk student import job {} for file {}", job.getJobId(), fileName);
+        return job;
+    }
+
+    public StudentImportJobDTO getImportJob(String jobId) {
+        StudentImportJobDTO job = jobStore.get(requireClientId(), jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Import job not found: " + jobId);
         }
+        return job;
     }
-    
-    private void importFromExcel(MultipartFile file, BulkStudentImportRequest options, UUID clientId,
-                                BulkStudentImportResult result, List<StudentImportRowResult> rowResults) throws Exception {
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            // Read header row
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new IllegalArgumentException("Excel file must have a header row");
-            }
-            
-            // Build column index map
-            java.util.Map<String, Integer> columnMap = new java.util.HashMap<>();
-            for (Cell cell : headerRow) {
-                String header = getCellValueAsString(cell);
-                if (StringUtils.hasText(header)) {
-                    columnMap.put(header.trim().toLowerCase(), cell.getColumnIndex());
-                }
-            }
-            
-            // Process data rows
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) {
-                    continue;
+
+    private void runImportJob(StudentImportJobDTO job, Path file, ImportContext context) {
+        job.setStatus(StudentImportJobDTO.Status.RUNNING);
+        job.setStartedAt(OffsetDateTime.now());
+        jobStore.save(context.clientId, job);
+
+        try {
+            long totalRows = runImport(file, job.getFileName(), context, chunkResults -> {
+                for (StudentImportRowResult rowResult : chunkResults) {
+                    job.setProcessedRows(job.getProcessedRows() + 1);
+                    if (rowResult.getSuccess()) {
+                        job.setSuccessfulRows(job.getSuccessfulRows() + 1);
+                    } else {
+                        job.setFailedRows(job.getFailedRows() + 1);
+                        if (job.getFailedRowResults().size() < StudentImportJobStore.MAX_FAILED_ROWS) {
+                            job.getFailedRowResults().add(rowResult);
+                        }
+                    }
                 }
-                
-                processExcelRow(i + 1, row, columnMap, options, clientId, rowResults);
-            }
+                jobStore.save(context.clientId, job);
+            });
+            job.setTotalRows(totalRows);
+            job.setStatus(StudentImportJobDTO.Status.COMPLETED);
+            log.info("Bulk import job {} completed: {} successful, {} failed out of {} rows",
+                job.getJobId(), job.getSuccessfulRows(), job.getFailedRows(), totalRows);
+        } catch (Exception e) {
+            log.error("Bulk import job {} failed after {} rows: {}", job.getJobId(), job.getProcessedRows(), e.getMessage(), e);
+            job.setStatus(StudentImportJobDTO.Status.FAILED);
+            job.setErrorMessage(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            job.setCompletedAt(OffsetDateTime.now());
+            jobStore.save(context.clientId, job);
         }
     }
-    
-    private void processStudentRow(long rowNumber, CSVRecord record, BulkStudentImportRequest options,
-                                  UUID clientId, List<StudentImportRowResult> rowResults) {
-        String email = safeValue(record, "email");
-        String name = safeValue(record, "name");
-        String phone = safeValue(record, "phone");
-        String password = safeValue(record, "password");
-        
-        // Try multiple case variations for instituteId
-        String instituteId = safeValue(record, "instituteid");
-        if (instituteId == null || instituteId.isEmpty()) {
-            instituteId = safeValue(record, "instituteId");
-        }
-        if (instituteId == null || instituteId.isEmpty()) {
-            instituteId = safeValue(record, "INSTITUTEID");
-        }
-        
-        // Try multiple case variations for classId
-        String classId = safeValue(record, "classid");
-        if (classId == null || classId.isEmpty()) {
-            classId = safeValue(record, "classId");
-        }
-        if (classId == null || classId.isEmpty()) {
-            classId = safeValue(record, "CLASSID");
-        }
-        
-        // Try multiple case variations for sectionId
-        String sectionId = safeValue(record, "sectionid");
-        if (sectionId == null || sectionId.isEmpty()) {
-            sectionId = safeValue(record, "sectionId");
-        }
-        if (sectionId == null || sectionId.isEmpty()) {
-            sectionId = safeValue(record, "SECTIONID");
-        }
-        
-        // Try multiple case variations for courseId
-        String courseId = safeValue(record, "courseid");
-        if (courseId == null || courseId.isEmpty()) {
-            courseId = safeValue(record, "courseId");
-        }
-        if (courseId == null || courseId.isEmpty()) {
-            courseId = safeValue(record, "COURSEID");
-        }
-        
-        processStudentData(rowNumber, email, name, phone, password, instituteId, classId, sectionId, courseId, options, clientId, rowResults);
+
+    /**
+     * Stream the file through the chunk pipeline.
+     *
+     * @return the number of data rows read
+     */
+    private long runImport(Path file, String fileName, ImportContext context,
+                           Consumer<List<StudentImportRowResult>> chunkListener) throws Exception {
+        return SpreadsheetRowReader.read(file, fileName, CHUNK_SIZE, rows -> chunkListener.accept(processChunk(rows, context)));
     }
-    
-    private void processExcelRow(long rowNumber, Row row, java.util.Map<String, Integer> columnMap,
-                                BulkStudentImportRequest options, UUID clientId, List<StudentImportRowResult> rowResults) {
-        String email = getCellValue(row, columnMap, "email");
-        String name = getCellValue(row, columnMap, "name");
-        String phone = getCellValue(row, columnMap, "phone");
-        String password = getCellValue(row, columnMap, "password");
-        
-        // Try multiple case variations for instituteId
-        String instituteId = getCellValue(row, columnMap, "instituteid");
-        if (instituteId == null || instituteId.isEmpty()) {
-            instituteId = getCellValue(row, columnMap, "instituteId");
-        }
-        if (instituteId == null || instituteId.isEmpty()) {
-            instituteId = getCellValue(row, columnMap, "INSTITUTEID");
-        }
-        
-        // Try multiple case variations for classId
-        String classId = getCellValue(row, columnMap, "classid");
-        if (classId == null || classId.isEmpty()) {
-            classId = getCellValue(row, columnMap, "classId");
-        }
-        if (classId == null || classId.isEmpty()) {
-            classId = getCellValue(row, columnMap, "CLASSID");
-        }
-        
-        // Try multiple case variations for sectionId
-        String sectionId = getCellValue(row, columnMap, "sectionid");
-        if (sectionId == null || sectionId.isEmpty()) {
-            sectionId = getCellValue(row, columnMap, "sectionId");
-        }
-        if (sectionId == null || sectionId.isEmpty()) {
-            sectionId = getCellValue(row, columnMap, "SECTIONID");
-        }
-        
-        // Try multiple case variations for courseId
-        String courseId = getCellValue(row, columnMap, "courseid");
-        if (courseId == null || courseId.isEmpty()) {
-            courseId = getCellValue(row, columnMap, "courseId");
-        }
-        if (courseId == null || courseId.isEmpty()) {
-            courseId = getCellValue(row, columnMap, "COURSEID");
-        }
-        
-        processStudentData(rowNumber, email, name, phone, password, instituteId, classId, sectionId, courseId, options, clientId, rowResults);
+
+    private List<StudentImportRowResult> processChunk(List<SpreadsheetRowReader.Row> rows, ImportContext context) {
+        List<StudentImportRowResult> results = new ArrayList<>(rows.size());
+        List<PreparedRow> prepared = new ArrayList<>(rows.size());
+        for (SpreadsheetRowReader.Row row : rows) {
+            PreparedRow preparedRow = prepareRow(row, context);
+            results.add(preparedRow.result);
+            if (preparedRow.request != null) {
+                prepared.add(preparedRow);
+            }
+        }
+
+        createUsers(prepared, context);
+
+        List<PreparedRow> created = new ArrayList<>(prepared.size());
+        for (PreparedRow row : prepared) {
+            if (row.user != null) {
+                created.add(row);
+            }
+        }
+        enrollChunk(created, context);
+
+        log.debug("Processed import chunk: {} rows, {} users created or updated", rows.size(), created.size());
+        return results;
     }
-    
-    private void processStudentData(long rowNumber, String email, String name, String phone, String password,
-                                   String instituteId, String classId, String sectionId, String courseId,
-                                   BulkStudentImportRequest options, UUID clientId, List<StudentImportRowResult> rowResults) {
+
+    /**
+     * Validate a row and build its create-user request.
+     * Rows that fail validation come back with a failed result and no request.
+     */
+    private PreparedRow prepareRow(SpreadsheetRowReader.Row row, ImportContext context) {
+        PreparedRow prepared = new PreparedRow();
+        String email = row.get("email");
         // Normalize email to lowercase for case-insensitive handling
-        String normalizedEmail = email != null ? email.toLowerCase().trim() : email;
-        
+        prepared.email = email != null ? email.toLowerCase().trim() : null;
+        prepared.name = row.get("name");
+        prepared.phone = row.get("phone");
+        prepared.instituteId = row.get("instituteId");
+        prepared.classId = row.get("classId");
+        prepared.sectionId = row.get("sectionId");
+        prepared.courseId = row.get("courseId");
+        String password = row.get("password");
+
         StudentImportRowResult rowResult = new StudentImportRowResult();
-        rowResult.setRowNumber(rowNumber);
-        rowResult.setEmail(normalizedEmail);
-        rowResult.setName(name);
-        
-        log.debug("Processing row {}: email={} (original: {}), upsertExisting={}", rowNumber, normalizedEmail, email, options.getUpsertExisting());
-        
-        com.datagami.edudron.student.dto.CreateUserRequestDTO createUserRequest = null;
-        try {
-            // Validate required fields
-            if (!StringUtils.hasText(normalizedEmail) || !StringUtils.hasText(name)) {
-                rowResult.setSuccess(false);
-                rowResult.setErrorMessage("Email and name are required");
-                rowResults.add(rowResult);
-                return;
-            }
-            
-            // Generate password if needed
-            if (!StringUtils.hasText(password) && (options.getAutoGeneratePassword() == null || options.getAutoGeneratePassword())) {
-                password = PasswordGenerator.generatePassword();
-            }
-            
-            if (!StringUtils.hasText(password)) {
-                rowResult.setSuccess(false);
-                rowResult.setErrorMessage("Password is required");
-                rowResults.add(rowResult);
-                return;
+        rowResult.setRowNumber(row.rowNumber());
+        rowResult.setEmail(prepared.email);
+        rowResult.setName(prepared.name);
+        rowResult.setSuccess(false);
+        prepared.result = rowResult;
+
+        BulkStudentImportRequest options = context.options;
+        UUID clientId = context.clientId;
+
+        // Validate required fields
+        if (!StringUtils.hasText(prepared.email) || !StringUtils.hasText(prepared.name)) {
+            rowResult.setErrorMessage("Email and name are required");
+            return prepared;
+        }
+
+        // Generate password if needed
+        if (!StringUtils.hasText(password) && (options.getAutoGeneratePassword() == null || options.getAutoGeneratePassword())) {
+            password = PasswordGenerator.generatePassword();
+        }
+
+        if (!StringUtils.hasText(password)) {
+            rowResult.setErrorMessage("Password is required");
+            return prepared;
+        }
+
+        // Validate class/section/institute if provided
+        if (StringUtils.hasText(prepared.sectionId)) {
+            Section section = context.sections.computeIfAbsent(prepared.sectionId,
+                id -> sectionRepository.findByIdAndClientId(id, clientId)).orElse(null);
+            if (section == null) {
+                rowResult.setErrorMessage("Section not found: " + prepared.sectionId);
+                return prepared;
             }
-            
-            // Validate class/section/institute if provided
-            if (StringUtils.hasText(sectionId)) {
-                Section section = sectionRepository.findByIdAndClientId(sectionId, clientId)
-                    .orElse(null);
-                if (section == null) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Section not found: " + sectionId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                    
-                if (!section.getIsActive()) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Section is not active: " + sectionId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                if (StringUtils.hasText(classId) && !section.getClassId().equals(classId)) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Section does not belong to class: " + classId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                classId = section.getClassId();
+            if (!section.getIsActive()) {
+                rowResult.setErrorMessage("Section is not active: " + prepared.sectionId);
+                return prepared;
             }
-            
-            if (StringUtils.hasText(classId)) {
-                Class classEntity = classRepository.findByIdAndClientId(classId, clientId)
-                    .orElse(null);
-                if (classEntity == null) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Class not found: " + classId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                    
-                if (!classEntity.getIsActive()) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Class is not active: " + classId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                if (StringUtils.hasText(instituteId) && !classEntity.getInstituteId().equals(instituteId)) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Class does not belong to institute: " + instituteId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                instituteId = classEntity.getInstituteId();
+            if (StringUtils.hasText(prepared.classId) && !section.getClassId().equals(prepared.classId)) {
+                rowResult.setErrorMessage("Section does not belong to class: " + prepared.classId);
+                return prepared;
             }
-            
-            if (StringUtils.hasText(instituteId)) {
-                Institute institute = instituteRepository.findByIdAndClientId(instituteId, clientId)
-                    .orElse(null);
-                if (institute == null) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Institute not found: " + instituteId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-                    
-                if (!institute.getIsActive()) {
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("Institute is not active: " + instituteId);
-                    rowResults.add(rowResult);
-                    return;
-                }
-            }
-            
-            // Create user via identity service
-            createUserRequest = new com.datagami.edudron.student.dto.CreateUserRequestDTO();
-            createUserRequest.setEmail(normalizedEmail);
-            createUserRequest.setPassword(password);
-            createUserRequest.setName(name);
-            createUserRequest.setPhone(phone);
-            createUserRequest.setRole("STUDENT");
-            createUserRequest.setActive(true);
-            
-            // Set instituteIds - required for non-SYSTEM_ADMIN users
-            if (StringUtils.hasText(instituteId)) {
-                createUserRequest.setInstituteIds(java.util.Collections.singletonList(instituteId));
-            } else {
-                rowResult.setSuccess(false);
-                rowResult.setErrorMessage("Institute ID is required");
-                rowResults.add(rowResult);
-                return;
+            prepared.classId = section.getClassId();
+        }
+
+        if (StringUtils.hasText(prepared.classId)) {
+            Class classEntity = context.classes.computeIfAbsent(prepared.classId,
+                id -> classRepository.findByIdAndClientId(id, clientId)).orElse(null);
+            if (classEntity == null) {
+                rowResult.setErrorMessage("Class not found: " + prepared.classId);
+                return prepared;
             }
-            
-            // Set autoGeneratePassword based on options (password is already generated if needed)
-            if (options.getAutoGeneratePassword() != null && options.getAutoGeneratePassword()) {
-                createUserRequest.setAutoGeneratePassword(true);
+            if (!classEntity.getIsActive()) {
+                rowResult.setErrorMessage("Class is not active: " + prepared.classId);
+                return prepared;
             }
-            
-            String identityUrl = gatewayUrl + "/idp/users";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<com.datagami.edudron.student.dto.CreateUserRequestDTO> entity = new HttpEntity<>(createUserRequest, headers);
-            
-            ResponseEntity<UserResponseDTO> response = getRestTemplate().exchange(
-                identityUrl,
-                HttpMethod.POST,
-                entity,
-                UserResponseDTO.class
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                UserResponseDTO user = response.getBody();
-                rowResult.setSuccess(true);
-                rowResult.setStudentId(user.getId());
-                
-                // Handle enrollments and associations
-                handleEnrollmentsAndAssociations(user, classId, sectionId, courseId, instituteId, options, clientId, rowResult);
-            } else {
-                rowResult.setSuccess(false);
-                rowResult.setErrorMessage("Failed to create user: " + (response.getBody() != null ? response.getBody().toString() : "Unknown error"));
+            if (StringUtils.hasText(prepared.instituteId) && !classEntity.getInstituteId().equals(prepared.instituteId)) {
+                rowResult.setErrorMessage("Class does not belong to institute: " + prepared.instituteId);
+                return prepared;
             }
-            
-        } catch (org.springframework.web.client.HttpClientErrorException e) {
-            String errorMessage = "Failed to create user";
+            prepared.instituteId = classEntity.getInstituteId();
+        }
+
+        // Set instituteIds - required for non-SYSTEM_ADMIN users
+        if (!StringUtils.hasText(prepared.instituteId)) {
+            rowResult.setErrorMessage("Institute ID is required");
+            return prepared;
+        }
+        Institute institute = context.institutes.computeIfAbsent(prepared.instituteId,
+            id -> instituteRepository.findByIdAndClientId(id, clientId)).orElse(null);
+        if (institute == null) {
+            rowResult.setErrorMessage("Institute not found: " + prepared.instituteId);
+            return prepared;
+        }
+        if (!institute.getIsActive()) {
+            rowResult.setErrorMessage("Institute is not active: " + prepared.instituteId);
+            return prepared;
+        }
+
+        CreateUserRequestDTO createUserRequest = new CreateUserRequestDTO();
+        createUserRequest.setEmail(prepared.email);
+        createUserRequest.setPassword(password);
+        createUserRequest.setName(prepared.name);
+        createUserRequest.setPhone(prepared.phone);
+        createUserRequest.setRole("STUDENT");
+        createUserRequest.setActive(true);
+        createUserRequest.setInstituteIds(java.util.Collections.singletonList(prepared.instituteId));
+
+        // Set autoGeneratePassword based on options (password is already generated if needed)
+        if (options.getAutoGeneratePassword() != null && options.getAutoGeneratePassword()) {
+            createUserRequest.setAutoGeneratePassword(true);
+        }
+        prepared.request = createUserRequest;
+        return prepared;
+    }
+
+    /**
+     * Create the chunk's users with one identity call. Existing users are updated when upsert is enabled.
+     */
+    private void createUsers(List<PreparedRow> rows, ImportContext context) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<CreateUserRequestDTO> requests = new ArrayList<>(rows.size());
+        for (PreparedRow row : rows) {
+            requests.add(row.request);
+        }
+
+        List<UserBulkCreateResultDTO> responses;
+        try {
+            responses = bulkCreateUsers(requests, context.authorization);
+        } catch (HttpStatusCodeException e) {
+            String errorMessage = "Failed to create users";
             try {
-                if (e.getResponseBodyAsString() != null) {
+                if (e.getResponseBodyAsString() != null && !e.getResponseBodyAsString().isEmpty()) {
                     errorMessage = e.getResponseBodyAsString();
                 }
             } catch (Exception ignored) {}
-            
-            log.warn("HTTP error creating user {}: {} - {}", normalizedEmail, e.getStatusCode(), errorMessage);
-            
-            // Check if user already exists
-            if (errorMessage.contains("already exists") || errorMessage.contains("User already exists")) {
-                if (options.getUpsertExisting() != null && options.getUpsertExisting()) {
-                    // Try to update existing user
-                    log.info("Upsert enabled - attempting to find and update existing user: {}", normalizedEmail);
-                    try {
-                        UserResponseDTO existingUser = findUserByEmail(normalizedEmail, clientId);
-                        if (existingUser != null) {
-                            log.info("Found existing user {} (id: {}), updating...", normalizedEmail, existingUser.getId());
-                            // Update the user
-                            UserResponseDTO updatedUser = updateExistingUser(existingUser.getId(), normalizedEmail, name, phone, instituteId, clientId);
-                            rowResult.setSuccess(true);
-                            rowResult.setStudentId(updatedUser.getId());
-                            log.info("Successfully updated existing user: {} (id: {})", normalizedEmail, updatedUser.getId());
-                            
-                            // Handle enrollments and associations (same as for new users)
-                            handleEnrollmentsAndAssociations(updatedUser, classId, sectionId, courseId, instituteId, options, clientId, rowResult);
-                        } else {
-                            log.error("User {} already exists but could not be found for update. This might be due to:", normalizedEmail);
-                            log.error("  1. New endpoint not deployed: GET /idp/users/by-email");
-                            log.error("  2. Permission issue accessing identity service");
-                            log.error("  3. Tenant context mismatch");
-                            rowResult.setSuccess(false);
-                            rowResult.setErrorMessage("User already exists but could not be found for update. Check logs for details.");
-                        }
-                    } catch (Exception updateException) {
-                        log.error("Failed to update existing user {}: {}", normalizedEmail, updateException.getMessage(), updateException);
-                        rowResult.setSuccess(false);
-                        rowResult.setErrorMessage("Failed to update existing user: " + updateException.getMessage());
-                    }
-                } else {
-                    log.debug("Upsert disabled - skipping existing user: {}", normalizedEmail);
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage("User already exists with this email");
-                }
-            } else {
-                rowResult.setSuccess(false);
-                rowResult.setErrorMessage(errorMessage);
+            log.error("HTTP error creating {} users in bulk: {} - {}", rows.size(), e.getStatusCode(), errorMessage);
+            failAll(rows, errorMessage);
+            return;
+        } catch (Exception e) {
+            log.error("Error creating {} users in bulk: {}", rows.size(), e.getMessage(), e);
+            failAll(rows, "Failed to create user: " + e.getMessage());
+            return;
+        }
+
+        for (UserBulkCreateResultDTO response : responses) {
+            if (response.getIndex() < 0 || response.getIndex() >= rows.size()) {
+                continue;
             }
-        } catch (org.springframework.web.client.HttpServerErrorException e) {
-            String errorMessage = "Internal server error";
-            try {
-                if (e.getResponseBodyAsString() != null) {
-                    errorMessage = e.getResponseBodyAsString();
-                }
-            } catch (Exception ignored) {}
-            
-            log.error("HTTP server error creating user {}: {} - {}", normalizedEmail, e.getStatusCode(), errorMessage);
-            
-            // Check if this is a "user already exists" error (sometimes returned as 500)
-            if (errorMessage.contains("already exists") || errorMessage.contains("User already exists")) {
-                if (options.getUpsertExisting() != null && options.getUpsertExisting()) {
-                    // Try to update existing user
-                    log.info("Upsert enabled - attempting to find and update existing user: {}", normalizedEmail);
-                    try {
-                        UserResponseDTO existingUser = findUserByEmail(normalizedEmail, clientId);
-                        if (existingUser != null) {
-                            log.info("Found existing user {} (id: {}), updating...", normalizedEmail, existingUser.getId());
-                            // Update the user
-                            UserResponseDTO updatedUser = updateExistingUser(existingUser.getId(), normalizedEmail, name, phone, instituteId, clientId);
-                            rowResult.setSuccess(true);
-                            rowResult.setStudentId(updatedUser.getId());
-                            log.info("Successfully updated existing user: {} (id: {})", normalizedEmail, updatedUser.getId());
-                            
-                            // Handle enrollments and associations (same as for new users)
-                            handleEnrollmentsAndAssociations(updatedUser, classId, sectionId, courseId, instituteId, options, clientId, rowResult);
-                        } else {
-                            log.error("User {} already exists but could not be found for update. This might be due to:", normalizedEmail);
-                            log.error("  1. New endpoint not deployed: GET /idp/users/by-email");
-                            log.error("  2. Permission issue accessing identity service");
-                            log.error("  3. Tenant context mismatch");
-                            rowResult.setSuccess(false);
-                            rowResult.setErrorMessage("User already exists but could not be found for update. Check logs for details.");
-                        }
-                    } catch (Exception updateException) {
-                        log.error("Failed to update existing user {}: {}", normalizedEmail, updateException.getMessage(), updateException);
-                        rowResult.setSuccess(false);
-                        rowResult.setErrorMessage("Failed to update existing user: " + updateException.getMessage());
-                    }
-                } else {
-                    log.debug("Upsert disabled - skipping existing user: {}", normalizedEmail);
-                    rowResult.setSuccess(false);
-                    rowResult.setErrorMessage(errorMessage);
-                }
+            PreparedRow row = rows.get(response.getIndex());
+            StudentImportRowResult rowResult = row.result;
+            if (UserBulkCreateResultDTO.CREATED.equals(response.getStatus()) && response.getUser() != null) {
+                row.user = response.getUser();
+                rowResult.setSuccess(true);
+                rowResult.setStudentId(row.user.getId());
+            } else if (UserBulkCreateResultDTO.EXISTS.equals(response.getStatus()) && response.getUser() != null) {
+                upsertExistingUser(row, response.getUser(), context);
             } else {
-                rowResult.setSuccess(false);
-                rowResult.setErrorMessage(errorMessage);
+                rowResult.setErrorMessage(response.getError() != null ? response.getError() : "Failed to create user");
             }
-        } catch (Exception e) {
-            rowResult.setSuccess(false);
-            rowResult.setErrorMessage(e.getMessage() != null ? e.getMessage() : "Unknown error: " + e.getClass().getSimpleName());
         }
-        
-        rowResults.add(rowResult);
-    }
-    
-    private boolean isBlankRecord(CSVRecord record) {
-        for (String value : record) {
-            if (StringUtils.hasText(value)) {
-                return false;
+
+        for (PreparedRow row : rows) {
+            if (!row.result.getSuccess() && row.result.getErrorMessage() == null) {
+                row.result.setErrorMessage("No result from identity service");
             }
         }
-        return true;
     }
-    
-    private String safeValue(CSVRecord record, String key) {
+
+    private void upsertExistingUser(PreparedRow row, UserResponseDTO existingUser, ImportContext context) {
+        if (context.options.getUpsertExisting() == null || !context.options.getUpsertExisting()) {
+            log.debug("Upsert disabled - skipping existing user: {}", row.email);
+            row.result.setErrorMessage("User already exists with this email");
+            return;
+        }
+
         try {
-            String value = record.get(key);
-            String trimmed = value != null ? value.trim() : null;
-            if (trimmed != null && trimmed.isEmpty()) {
-                trimmed = null;
+            log.info("Upsert enabled - updating existing user {} (id: {})", row.email, existingUser.getId());
+            UserResponseDTO updatedUser = updateExistingUser(existingUser.getId(), row.email, row.name, row.phone,
+                row.instituteId, context.authorization);
+            if (updatedUser == null) {
+                row.result.setErrorMessage("Failed to update existing user");
+                return;
             }
-            return trimmed;
-        } catch (IllegalArgumentException e) {
-            return null;
+            row.user = updatedUser;
+            row.result.setSuccess(true);
+            row.result.setStudentId(updatedUser.getId());
+        } catch (Exception updateException) {
+            log.error("Failed to update existing user {}: {}", row.email, updateException.getMessage(), updateException);
+            row.result.setErrorMessage("Failed to update existing user: " + updateException.getMessage());
         }
     }
-    
-    private String getCellValue(Row row, java.util.Map<String, Integer> columnMap, String columnName) {
-        Integer index = columnMap.get(columnName.toLowerCase());
-        if (index == null) {
-            return null;
-        }
-        Cell cell = row.getCell(index);
-        String value = getCellValueAsString(cell);
-        if (value != null && value.isEmpty()) {
-            value = null;
-        }
-        return value;
-    }
-    
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    // Remove decimal if it's a whole number
-                    double numValue = cell.getNumericCellValue();
-                    if (numValue == (long) numValue) {
-                        return String.valueOf((long) numValue);
-                    } else {
-                        return String.valueOf(numValue);
-                    }
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return null;
+
+    private void failAll(List<PreparedRow> rows, String errorMessage) {
+        for (PreparedRow row : rows) {
+            row.result.setSuccess(false);
+            row.result.setErrorMessage(errorMessage);
         }
     }
-    
-    /**
-     * Find user by email using the dedicated endpoint
-     */
-    private UserResponseDTO findUserByEmail(String email, UUID clientId) {
-        // Normalize email to lowercase for consistent lookup
-        String normalizedEmail = email != null ? email.toLowerCase().trim() : email;
-        
-        try {
-            // Build URL properly - use URI template to let RestTemplate handle encoding
-            String urlTemplate = gatewayUrl + "/idp/users/by-email?email={email}";
-            
-            log.info("Attempting to find user by email: {}", normalizedEmail);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<?> entity = new HttpEntity<>(headers);
-            
-            // Use URI variables map for proper encoding
-            java.util.Map<String, String> uriVariables = new java.util.HashMap<>();
-            uriVariables.put("email", normalizedEmail);
-            
-            ResponseEntity<UserResponseDTO> response = getRestTemplate().exchange(
-                urlTemplate,
-                HttpMethod.GET,
-                entity,
-                UserResponseDTO.class,
-                uriVariables
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                UserResponseDTO user = response.getBody();
-                // Verify the clientId matches (extra safety check)
-                if (clientId == null || clientId.equals(user.getClientId())) {
-                    log.info("Found existing user by email: {} with id: {}", normalizedEmail, user.getId());
-                    return user;
-                } else {
-                    log.warn("Found user by email {} but clientId mismatch. Expected: {}, Found: {}", 
-                        normalizedEmail, clientId, user.getClientId());
-                }
-            }
-        } catch (org.springframework.web.client.HttpClientErrorException e) {
-            if (e.getStatusCode().value() == 404) {
-                log.warn("User not found by email: {} (404 from identity service)", normalizedEmail);
-            } else if (e.getStatusCode().value() == 403) {
-                log.error("Permission denied when finding user by email: {} (403 Forbidden)", normalizedEmail);
-            } else {
-                log.error("HTTP error finding user by email {}: {} - {}", normalizedEmail, e.getStatusCode(), e.getMessage());
-            }
-            // Try to get more details from response body
-            try {
-                String responseBody = e.getResponseBodyAsString();
-                if (responseBody != null && !responseBody.isEmpty()) {
-                    log.error("Error response body: {}", responseBody);
-                }
-            } catch (Exception ignored) {}
-        } catch (Exception e) {
-            log.error("Unexpected error finding user by email {}: {} - {}", normalizedEmail, e.getClass().getName(), e.getMessage(), e);
+
+    private List<UserBulkCreateResultDTO> bulkCreateUsers(List<CreateUserRequestDTO> requests, String authorization) {
+        String identityUrl = gatewayUrl + "/idp/users/bulk";
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(Map.of("users", requests), jsonHeaders(authorization));
+
+        ResponseEntity<List<UserBulkCreateResultDTO>> response = restTemplate.exchange(
+            identityUrl,
+            HttpMethod.POST,
+            entity,
+            new ParameterizedTypeReference<List<UserBulkCreateResultDTO>>() {}
+        );
+
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IllegalStateException("Identity service returned " + response.getStatusCode());
         }
-        return null;
+        return response.getBody();
     }
-    
+
     /**
      * Update an existing user
      */
-    private UserResponseDTO updateExistingUser(String userId, String email, String name, String phone, 
-                                               String instituteId, UUID clientId) {
+    private UserResponseDTO updateExistingUser(String userId, String email, String name, String phone,
+                                               String instituteId, String authorization) {
         try {
             UpdateUserRequestDTO updateRequest = new UpdateUserRequestDTO();
             updateRequest.setEmail(email);
@@ -700,19 +491,17 @@ public class BulkStudentImportService {
             if (StringUtils.hasText(instituteId)) {
                 updateRequest.setInstituteIds(java.util.Collections.singletonList(instituteId));
             }
-            
+
             String updateUrl = gatewayUrl + "/idp/users/" + userId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<UpdateUserRequestDTO> entity = new HttpEntity<>(updateRequest, headers);
-            
-            ResponseEntity<UserResponseDTO> response = getRestTemplate().exchange(
+            HttpEntity<UpdateUserRequestDTO> entity = new HttpEntity<>(updateRequest, jsonHeaders(authorization));
+
+            ResponseEntity<UserResponseDTO> response = restTemplate.exchange(
                 updateUrl,
                 HttpMethod.PUT,
                 entity,
                 UserResponseDTO.class
             );
-            
+
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response.getBody();
             }
@@ -721,88 +510,180 @@ public class BulkStudentImportService {
         }
         return null;
     }
-    
+
+    /**
+     * Write the chunk's enrollments in one transaction, falling back to one transaction per row.
+     * A failure inside EnrollmentService marks the surrounding transaction rollback-only even
+     * when it is caught, so without the fallback one bad row would drop the whole chunk.
+     */
+    private void enrollChunk(List<PreparedRow> rows, ImportContext context) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PreparedRow row : rows) {
+                    handleEnrollmentsAndAssociations(row, context);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Enrollment transaction for {} imported students failed, retrying row by row: {}", rows.size(), e.getMessage());
+            for (PreparedRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> handleEnrollmentsAndAssociations(row, context));
+                } catch (Exception rowException) {
+                    // Don't fail the import if enrollment fails
+                    log.warn("Failed to enroll imported student {} (row {}): {}", row.user.getId(), row.result.getRowNumber(), rowException.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * Handle enrollments and class/section associations for a user
      */
-    private void handleEnrollmentsAndAssociations(UserResponseDTO user, String classId, String sectionId, 
-                                                   String courseId, String instituteId,
-                                                   BulkStudentImportRequest options, UUID clientId,
-                                                   StudentImportRowResult rowResult) {
+    private void handleEnrollmentsAndAssociations(PreparedRow row, ImportContext context) {
+        BulkStudentImportRequest options = context.options;
+        UUID clientId = context.clientId;
+        String studentId = row.user.getId();
         boolean hasEnrollment = false;
-        
+
         // Create enrollment if needed
-        if (options.getAutoEnroll() != null && options.getAutoEnroll() && StringUtils.hasText(courseId)) {
-            try {
-                CreateEnrollmentRequest enrollmentRequest = new CreateEnrollmentRequest();
-                enrollmentRequest.setCourseId(courseId);
-                enrollmentRequest.setClassId(classId);
-                enrollmentRequest.setBatchId(sectionId); // batchId is used for sectionId
-                enrollmentRequest.setInstituteId(instituteId);
-                
-                enrollmentService.enrollStudent(user.getId(), enrollmentRequest);
-                hasEnrollment = true;
-            } catch (Exception e) {
-                // Don't fail the import if enrollment fails
-            }
+        if (options.getAutoEnroll() != null && options.getAutoEnroll() && StringUtils.hasText(row.courseId)) {
+            hasEnrollment |= enrollIfMissing(studentId, row.courseId, row, clientId);
         }
-        
+
         // Enroll in default courses if provided
         if (options.getDefaultCourseIds() != null && !options.getDefaultCourseIds().isEmpty()) {
             for (String defaultCourseId : options.getDefaultCourseIds()) {
-                try {
-                    CreateEnrollmentRequest enrollmentRequest = new CreateEnrollmentRequest();
-                    enrollmentRequest.setCourseId(defaultCourseId);
-                    enrollmentRequest.setClassId(classId);
-                    enrollmentRequest.setBatchId(sectionId);
-                    enrollmentRequest.setInstituteId(instituteId);
-                    
-                    enrollmentService.enrollStudent(user.getId(), enrollmentRequest);
-                    hasEnrollment = true;
-                } catch (Exception e) {
-                    // Don't fail the import if enrollment fails
-                }
+                hasEnrollment |= enrollIfMissing(studentId, defaultCourseId, row, clientId);
             }
         }
-        
+
         // If student has classId or sectionId but no enrollment created yet, create a placeholder enrollment
-        if (!hasEnrollment && (StringUtils.hasText(classId) || StringUtils.hasText(sectionId))) {
-            try {
-                String placeholderCourseId = "__PLACEHOLDER_ASSOCIATION__";
-                
-                // Check if placeholder enrollment already exists
-                boolean exists = false;
-                try {
-                    exists = enrollmentRepository.existsByClientIdAndStudentIdAndCourseId(clientId, user.getId(), placeholderCourseId);
-                } catch (Exception checkException) {
-                    return; // Skip enrollment creation if we can't check
-                }
-                
-                if (!exists) {
-                    // Create enrollment directly in repository to associate student with class/section
-                    Enrollment placeholderEnrollment = new Enrollment();
-                    placeholderEnrollment.setId(com.datagami.edudron.common.UlidGenerator.nextUlid());
-                    placeholderEnrollment.setClientId(clientId);
-                    placeholderEnrollment.setStudentId(user.getId());
-                    placeholderEnrollment.setCourseId(placeholderCourseId);
-                    placeholderEnrollment.setClassId(classId);
-                    placeholderEnrollment.setBatchId(sectionId); // batchId is used for sectionId
-                    placeholderEnrollment.setInstituteId(instituteId);
-                    
-                    enrollmentRepository.save(placeholderEnrollment);
-                    
-                    // Automatically enroll student in all published courses assigned to this section/class
-                    try {
-                        enrollmentService.autoEnrollStudentInAssignedCourses(
-                            user.getId(), sectionId, classId, instituteId, clientId);
-                    } catch (Exception e) {
-                        // Don't fail the import if auto-enrollment fails
-                    }
-                }
-            } catch (Exception e) {
-                // Don't fail the import if placeholder enrollment fails
+        if (!hasEnrollment && (StringUtils.hasText(row.classId) || StringUtils.hasText(row.sectionId))) {
+            if (enrollmentRepository.existsByClientIdAndStudentIdAndCourseId(clientId, studentId, PLACEHOLDER_COURSE_ID)) {
+                return;
             }
+
+            // Create enrollment directly in repository to associate student with class/section
+            Enrollment placeholderEnrollment = new Enrollment();
+            placeholderEnrollment.setId(UlidGenerator.nextUlid());
+            placeholderEnrollment.setClientId(clientId);
+            placeholderEnrollment.setStudentId(studentId);
+            placeholderEnrollment.setCourseId(PLACEHOLDER_COURSE_ID);
+            placeholderEnrollment.setClassId(row.classId);
+            placeholderEnrollment.setBatchId(row.sectionId); // batchId is used for sectionId
+            placeholderEnrollment.setInstituteId(row.instituteId);
+
+            enrollmentRepository.save(placeholderEnrollment);
+
+            // Automatically enroll student in all published courses assigned to this section/class
+            enrollmentService.autoEnrollStudentInAssignedCourses(
+                studentId, row.sectionId, row.classId, row.instituteId, clientId);
         }
     }
-}
 
+    /**
+     * Enroll unless the student already is; checking first keeps the common upsert case from
+     * throwing inside the chunk transaction.
+     */
+    private boolean enrollIfMissing(String studentId, String courseId, PreparedRow row, UUID clientId) {
+        if (enrollmentRepository.existsByClientIdAndStudentIdAndCourseId(clientId, studentId, courseId)) {
+            return true;
+        }
+        CreateEnrollmentRequest enrollmentRequest = new CreateEnrollmentRequest();
+        enrollmentRequest.setCourseId(courseId);
+        enrollmentRequest.setClassId(row.classId);
+        enrollmentRequest.setBatchId(row.sectionId); // batchId is used for sectionId
+        enrollmentRequest.setInstituteId(row.instituteId);
+
+        enrollmentService.enrollStudent(studentId, enrollmentRequest);
+        return true;
+    }
+
+    private HttpHeaders jsonHeaders(String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (authorization != null && !authorization.isBlank()) {
+            headers.set("Authorization", authorization);
+        }
+        return headers;
+    }
+
+    private String currentAuthorizationHeader() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        return attributes != null ? attributes.getRequest().getHeader("Authorization") : null;
+    }
+
+    private UUID requireClientId() {
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null) {
+            throw new IllegalStateException("Tenant context is not set");
+        }
+        return UUID.fromString(clientIdStr);
+    }
+
+    private String requireFileName(MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        if (fileName == null) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        return fileName;
+    }
+
+    /**
+     * Copy the upload to a temp file: the multipart file is gone once the request completes,
+     * and POI's SAX reader needs random access to the zip.
+     */
+    private Path storeUpload(MultipartFile file, String fileName) {
+        try {
+            Path tempFile = Files.createTempFile("student-import-",
+                SpreadsheetRowReader.isExcel(fileName) ? ".xlsx" : ".csv");
+            file.transferTo(tempFile);
+            return tempFile;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to store uploaded file: " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            log.warn("Failed to delete import temp file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Per-import state: options, the caller's credentials for identity calls and lookups of
+     * the sections/classes/institutes referenced by the file (usually a handful for thousands of rows).
+     */
+    private static final class ImportContext {
+        private final UUID clientId;
+        private final BulkStudentImportRequest options;
+        private final String authorization;
+        private final Map<String, Optional<Section>> sections = new HashMap<>();
+        private final Map<String, Optional<Class>> classes = new HashMap<>();
+        private final Map<String, Optional<Institute>> institutes = new HashMap<>();
+
+        private ImportContext(UUID clientId, BulkStudentImportRequest options, String authorization) {
+            this.clientId = clientId;
+            this.options = options;
+            this.authorization = authorization;
+        }
+    }
+
+    private static final class PreparedRow {
+        private String email;
+        private String name;
+        private String phone;
+        private String instituteId;
+        private String classId;
+        private String sectionId;
+        private String courseId;
+        private CreateUserRequestDTO request;
+        private StudentImportRowResult result;
+        private UserResponseDTO user;
+    }
+}
@@ -62,6 +62,7 @@ public class CalendarEventService {
         if (event.isRecurring() && event.getRecurrenceRule() != null) {
             List<CalendarEvent> occurrences = RecurrenceGenerator.generateOccurrences(event);
             if (!occurrences.isEmpty()) {
+                // New entities are persisted without a lookup and flushed in hibernate.jdbc.batch_size batches
                 calendarEventRepository.saveAll(occurrences);
                 logger.info("Created {} recurrence occurrences for event {}", occurrences.size(), event.getId());
             }
@@ -1,23 +1,40 @@
 package com.datagami.edudron.student.service;
 
-import com.datagami.edudron.common.domain.Event;
+import com.datagami.edudron.common.service.EventBatchWriter;
 import com.datagami.edudron.common.service.EventService;
 import com.datagami.edudron.student.repo.CommonEventRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Student events use batched ingestion: the log methods build the event on the calling thread
+ * and enqueue it, and {@link EventBatchWriter} writes them in multi-row INSERTs. HTTP request
+ * logging no longer goes through eventTaskExecutor or holds a connection per request.
+ */
 @Service
 public class CommonEventService extends EventService {
     
     private final CommonEventRepository eventRepository;
+    private final EventBatchWriter batchWriter;
     
     @Autowired
-    public CommonEventService(CommonEventRepository eventRepository, ObjectMapper objectMapper) {
+    public CommonEventService(CommonEventRepository eventRepository, ObjectMapper objectMapper,
+                              JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                              @Value("${events.ingest.capacity:20000}") int capacity,
+                              @Value("${events.ingest.batch-size:500}") int batchSize,
+                              @Value("${events.ingest.flush-interval-ms:1000}") long flushIntervalMs,
+                              @Value("${events.ingest.sample-above:0.75}") double sampleAbove,
+                              @Value("${events.ingest.sample-every:10}") int sampleEvery) {
         super(objectMapper);
         this.eventRepository = eventRepository;
+        this.batchWriter = new EventBatchWriter(jdbcTemplate, meterRegistry, getServiceName(),
+                new EventBatchWriter.Settings(capacity, batchSize, flushIntervalMs, sampleAbove, sampleEvery));
+        setBatchWriter(batchWriter);
     }
     
     @Override
@@ -30,36 +47,9 @@ public class CommonEventService extends EventService {
     protected String getServiceName() {
         return "student";
     }
-    
-    @Override
-    @Async("eventTaskExecutor")
-    @Transactional
-    public void logHttpRequest(String method, String path, Integer status, Long durationMs,
-                              String traceId, String requestId, String userAgent, String ipAddress,
-                              String userId, String userEmail, java.util.Map<String, Object> additionalData) {
-        super.logHttpRequest(method, path, status, durationMs, traceId, requestId, userAgent, ipAddress, userId, userEmail, additionalData);
-    }
-    
-    @Override
-    @Async("eventTaskExecutor")
-    @Transactional
-    public void logUserAction(String actionType, String userId, String userEmail,
-                             String endpoint, java.util.Map<String, Object> actionData) {
-        super.logUserAction(actionType, userId, userEmail, endpoint, actionData);
-    }
-    
-    @Override
-    @Async("eventTaskExecutor")
-    @Transactional
-    public void logError(String errorType, String errorMessage, String stackTrace,
-                        String endpoint, String userId, String traceId) {
-        super.logError(errorType, errorMessage, stackTrace, endpoint, userId, traceId);
-    }
-    
-    @Override
-    @Async("eventTaskExecutor")
-    @Transactional
-    public void logEvent(Event event) {
-        super.logEvent(event);
+
+    @PreDestroy
+    public void shutdown() {
+        batchWriter.close();
     }
 }
@@ -0,0 +1,172 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.repo.EngagementRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Folds lecture_view_sessions into the engagement rollup tables read by the course, section
+ * and class dashboards.
+ *
+ * Every run takes the sessions whose updated_at falls in (watermark - overlap, now - settle],
+ * recomputes each (lecture, day) they touch from the raw rows and advances the watermark.
+ * Recomputing whole lecture-days keeps the fold idempotent, so the overlap can safely re-cover
+ * sessions whose transaction committed after a previous run had already moved past them.
+ * The state row is locked with SKIP LOCKED so only one node folds at a time.
+ *
+ * After a fold the course/section/class analytics caches for the touched scopes are evicted;
+ * the session endpoints no longer evict on every heartbeat.
+ */
+@Service
+public class EngagementRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(EngagementRollupService.class);
+
+    static final String STATE_ID = "lecture_view_sessions";
+    // Same skip threshold the raw dashboard queries use
+    static final int SHORT_SESSION_THRESHOLD_SECONDS = 60;
+
+    private final EngagementRollupRepository rollupRepository;
+
+    private final CacheManager cacheManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${analytics.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.rollup.settle-seconds:10}")
+    private long settleSeconds;
+
+    @Value("${analytics.rollup.overlap-seconds:120}")
+    private long overlapSeconds;
+
+    @Value("${analytics.rollup.max-window-hours:24}")
+    private long maxWindowHours;
+
+    public EngagementRollupService(EngagementRollupRepository rollupRepository, CacheManager cacheManager,
+                                   PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.rollup.fold-interval-ms:30000}",
+            initialDelayString = "${analytics.rollup.fold-interval-ms:30000}")
+    public void foldRecentSessions() {
+        if (!enabled) return;
+
+        try {
+            // Each window commits on its own so a large backlog (first run, long outage)
+            // is worked off in bounded transactions. The touched scopes are read inside each
+            // window's transaction and evicted once it commits, so a later window failing
+            // does not leave earlier windows' dashboards cached on stale figures.
+            FoldedWindow window;
+            do {
+                window = transactionTemplate.execute(status -> foldWindow());
+                if (window != null) {
+                    evict("courseAnalytics", window.courseIds());
+                    evict("sectionAnalytics", window.sectionIds());
+                    evict("classAnalytics", window.classIds());
+                }
+            } while (window != null && window.more());
+        } catch (Exception e) {
+            log.error("Engagement rollup fold failed", e);
+        }
+    }
+
+    /**
+     * Fold one window. Returns null when the state row is locked elsewhere or the watermark
+     * has already reached the settle point.
+     */
+    private FoldedWindow foldWindow() {
+        List<Object> locked = rollupRepository.lockWatermark(STATE_ID);
+        if (locked.isEmpty() || locked.get(0) == null) {
+            log.debug("Engagement rollup state is locked by another node or missing, skipping");
+            return null;
+        }
+
+        OffsetDateTime watermark = toOffsetDateTime(locked.get(0));
+        OffsetDateTime settled = OffsetDateTime.now(ZoneOffset.UTC).minusSeconds(settleSeconds);
+        if (!watermark.isBefore(settled)) {
+            return null;
+        }
+        OffsetDateTime windowEnd = watermark.plus(Duration.ofHours(maxWindowHours));
+        boolean more = windowEnd.isBefore(settled);
+        if (!more) {
+            windowEnd = settled;
+        }
+        OffsetDateTime windowStart = watermark.minusSeconds(overlapSeconds);
+
+        Set<String> courseIds = new HashSet<>();
+        Set<String> sectionIds = new HashSet<>();
+        Set<String> classIds = new HashSet<>();
+        for (Object[] row : rollupRepository.findTouchedScopes(windowStart, windowEnd)) {
+            if (row[0] != null) courseIds.add((String) row[0]);
+            if (row[1] != null) sectionIds.add((String) row[1]);
+            if (row[2] != null) classIds.add((String) row[2]);
+        }
+
+        rollupRepository.deleteDirtyLectureRollups(windowStart, windowEnd);
+        rollupRepository.deleteDirtyDailyViewers(windowStart, windowEnd);
+        int rollupRows = rollupRepository.insertLectureRollups(windowStart, windowEnd, SHORT_SESSION_THRESHOLD_SECONDS);
+        int viewerRows = rollupRepository.insertDailyViewers(windowStart, windowEnd);
+        rollupRepository.advanceWatermark(STATE_ID, windowEnd);
+
+        if (rollupRows > 0) {
+            log.debug("Folded engagement rollups for ({}, {}]: {} rollup rows, {} viewer rows",
+                    windowStart, windowEnd, rollupRows, viewerRows);
+        }
+        return new FoldedWindow(courseIds, sectionIds, classIds, more);
+    }
+
+    private void evict(String cacheName, Set<String> keys) {
+        if (keys.isEmpty()) return;
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return;
+        for (String key : keys) {
+            cache.evict(key);
+        }
+    }
+
+    private OffsetDateTime toOffsetDateTime(Object value) {
+        if (value instanceof OffsetDateTime odt) {
+            return odt;
+        }
+        if (value instanceof Timestamp ts) {
+            return ts.toInstant().atOffset(ZoneOffset.UTC);
+        }
+        if (value instanceof Instant instant) {
+            return instant.atOffset(ZoneOffset.UTC);
+        }
+        throw new IllegalStateException("Unexpected watermark type: " + value.getClass().getName());
+    }
+
+    /**
+     * Scopes touched by one committed window; more is true when history is left before the
+     * settle point.
+     */
+    private record FoldedWindow(Set<String> courseIds, Set<String> sectionIds, Set<String> classIds,
+                                boolean more) {
+    }
+}
@@ -1,8 +1,9 @@
 package com.datagami.edudron.student.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
+import com.datagami.edudron.student.client.IdentityLookup;
+import com.datagami.edudron.student.client.IdentityUserClient;
 import com.datagami.edudron.student.domain.Class;
 import com.datagami.edudron.student.domain.Enrollment;
 import com.datagami.edudron.student.domain.Institute;
@@ -19,10 +20,12 @@ import com.datagami.edudron.student.dto.ClassStudentDTO;
 import com.datagami.edudron.student.dto.StudentClassSectionInfoDTO;
 import com.datagami.edudron.student.dto.TransferEnrollmentError;
 import com.datagami.edudron.student.dto.TransferEnrollmentRequest;
+import com.datagami.edudron.student.repo.BulkWriteRepository;
 import com.datagami.edudron.student.repo.ClassRepository;
 import com.datagami.edudron.student.repo.EnrollmentRepository;
 import com.datagami.edudron.student.repo.InstituteRepository;
 import com.datagami.edudron.student.repo.SectionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,19 +40,17 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +66,9 @@ public class EnrollmentService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     
+    @Autowired
+    private BulkWriteRepository bulkWriteRepository;
+    
     @Autowired
     private SectionRepository sectionRepository;
     
@@ -83,50 +87,17 @@ public class EnrollmentService {
     @Autowired
     private LectureViewSessionService sessionService;
 
+    @Autowired
+    private IdentityUserClient identityUserClient;
+
+    @Autowired
+    private IdentityLookup identityLookup;
+
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
     
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-    
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token (Authorization header)
-                    interceptors.add((request, body, execution) -> {
-                        // Get current request to extract Authorization header
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                // Only add if not already present
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                    log.debug("Propagated Authorization header (JWT token) to content service: {}", request.getURI());
-                                } else {
-                                    log.debug("Authorization header already present in request to {}", request.getURI());
-                                }
-                            } else {
-                                log.warn("No Authorization header found in current request - content service call may fail with 403 Forbidden: {}", request.getURI());
-                            }
-                        } else {
-                            log.error("No request context available - cannot forward Authorization header to {}. This may cause 403 Forbidden errors.", request.getURI());
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
     
     /**
      * Get the current user's role from SecurityContext.
@@ -181,27 +152,9 @@ public class EnrollmentService {
     /**
      * Check if student self-enrollment is enabled for the current tenant.
      */
-    private boolean isStudentSelfEnrollmentEnabled(UUID clientId) {
+    private boolean isStudentSelfEnrollmentEnabled() {
         try {
-            String featureUrl = gatewayUrl + "/api/tenant/features/student-self-enrollment";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<?> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Boolean> response = getRestTemplate().exchange(
-                featureUrl,
-                HttpMethod.GET,
-                entity,
-                Boolean.class
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return Boolean.TRUE.equals(response.getBody());
-            }
-            
-            // Default to false if call fails
-            log.warn("Failed to fetch student self-enrollment feature, defaulting to false");
-            return false;
+            return identityLookup.isStudentSelfEnrollmentEnabled();
         } catch (Exception e) {
             log.error("Error checking student self-enrollment feature: {}", e.getMessage(), e);
             // Default to false on error
@@ -222,7 +175,7 @@ public class EnrollmentService {
         
         if (isStudent) {
             // Check if student self-enrollment is enabled for this tenant
-            boolean selfEnrollmentEnabled = isStudentSelfEnrollmentEnabled(clientId);
+            boolean selfEnrollmentEnabled = isStudentSelfEnrollmentEnabled();
             if (!selfEnrollmentEnabled) {
                 throw new org.springframework.security.access.AccessDeniedException(
                     "Student self-enrollment is disabled. Please contact your instructor to enroll you in this course."
@@ -251,9 +204,75 @@ public class EnrollmentService {
             }
         }
         
+        Placement placement = resolvePlacement(request, clientId);
+        String instituteId = placement.instituteId();
+        String classId = placement.classId();
+        String sectionId = placement.sectionId();
+        
+        // Check section capacity
+        Section section = placement.section();
+        if (section != null && section.getMaxStudents() != null) {
+            long currentCount = sectionRepository.countStudentsInSection(clientId, section.getId());
+            if (currentCount >= section.getMaxStudents()) {
+                throw new IllegalArgumentException("Section is full");
+            }
+        }
+        
+        Enrollment enrollment = new Enrollment();
+        enrollment.setId(UlidGenerator.nextUlid());
+        enrollment.setClientId(clientId);
+        enrollment.setStudentId(studentId);
+        enrollment.setCourseId(request.getCourseId());
+        enrollment.setBatchId(sectionId); // Keep batchId for backward compatibility
+        enrollment.setInstituteId(instituteId);
+        enrollment.setClassId(classId);
+        
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        log.info("Created enrollment for student {} in course {} (classId={}, sectionId={}, enrollmentId={})", 
+            studentId, request.getCourseId(), classId, sectionId, saved.getId());
+        
+        // Log enrollment event
+        String currentUserId = getCurrentUserId();
+        String currentUserEmail = getCurrentUserEmail();
+        Map<String, Object> eventData = Map.of(
+            "enrollmentId", saved.getId(),
+            "studentId", studentId,
+            "courseId", request.getCourseId(),
+            "instituteId", instituteId != null ? instituteId : "",
+            "classId", classId != null ? classId : "",
+            "sectionId", sectionId != null ? sectionId : ""
+        );
+        eventService.logUserAction("COURSE_ENROLLED", currentUserId, currentUserEmail, "/api/courses/" + request.getCourseId() + "/enroll", eventData);
+        auditService.logCrud(clientId, "CREATE", "Enrollment", saved.getId(), currentUserId, currentUserEmail, eventData);
+
+        // Automatically enroll student in all published courses assigned to this section/class
+        // This happens after the main enrollment is created to ensure consistency
+        try {
+            autoEnrollStudentInAssignedCourses(studentId, sectionId, classId, instituteId, clientId);
+        } catch (Exception e) {
+            // Log error but don't fail the main enrollment
+            log.warn("Failed to auto-enroll student {} in assigned courses for section {} / class {}: {}", 
+                studentId, sectionId, classId, e.getMessage(), e);
+        }
+        
+        return toDTO(saved);
+    }
+    
+    /**
+     * Placement of an enrollment, resolved from the most specific of section, class or institute.
+     * Section is the loaded section when one was given, for the capacity check.
+     */
+    private record Placement(String instituteId, String classId, String sectionId, Section section) {
+    }
+    
+    /**
+     * Validate the requested section/class/institute and resolve the ids stored on the enrollment.
+     */
+    private Placement resolvePlacement(CreateEnrollmentRequest request, UUID clientId) {
         String instituteId = null;
         String classId = null;
         String sectionId = null;
+        Section placedSection = null;
         
         // Validate hierarchy if provided
         if (request.getBatchId() != null && !request.getBatchId().isBlank()) {
@@ -284,13 +303,7 @@ public class EnrollmentService {
                 throw new IllegalArgumentException("Institute is not active");
             }
             
-            // Check section capacity
-            if (section.getMaxStudents() != null) {
-                long currentCount = sectionRepository.countStudentsInSection(clientId, section.getId());
-                if (currentCount >= section.getMaxStudents()) {
-                    throw new IllegalArgumentException("Section is full");
-                }
-            }
+            placedSection = section;
             
             // Assign to outer variables after validation
             sectionId = finalSectionId;
@@ -331,44 +344,140 @@ public class EnrollmentService {
             instituteId = finalInstituteId;
         }
         
-        Enrollment enrollment = new Enrollment();
-        enrollment.setId(UlidGenerator.nextUlid());
-        enrollment.setClientId(clientId);
-        enrollment.setStudentId(studentId);
-        enrollment.setCourseId(request.getCourseId());
-        enrollment.setBatchId(sectionId); // Keep batchId for backward compatibility
-        enrollment.setInstituteId(instituteId);
-        enrollment.setClassId(classId);
+        return new Placement(instituteId, classId, sectionId, placedSection);
+    }
+    
+    /**
+     * Enroll a roster of students in one course with the same placement (bulk class/section
+     * enrollment). Permissions, placement and the acting user are resolved once, existing
+     * enrollments and association placeholders are looked up for the whole roster, and the new
+     * enrollments and their auto-enrollments are each written as one JDBC batch.
+     * Package-private for BulkEnrollmentService.
+     */
+    BulkEnrollmentResult enrollStudentsInBulk(Collection<String> studentIds, CreateEnrollmentRequest request) {
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null) {
+            throw new IllegalStateException("Tenant context is not set");
+        }
+        UUID clientId = UUID.fromString(clientIdStr);
+        String courseId = request.getCourseId();
         
-        Enrollment saved = enrollmentRepository.save(enrollment);
-        log.info("Created enrollment for student {} in course {} (classId={}, sectionId={}, enrollmentId={})", 
-            studentId, request.getCourseId(), classId, sectionId, saved.getId());
+        BulkEnrollmentResult result = new BulkEnrollmentResult();
+        result.setTotalStudents((long) studentIds.size());
+        result.setEnrolledStudents(0L);
+        result.setSkippedStudents(0L);
+        result.setFailedStudents(0L);
+        List<String> enrolledStudentIds = new ArrayList<>();
+        List<String> errorMessages = new ArrayList<>();
+        result.setEnrolledStudentIds(enrolledStudentIds);
+        result.setErrorMessages(errorMessages);
+        if (studentIds.isEmpty()) {
+            return result;
+        }
+        
+        if ("STUDENT".equals(getCurrentUserRole()) && !isStudentSelfEnrollmentEnabled()) {
+            throw new org.springframework.security.access.AccessDeniedException(
+                "Student self-enrollment is disabled. Please contact your instructor to enroll you in this course."
+            );
+        }
+        
+        Placement placement;
+        try {
+            placement = resolvePlacement(request, clientId);
+        } catch (IllegalArgumentException e) {
+            // Same outcome as enrolling one by one: every student fails with the placement error
+            for (String studentId : studentIds) {
+                errorMessages.add("Student " + studentId + ": " + e.getMessage());
+            }
+            result.setFailedStudents((long) studentIds.size());
+            return result;
+        }
+        String instituteId = placement.instituteId();
+        String classId = placement.classId();
+        String sectionId = placement.sectionId();
+        
+        Set<String> alreadyEnrolled = new HashSet<>(
+            enrollmentRepository.findStudentIdsEnrolledInCourse(clientId, courseId, studentIds));
+        List<String> candidates = studentIds.stream()
+            .filter(studentId -> !alreadyEnrolled.contains(studentId))
+            .collect(Collectors.toList());
+        result.setSkippedStudents((long) alreadyEnrolled.size());
+        if (candidates.isEmpty()) {
+            return result;
+        }
+        
+        // Association placeholders are replaced by the real enrollment
+        List<String> placeholderIds = enrollmentRepository
+            .findByClientIdAndCourseIdAndStudentIdIn(clientId, "__PLACEHOLDER_ASSOCIATION__", candidates)
+            .stream()
+            .filter(e -> classId != null && classId.equals(e.getClassId()) &&
+                         (sectionId == null || sectionId.equals(e.getBatchId())))
+            .map(Enrollment::getId)
+            .collect(Collectors.toList());
+        if (!placeholderIds.isEmpty()) {
+            enrollmentRepository.deleteAllByIdInBatch(placeholderIds);
+            log.debug("Removed {} placeholder enrollments before enrolling in course {}", placeholderIds.size(), courseId);
+        }
+        
+        // Students already counted in the section do not take a seat; anyone else needs a free one
+        Section section = placement.section();
+        Set<String> seated = Set.of();
+        long seatsTaken = 0;
+        if (section != null && section.getMaxStudents() != null) {
+            seatsTaken = sectionRepository.countStudentsInSection(clientId, section.getId());
+            seated = new HashSet<>(enrollmentRepository.findStudentIdsInSection(clientId, section.getId(), candidates));
+        }
+        
+        List<Enrollment> enrollments = new ArrayList<>(candidates.size());
+        for (String studentId : candidates) {
+            if (section != null && section.getMaxStudents() != null && !seated.contains(studentId)) {
+                if (seatsTaken >= section.getMaxStudents()) {
+                    errorMessages.add("Student " + studentId + ": Section is full");
+                    result.setFailedStudents(result.getFailedStudents() + 1);
+                    continue;
+                }
+                seatsTaken++;
+            }
+            Enrollment enrollment = new Enrollment();
+            enrollment.setId(UlidGenerator.nextUlid());
+            enrollment.setClientId(clientId);
+            enrollment.setStudentId(studentId);
+            enrollment.setCourseId(courseId);
+            enrollment.setBatchId(sectionId); // Keep batchId for backward compatibility
+            enrollment.setInstituteId(instituteId);
+            enrollment.setClassId(classId);
+            enrollments.add(enrollment);
+        }
+        bulkWriteRepository.insertEnrollments(enrollments);
+        log.info("Created {} enrollments in course {} (classId={}, sectionId={})",
+            enrollments.size(), courseId, classId, sectionId);
         
-        // Log enrollment event
         String currentUserId = getCurrentUserId();
         String currentUserEmail = getCurrentUserEmail();
-        Map<String, Object> eventData = Map.of(
-            "enrollmentId", saved.getId(),
-            "studentId", studentId,
-            "courseId", request.getCourseId(),
-            "instituteId", instituteId != null ? instituteId : "",
-            "classId", classId != null ? classId : "",
-            "sectionId", sectionId != null ? sectionId : ""
-        );
-        eventService.logUserAction("COURSE_ENROLLED", currentUserId, currentUserEmail, "/api/courses/" + request.getCourseId() + "/enroll", eventData);
-        auditService.logCrud(clientId, "CREATE", "Enrollment", saved.getId(), currentUserId, currentUserEmail, eventData);
-
-        // Automatically enroll student in all published courses assigned to this section/class
-        // This happens after the main enrollment is created to ensure consistency
+        for (Enrollment enrollment : enrollments) {
+            Map<String, Object> eventData = Map.of(
+                "enrollmentId", enrollment.getId(),
+                "studentId", enrollment.getStudentId(),
+                "courseId", courseId,
+                "instituteId", instituteId != null ? instituteId : "",
+                "classId", classId != null ? classId : "",
+                "sectionId", sectionId != null ? sectionId : ""
+            );
+            eventService.logUserAction("COURSE_ENROLLED", currentUserId, currentUserEmail, "/api/courses/" + courseId + "/enroll", eventData);
+            auditService.logCrud(clientId, "CREATE", "Enrollment", enrollment.getId(), currentUserId, currentUserEmail, eventData);
+            enrolledStudentIds.add(enrollment.getStudentId());
+        }
+        result.setEnrolledStudents((long) enrollments.size());
+        
         try {
-            autoEnrollStudentInAssignedCourses(studentId, sectionId, classId, instituteId, clientId);
+            autoEnrollStudentsInAssignedCourses(enrolledStudentIds, sectionId, classId, instituteId, clientId);
         } catch (Exception e) {
-            // Log error but don't fail the main enrollment
-            log.warn("Failed to auto-enroll student {} in assigned courses for section {} / class {}: {}", 
-                studentId, sectionId, classId, e.getMessage(), e);
+            // Log error but don't fail the main enrollments
+            log.warn("Failed to auto-enroll {} students in assigned courses for section {} / class {}: {}",
+                enrolledStudentIds.size(), sectionId, classId, e.getMessage(), e);
         }
         
-        return toDTO(saved);
+        return result;
     }
     
     public EnrollmentDTO getEnrollment(String enrollmentId) {
@@ -1026,49 +1135,34 @@ public class EnrollmentService {
         Section section = sectionRepository.findByIdAndClientId(sectionId, clientId)
             .orElseThrow(() -> new IllegalArgumentException("Section not found: " + sectionId));
         
-        // Get all enrollments for this section (batchId is sectionId)
-        List<Enrollment> enrollments = enrollmentRepository.findByClientIdAndBatchId(clientId, sectionId);
+        // Page distinct student IDs at the query level (batchId is sectionId), so only the
+        // requested page is resolved against identity
+        Pageable effectivePageable = pageable != null ? pageable : Pageable.unpaged();
+        Page<String> studentIdPage = enrollmentRepository.findDistinctStudentIdsByClientIdAndSectionId(
+            clientId, sectionId, effectivePageable);
         
-        // Extract unique student IDs
-        List<String> studentIds = enrollments.stream()
-            .map(Enrollment::getStudentId)
-            .distinct()
-            .collect(Collectors.toList());
-        
-        if (studentIds.isEmpty()) {
-            return new PageImpl<>(new ArrayList<>(), pageable != null ? pageable : Pageable.unpaged(), 0);
+        if (studentIdPage.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), effectivePageable, studentIdPage.getTotalElements());
         }
         
-        // Fetch user details from identity service
+        // Fetch user details for the page in one batched identity call
+        Map<String, JsonNode> users = identityUserClient.getUsersByIds(studentIdPage.getContent());
         List<SectionStudentDTO> students = new ArrayList<>();
-        for (String studentId : studentIds) {
-            try {
-                UserDTO user = getUserFromIdentityService(studentId);
-                if (user != null) {
-                    students.add(new SectionStudentDTO(
-                        user.getId(),
-                        user.getName(),
-                        user.getEmail(),
-                        user.getPhone()
-                    ));
-                }
-            } catch (Exception e) {
-                log.warn("Failed to fetch user details for student {}: {}", studentId, e.getMessage());
-                // Continue with other students even if one fails
+        for (String studentId : studentIdPage.getContent()) {
+            JsonNode user = users.get(studentId);
+            if (user != null) {
+                students.add(new SectionStudentDTO(
+                    user.path("id").asText(null),
+                    user.path("name").asText(null),
+                    user.path("email").asText(null),
+                    user.path("phone").asText(null)
+                ));
+            } else {
+                log.warn("Failed to fetch user details for student {}", studentId);
             }
         }
         
-        // Apply pagination if pageable is provided
-        if (pageable != null && pageable.isPaged()) {
-            int start = (int) pageable.getOffset();
-            int end = Math.min((start + pageable.getPageSize()), students.size());
-            List<SectionStudentDTO> pagedStudents = start < students.size() 
-                ? students.subList(start, end) 
-                : new ArrayList<>();
-            return new PageImpl<>(pagedStudents, pageable, students.size());
-        }
-        
-        return new PageImpl<>(students, pageable != null ? pageable : Pageable.unpaged(), students.size());
+        return new PageImpl<>(students, effectivePageable, studentIdPage.getTotalElements());
     }
     
     public List<ClassStudentDTO> getStudentsByClass(String classId) {
@@ -1087,49 +1181,33 @@ public class EnrollmentService {
         Class classEntity = classRepository.findByIdAndClientId(classId, clientId)
             .orElseThrow(() -> new IllegalArgumentException("Class not found: " + classId));
         
-        // Get all enrollments for this class
-        List<Enrollment> enrollments = enrollmentRepository.findByClientIdAndClassId(clientId, classId);
-        
-        // Extract unique student IDs
-        List<String> studentIds = enrollments.stream()
-            .map(Enrollment::getStudentId)
-            .distinct()
-            .collect(Collectors.toList());
+        // Page distinct student IDs at the query level before any identity lookup
+        Pageable effectivePageable = pageable != null ? pageable : Pageable.unpaged();
+        Page<String> studentIdPage = enrollmentRepository.findDistinctStudentIdsByClientIdAndClassId(
+            clientId, classId, effectivePageable);
         
-        if (studentIds.isEmpty()) {
-            return new PageImpl<>(new ArrayList<>(), pageable != null ? pageable : Pageable.unpaged(), 0);
+        if (studentIdPage.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), effectivePageable, studentIdPage.getTotalElements());
         }
         
-        // Fetch user details from identity service
+        // Fetch user details for the page in one batched identity call
+        Map<String, JsonNode> users = identityUserClient.getUsersByIds(studentIdPage.getContent());
         List<ClassStudentDTO> students = new ArrayList<>();
-        for (String studentId : studentIds) {
-            try {
-                UserDTO user = getUserFromIdentityService(studentId);
-                if (user != null) {
-                    students.add(new ClassStudentDTO(
-                        user.getId(),
-                        user.getName(),
-                        user.getEmail(),
-                        user.getPhone()
-                    ));
-                }
-            } catch (Exception e) {
-                log.warn("Failed to fetch user details for student {}: {}", studentId, e.getMessage());
-                // Continue with other students even if one fails
+        for (String studentId : studentIdPage.getContent()) {
+            JsonNode user = users.get(studentId);
+            if (user != null) {
+                students.add(new ClassStudentDTO(
+                    user.path("id").asText(null),
+                    user.path("name").asText(null),
+                    user.path("email").asText(null),
+                    user.path("phone").asText(null)
+                ));
+            } else {
+                log.warn("Failed to fetch user details for student {}", studentId);
             }
         }
         
-        // Apply pagination if pageable is provided
-        if (pageable != null && pageable.isPaged()) {
-            int start = (int) pageable.getOffset();
-            int end = Math.min((start + pageable.getPageSize()), students.size());
-            List<ClassStudentDTO> pagedStudents = start < students.size() 
-                ? students.subList(start, end) 
-                : new ArrayList<>();
-            return new PageImpl<>(pagedStudents, pageable, students.size());
-        }
-        
-        return new PageImpl<>(students, pageable != null ? pageable : Pageable.unpaged(), students.size());
+        return new PageImpl<>(students, effectivePageable, studentIdPage.getTotalElements());
     }
     
     /**
@@ -1167,69 +1245,9 @@ public class EnrollmentService {
      */
     void autoEnrollStudentInAssignedCourses(String studentId, String sectionId, String classId, 
                                                     String instituteId, UUID clientId) {
-        List<CourseDTO> coursesToEnroll = new ArrayList<>();
-        
-        // Priority: If sectionId is provided, only enroll in section-assigned courses (more specific)
-        // If only classId is provided, enroll in class-assigned courses
-        if (sectionId != null && !sectionId.isBlank()) {
-            log.debug("Auto-enrolling student {} in courses assigned to section {}", studentId, sectionId);
-            try {
-                String url = gatewayUrl + "/content/courses/section/" + sectionId;
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                HttpEntity<?> entity = new HttpEntity<>(headers);
-                
-                ResponseEntity<CourseDTO[]> response = getRestTemplate().exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    CourseDTO[].class
-                );
-                
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    coursesToEnroll = List.of(response.getBody());
-                    log.info("Found {} published courses assigned to section {} for auto-enrollment", 
-                        coursesToEnroll.size(), sectionId);
-                } else {
-                    log.warn("Content service returned non-2xx status when fetching courses for section {}: {}", 
-                        sectionId, response.getStatusCode());
-                }
-            } catch (Exception e) {
-                log.warn("Failed to fetch courses assigned to section {} for auto-enrollment: {}", 
-                    sectionId, e.getMessage(), e);
-                return; // Don't proceed if we can't fetch courses
-            }
-        } else if (classId != null && !classId.isBlank()) {
-            log.debug("Auto-enrolling student {} in courses assigned to class {}", studentId, classId);
-            try {
-                String url = gatewayUrl + "/content/courses/class/" + classId;
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                HttpEntity<?> entity = new HttpEntity<>(headers);
-                
-                ResponseEntity<CourseDTO[]> response = getRestTemplate().exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    CourseDTO[].class
-                );
-                
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    coursesToEnroll = List.of(response.getBody());
-                    log.info("Found {} published courses assigned to class {} for auto-enrollment", 
-                        coursesToEnroll.size(), classId);
-                } else {
-                    log.warn("Content service returned non-2xx status when fetching courses for class {}: {}", 
-                        classId, response.getStatusCode());
-                }
-            } catch (Exception e) {
-                log.warn("Failed to fetch courses assigned to class {} for auto-enrollment: {}", 
-                    classId, e.getMessage(), e);
-                return; // Don't proceed if we can't fetch courses
-            }
-        } else {
-            log.debug("No sectionId or classId provided, skipping auto-enrollment");
-            return;
+        List<CourseDTO> coursesToEnroll = fetchAssignedCourses(sectionId, classId);
+        if (coursesToEnroll == null) {
+            return; // Don't proceed if we can't fetch courses
         }
         
         if (coursesToEnroll.isEmpty()) {
@@ -1279,6 +1297,96 @@ public class EnrollmentService {
             studentId, enrolledCount, skippedCount, failedCount);
     }
     
+    /**
+     * Bulk counterpart of {@link #autoEnrollStudentInAssignedCourses}: the assigned courses are
+     * fetched once for the whole roster, existing enrollments are read in one query and the
+     * missing ones are inserted as one JDBC batch.
+     */
+    void autoEnrollStudentsInAssignedCourses(Collection<String> studentIds, String sectionId, String classId,
+                                             String instituteId, UUID clientId) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        List<CourseDTO> courses = fetchAssignedCourses(sectionId, classId);
+        if (courses == null || courses.isEmpty()) {
+            return;
+        }
+        List<String> courseIds = courses.stream().map(CourseDTO::getId).distinct().collect(Collectors.toList());
+        
+        Map<String, Set<String>> enrolledCourses = new HashMap<>();
+        for (Enrollment existing : enrollmentRepository.findByClientIdAndStudentIdInAndCourseIdIn(clientId, studentIds, courseIds)) {
+            enrolledCourses.computeIfAbsent(existing.getStudentId(), k -> new HashSet<>()).add(existing.getCourseId());
+        }
+        
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (String studentId : studentIds) {
+            Set<String> enrolled = enrolledCourses.getOrDefault(studentId, Set.of());
+            for (String courseId : courseIds) {
+                if (enrolled.contains(courseId)) {
+                    continue;
+                }
+                Enrollment enrollment = new Enrollment();
+                enrollment.setId(UlidGenerator.nextUlid());
+                enrollment.setClientId(clientId);
+                enrollment.setStudentId(studentId);
+                enrollment.setCourseId(courseId);
+                enrollment.setBatchId(sectionId); // Keep batchId for backward compatibility
+                enrollment.setInstituteId(instituteId);
+                enrollment.setClassId(classId);
+                enrollments.add(enrollment);
+            }
+        }
+        bulkWriteRepository.insertEnrollments(enrollments);
+        log.info("Auto-enrollment completed for {} students in {} assigned courses: {} enrollments created",
+            studentIds.size(), courseIds.size(), enrollments.size());
+    }
+    
+    /**
+     * Published courses assigned to the section, or to the class when no section is given.
+     * Returns null when neither is given or the content service cannot be reached.
+     */
+    private List<CourseDTO> fetchAssignedCourses(String sectionId, String classId) {
+        // Priority: If sectionId is provided, only enroll in section-assigned courses (more specific)
+        // If only classId is provided, enroll in class-assigned courses
+        String url;
+        String scope;
+        if (sectionId != null && !sectionId.isBlank()) {
+            url = gatewayUrl + "/content/courses/section/" + sectionId;
+            scope = "section " + sectionId;
+        } else if (classId != null && !classId.isBlank()) {
+            url = gatewayUrl + "/content/courses/class/" + classId;
+            scope = "class " + classId;
+        } else {
+            log.debug("No sectionId or classId provided, skipping auto-enrollment");
+            return null;
+        }
+        
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<?> entity = new HttpEntity<>(headers);
+            
+            ResponseEntity<CourseDTO[]> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                entity,
+                CourseDTO[].class
+            );
+            
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                List<CourseDTO> courses = List.of(response.getBody());
+                log.info("Found {} published courses assigned to {} for auto-enrollment", courses.size(), scope);
+                return courses;
+            }
+            log.warn("Content service returned non-2xx status when fetching courses for {}: {}",
+                scope, response.getStatusCode());
+            return List.of();
+        } catch (Exception e) {
+            log.warn("Failed to fetch courses assigned to {} for auto-enrollment: {}", scope, e.getMessage(), e);
+            return null;
+        }
+    }
+    
     /**
      * Fetch the first published course assigned to the given section or class (for transfer destination).
      * Section takes precedence if both are provided. Returns null if none assigned or on error.
@@ -1299,7 +1407,7 @@ public class EnrollmentService {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
-            ResponseEntity<CourseDTO[]> response = getRestTemplate().exchange(url, HttpMethod.GET, entity, CourseDTO[].class);
+            ResponseEntity<CourseDTO[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, CourseDTO[].class);
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null && response.getBody().length > 0) {
                 String courseId = response.getBody()[0].getId();
                 log.debug("First course assigned to {}: {}", scope, courseId);
@@ -1333,7 +1441,7 @@ public class EnrollmentService {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<?> entity = new HttpEntity<>(headers);
-            ResponseEntity<CourseDTO[]> response = getRestTemplate().exchange(url, HttpMethod.GET, entity, CourseDTO[].class);
+            ResponseEntity<CourseDTO[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, CourseDTO[].class);
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 Set<String> courseIds = new java.util.LinkedHashSet<>();
                 for (CourseDTO c : response.getBody()) {
@@ -1380,7 +1488,7 @@ public class EnrollmentService {
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
             try {
-                ResponseEntity<StudentSearchResponse> response = getRestTemplate().exchange(
+                ResponseEntity<StudentSearchResponse> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
@@ -1421,7 +1529,7 @@ public class EnrollmentService {
                       java.net.URLEncoder.encode(email, java.nio.charset.StandardCharsets.UTF_8);
                 log.debug("Trying search parameter with URL: {}", url);
                 
-                ResponseEntity<StudentSearchResponse> response = getRestTemplate().exchange(
+                ResponseEntity<StudentSearchResponse> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
@@ -1468,21 +1576,7 @@ public class EnrollmentService {
      */
     private UserDTO getUserFromIdentityService(String userId) {
         try {
-            String url = gatewayUrl + "/idp/users/" + userId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<?> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<UserDTO> response = getRestTemplate().exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                UserDTO.class
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody();
-            }
+            return identityLookup.getUser(userId, UserDTO.class);
         } catch (Exception e) {
             log.debug("Could not fetch user details for user {}: {}", userId, e.getMessage());
         }
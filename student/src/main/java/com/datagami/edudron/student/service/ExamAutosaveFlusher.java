@@ -0,0 +1,84 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.common.TenantContext;
+import org.hibernate.StaleObjectStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Background worker that persists journaled exam autosaves.
+ * Claims dirty submissions from Redis and writes their latest answers to Postgres;
+ * anything that fails is released back to the dirty set and retried on the next cycle.
+ */
+@Component
+public class ExamAutosaveFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAutosaveFlusher.class);
+
+    private static final int BATCH_SIZE = 200;
+
+    @Autowired
+    private ExamAutosaveJournal autosaveJournal;
+
+    @Autowired
+    private ExamSubmissionService examSubmissionService;
+
+    @Scheduled(fixedDelayString = "${exam.autosave.flush-interval-ms:5000}")
+    public void flushDirtySubmissions() {
+        if (!autosaveJournal.isActive()) return;
+
+        List<String> submissionIds;
+        try {
+            submissionIds = autosaveJournal.claimDirty(BATCH_SIZE);
+        } catch (Exception e) {
+            logger.error("Error polling autosave journal", e);
+            return;
+        }
+
+        for (String submissionId : submissionIds) {
+            ExamAutosaveJournal.Pending pending = autosaveJournal.read(submissionId);
+            if (pending == null) {
+                acknowledge(submissionId);
+                continue;
+            }
+
+            TenantContext.setClientId(pending.clientId().toString());
+            try {
+                examSubmissionService.flushAutosave(submissionId);
+                acknowledge(submissionId);
+            } catch (OptimisticLockingFailureException | StaleObjectStateException e) {
+                logger.debug("Concurrent update while flushing autosave for {}, retrying next cycle", submissionId);
+                requeue(submissionId);
+            } catch (Exception e) {
+                logger.error("Failed to flush autosave for submission {}", submissionId, e);
+                requeue(submissionId);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private void acknowledge(String submissionId) {
+        try {
+            autosaveJournal.acknowledge(submissionId);
+        } catch (Exception e) {
+            // The claim lapses and the submission is flushed again, which is harmless
+            logger.warn("Failed to acknowledge autosave flush for submission {}: {}", submissionId, e.getMessage());
+        }
+    }
+
+    private void requeue(String submissionId) {
+        try {
+            autosaveJournal.release(submissionId);
+        } catch (Exception e) {
+            // Still claimed, so the next claim after the timeout returns it to the dirty set
+            logger.error("Failed to re-queue autosave flush for submission {}", submissionId, e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.domain.AssessmentSubmission;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Redis journal for exam autosaves.
+ *
+ * Each in-progress submission has one hash (exam:autosave:{submissionId}) holding the latest
+ * answers, time remaining and tenant, plus membership in a dirty set. saveProgress appends to
+ * it with a single atomic script and acknowledges; {@code ExamAutosaveFlusher} folds dirty
+ * entries into assessment_submissions in the background, and submit/resume/read paths merge
+ * whatever is still pending, so the journal is never the only place a student can look.
+ *
+ * The flusher claims dirty entries by moving them to a processing set stamped with the claim
+ * time, and removes them only once the write has succeeded. A claim older than
+ * exam.autosave.claim-timeout-seconds (a node that died mid-flush) is returned to the dirty set
+ * by the next claim, so a crash never loses a pending autosave.
+ *
+ * On submit the hash is replaced by a "closed" tombstone so an autosave that races the
+ * submit on another node is rejected instead of resurrecting the attempt.
+ */
+@Component
+public class ExamAutosaveJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamAutosaveJournal.class);
+
+    private static final String KEY_PREFIX = "exam:autosave:";
+    private static final String DIRTY_KEY = "exam:autosave:dirty";
+    private static final String PROCESSING_KEY = "exam:autosave:processing";
+
+    // KEYS[1] = journal hash, KEYS[2] = dirty set
+    // ARGV = answers, timeRemainingSeconds ('' = unchanged), clientId, updatedAt, ttlSeconds, submissionId
+    private static final DefaultRedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'closed') == '1' then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'answers', ARGV[1], 'clientId', ARGV[3], 'updatedAt', ARGV[4])
+            if ARGV[2] ~= '' then
+                redis.call('HSET', KEYS[1], 'timeRemainingSeconds', ARGV[2])
+            end
+            redis.call('EXPIRE', KEYS[1], tonumber(ARGV[5]))
+            redis.call('SADD', KEYS[2], ARGV[6])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = dirty set, KEYS[2] = processing zset (submissionId -> claimed at, epoch ms)
+    // ARGV = count, now, claims stamped before this are stale
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[3])
+            for _, id in ipairs(stale) do
+                redis.call('ZREM', KEYS[2], id)
+                redis.call('SADD', KEYS[1], id)
+            end
+            local ids = redis.call('SPOP', KEYS[1], tonumber(ARGV[1]))
+            for _, id in ipairs(ids) do
+                redis.call('ZADD', KEYS[2], tonumber(ARGV[2]), id)
+            end
+            return ids
+            """, List.class);
+
+    // KEYS[1] = dirty set, KEYS[2] = processing zset; ARGV[1] = submissionId
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('ZREM', KEYS[2], ARGV[1]) == 1 then
+                redis.call('SADD', KEYS[1], ARGV[1])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${exam.autosave.journal-enabled:false}")
+    private boolean enabled;
+
+    @Value("${exam.autosave.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${exam.autosave.claim-timeout-seconds:60}")
+    private long claimTimeoutSeconds;
+
+    // Submission fields needed to validate and answer an autosave without reading Postgres
+    private final Cache<String, AssessmentSubmission> snapshots = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    /**
+     * Answers and timer still waiting to be written to Postgres.
+     */
+    public record Pending(UUID clientId, JsonNode answers, Integer timeRemainingSeconds) {
+    }
+
+    public boolean isActive() {
+        return enabled && redisTemplate != null;
+    }
+
+    /**
+     * Cached copy of a submission without its answers, loading it through {@code loader} on a miss.
+     * Completed submissions are not cached.
+     */
+    public AssessmentSubmission snapshot(String submissionId, Function<String, AssessmentSubmission> loader) {
+        return snapshots.get(submissionId, id -> {
+            AssessmentSubmission loaded = loader.apply(id);
+            return loaded != null && loaded.getCompletedAt() == null ? copyWithoutAnswers(loaded) : null;
+        });
+    }
+
+    /**
+     * Record the latest answers for a submission.
+     *
+     * @return false if the submission was closed by a submit in the meantime
+     */
+    public boolean append(String submissionId, UUID clientId, JsonNode answers, Integer timeRemainingSeconds) {
+        String answersJson;
+        try {
+            answersJson = objectMapper.writeValueAsString(answers);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid answers payload", e);
+        }
+        Long result = redisTemplate.execute(APPEND_SCRIPT,
+                List.of(KEY_PREFIX + submissionId, DIRTY_KEY),
+                answersJson,
+                timeRemainingSeconds != null ? timeRemainingSeconds.toString() : "",
+                clientId.toString(),
+                OffsetDateTime.now().toString(),
+                String.valueOf(Duration.ofHours(ttlHours).toSeconds()),
+                submissionId);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * Pending state for a submission, or null when there is nothing to merge.
+     * Never throws: a Redis outage just means nothing newer than Postgres is known.
+     */
+    public Pending read(String submissionId) {
+        if (!isActive()) return null;
+        try {
+            Map<Object, Object> entry = redisTemplate.opsForHash().entries(KEY_PREFIX + submissionId);
+            if (entry.isEmpty() || "1".equals(entry.get("closed")) || entry.get("answers") == null) {
+                return null;
+            }
+            String timeRemaining = (String) entry.get("timeRemainingSeconds");
+            return new Pending(
+                    UUID.fromString((String) entry.get("clientId")),
+                    objectMapper.readTree((String) entry.get("answers")),
+                    timeRemaining != null ? Integer.valueOf(timeRemaining) : null);
+        } catch (Exception e) {
+            logger.warn("Failed to read autosave journal for submission {}: {}", submissionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Claim up to count dirty submissions for flushing. Each must be passed to
+     * {@link #acknowledge} once written or {@link #release} if the write failed.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> claimDirty(int count) {
+        long now = System.currentTimeMillis();
+        List<String> ids = redisTemplate.execute(CLAIM_SCRIPT,
+                List.of(DIRTY_KEY, PROCESSING_KEY),
+                String.valueOf(count),
+                String.valueOf(now),
+                String.valueOf(now - Duration.ofSeconds(claimTimeoutSeconds).toMillis()));
+        return ids != null ? ids : List.of();
+    }
+
+    /**
+     * The claimed submission is in Postgres; an autosave since the claim has marked it dirty again.
+     */
+    public void acknowledge(String submissionId) {
+        redisTemplate.opsForZSet().remove(PROCESSING_KEY, submissionId);
+    }
+
+    /**
+     * Return a claimed submission to the dirty set for the next cycle.
+     */
+    public void release(String submissionId) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(DIRTY_KEY, PROCESSING_KEY), submissionId);
+    }
+
+    /**
+     * Drop the pending state once the submission is final, leaving a tombstone that rejects
+     * late autosaves until it expires.
+     */
+    public void close(String submissionId) {
+        snapshots.invalidate(submissionId);
+        if (!isActive()) return;
+        try {
+            String key = KEY_PREFIX + submissionId;
+            redisTemplate.delete(key);
+            redisTemplate.opsForHash().put(key, "closed", "1");
+            redisTemplate.expire(key, Duration.ofHours(ttlHours));
+            redisTemplate.opsForSet().remove(DIRTY_KEY, submissionId);
+            redisTemplate.opsForZSet().remove(PROCESSING_KEY, submissionId);
+        } catch (Exception e) {
+            logger.warn("Failed to close autosave journal for submission {}: {}", submissionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Forget pending state that a direct Postgres write has superseded.
+     */
+    public void discard(String submissionId) {
+        snapshots.invalidate(submissionId);
+        if (!isActive()) return;
+        try {
+            redisTemplate.delete(KEY_PREFIX + submissionId);
+            redisTemplate.opsForSet().remove(DIRTY_KEY, submissionId);
+            redisTemplate.opsForZSet().remove(PROCESSING_KEY, submissionId);
+        } catch (Exception e) {
+            logger.warn("Failed to discard autosave journal for submission {}: {}", submissionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Fresh response object for an acknowledged autosave.
+     */
+    public AssessmentSubmission acknowledged(AssessmentSubmission snapshot, JsonNode answers,
+            Integer timeRemainingSeconds) {
+        AssessmentSubmission copy = copyWithoutAnswers(snapshot);
+        copy.setAnswersJson(answers);
+        if (timeRemainingSeconds != null) {
+            copy.setTimeRemainingSeconds(timeRemainingSeconds);
+        }
+        return copy;
+    }
+
+    private AssessmentSubmission copyWithoutAnswers(AssessmentSubmission source) {
+        AssessmentSubmission copy = new AssessmentSubmission();
+        copy.setId(source.getId());
+        copy.setVersion(source.getVersion());
+        copy.setClientId(source.getClientId());
+        copy.setStudentId(source.getStudentId());
+        copy.setEnrollmentId(source.getEnrollmentId());
+        copy.setAssessmentId(source.getAssessmentId());
+        copy.setCourseId(source.getCourseId());
+        copy.setScore(source.getScore());
+        copy.setMaxScore(source.getMaxScore());
+        copy.setPercentage(source.getPercentage());
+        copy.setIsPassed(source.getIsPassed());
+        copy.setSubmittedAt(source.getSubmittedAt());
+        copy.setGradedAt(source.getGradedAt());
+        copy.setStartedAt(source.getStartedAt());
+        copy.setCompletedAt(source.getCompletedAt());
+        copy.setTimeRemainingSeconds(source.getTimeRemainingSeconds());
+        copy.setReviewStatus(source.getReviewStatus());
+        copy.setAiReviewFeedback(source.getAiReviewFeedback());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setMarkedAsCheating(source.getMarkedAsCheating());
+        return copy;
+    }
+}
@@ -17,6 +17,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -51,6 +53,9 @@ public class ExamSubmissionService {
     @Autowired
     private AssessmentJourneyService assessmentJourneyService;
 
+    @Autowired
+    private ExamAutosaveJournal autosaveJournal;
+
     /**
      * Timing mode for exams - mirrors the Assessment.TimingMode enum
      */
@@ -112,6 +117,10 @@ public class ExamSubmissionService {
                     .orElse(null);
 
             if (submission != null) {
+                // Pick up autosaves that have not been flushed yet
+                if (applyPendingAutosave(submission)) {
+                    submission = submissionRepository.save(submission);
+                }
                 // Resume existing attempt - recalculate time remaining based on timing mode
                 Integer updatedTimeRemaining = calculateTimeRemaining(submission, timingMode, timeLimitSeconds,
                         examEndTime);
@@ -346,6 +355,14 @@ public class ExamSubmissionService {
         }
         UUID clientId = UUID.fromString(clientIdStr);
 
+        if (autosaveJournal.isActive()) {
+            AssessmentSubmission journaled = saveProgressToJournal(clientId, submissionId, answers,
+                    timeRemainingSeconds);
+            if (journaled != null) {
+                return journaled;
+            }
+        }
+
         int maxRetries = 3;
         int attempt = 0;
 
@@ -362,6 +379,9 @@ public class ExamSubmissionService {
                     throw new IllegalStateException("Cannot save progress for completed exam");
                 }
 
+                // A direct write supersedes anything journaled before Redis became unavailable
+                autosaveJournal.discard(submissionId);
+
                 submission.setAnswersJson(answers);
                 if (timeRemainingSeconds != null) {
                     submission.setTimeRemainingSeconds(timeRemainingSeconds);
@@ -397,6 +417,81 @@ public class ExamSubmissionService {
         return null; // Should not reach here
     }
 
+    /**
+     * Journal an autosave in Redis instead of writing the submission row. Returns null when
+     * Redis fails so the caller falls back to the direct write.
+     */
+    private AssessmentSubmission saveProgressToJournal(UUID clientId, String submissionId, JsonNode answers,
+            Integer timeRemainingSeconds) {
+        AssessmentSubmission snapshot = autosaveJournal.snapshot(submissionId,
+                id -> submissionRepository.findById(id).orElse(null));
+        if (snapshot == null) {
+            // Unknown or completed: let the direct path produce the usual error
+            return null;
+        }
+        if (!snapshot.getClientId().equals(clientId)) {
+            throw new IllegalArgumentException("Submission not found: " + submissionId);
+        }
+
+        boolean appended;
+        try {
+            appended = autosaveJournal.append(submissionId, clientId, answers, timeRemainingSeconds);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Autosave journal unavailable, saving progress directly for {}: {}", submissionId,
+                    e.getMessage());
+            return null;
+        }
+        if (!appended) {
+            throw new IllegalStateException("Cannot save progress for completed exam");
+        }
+        return autosaveJournal.acknowledged(snapshot, answers, timeRemainingSeconds);
+    }
+
+    /**
+     * Write journaled autosaves for one submission to Postgres. Called by ExamAutosaveFlusher;
+     * optimistic locking failures propagate so the flusher can retry on the next cycle.
+     */
+    public void flushAutosave(String submissionId) {
+        AssessmentSubmission submission = submissionRepository.findById(submissionId).orElse(null);
+        if (submission == null) {
+            autosaveJournal.discard(submissionId);
+            return;
+        }
+        if (submission.getCompletedAt() != null) {
+            autosaveJournal.close(submissionId);
+            return;
+        }
+        if (applyPendingAutosave(submission)) {
+            submissionRepository.save(submission);
+            assessmentJourneyService.recordEventAsync(submissionId, "SAVE_PROGRESS", "INFO",
+                    Map.of("trigger", "autosave-flush", "timeRemainingSeconds",
+                            submission.getTimeRemainingSeconds() != null ? submission.getTimeRemainingSeconds() : 0));
+        }
+    }
+
+    /**
+     * Overlay journaled answers and timer onto a submission. Returns true if anything changed.
+     */
+    private boolean applyPendingAutosave(AssessmentSubmission submission) {
+        ExamAutosaveJournal.Pending pending = autosaveJournal.read(submission.getId());
+        if (pending == null || !submission.getClientId().equals(pending.clientId())) {
+            return false;
+        }
+        boolean changed = false;
+        if (pending.answers() != null && !pending.answers().equals(submission.getAnswersJson())) {
+            submission.setAnswersJson(pending.answers());
+            changed = true;
+        }
+        if (pending.timeRemainingSeconds() != null
+                && !pending.timeRemainingSeconds().equals(submission.getTimeRemainingSeconds())) {
+            submission.setTimeRemainingSeconds(pending.timeRemainingSeconds());
+            changed = true;
+        }
+        return changed;
+    }
+
     /**
      * Submit exam - final submission
      */
@@ -426,12 +521,15 @@ public class ExamSubmissionService {
                     throw new IllegalStateException("Exam has already been submitted");
                 }
 
+                // Final answers come from the request; the journal only contributes the timer
+                applyPendingAutosave(submission);
                 submission.setAnswersJson(answers);
                 submission.setCompletedAt(OffsetDateTime.now());
                 submission.setSubmittedAt(OffsetDateTime.now());
 
                 AssessmentSubmission saved = submissionRepository.save(submission);
                 logger.info("Submitted exam: {} for submission: {}", submission.getAssessmentId(), submissionId);
+                closeAutosaveJournalAfterCommit(submissionId);
 
                 // Log assessment submission event
                 Integer score = saved.getScore() != null ? saved.getScore().intValue() : null;
@@ -479,6 +577,19 @@ public class ExamSubmissionService {
         return null;
     }
 
+    private void closeAutosaveJournalAfterCommit(String submissionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    autosaveJournal.close(submissionId);
+                }
+            });
+        } else {
+            autosaveJournal.close(submissionId);
+        }
+    }
+
     /**
      * Get submission status
      */
@@ -497,6 +608,10 @@ public class ExamSubmissionService {
             throw new IllegalArgumentException("Submission not found: " + submissionId);
         }
 
+        // Read-only transaction: the overlay is never flushed
+        if (submission.getCompletedAt() == null) {
+            applyPendingAutosave(submission);
+        }
         return submission;
     }
 
@@ -511,9 +626,14 @@ public class ExamSubmissionService {
         }
         UUID clientId = UUID.fromString(clientIdStr);
 
-        return submissionRepository
+        AssessmentSubmission submission = submissionRepository
                 .findFirstByClientIdAndStudentIdAndAssessmentIdOrderBySubmittedAtDesc(clientId, studentId, examId)
                 .orElse(null);
+        // Read-only transaction: the overlay is never flushed
+        if (submission != null && submission.getCompletedAt() == null) {
+            applyPendingAutosave(submission);
+        }
+        return submission;
     }
 
     /**
@@ -37,6 +37,12 @@ public class LectureViewSessionService {
     
     @Autowired
     private CommonEventService eventService;
+
+    @Autowired
+    private EngagementRollupService rollupService;
+
+    @Autowired
+    private SessionHeartbeatBuffer heartbeatBuffer;
     
     public LectureViewSessionDTO startSession(String studentId, StartSessionRequest request) {
         log.info("[Session Service] Starting session: studentId={}, courseId={}, lectureId={}, progressAtStart={}", 
@@ -83,7 +89,7 @@ public class LectureViewSessionService {
             saved.getId(), studentId, request.getLectureId(), enrollment.getId());
         
         // Invalidate course analytics cache when new session is created
-        evictCourseAnalyticsCache(saved.getCourseId());
+        onSessionChanged(saved.getCourseId());
         
         return toDTO(saved);
     }
@@ -93,6 +99,15 @@ public class LectureViewSessionService {
         log.info("[Session Service] Updating session: sessionId={}, progressAtEnd={}, isCompleted={}", 
             sessionId, request.getProgressAtEnd(), request.getIsCompleted());
         
+        // Heartbeats on open sessions are coalesced and flushed in batches
+        if (heartbeatBuffer.isEnabled()) {
+            LectureViewSession buffered = heartbeatBuffer.record(
+                sessionId, request.getProgressAtEnd(), request.getIsCompleted());
+            if (buffered != null) {
+                return toDTO(buffered);
+            }
+        }
+        
         LectureViewSession session = sessionRepository.findById(sessionId)
             .orElseThrow(() -> {
                 log.error("[Session Service] Session not found: sessionId={}", sessionId);
@@ -120,7 +135,7 @@ public class LectureViewSessionService {
                 sessionId, session.getProgressAtEnd(), session.getIsCompletedInSession());
             session = sessionRepository.save(session);
             // Invalidate course analytics cache when session is updated
-            evictCourseAnalyticsCache(session.getCourseId());
+            onSessionChanged(session.getCourseId());
         } else {
             log.debug("[Session Service] No updates needed for session: sessionId={}", sessionId);
         }
@@ -143,6 +158,18 @@ public class LectureViewSessionService {
             sessionId, session.getLectureId(), session.getStudentId(), session.getSessionStartedAt(), 
             session.getSessionEndedAt() != null);
         
+        // Fold in any buffered heartbeat so the end write carries the latest state;
+        // explicit values in the end request still win.
+        SessionHeartbeatBuffer.Pending buffered = heartbeatBuffer.take(sessionId);
+        if (buffered != null && session.getSessionEndedAt() == null) {
+            if (buffered.progressAtEnd() != null) {
+                session.setProgressAtEnd(buffered.progressAtEnd());
+            }
+            if (buffered.isCompleted() != null) {
+                session.setIsCompletedInSession(buffered.isCompleted());
+            }
+        }
+        
         // If session is already ended, return existing session (idempotent operation)
         // But update progress/completion if provided and different
         if (session.getSessionEndedAt() != null) {
@@ -165,7 +192,7 @@ public class LectureViewSessionService {
                 log.info("[Session Service] Updating already-ended session with new progress/completion: sessionId={}", sessionId);
                 session = sessionRepository.save(session);
                 // Invalidate course analytics cache when session is updated
-                evictCourseAnalyticsCache(session.getCourseId());
+                onSessionChanged(session.getCourseId());
             }
             
             return toDTO(session);
@@ -188,7 +215,7 @@ public class LectureViewSessionService {
             saved.getId(), saved.getLectureId(), saved.getStudentId(), saved.getDurationSeconds(), saved.getIsCompletedInSession());
         
         // Invalidate course analytics cache when session is updated (ended)
-        evictCourseAnalyticsCache(saved.getCourseId());
+        onSessionChanged(saved.getCourseId());
         
         // Log video watch progress event
         int progressPercent = saved.getProgressAtEnd() != null ? saved.getProgressAtEnd().intValue() : 0;
@@ -268,6 +295,17 @@ public class LectureViewSessionService {
         return sessions.stream().map(this::toDTO).collect(Collectors.toList());
     }
     
+    /**
+     * With rollups enabled the dashboards only change when EngagementRollupService folds,
+     * and it evicts the affected caches itself; evicting here would just defeat the cache
+     * on every heartbeat.
+     */
+    private void onSessionChanged(String courseId) {
+        if (!rollupService.isEnabled()) {
+            evictCourseAnalyticsCache(courseId);
+        }
+    }
+
     /**
      * Evict course analytics cache for a specific course.
      * This is called when sessions are created or updated to ensure analytics are fresh.
@@ -1,13 +1,11 @@
 package com.datagami.edudron.student.service;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.common.UlidGenerator;
 import com.datagami.edudron.student.domain.*;
 import com.datagami.edudron.student.dto.*;
 import com.datagami.edudron.student.repo.*;
 import com.datagami.edudron.student.util.UserUtil;
-import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,12 +15,9 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.OffsetDateTime;
 import java.util.*;
@@ -70,43 +65,17 @@ public class ProjectService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private BulkWriteRepository bulkWriteRepository;
+
     @Autowired
     private CommonEventService eventService;
 
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes =
-                                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     private UUID getClientId() {
         String clientIdStr = TenantContext.getClientId();
@@ -151,7 +120,7 @@ public class ProjectService {
         for (String studentId : studentIds) {
             try {
                 String url = gatewayUrl + "/idp/users/" + studentId;
-                ResponseEntity<Map<String, Object>> resp = getRestTemplate().exchange(
+                ResponseEntity<Map<String, Object>> resp = restTemplate.exchange(
                         url, HttpMethod.GET, new HttpEntity<>(new HttpHeaders()),
                         new ParameterizedTypeReference<Map<String, Object>>() {}
                 );
@@ -746,7 +715,7 @@ public class ProjectService {
 
         String url = gatewayUrl + "/api/project-questions?courseId=" + courseId;
         try {
-            ResponseEntity<List<Map<String, Object>>> response = getRestTemplate().exchange(
+            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(new HttpHeaders()),
@@ -835,7 +804,7 @@ public class ProjectService {
                 .count();
 
         String url = gatewayUrl + "/api/project-questions?courseId=" + courseId;
-        ResponseEntity<List<Map<String, Object>>> response = getRestTemplate().exchange(
+        ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                 url, HttpMethod.GET, new HttpEntity<>(new HttpHeaders()),
                 new ParameterizedTypeReference<List<Map<String, Object>>>() {}
         );
@@ -939,15 +908,11 @@ public class ProjectService {
             throw new IllegalArgumentException("Event does not belong to project");
         }
 
-        // Delete existing attendance for this event
-        List<ProjectEventAttendance> existing = projectEventAttendanceRepository.findByEventIdAndClientId(eventId, clientId);
-        projectEventAttendanceRepository.deleteAll(existing);
-        projectEventAttendanceRepository.flush();
-
         // Build student-to-group map for this project
         Map<String, String> studentGroupMap = buildStudentGroupMap(projectId, clientId);
 
-        // Create new attendance records
+        // Replace the event's attendance in one delete and one batched upsert
+        List<ProjectEventAttendance> records = new ArrayList<>(entries.size());
         for (ProjectBulkAttendanceRequest.AttendanceEntry entry : entries) {
             ProjectEventAttendance attendance = new ProjectEventAttendance();
             attendance.setId(UlidGenerator.nextUlid());
@@ -959,8 +924,9 @@ public class ProjectService {
             String groupId = studentGroupMap.get(entry.getStudentId());
             attendance.setGroupId(groupId != null ? groupId : "UNKNOWN");
 
-            projectEventAttendanceRepository.save(attendance);
+            records.add(attendance);
         }
+        bulkWriteRepository.replaceAttendance(clientId, eventId, records);
 
         log.info("Saved {} attendance records for event {} of project {}", entries.size(), eventId, projectId);
     }
@@ -978,15 +944,11 @@ public class ProjectService {
             throw new IllegalArgumentException("Event does not belong to project");
         }
 
-        // Delete existing grades for this event
-        List<ProjectEventGrade> existing = projectEventGradeRepository.findByEventIdAndClientId(eventId, clientId);
-        projectEventGradeRepository.deleteAll(existing);
-        projectEventGradeRepository.flush();
-
         // Build student-to-group map for this project
         Map<String, String> studentGroupMap = buildStudentGroupMap(projectId, clientId);
 
-        // Create new grade records
+        // Validate every entry first, then replace the event's grades in one delete and one batched upsert
+        List<ProjectEventGrade> records = new ArrayList<>(entries.size());
         for (ProjectBulkGradeRequest.GradeEntry entry : entries) {
             // Validate marks
             if (event.getMaxMarks() != null && entry.getMarks() != null && entry.getMarks() > event.getMaxMarks()) {
@@ -1005,8 +967,9 @@ public class ProjectService {
             String groupId = studentGroupMap.get(entry.getStudentId());
             grade.setGroupId(groupId != null ? groupId : "UNKNOWN");
 
-            projectEventGradeRepository.save(grade);
+            records.add(grade);
         }
+        bulkWriteRepository.replaceGrades(clientId, eventId, records);
 
         log.info("Saved {} grade records for event {} of project {}", entries.size(), eventId, projectId);
     }
@@ -1403,11 +1366,11 @@ public class ProjectService {
     private Map<String, String> buildStudentGroupMap(String projectId, UUID clientId) {
         List<ProjectGroup> groups = projectGroupRepository.findByProjectIdAndClientId(projectId, clientId);
         Map<String, String> studentGroupMap = new HashMap<>();
-        for (ProjectGroup group : groups) {
-            List<ProjectGroupMember> members = projectGroupMemberRepository.findByGroupIdAndClientId(group.getId(), clientId);
-            for (ProjectGroupMember member : members) {
-                studentGroupMap.put(member.getStudentId(), group.getId());
-            }
+        if (groups.isEmpty()) return studentGroupMap;
+        // One query for the members of every group rather than one per group
+        List<String> groupIds = groups.stream().map(ProjectGroup::getId).collect(Collectors.toList());
+        for (ProjectGroupMember member : projectGroupMemberRepository.findByGroupIdInAndClientId(groupIds, clientId)) {
+            studentGroupMap.put(member.getStudentId(), member.getGroupId());
         }
         return studentGroupMap;
     }
@@ -1533,19 +1496,37 @@ public class ProjectService {
 
         // Groups summary
         List<ProjectGroup> groups = projectGroupRepository.findByProjectIdAndClientId(projectId, clientId);
-        int totalStudents = 0;
-        int groupsWithSubmission = 0;
-        for (ProjectGroup g : groups) {
-            List<ProjectGroupMember> members = projectGroupMemberRepository.findByGroupIdAndClientId(g.getId(), clientId);
-            totalStudents += members.size();
-            if (g.getSubmittedAt() != null) groupsWithSubmission++;
+        List<String> groupIds = groups.stream().map(ProjectGroup::getId).collect(Collectors.toList());
+        long totalStudents = 0;
+        if (!groupIds.isEmpty()) {
+            for (Object[] row : projectGroupMemberRepository.countMembersByGroup(clientId, groupIds)) {
+                totalStudents += ((Number) row[1]).longValue();
+            }
         }
+        long groupsWithSubmission = groups.stream().filter(g -> g.getSubmittedAt() != null).count();
         dashboard.put("totalGroups", groups.size());
         dashboard.put("totalStudents", totalStudents);
         dashboard.put("groupsSubmitted", groupsWithSubmission);
 
-        // Events summary
+        // Events summary: one grouped query per statistic across all events, not one per event
         List<ProjectEvent> events = projectEventRepository.findByProjectIdAndClientIdOrderBySequenceAsc(projectId, clientId);
+        List<String> eventIds = events.stream().map(ProjectEvent::getId).collect(Collectors.toList());
+        Map<String, Object[]> attendanceByEvent = new HashMap<>();
+        Map<String, Object[]> gradesByEvent = new HashMap<>();
+        Map<String, Object[]> submissionsByEvent = new HashMap<>();
+        if (!eventIds.isEmpty()) {
+            indexByFirstColumn(projectEventAttendanceRepository.countByEvent(clientId, eventIds), attendanceByEvent);
+            if (events.stream().anyMatch(e -> Boolean.TRUE.equals(e.getHasMarks()))) {
+                indexByFirstColumn(projectEventGradeRepository.summarizeByEvent(clientId, eventIds), gradesByEvent);
+            }
+            if (events.stream().anyMatch(e -> Boolean.TRUE.equals(e.getHasSubmission()))) {
+                indexByFirstColumn(eventSubmissionRepository.countGroupsByEvent(clientId, eventIds,
+                        List.of(ProjectEventSubmission.SubmissionStatus.REVIEWED,
+                                ProjectEventSubmission.SubmissionStatus.APPROVED),
+                        ProjectEventSubmission.SubmissionStatus.NEEDS_REVISION), submissionsByEvent);
+            }
+        }
+
         List<Map<String, Object>> eventStats = new ArrayList<>();
         for (ProjectEvent event : events) {
             Map<String, Object> eventStat = new LinkedHashMap<>();
@@ -1557,48 +1538,30 @@ public class ProjectService {
             eventStat.put("isCurrentPhase", event.getId().equals(project.getCurrentEventId()));
 
             // Attendance stats
-            List<ProjectEventAttendance> attendances = projectEventAttendanceRepository.findByEventIdAndClientId(event.getId(), clientId);
-            long presentCount = attendances.stream().filter(a -> Boolean.TRUE.equals(a.getPresent())).count();
-            eventStat.put("attendanceTotal", attendances.size());
-            eventStat.put("attendancePresent", presentCount);
+            Object[] attendance = attendanceByEvent.get(event.getId());
+            eventStat.put("attendanceTotal", attendance != null ? ((Number) attendance[1]).longValue() : 0L);
+            eventStat.put("attendancePresent", attendance != null && attendance[2] != null
+                    ? ((Number) attendance[2]).longValue() : 0L);
 
             // Grade stats
             if (Boolean.TRUE.equals(event.getHasMarks())) {
-                List<ProjectEventGrade> grades = projectEventGradeRepository.findByEventIdAndClientId(event.getId(), clientId);
-                if (!grades.isEmpty()) {
-                    double avg = grades.stream().mapToInt(ProjectEventGrade::getMarks).average().orElse(0);
-                    int max = grades.stream().mapToInt(ProjectEventGrade::getMarks).max().orElse(0);
-                    int min = grades.stream().mapToInt(ProjectEventGrade::getMarks).min().orElse(0);
-                    eventStat.put("gradesCount", grades.size());
+                Object[] grades = gradesByEvent.get(event.getId());
+                if (grades != null) {
+                    double avg = ((Number) grades[2]).doubleValue();
+                    eventStat.put("gradesCount", ((Number) grades[1]).longValue());
                     eventStat.put("gradesAvg", Math.round(avg * 10.0) / 10.0);
-                    eventStat.put("gradesMax", max);
-                    eventStat.put("gradesMin", min);
+                    eventStat.put("gradesMax", ((Number) grades[4]).intValue());
+                    eventStat.put("gradesMin", ((Number) grades[3]).intValue());
                 }
             }
 
-            // Event submission stats
+            // Event submission stats (groups counted once regardless of how many versions they submitted)
             if (Boolean.TRUE.equals(event.getHasSubmission())) {
-                List<ProjectEventSubmission> submissions = eventSubmissionRepository.findByEventIdAndClientId(event.getId(), clientId);
-                // Count unique groups that submitted
-                long submittedGroups = submissions.stream()
-                        .map(ProjectEventSubmission::getGroupId)
-                        .distinct()
-                        .count();
-                long reviewedCount = submissions.stream()
-                        .filter(s -> s.getStatus() == ProjectEventSubmission.SubmissionStatus.REVIEWED ||
-                                     s.getStatus() == ProjectEventSubmission.SubmissionStatus.APPROVED)
-                        .map(ProjectEventSubmission::getGroupId)
-                        .distinct()
-                        .count();
-                long needsRevisionCount = submissions.stream()
-                        .filter(s -> s.getStatus() == ProjectEventSubmission.SubmissionStatus.NEEDS_REVISION)
-                        .map(ProjectEventSubmission::getGroupId)
-                        .distinct()
-                        .count();
+                Object[] submissions = submissionsByEvent.get(event.getId());
                 eventStat.put("submissionsTotal", groups.size());
-                eventStat.put("submissionsSubmitted", submittedGroups);
-                eventStat.put("submissionsReviewed", reviewedCount);
-                eventStat.put("submissionsNeedsRevision", needsRevisionCount);
+                eventStat.put("submissionsSubmitted", submissions != null ? ((Number) submissions[1]).longValue() : 0L);
+                eventStat.put("submissionsReviewed", submissions != null ? ((Number) submissions[2]).longValue() : 0L);
+                eventStat.put("submissionsNeedsRevision", submissions != null ? ((Number) submissions[3]).longValue() : 0L);
             }
 
             eventStats.add(eventStat);
@@ -1613,6 +1576,12 @@ public class ProjectService {
         return dashboard;
     }
 
+    private static void indexByFirstColumn(List<Object[]> rows, Map<String, Object[]> target) {
+        for (Object[] row : rows) {
+            target.put((String) row[0], row);
+        }
+    }
+
     // ======================== Templates ========================
 
     public ProjectTemplate saveTemplate(String name, String description, String projectId) {
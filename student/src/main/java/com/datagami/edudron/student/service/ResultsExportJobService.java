@@ -0,0 +1,189 @@
+package com.datagami.edudron.student.service;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.sas.BlobSasPermission;
+import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.common.UlidGenerator;
+import com.datagami.edudron.student.dto.ResultsExportJobDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Runs results exports for large scopes in the background. The scope is validated up front so
+ * bad requests fail immediately; the workbook is then streamed to a temp file and published to
+ * blob storage with a time-limited download URL, or kept on this node and served by
+ * {@link #openDownload} when blob storage is not configured.
+ */
+@Service
+public class ResultsExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultsExportJobService.class);
+
+    static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    @Autowired
+    private ResultsExportService resultsExportService;
+
+    @Autowired
+    private ResultsExportJobStore jobStore;
+
+    @Autowired
+    private BackgroundJobRunner jobRunner;
+
+    @Autowired(required = false)
+    private BlobServiceClient blobServiceClient;
+
+    @Value("${azure.storage.exports-container-name:results-exports}")
+    private String containerName;
+
+    // Finished workbooks kept on local disk when there is no blob storage; files are deleted on eviction
+    private final Cache<String, Path> localFiles = Caffeine.newBuilder()
+            .maximumSize(500)
+            .expireAfterWrite(ResultsExportJobStore.TTL)
+            .removalListener((String key, Path file, RemovalCause cause) -> deleteQuietly(file))
+            .build();
+
+    public ResultsExportJobDTO submitExportJob(String sectionId, String classId, String courseId) {
+        UUID clientId = requireClientId();
+        ResultsExportService.ExportScope scope = resultsExportService.resolveScope(sectionId, classId, courseId);
+
+        ResultsExportJobDTO job = new ResultsExportJobDTO();
+        job.setJobId(UlidGenerator.nextUlid());
+        job.setStatus(ResultsExportJobDTO.Status.QUEUED);
+        job.setScope(scope.getScope());
+        job.setScopeId(scope.getScopeId());
+        job.setFileName(scope.getFileName());
+        job.setStudentCount(scope.getStudentCount());
+        job.setCourseCount(scope.getCourseCount());
+        job.setCreatedAt(OffsetDateTime.now());
+
+        jobStore.save(clientId, job);
+        try {
+            jobRunner.runExport(BackgroundJobRunner.JobContext.capture(), () -> runExportJob(clientId, job, scope));
+        } catch (TaskRejectedException e) {
+            job.setStatus(ResultsExportJobDTO.Status.FAILED);
+            job.setErrorMessage("Too many exports are running");
+            job.setCompletedAt(OffsetDateTime.now());
+            jobStore.save(clientId, job);
+            throw new IllegalStateException("Too many exports are running, please try again later", e);
+        }
+
+        log.info("Queued results export job {} for {} {} ({} students)",
+                job.getJobId(), scope.getScope(), scope.getScopeId(), scope.getStudentCount());
+        return job;
+    }
+
+    public ResultsExportJobDTO getExportJob(String jobId) {
+        ResultsExportJobDTO job = jobStore.get(requireClientId(), jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Export job not found: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * The finished workbook of a job kept on this node's disk.
+     */
+    public Path openDownload(String jobId) {
+        ResultsExportJobDTO job = getExportJob(jobId);
+        if (job.getStatus() != ResultsExportJobDTO.Status.COMPLETED) {
+            throw new IllegalStateException("Export job is not completed: " + job.getStatus());
+        }
+        Path file = localFiles.getIfPresent(localKey(requireClientId(), jobId));
+        if (file == null || !Files.exists(file)) {
+            throw new IllegalArgumentException("Export file is no longer available: " + jobId);
+        }
+        return file;
+    }
+
+    private void runExportJob(UUID clientId, ResultsExportJobDTO job, ResultsExportService.ExportScope scope) {
+        job.setStatus(ResultsExportJobDTO.Status.RUNNING);
+        job.setStartedAt(OffsetDateTime.now());
+        jobStore.save(clientId, job);
+
+        Path file = null;
+        try {
+            file = Files.createTempFile("results-export-", ".xlsx");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                resultsExportService.writeExport(scope, out);
+            }
+            job.setDownloadUrl(publish(clientId, job, file));
+            if (blobServiceClient != null) {
+                deleteQuietly(file);
+            }
+            job.setStatus(ResultsExportJobDTO.Status.COMPLETED);
+        } catch (Exception e) {
+            log.error("Results export job {} failed", job.getJobId(), e);
+            deleteQuietly(file);
+            job.setStatus(ResultsExportJobDTO.Status.FAILED);
+            job.setErrorMessage(e.getMessage());
+        }
+        job.setCompletedAt(OffsetDateTime.now());
+        jobStore.save(clientId, job);
+    }
+
+    private String publish(UUID clientId, ResultsExportJobDTO job, Path file) {
+        if (blobServiceClient == null) {
+            localFiles.put(localKey(clientId, job.getJobId()), file);
+            return "/api/results/export/jobs/" + job.getJobId() + "/download";
+        }
+
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(containerName);
+        if (!containerClient.exists()) {
+            containerClient.create();
+            log.info("Created results exports container: {}", containerName);
+        }
+
+        // Blob name: {clientId}/exports/results/{jobId}.xlsx
+        String blobName = String.format("%s/exports/results/%s.xlsx", clientId, job.getJobId());
+        BlobClient blobClient = containerClient.getBlobClient(blobName);
+        blobClient.uploadFromFile(file.toString(), true);
+        blobClient.setHttpHeaders(new BlobHttpHeaders()
+                .setContentType(XLSX_CONTENT_TYPE)
+                .setContentDisposition("attachment; filename=\"" + job.getFileName() + "\""));
+
+        BlobSasPermission permission = new BlobSasPermission().setReadPermission(true);
+        OffsetDateTime expiryTime = OffsetDateTime.now().plus(ResultsExportJobStore.TTL);
+        String sasToken = blobClient.generateSas(new BlobServiceSasSignatureValues(expiryTime, permission));
+        return blobClient.getBlobUrl() + "?" + sasToken;
+    }
+
+    private String localKey(UUID clientId, String jobId) {
+        return clientId + ":" + jobId;
+    }
+
+    private UUID requireClientId() {
+        String clientIdStr = TenantContext.getClientId();
+        if (clientIdStr == null) {
+            throw new IllegalStateException("Tenant context is not set");
+        }
+        return UUID.fromString(clientIdStr);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}: {}", file, e.getMessage());
+        }
+    }
+}
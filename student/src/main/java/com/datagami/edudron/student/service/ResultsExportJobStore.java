@@ -0,0 +1,70 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.dto.ResultsExportJobDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Holds results export job status for polling, in Redis with a 24h TTL or in memory when
+ * Redis is not configured. Same layout as {@link StudentImportJobStore}.
+ */
+@Component
+public class ResultsExportJobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultsExportJobStore.class);
+
+    private static final String KEY_PREFIX = "student:results-export:job:";
+    static final Duration TTL = Duration.ofHours(24);
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Cache<String, ResultsExportJobDTO> localJobs = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(TTL)
+            .build();
+
+    public void save(UUID clientId, ResultsExportJobDTO job) {
+        String key = key(clientId, job.getJobId());
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(job), TTL);
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to store export job {} in Redis, keeping it in memory: {}", job.getJobId(), e.getMessage());
+            }
+        }
+        localJobs.put(key, job);
+    }
+
+    public ResultsExportJobDTO get(UUID clientId, String jobId) {
+        String key = key(clientId, jobId);
+        if (redisTemplate != null) {
+            try {
+                String json = redisTemplate.opsForValue().get(key);
+                if (json != null) {
+                    return objectMapper.readValue(json, ResultsExportJobDTO.class);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read export job {} from Redis: {}", jobId, e.getMessage());
+            }
+        }
+        return localJobs.getIfPresent(key);
+    }
+
+    private String key(UUID clientId, String jobId) {
+        return KEY_PREFIX + clientId + ":" + jobId;
+    }
+}
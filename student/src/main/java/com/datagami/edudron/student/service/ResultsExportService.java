@@ -3,29 +3,21 @@ package com.datagami.edudron.student.service;
 import com.datagami.edudron.common.TenantContext;
 import com.datagami.edudron.student.client.ContentAssessmentClient;
 import com.datagami.edudron.student.client.ContentExamClient;
+import com.datagami.edudron.student.client.IdentityUserClient;
 import com.datagami.edudron.student.domain.*;
 import com.datagami.edudron.student.repo.*;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
-import jakarta.servlet.http.HttpServletRequest;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
@@ -38,6 +30,10 @@ import java.util.stream.Collectors;
  * Generates a workbook with:
  * - Summary sheet: student name, email, per-course total/%, grand total/overall %
  * - Per-course detail sheets: individual assessment scores, project event grades, totals
+ *
+ * Workbooks are written with SXSSF, which keeps only a window of rows in memory and spills the
+ * rest to a temp file, straight to the caller's output stream. Student details and exam max
+ * scores are fetched in bulk calls rather than once per student or exam.
  */
 @Service
 @Transactional(readOnly = true)
@@ -45,6 +41,9 @@ public class ResultsExportService {
 
     private static final Logger log = LoggerFactory.getLogger(ResultsExportService.class);
 
+    // Rows kept in memory per sheet before SXSSF flushes them to its temp file
+    private static final int ROW_WINDOW = 100;
+
     private final ContentAssessmentClient contentAssessmentClient;
     private final ContentExamClient contentExamClient;
     private final EnrollmentRepository enrollmentRepository;
@@ -55,12 +54,7 @@ public class ResultsExportService {
     private final SectionRepository sectionRepository;
     private final ClassRepository classRepository;
     private final StudentAuditService auditService;
-
-    @Value("${GATEWAY_URL:http://localhost:8080}")
-    private String gatewayUrl;
-
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
+    private final IdentityUserClient identityUserClient;
 
     public ResultsExportService(ContentAssessmentClient contentAssessmentClient,
                                 ContentExamClient contentExamClient,
@@ -71,7 +65,8 @@ public class ResultsExportService {
                                 ProjectEventGradeRepository projectEventGradeRepository,
                                 SectionRepository sectionRepository,
                                 ClassRepository classRepository,
-                                StudentAuditService auditService) {
+                                StudentAuditService auditService,
+                                IdentityUserClient identityUserClient) {
         this.contentAssessmentClient = contentAssessmentClient;
         this.contentExamClient = contentExamClient;
         this.enrollmentRepository = enrollmentRepository;
@@ -82,40 +77,48 @@ public class ResultsExportService {
         this.sectionRepository = sectionRepository;
         this.classRepository = classRepository;
         this.auditService = auditService;
-    }
-
-    private RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate newTemplate = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new com.datagami.edudron.common.TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        var attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    newTemplate.setInterceptors(interceptors);
-                    restTemplate = newTemplate;
-                }
-            }
-        }
-        return restTemplate;
+        this.identityUserClient = identityUserClient;
     }
 
     /**
      * Export results for all students in a section.
      */
     public byte[] exportBySection(String sectionId) {
+        return toBytes(resolveSectionScope(sectionId));
+    }
+
+    /**
+     * Export results for all students in a class (across all sections).
+     */
+    public byte[] exportByClass(String classId) {
+        return toBytes(resolveClassScope(classId));
+    }
+
+    /**
+     * Export results for all students enrolled in a course.
+     */
+    public byte[] exportByCourse(String courseId) {
+        return toBytes(resolveCourseScope(courseId));
+    }
+
+    /**
+     * Resolve the export scope for whichever of sectionId, classId or courseId is given
+     * (in that order of precedence).
+     */
+    public ExportScope resolveScope(String sectionId, String classId, String courseId) {
+        if (sectionId != null && !sectionId.isBlank()) {
+            return resolveSectionScope(sectionId);
+        }
+        if (classId != null && !classId.isBlank()) {
+            return resolveClassScope(classId);
+        }
+        if (courseId != null && !courseId.isBlank()) {
+            return resolveCourseScope(courseId);
+        }
+        throw new IllegalArgumentException("At least one of sectionId, classId, or courseId must be provided");
+    }
+
+    public ExportScope resolveSectionScope(String sectionId) {
         UUID clientId = getClientId();
 
         Section section = sectionRepository.findByIdAndClientId(sectionId, clientId)
@@ -127,27 +130,11 @@ public class ResultsExportService {
             throw new IllegalArgumentException("No enrollments found for section: " + section.getName());
         }
 
-        Set<String> courseIds = enrollments.stream()
-                .map(Enrollment::getCourseId)
-                .filter(c -> !"__PLACEHOLDER_ASSOCIATION__".equals(c))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
-
-        Set<String> studentIds = enrollments.stream()
-                .map(Enrollment::getStudentId)
-                .collect(Collectors.toCollection(LinkedHashSet::new));
-
-        String title = "Section: " + section.getName();
-        byte[] workbook = generateWorkbook(clientId, studentIds, courseIds, sectionId, title);
-        auditService.logCrud(clientId, "EXPORT", "ResultsExport", sectionId,
-                null, null, Map.of("scope", "section", "studentCount", studentIds.size(),
-                        "courseCount", courseIds.size()));
-        return workbook;
+        return new ExportScope("section", sectionId, "Section: " + section.getName(), sectionId,
+                studentIdsOf(enrollments), courseIdsOf(enrollments));
     }
 
-    /**
-     * Export results for all students in a class (across all sections).
-     */
-    public byte[] exportByClass(String classId) {
+    public ExportScope resolveClassScope(String classId) {
         UUID clientId = getClientId();
 
         com.datagami.edudron.student.domain.Class clazz = classRepository.findByIdAndClientId(classId, clientId)
@@ -163,82 +150,110 @@ public class ResultsExportService {
             throw new IllegalArgumentException("No enrollments found for class: " + clazz.getName());
         }
 
-        Set<String> courseIds = allEnrollments.stream()
-                .map(Enrollment::getCourseId)
-                .filter(c -> !"__PLACEHOLDER_ASSOCIATION__".equals(c))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new ExportScope("class", classId, "Class: " + clazz.getName(), null,
+                studentIdsOf(allEnrollments), courseIdsOf(allEnrollments));
+    }
 
-        Set<String> studentIds = allEnrollments.stream()
-                .map(Enrollment::getStudentId)
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+    public ExportScope resolveCourseScope(String courseId) {
+        UUID clientId = getClientId();
 
-        String title = "Class: " + clazz.getName();
-        byte[] workbook = generateWorkbook(clientId, studentIds, courseIds, null, title);
-        auditService.logCrud(clientId, "EXPORT", "ResultsExport", classId,
-                null, null, Map.of("scope", "class", "studentCount", studentIds.size(),
-                        "courseCount", courseIds.size()));
-        return workbook;
+        List<Enrollment> enrollments = enrollmentRepository.findByClientIdAndCourseId(clientId, courseId);
+        if (enrollments.isEmpty()) {
+            throw new IllegalArgumentException("No enrollments found for course: " + courseId);
+        }
+
+        Set<String> courseIds = new LinkedHashSet<>();
+        courseIds.add(courseId);
+
+        ExportScope scope = new ExportScope("course", courseId, null, null, studentIdsOf(enrollments), courseIds);
+        String courseTitle = scope.courseTitle(courseId, contentAssessmentClient);
+        scope.title = "Course: " + courseTitle;
+        return scope;
     }
 
     /**
-     * Export results for all students enrolled in a course.
+     * Generate the workbook for a resolved scope and stream it to {@code out}.
+     * The stream is not closed.
      */
-    public byte[] exportByCourse(String courseId) {
+    public void writeExport(ExportScope scope, OutputStream out) throws IOException {
         UUID clientId = getClientId();
+        writeWorkbook(clientId, scope, out);
+        auditService.logCrud(clientId, "EXPORT", "ResultsExport", scope.scopeId,
+                null, null, Map.of("scope", scope.scope, "studentCount", scope.studentIds.size(),
+                        "courseCount", scope.courseIds.size()));
+    }
 
-        List<Enrollment> enrollments = enrollmentRepository.findByClientIdAndCourseId(clientId, courseId);
-        if (enrollments.isEmpty()) {
-            throw new IllegalArgumentException("No enrollments found for course: " + courseId);
+    private byte[] toBytes(ExportScope scope) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            writeExport(scope, bos);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to generate Excel workbook", e);
         }
+        return bos.toByteArray();
+    }
 
-        Set<String> studentIds = enrollments.stream()
+    private Set<String> studentIdsOf(List<Enrollment> enrollments) {
+        return enrollments.stream()
                 .map(Enrollment::getStudentId)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-        Set<String> courseIds = new LinkedHashSet<>();
-        courseIds.add(courseId);
-
-        JsonNode courseNode = contentAssessmentClient.getCourse(courseId);
-        String courseTitle = courseNode != null && courseNode.has("title")
-                ? courseNode.get("title").asText()
-                : courseId;
-
-        String title = "Course: " + courseTitle;
-        byte[] workbook = generateWorkbook(clientId, studentIds, courseIds, null, title);
-        auditService.logCrud(clientId, "EXPORT", "ResultsExport", courseId,
-                null, null, Map.of("scope", "course", "studentCount", studentIds.size(),
-                        "courseCount", 1));
-        return workbook;
+    private Set<String> courseIdsOf(List<Enrollment> enrollments) {
+        return enrollments.stream()
+                .map(Enrollment::getCourseId)
+                .filter(c -> !"__PLACEHOLDER_ASSOCIATION__".equals(c))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     // -------------------------------------------------------------------------
     // Internal workbook generation
     // -------------------------------------------------------------------------
 
-    private byte[] generateWorkbook(UUID clientId, Set<String> studentIds,
-                                    Set<String> courseIds, String sectionId, String title) {
+    private void writeWorkbook(UUID clientId, ExportScope scope, OutputStream out) throws IOException {
+        String sectionId = scope.sectionId;
+
         // 1. Fetch student details (name, email) from identity service
-        Map<String, StudentInfo> studentInfoMap = fetchStudentInfo(studentIds);
+        Map<String, StudentInfo> studentInfoMap = fetchStudentInfo(scope.studentIds);
 
         // Sort students by name for consistent output
-        List<String> sortedStudentIds = new ArrayList<>(studentIds);
+        List<String> sortedStudentIds = new ArrayList<>(scope.studentIds);
         sortedStudentIds.sort((a, b) -> {
             String nameA = studentInfoMap.containsKey(a) ? studentInfoMap.get(a).name : a;
             String nameB = studentInfoMap.containsKey(b) ? studentInfoMap.get(b).name : b;
             return nameA.compareToIgnoreCase(nameB);
         });
 
-        // 2. Per-course data structures
+        // 2. Assessments per course, then the max scores the list payload lacks in one bulk call
+        Map<String, List<JsonNode>> assessmentsByCourse = new LinkedHashMap<>();
+        Set<String> unresolvedAssessmentIds = new LinkedHashSet<>();
+        for (String courseId : scope.courseIds) {
+            List<JsonNode> assessments = fetchAssessments(courseId, sectionId);
+            assessmentsByCourse.put(courseId, assessments);
+            for (JsonNode a : assessments) {
+                if (a.has("id") && sumQuestionPoints(a).compareTo(BigDecimal.ZERO) <= 0) {
+                    unresolvedAssessmentIds.add(a.get("id").asText());
+                }
+            }
+        }
+        Map<String, Integer> bulkMaxScores = contentExamClient.getExamMaxScores(unresolvedAssessmentIds);
+
+        // 3. Per-course data structures
+        Set<String> studentIdSet = new HashSet<>(sortedStudentIds);
         List<CourseData> courseDataList = new ArrayList<>();
-        for (String courseId : courseIds) {
-            CourseData cd = buildCourseData(clientId, courseId, sectionId, sortedStudentIds);
+        for (Map.Entry<String, List<JsonNode>> entry : assessmentsByCourse.entrySet()) {
+            String courseId = entry.getKey();
+            CourseData cd = buildCourseData(clientId, courseId, scope.courseTitle(courseId, contentAssessmentClient),
+                    entry.getValue(), bulkMaxScores, sectionId, studentIdSet);
             if (cd.hasExportableContent()) {
                 courseDataList.add(cd);
             }
         }
 
-        // 3. Generate Excel workbook
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+        // 4. Stream the Excel workbook
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             // Create cell styles
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle percentStyle = workbook.createCellStyle();
@@ -246,7 +261,7 @@ public class ResultsExportService {
 
             // --- Summary sheet ---
             buildSummarySheet(workbook, headerStyle, percentStyle, sortedStudentIds,
-                    studentInfoMap, courseDataList, title);
+                    studentInfoMap, courseDataList, scope.title);
 
             // --- Per-course detail sheets ---
             for (CourseData cd : courseDataList) {
@@ -254,26 +269,15 @@ public class ResultsExportService {
                         studentInfoMap, cd);
             }
 
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            workbook.write(bos);
-            return bos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to generate Excel workbook", e);
+            workbook.write(out);
+        } finally {
+            // Removes the temp files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    private CourseData buildCourseData(UUID clientId, String courseId, String sectionId,
-                                       List<String> studentIds) {
-        CourseData cd = new CourseData();
-        cd.courseId = courseId;
-
-        // Fetch course title from content service
-        JsonNode courseNode = contentAssessmentClient.getCourse(courseId);
-        cd.courseTitle = courseNode != null && courseNode.has("title")
-                ? courseNode.get("title").asText()
-                : courseId;
-
-        // Fetch assessments for this course
+    private List<JsonNode> fetchAssessments(String courseId, String sectionId) {
         List<JsonNode> assessments = contentAssessmentClient.getAssessmentsForCourse(courseId);
         assessments = assessments.stream()
                 .filter(assessment -> courseId.equals(getJsonText(assessment, "courseId")))
@@ -283,6 +287,15 @@ public class ResultsExportService {
                     .filter(assessment -> sectionId.equals(getJsonText(assessment, "sectionId")))
                     .collect(Collectors.toList());
         }
+        return assessments;
+    }
+
+    private CourseData buildCourseData(UUID clientId, String courseId, String courseTitle,
+                                       List<JsonNode> assessments, Map<String, Integer> bulkMaxScores,
+                                       String sectionId, Set<String> studentIds) {
+        CourseData cd = new CourseData();
+        cd.courseId = courseId;
+        cd.courseTitle = courseTitle;
         cd.assessments = assessments;
 
         // Build assessment ID -> title/maxScore maps
@@ -295,7 +308,7 @@ public class ResultsExportService {
             cd.assessmentIds.add(aId);
             cd.assessmentTitles.put(aId, a.has("title") ? a.get("title").asText() : aId);
 
-            BigDecimal maxScore = resolveAssessmentMaxScore(aId, a);
+            BigDecimal maxScore = resolveAssessmentMaxScore(aId, a, bulkMaxScores);
             cd.assessmentMaxScores.put(aId, maxScore);
         }
         Set<String> includedAssessmentIds = new HashSet<>(cd.assessmentIds);
@@ -392,10 +405,12 @@ public class ResultsExportService {
         return cd;
     }
 
-    private void buildSummarySheet(XSSFWorkbook workbook, CellStyle headerStyle, CellStyle percentStyle,
+    private void buildSummarySheet(SXSSFWorkbook workbook, CellStyle headerStyle, CellStyle percentStyle,
                                    List<String> studentIds, Map<String, StudentInfo> studentInfoMap,
                                    List<CourseData> courseDataList, String title) {
-        Sheet sheet = workbook.createSheet("Summary");
+        SXSSFSheet sheet = workbook.createSheet("Summary");
+        // Column widths are measured as rows are flushed, so tracking must start before the first row
+        sheet.trackAllColumnsForAutoSizing();
         int rowIdx = 0;
 
         // Title row
@@ -476,7 +491,7 @@ public class ResultsExportService {
         }
     }
 
-    private void buildCourseDetailSheet(XSSFWorkbook workbook, CellStyle headerStyle, CellStyle percentStyle,
+    private void buildCourseDetailSheet(SXSSFWorkbook workbook, CellStyle headerStyle, CellStyle percentStyle,
                                         List<String> studentIds, Map<String, StudentInfo> studentInfoMap,
                                         CourseData cd) {
         String sheetName = sanitizeSheetName(cd.courseTitle);
@@ -580,16 +595,16 @@ public class ResultsExportService {
         return total;
     }
 
-    private BigDecimal resolveAssessmentMaxScore(String assessmentId, JsonNode assessmentNode) {
+    private BigDecimal resolveAssessmentMaxScore(String assessmentId, JsonNode assessmentNode,
+                                                 Map<String, Integer> bulkMaxScores) {
         BigDecimal fromListPayload = sumQuestionPoints(assessmentNode);
         if (fromListPayload.compareTo(BigDecimal.ZERO) > 0) {
             return fromListPayload;
         }
 
-        JsonNode examDetail = contentExamClient.getExam(assessmentId);
-        BigDecimal fromDetail = sumQuestionPoints(examDetail);
-        if (fromDetail.compareTo(BigDecimal.ZERO) > 0) {
-            return fromDetail;
+        Integer fromBulk = bulkMaxScores.get(assessmentId);
+        if (fromBulk != null && fromBulk > 0) {
+            return BigDecimal.valueOf(fromBulk);
         }
 
         return BigDecimal.ZERO;
@@ -635,38 +650,26 @@ public class ResultsExportService {
     }
 
     /**
-     * Fetch student name/email from identity service for a set of student IDs.
+     * Fetch student name/email from identity service for a set of student IDs,
+     * using the batch lookup.
      */
     private Map<String, StudentInfo> fetchStudentInfo(Set<String> studentIds) {
         Map<String, StudentInfo> map = new HashMap<>();
-        for (String studentId : studentIds) {
-            try {
-                String url = gatewayUrl + "/idp/users/" + studentId;
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                HttpEntity<?> entity = new HttpEntity<>(headers);
-
-                ResponseEntity<JsonNode> response = getRestTemplate().exchange(
-                        url, HttpMethod.GET, entity, JsonNode.class);
-
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    JsonNode body = response.getBody();
-                    StudentInfo info = new StudentInfo();
-                    info.name = body.has("name") && !body.get("name").isNull()
-                            ? body.get("name").asText() : studentId;
-                    info.email = body.has("email") && !body.get("email").isNull()
-                            ? body.get("email").asText() : "";
-                    map.put(studentId, info);
-                }
-            } catch (Exception e) {
-                log.debug("Could not fetch user details for student {}: {}", studentId, e.getMessage());
-            }
+        Map<String, JsonNode> users = identityUserClient.getUsersByIds(studentIds);
+        for (Map.Entry<String, JsonNode> entry : users.entrySet()) {
+            JsonNode body = entry.getValue();
+            StudentInfo info = new StudentInfo();
+            info.name = body.has("name") && !body.get("name").isNull()
+                    ? body.get("name").asText() : entry.getKey();
+            info.email = body.has("email") && !body.get("email").isNull()
+                    ? body.get("email").asText() : "";
+            map.put(entry.getKey(), info);
         }
         log.debug("Fetched info for {}/{} students", map.size(), studentIds.size());
         return map;
     }
 
-    private CellStyle createHeaderStyle(XSSFWorkbook workbook) {
+    private CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
         font.setBold(true);
@@ -712,6 +715,50 @@ public class ResultsExportService {
     // Inner data holders
     // -------------------------------------------------------------------------
 
+    /**
+     * Who and what an export covers. Resolved (and validated) before any output is written, so
+     * scope errors still reach the caller as a normal error response.
+     */
+    public static class ExportScope {
+        private final String scope;
+        private final String scopeId;
+        private String title;
+        // Only set for section exports, restricts assessments and projects to that section
+        private final String sectionId;
+        private final Set<String> studentIds;
+        private final Set<String> courseIds;
+        private final Map<String, String> courseTitles = new HashMap<>();
+
+        ExportScope(String scope, String scopeId, String title, String sectionId,
+                    Set<String> studentIds, Set<String> courseIds) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+            this.title = title;
+            this.sectionId = sectionId;
+            this.studentIds = studentIds;
+            this.courseIds = courseIds;
+        }
+
+        public String getScope() { return scope; }
+        public String getScopeId() { return scopeId; }
+        public int getStudentCount() { return studentIds.size(); }
+        public int getCourseCount() { return courseIds.size(); }
+
+        public String getFileName() {
+            return "results-" + scope + "-" + scopeId + ".xlsx";
+        }
+
+        // Fetched once per course, a course export needs the title for both the heading and the sheet
+        private String courseTitle(String courseId, ContentAssessmentClient client) {
+            return courseTitles.computeIfAbsent(courseId, id -> {
+                JsonNode courseNode = client.getCourse(id);
+                return courseNode != null && courseNode.has("title")
+                        ? courseNode.get("title").asText()
+                        : id;
+            });
+        }
+    }
+
     private static class StudentInfo {
         String name;
         String email;
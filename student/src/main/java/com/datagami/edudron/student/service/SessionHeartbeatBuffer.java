@@ -0,0 +1,168 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.domain.LectureViewSession;
+import com.datagami.edudron.student.repo.LectureViewSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces lecture view session heartbeats (PATCH .../sessions/{id}) in memory and writes
+ * only the latest progress/completion per session to lecture_view_sessions in one JDBC batch
+ * every few seconds.
+ *
+ * Session metadata is cached after the first heartbeat so later ones skip the findById.
+ * endSession takes the pending state via {@link #take} and writes it together with the end,
+ * so the final state never depends on a flush. Flushed updates are guarded by
+ * session_ended_at IS NULL: a heartbeat buffered on another node cannot overwrite a session
+ * that has already ended. At most one flush interval of progress is lost if a node dies,
+ * which the next heartbeat or the end call restores.
+ */
+@Component
+public class SessionHeartbeatBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionHeartbeatBuffer.class);
+
+    private static final String FLUSH_SQL = """
+            UPDATE student.lecture_view_sessions
+            SET progress_at_end = COALESCE(?, progress_at_end),
+                is_completed_in_session = COALESCE(?, is_completed_in_session),
+                updated_at = ?
+            WHERE id = ? AND session_ended_at IS NULL
+            """;
+
+    @Autowired
+    private LectureViewSessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${lecture-sessions.heartbeat.buffer-enabled:true}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+
+    // Immutable session fields used to answer heartbeats without a read; ended sessions are never cached.
+    private final Cache<String, LectureViewSession> snapshots = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    /**
+     * Latest buffered values for a session. Null fields mean "leave as is".
+     */
+    public record Pending(BigDecimal progressAtEnd, Boolean isCompleted, OffsetDateTime updatedAt) {
+        Pending mergedWith(Pending newer) {
+            return new Pending(
+                    newer.progressAtEnd != null ? newer.progressAtEnd : progressAtEnd,
+                    newer.isCompleted != null ? newer.isCompleted : isCompleted,
+                    newer.updatedAt);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffer a heartbeat. Returns the session as it will look after the next flush, or null when
+     * the session is unknown or already ended and the caller should take the direct write path.
+     */
+    public LectureViewSession record(String sessionId, BigDecimal progressAtEnd, Boolean isCompleted) {
+        LectureViewSession snapshot = snapshots.get(sessionId, id -> sessionRepository.findById(id)
+                .filter(s -> s.getSessionEndedAt() == null)
+                .map(this::copyOf)
+                .orElse(null));
+        if (snapshot == null) {
+            return null;
+        }
+
+        Pending merged = pending.merge(sessionId,
+                new Pending(progressAtEnd, isCompleted, OffsetDateTime.now()),
+                Pending::mergedWith);
+
+        LectureViewSession view = copyOf(snapshot);
+        if (merged.progressAtEnd() != null) {
+            view.setProgressAtEnd(merged.progressAtEnd());
+        }
+        if (merged.isCompleted() != null) {
+            view.setIsCompletedInSession(merged.isCompleted());
+        }
+        view.setUpdatedAt(merged.updatedAt());
+        return view;
+    }
+
+    /**
+     * Remove and return the buffered state for a session that is about to be written directly.
+     */
+    public Pending take(String sessionId) {
+        snapshots.invalidate(sessionId);
+        return pending.remove(sessionId);
+    }
+
+    @Scheduled(fixedDelayString = "${lecture-sessions.heartbeat.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<String> ids = new ArrayList<>(pending.keySet());
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        List<Pending> drained = new ArrayList<>(ids.size());
+        Timestamp now = Timestamp.from(OffsetDateTime.now().toInstant());
+        for (String id : ids) {
+            Pending p = pending.remove(id);
+            if (p == null) continue; // taken by endSession meanwhile
+            drained.add(p);
+            batch.add(new Object[] { p.progressAtEnd(), p.isCompleted(), now, id });
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            log.debug("[Heartbeat Buffer] Flushed {} session updates", batch.size());
+        } catch (Exception e) {
+            log.error("[Heartbeat Buffer] Failed to flush {} session updates, re-queueing", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                // A newer heartbeat that arrived meanwhile wins over the failed one
+                pending.merge((String) batch.get(i)[3], drained.get(i), (current, failed) -> failed.mergedWith(current));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private LectureViewSession copyOf(LectureViewSession source) {
+        LectureViewSession copy = new LectureViewSession();
+        copy.setId(source.getId());
+        copy.setClientId(source.getClientId());
+        copy.setEnrollmentId(source.getEnrollmentId());
+        copy.setStudentId(source.getStudentId());
+        copy.setCourseId(source.getCourseId());
+        copy.setLectureId(source.getLectureId());
+        copy.setSessionStartedAt(source.getSessionStartedAt());
+        copy.setDurationSeconds(source.getDurationSeconds());
+        copy.setProgressAtStart(source.getProgressAtStart());
+        copy.setProgressAtEnd(source.getProgressAtEnd());
+        copy.setIsCompletedInSession(source.getIsCompletedInSession());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,74 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.dto.StudentImportJobDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Holds bulk student import job progress for polling.
+ * Stored as JSON in Redis (so any node can answer the poll) with a 24h TTL, or in memory when
+ * Redis is not configured. Keys include the tenant so a job is only visible to its own tenant.
+ */
+@Component
+public class StudentImportJobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentImportJobStore.class);
+
+    private static final String KEY_PREFIX = "student:import:job:";
+    private static final Duration TTL = Duration.ofHours(24);
+
+    // Failed rows kept on the job; the counts stay exact beyond this
+    static final int MAX_FAILED_ROWS = 1000;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Cache<String, StudentImportJobDTO> localJobs = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(TTL)
+            .build();
+
+    public void save(UUID clientId, StudentImportJobDTO job) {
+        String key = key(clientId, job.getJobId());
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(job), TTL);
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to store import job {} in Redis, keeping it in memory: {}", job.getJobId(), e.getMessage());
+            }
+        }
+        localJobs.put(key, job);
+    }
+
+    public StudentImportJobDTO get(UUID clientId, String jobId) {
+        String key = key(clientId, jobId);
+        if (redisTemplate != null) {
+            try {
+                String json = redisTemplate.opsForValue().get(key);
+                if (json != null) {
+                    return objectMapper.readValue(json, StudentImportJobDTO.class);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read import job {} from Redis: {}", jobId, e.getMessage());
+            }
+        }
+        return localJobs.getIfPresent(key);
+    }
+
+    private String key(UUID clientId, String jobId) {
+        return KEY_PREFIX + clientId + ":" + jobId;
+    }
+}
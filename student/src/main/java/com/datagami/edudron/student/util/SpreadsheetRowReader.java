@@ -0,0 +1,200 @@
+package com.datagami.edudron.student.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streams the first sheet of an XLSX file or a CSV file as header-keyed rows, handing them
+ * to a consumer in chunks. XLSX is read with POI's SAX event API and CSV with CSVParser, so
+ * memory stays bounded by the chunk size rather than the file size.
+ *
+ * Header names are lowercased, so "classId", "CLASSID" and "classid" are the same column.
+ */
+public final class SpreadsheetRowReader {
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setSkipHeaderRecord(true)
+            .setIgnoreSurroundingSpaces(true)
+            .setTrim(true)
+            .setIgnoreEmptyLines(true)
+            .setHeader()
+            .setAllowMissingColumnNames(true)
+            .build();
+
+    private SpreadsheetRowReader() {
+    }
+
+    /**
+     * A data row. Blank cells are absent, values are trimmed.
+     */
+    public record Row(long rowNumber, Map<String, String> values) {
+        public String get(String column) {
+            return values.get(column.toLowerCase());
+        }
+    }
+
+    public static boolean isExcel(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".xlsx") || lower.endsWith(".xls");
+    }
+
+    /**
+     * Read all non-blank data rows of {@code file}.
+     *
+     * @return the number of rows handed to the consumer
+     */
+    public static long read(Path file, String fileName, int chunkSize, Consumer<List<Row>> chunkConsumer) throws Exception {
+        ChunkBuffer buffer = new ChunkBuffer(chunkSize, chunkConsumer);
+        if (isExcel(fileName)) {
+            if (fileName.toLowerCase().endsWith(".xls")) {
+                throw new IllegalArgumentException("Legacy .xls files are not supported, please save the sheet as .xlsx or .csv");
+            }
+            readXlsx(file, buffer);
+        } else {
+            readCsv(file, buffer);
+        }
+        buffer.flush();
+        return buffer.total;
+    }
+
+    private static void readCsv(Path file, ChunkBuffer buffer) throws Exception {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CSVParser parser = CSV_FORMAT.parse(reader)) {
+            List<String> headers = parser.getHeaderNames().stream().map(h -> h.trim().toLowerCase()).toList();
+            for (CSVRecord record : parser) {
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < headers.size() && i < record.size(); i++) {
+                    putIfText(values, headers.get(i), record.get(i));
+                }
+                if (!values.isEmpty()) {
+                    buffer.add(new Row(record.getRecordNumber(), values));
+                }
+            }
+        }
+    }
+
+    private static void readXlsx(Path file, ChunkBuffer buffer) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Excel file has no sheets");
+            }
+            SheetHandler handler = new SheetHandler(buffer);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        reader.getStylesTable(), null, strings, handler, new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+            if (handler.headers == null) {
+                throw new IllegalArgumentException("Excel file must have a header row");
+            }
+        }
+    }
+
+    private static void putIfText(Map<String, String> values, String column, String value) {
+        if (column == null || column.isEmpty() || value == null) {
+            return;
+        }
+        String trimmed = value.trim();
+        if (!trimmed.isEmpty()) {
+            values.put(column, trimmed);
+        }
+    }
+
+    private static final class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final ChunkBuffer buffer;
+        private Map<Integer, String> headers;
+        private Map<Integer, String> current;
+        private int nextColumn;
+
+        SheetHandler(ChunkBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            current = new HashMap<>();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = column + 1;
+            if (formattedValue != null) {
+                current.put(column, formattedValue);
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (headers == null) {
+                // First non-empty row is the header
+                if (current.isEmpty()) return;
+                headers = new HashMap<>();
+                current.forEach((column, value) -> headers.put(column, value.trim().toLowerCase()));
+                return;
+            }
+            Map<String, String> values = new HashMap<>();
+            current.forEach((column, value) -> putIfText(values, headers.get(column), value));
+            if (!values.isEmpty()) {
+                buffer.add(new Row(rowNum + 1L, values));
+            }
+        }
+    }
+
+    private static final class ChunkBuffer {
+        private final int chunkSize;
+        private final Consumer<List<Row>> consumer;
+        private List<Row> rows;
+        private long total;
+
+        ChunkBuffer(int chunkSize, Consumer<List<Row>> consumer) {
+            this.chunkSize = chunkSize;
+            this.consumer = consumer;
+            this.rows = new ArrayList<>(chunkSize);
+        }
+
+        void add(Row row) {
+            rows.add(row);
+            total++;
+            if (rows.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) return;
+            List<Row> chunk = rows;
+            rows = new ArrayList<>(chunkSize);
+            consumer.accept(chunk);
+        }
+    }
+}
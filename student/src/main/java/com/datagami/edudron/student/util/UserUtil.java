@@ -1,5 +1,8 @@
 package com.datagami.edudron.student.util;
 
+import com.datagami.edudron.common.http.InterServiceClients;
+import com.datagami.edudron.common.security.JwtPrincipal;
+import com.datagami.edudron.student.client.IdentityLookup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -7,16 +10,12 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -24,14 +23,15 @@ public class UserUtil {
 
     private static final Logger log = LoggerFactory.getLogger(UserUtil.class);
 
-    private static volatile RestTemplate restTemplate;
-    private static final Object restTemplateLock = new Object();
     private static String gatewayUrl = System.getenv("GATEWAY_URL");
 
     // Cache user responses by email for 5 minutes to avoid repeated HTTP calls
     private static final ConcurrentHashMap<String, CachedUser> userCache = new ConcurrentHashMap<>();
     private static final long CACHE_TTL_MS = TimeUnit.MINUTES.toMillis(5);
 
+    // Installed by core-api, where identity runs in the same JVM; null means call identity over HTTP
+    private static volatile IdentityLookup identityLookup;
+
     static {
         if (gatewayUrl == null || gatewayUrl.isEmpty()) {
             gatewayUrl = "http://localhost:8080"; // Default fallback
@@ -40,35 +40,16 @@ public class UserUtil {
         com.datagami.edudron.common.UserCacheInvalidator.onInvalidate(UserUtil::invalidateCache);
     }
 
+    // Static helper, so it cannot be injected; see InterServiceClients.shared()
     private static RestTemplate getRestTemplate() {
-        // Double-checked locking for thread safety
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate template = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new com.datagami.edudron.common.TenantContextRestTemplateInterceptor());
-                    // Add interceptor to forward JWT token
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                                .getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    template.setInterceptors(interceptors);
-                    restTemplate = template;
-                }
-            }
-        }
-        return restTemplate;
+        return InterServiceClients.shared().restTemplate();
+    }
+
+    /**
+     * Resolve users through the given lookup instead of calling identity through the gateway.
+     */
+    public static void setIdentityLookup(IdentityLookup lookup) {
+        identityLookup = lookup;
     }
 
     /**
@@ -85,6 +66,12 @@ public class UserUtil {
      * Get cached user response, or fetch from identity service if not cached/expired.
      */
     private static UserResponse getCachedUserResponse(String email) {
+        // The gateway already resolved this user for the current request
+        UserResponse fromGateway = getGatewayResolvedUser(email);
+        if (fromGateway != null) {
+            return fromGateway;
+        }
+
         CachedUser cached = userCache.get(email);
         if (cached != null && !cached.isExpired()) {
             return cached.user;
@@ -92,19 +79,8 @@ public class UserUtil {
 
         // Fetch from identity service
         try {
-            String meUrl = gatewayUrl + "/idp/users/me";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<?> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<UserResponse> response = getRestTemplate().exchange(
-                    meUrl,
-                    HttpMethod.GET,
-                    entity,
-                    UserResponse.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                UserResponse user = response.getBody();
+            UserResponse user = fetchCurrentUser();
+            if (user != null) {
                 userCache.put(email, new CachedUser(user));
 
                 // Evict old entries periodically (keep cache bounded)
@@ -128,6 +104,25 @@ public class UserUtil {
         return null;
     }
 
+    private static UserResponse fetchCurrentUser() {
+        IdentityLookup lookup = identityLookup;
+        if (lookup != null) {
+            return lookup.getCurrentUser(UserResponse.class);
+        }
+
+        String meUrl = gatewayUrl + "/idp/users/me";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<?> entity = new HttpEntity<>(headers);
+
+        ResponseEntity<UserResponse> response = getRestTemplate().exchange(
+                meUrl,
+                HttpMethod.GET,
+                entity,
+                UserResponse.class);
+        return response.getStatusCode().is2xxSuccessful() ? response.getBody() : null;
+    }
+
     /**
      * Get the current user ID from SecurityContext.
      * The JWT subject contains the email, so we need to look up the user ID from
@@ -156,6 +151,26 @@ public class UserUtil {
         return email;
     }
 
+    /**
+     * User id/role the gateway resolved and signed for this request, if it matches the caller.
+     */
+    private static UserResponse getGatewayResolvedUser(String email) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object attribute = attributes.getRequest().getAttribute(JwtPrincipal.REQUEST_ATTRIBUTE);
+        if (!(attribute instanceof JwtPrincipal principal)
+                || principal.userId() == null || !email.equals(principal.username())) {
+            return null;
+        }
+        UserResponse user = new UserResponse();
+        user.setId(principal.userId());
+        user.setEmail(principal.email() != null ? principal.email() : principal.username());
+        user.setRole(principal.role());
+        return user;
+    }
+
     /**
      * Get the current user email from identity service.
      */
@@ -2,6 +2,7 @@ package com.datagami.edudron.student.web;
 
 import com.datagami.edudron.student.dto.BulkStudentImportRequest;
 import com.datagami.edudron.student.dto.BulkStudentImportResult;
+import com.datagami.edudron.student.dto.StudentImportJobDTO;
 import com.datagami.edudron.student.service.BulkStudentImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,14 +34,7 @@ public class BulkStudentImportController {
             @RequestParam(value = "defaultCourseIds", required = false) String defaultCourseIds) {
         
         try {
-            BulkStudentImportRequest request = new BulkStudentImportRequest();
-            request.setAutoGeneratePassword(autoGeneratePassword);
-            request.setUpsertExisting(upsertExisting);
-            request.setAutoEnroll(autoEnroll);
-            
-            if (defaultCourseIds != null && !defaultCourseIds.trim().isEmpty()) {
-                request.setDefaultCourseIds(java.util.Arrays.asList(defaultCourseIds.split(",")));
-            }
+            BulkStudentImportRequest request = buildRequest(autoGeneratePassword, upsertExisting, autoEnroll, defaultCourseIds);
             
             BulkStudentImportResult result = bulkStudentImportService.importStudents(file, request);
             
@@ -54,5 +48,36 @@ public class BulkStudentImportController {
             throw e;
         }
     }
+    
+    @PostMapping("/bulk-import/jobs")
+    @Operation(summary = "Start bulk student import", description = "Import students from a CSV or XLSX file in the background. Returns a job to poll for progress.")
+    public ResponseEntity<StudentImportJobDTO> submitBulkImportJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "autoGeneratePassword", required = false, defaultValue = "true") Boolean autoGeneratePassword,
+            @RequestParam(value = "upsertExisting", required = false, defaultValue = "false") Boolean upsertExisting,
+            @RequestParam(value = "autoEnroll", required = false, defaultValue = "false") Boolean autoEnroll,
+            @RequestParam(value = "defaultCourseIds", required = false) String defaultCourseIds) {
+        BulkStudentImportRequest request = buildRequest(autoGeneratePassword, upsertExisting, autoEnroll, defaultCourseIds);
+        StudentImportJobDTO job = bulkStudentImportService.submitImportJob(file, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+    
+    @GetMapping("/bulk-import/jobs/{jobId}")
+    @Operation(summary = "Get bulk student import progress", description = "Poll the status, row counts and failed rows of a background import")
+    public ResponseEntity<StudentImportJobDTO> getBulkImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(bulkStudentImportService.getImportJob(jobId));
+    }
+    
+    private BulkStudentImportRequest buildRequest(Boolean autoGeneratePassword, Boolean upsertExisting,
+                                                  Boolean autoEnroll, String defaultCourseIds) {
+        BulkStudentImportRequest request = new BulkStudentImportRequest();
+        request.setAutoGeneratePassword(autoGeneratePassword);
+        request.setUpsertExisting(upsertExisting);
+        request.setAutoEnroll(autoEnroll);
+        
+        if (defaultCourseIds != null && !defaultCourseIds.trim().isEmpty()) {
+            request.setDefaultCourseIds(java.util.Arrays.asList(defaultCourseIds.split(",")));
+        }
+        return request;
+    }
 }
-
@@ -1,20 +1,29 @@
 package com.datagami.edudron.student.web;
 
+import com.datagami.edudron.student.dto.ResultsExportJobDTO;
+import com.datagami.edudron.student.service.ResultsExportJobService;
 import com.datagami.edudron.student.service.ResultsExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.datagami.edudron.student.util.UserUtil;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 /**
  * REST controller for exporting student results as Excel workbooks.
- * Supports scoping by section, class, or course.
+ * Supports scoping by section, class, or course. Large scopes should use the export jobs,
+ * which build the workbook in the background and hand back a download URL.
  */
 @RestController
 @RequestMapping("/api/results")
@@ -23,54 +32,83 @@ public class ResultsExportController {
 
     private static final Logger log = LoggerFactory.getLogger(ResultsExportController.class);
 
+    private static final MediaType XLSX = MediaType.parseMediaType(
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
     private final ResultsExportService resultsExportService;
+    private final ResultsExportJobService resultsExportJobService;
 
-    public ResultsExportController(ResultsExportService resultsExportService) {
+    public ResultsExportController(ResultsExportService resultsExportService,
+                                   ResultsExportJobService resultsExportJobService) {
         this.resultsExportService = resultsExportService;
+        this.resultsExportJobService = resultsExportJobService;
     }
 
     @GetMapping("/export")
     @Operation(summary = "Export results", description = "Export student results as an Excel workbook. Provide one of sectionId, classId, or courseId.")
-    public ResponseEntity<byte[]> exportResults(
+    public void exportResults(
             @RequestParam(required = false) String sectionId,
             @RequestParam(required = false) String classId,
-            @RequestParam(required = false) String courseId) {
+            @RequestParam(required = false) String courseId,
+            HttpServletResponse response) throws IOException {
 
-        String userRole = UserUtil.getCurrentUserRole();
-        if (userRole == null || (!userRole.equals("SYSTEM_ADMIN") && !userRole.equals("TENANT_ADMIN")
-                && !userRole.equals("CONTENT_MANAGER") && !userRole.equals("INSTRUCTOR"))) {
+        if (!canExport()) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+
+        // Resolve before writing anything so scope errors still produce an error response
+        ResultsExportService.ExportScope scope = resultsExportService.resolveScope(sectionId, classId, courseId);
+        log.info("Exporting results for {}: {}", scope.getScope(), scope.getScopeId());
+
+        // Streamed on this thread: the export needs the request's tenant and Authorization header
+        response.setContentType(XLSX.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(scope.getFileName()).build().toString());
+        resultsExportService.writeExport(scope, response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    @PostMapping("/export/jobs")
+    @Operation(summary = "Start results export", description = "Export student results in the background. Provide one of sectionId, classId, or courseId; poll the returned job for the download URL.")
+    public ResponseEntity<ResultsExportJobDTO> submitExportJob(
+            @RequestParam(required = false) String sectionId,
+            @RequestParam(required = false) String classId,
+            @RequestParam(required = false) String courseId) {
+        if (!canExport()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        ResultsExportJobDTO job = resultsExportJobService.submitExportJob(sectionId, classId, courseId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
 
-        if ((sectionId == null || sectionId.isBlank())
-                && (classId == null || classId.isBlank())
-                && (courseId == null || courseId.isBlank())) {
-            throw new IllegalArgumentException("At least one of sectionId, classId, or courseId must be provided");
+    @GetMapping("/export/jobs/{jobId}")
+    @Operation(summary = "Get results export job", description = "Poll the status and download URL of a background results export")
+    public ResponseEntity<ResultsExportJobDTO> getExportJob(@PathVariable String jobId) {
+        if (!canExport()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        return ResponseEntity.ok(resultsExportJobService.getExportJob(jobId));
+    }
 
-        byte[] workbook;
-        String filename;
-
-        if (sectionId != null && !sectionId.isBlank()) {
-            log.info("Exporting results for section: {}", sectionId);
-            workbook = resultsExportService.exportBySection(sectionId);
-            filename = "results-section-" + sectionId + ".xlsx";
-        } else if (classId != null && !classId.isBlank()) {
-            log.info("Exporting results for class: {}", classId);
-            workbook = resultsExportService.exportByClass(classId);
-            filename = "results-class-" + classId + ".xlsx";
-        } else {
-            log.info("Exporting results for course: {}", courseId);
-            workbook = resultsExportService.exportByCourse(courseId);
-            filename = "results-course-" + courseId + ".xlsx";
+    @GetMapping("/export/jobs/{jobId}/download")
+    @Operation(summary = "Download results export", description = "Download the workbook of a completed export job when blob storage is not configured")
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable String jobId) {
+        if (!canExport()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        ResultsExportJobDTO job = resultsExportJobService.getExportJob(jobId);
+        FileSystemResource file = new FileSystemResource(resultsExportJobService.openDownload(jobId));
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(
-                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(workbook.length);
+        headers.setContentType(XLSX);
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+        return ResponseEntity.ok().headers(headers).body(file);
+    }
 
-        return ResponseEntity.ok().headers(headers).body(workbook);
+    private boolean canExport() {
+        String userRole = UserUtil.getCurrentUserRole();
+        return userRole != null && (userRole.equals("SYSTEM_ADMIN") || userRole.equals("TENANT_ADMIN")
+                || userRole.equals("CONTENT_MANAGER") || userRole.equals("INSTRUCTOR"));
     }
 }
@@ -1,7 +1,6 @@
 package com.datagami.edudron.student.web;
 
 import com.datagami.edudron.common.TenantContext;
-import com.datagami.edudron.common.TenantContextRestTemplateInterceptor;
 import com.datagami.edudron.student.domain.AssessmentSubmission;
 import com.datagami.edudron.student.domain.Enrollment;
 import com.datagami.edudron.student.domain.Section;
@@ -24,17 +23,14 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -69,38 +65,8 @@ public class StudentExamController {
     @Value("${GATEWAY_URL:http://localhost:8080}")
     private String gatewayUrl;
 
-    private volatile RestTemplate restTemplate;
-    private final Object restTemplateLock = new Object();
-
-    private RestTemplate getRestTemplate() {
-        // Double-checked locking for thread-safe lazy initialization
-        if (restTemplate == null) {
-            synchronized (restTemplateLock) {
-                if (restTemplate == null) {
-                    RestTemplate newTemplate = new RestTemplate();
-                    List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
-                    interceptors.add(new TenantContextRestTemplateInterceptor());
-                    interceptors.add((request, body, execution) -> {
-                        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
-                                .getRequestAttributes();
-                        if (attributes != null) {
-                            HttpServletRequest currentRequest = attributes.getRequest();
-                            String authHeader = currentRequest.getHeader("Authorization");
-                            if (authHeader != null && !authHeader.isBlank()) {
-                                if (!request.getHeaders().containsKey("Authorization")) {
-                                    request.getHeaders().add("Authorization", authHeader);
-                                }
-                            }
-                        }
-                        return execution.execute(request, body);
-                    });
-                    newTemplate.setInterceptors(interceptors);
-                    restTemplate = newTemplate;
-                }
-            }
-        }
-        return restTemplate;
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
     @GetMapping
     @Operation(summary = "Get available exams", description = "Get all available exams (live, scheduled, and completed) for the student based on their enrollments")
@@ -113,229 +79,73 @@ public class StudentExamController {
             }
             UUID clientId = UUID.fromString(clientIdStr);
 
-            // Get student's enrollments to determine which courses they have access to
+            // Get student's enrollments to determine which courses they have access to.
+            // The first enrollment per course decides the section used for exam restrictions.
             List<Enrollment> enrollments = enrollmentRepository.findByClientIdAndStudentId(clientId, studentId);
-            Set<String> enrolledCourseIds = enrollments.stream()
-                    .map(Enrollment::getCourseId)
-                    .filter(courseId -> courseId != null && !courseId.isEmpty())
-                    .collect(Collectors.toSet());
-
-            // Get all exam submissions for enrolled courses to find completed exams
-            Set<String> submissionCourseIds = new HashSet<>();
-            Set<String> completedExamIds = new HashSet<>();
-            for (String courseId : enrolledCourseIds) {
-                List<AssessmentSubmission> courseSubmissions = submissionRepository
-                        .findByClientIdAndStudentIdAndCourseId(clientId, studentId, courseId);
-                for (AssessmentSubmission submission : courseSubmissions) {
-                    if (submission.getCourseId() != null) {
-                        submissionCourseIds.add(submission.getCourseId());
-                    }
-                    if (submission.getAssessmentId() != null && submission.getCompletedAt() != null) {
-                        completedExamIds.add(submission.getAssessmentId());
-                    }
+            Map<String, Enrollment> enrollmentByCourse = new LinkedHashMap<>();
+            for (Enrollment enrollment : enrollments) {
+                String courseId = enrollment.getCourseId();
+                if (courseId != null && !courseId.isEmpty()) {
+                    enrollmentByCourse.putIfAbsent(courseId, enrollment);
                 }
             }
-
-            // Combine both sets for accessible course IDs
-            Set<String> accessibleCourseIds = new HashSet<>(enrolledCourseIds);
-            accessibleCourseIds.addAll(submissionCourseIds);
-
-            if (accessibleCourseIds.isEmpty()) {
+            if (enrollmentByCourse.isEmpty()) {
                 return ResponseEntity.ok(new ArrayList<>());
             }
 
-            // Get live exams
-            List<Object> exams = new ArrayList<>();
-            try {
-                String url = gatewayUrl + "/api/exams/live";
-                HttpHeaders liveHeaders = new HttpHeaders();
-                liveHeaders.setAccept(
-                        java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
-
-                ResponseEntity<Object[]> response = getRestTemplate().exchange(
-                        url,
-                        HttpMethod.GET,
-                        new HttpEntity<>(liveHeaders),
-                        Object[].class);
-
-                if (response.getBody() != null) {
-                    exams.addAll(List.of(response.getBody()));
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to fetch live exams", e);
-            }
-
-            // Get scheduled exams
-            try {
-                String scheduledUrl = gatewayUrl + "/api/exams/scheduled";
-                HttpHeaders scheduledHeaders = new HttpHeaders();
-                scheduledHeaders.setAccept(
-                        java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
-
-                ResponseEntity<Object[]> scheduledResponse = getRestTemplate().exchange(
-                        scheduledUrl,
-                        HttpMethod.GET,
-                        new HttpEntity<>(scheduledHeaders),
-                        Object[].class);
-
-                if (scheduledResponse.getBody() != null) {
-                    exams.addAll(List.of(scheduledResponse.getBody()));
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to fetch scheduled exams", e);
-            }
-
-            // Fetch completed exam details (only for exams not already in the list)
-            Set<String> existingExamIds = new HashSet<>();
-            for (Object exam : exams) {
-                try {
-                    JsonNode examNode = objectMapper.valueToTree(exam);
-                    if (examNode.has("id")) {
-                        existingExamIds.add(examNode.get("id").asText());
-                    }
-                } catch (Exception e) {
-                    // Ignore
+            // Resolve each enrolled section's class in one query
+            Set<String> sectionIds = enrollmentByCourse.values().stream()
+                    .map(Enrollment::getBatchId) // batchId represents sectionId
+                    .filter(id -> id != null && !id.isEmpty())
+                    .collect(Collectors.toSet());
+            Map<String, String> classIdBySection = sectionIds.isEmpty()
+                    ? Map.of()
+                    : sectionRepository.findByClientIdAndIdIn(clientId, sectionIds).stream()
+                            .filter(section -> section.getClassId() != null)
+                            .collect(Collectors.toMap(Section::getId, Section::getClassId));
+
+            List<Map<String, String>> scopes = new ArrayList<>();
+            for (Map.Entry<String, Enrollment> entry : enrollmentByCourse.entrySet()) {
+                String sectionId = entry.getValue().getBatchId();
+                Map<String, String> scope = new HashMap<>();
+                scope.put("courseId", entry.getKey());
+                scope.put("sectionId", sectionId);
+                scope.put("classId", sectionId != null ? classIdBySection.get(sectionId) : null);
+                scopes.add(scope);
+            }
+
+            // Attempt counts and completed exams for this student in one grouped query
+            Map<String, Integer> attemptsByExam = new HashMap<>();
+            Set<String> completedExamIds = new HashSet<>();
+            for (Object[] row : submissionRepository.countAttemptsByAssessment(clientId, studentId)) {
+                String examId = (String) row[0];
+                attemptsByExam.put(examId, ((Number) row[1]).intValue());
+                if (((Number) row[2]).longValue() > 0) {
+                    completedExamIds.add(examId);
                 }
             }
 
-            for (String examId : completedExamIds) {
-                if (!existingExamIds.contains(examId)) {
-                    try {
-                        String examUrl = gatewayUrl + "/api/exams/" + examId;
-                        HttpHeaders examHeaders = new HttpHeaders();
-                        examHeaders.setAccept(java.util.Collections
-                                .singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
-
-                        ResponseEntity<Object> examResponse = getRestTemplate().exchange(
-                                examUrl,
-                                HttpMethod.GET,
-                                new HttpEntity<>(examHeaders),
-                                Object.class);
-                        if (examResponse.getBody() != null) {
-                            exams.add(examResponse.getBody());
-                        }
-                    } catch (Exception e) {
-                    }
-                }
+            // Live, scheduled and completed exams, already filtered by course/section/class on the content side
+            JsonNode visibleExams = contentExamClient.getVisibleExams(scopes, completedExamIds);
+            if (visibleExams == null || !visibleExams.isArray()) {
+                return ResponseEntity.ok(new ArrayList<>());
             }
 
-            // Filter exams to only include those for courses the student is enrolled in
-            // Also check section-based or class-based access if exam is restricted
-            // Also deduplicate by exam ID to prevent same exam appearing multiple times
-            Set<String> seenExamIds = new HashSet<>();
-            List<Object> filteredExams = exams.stream()
-                    .filter(exam -> {
-                        try {
-                            JsonNode examNode = objectMapper.valueToTree(exam);
-                            String examId = examNode.has("id") ? examNode.get("id").asText() : "unknown";
-
-                            // Check if exam ID exists and hasn't been seen before
-                            if (examNode.has("id")) {
-                                if (seenExamIds.contains(examId)) {
-                                    return false; // Skip duplicate
-                                }
-                                seenExamIds.add(examId);
-                            }
-
-                            // Filter by course enrollment
-                            if (examNode.has("courseId")) {
-                                String courseId = examNode.get("courseId").asText();
-                                if (!accessibleCourseIds.contains(courseId)) {
-                                    return false; // Student not enrolled in this course
-                                }
-
-                                // Find student's enrollment for this course
-                                Enrollment studentEnrollment = null;
-                                for (Enrollment enrollment : enrollments) {
-                                    if (courseId.equals(enrollment.getCourseId())) {
-                                        studentEnrollment = enrollment;
-                                        break;
-                                    }
-                                }
-
-                                if (studentEnrollment == null) {
-                                    return false; // Should not happen, but safety check
-                                }
-
-                                String studentSectionId = studentEnrollment.getBatchId(); // batchId represents
-                                                                                          // sectionId
-
-                                // Priority 1: Check if exam is section-specific
-                                String examSectionId = examNode.has("sectionId") ? examNode.get("sectionId").asText()
-                                        : null;
-                                if (examSectionId != null && !examSectionId.isEmpty()) {
-                                    // Student can access if their section matches
-                                    if (studentSectionId != null && studentSectionId.equals(examSectionId)) {
-                                        return true;
-                                    }
-                                    // Student not in the required section
-                                    return false;
-                                }
-
-                                // Priority 2: Check if exam is class-specific
-                                String examClassId = examNode.has("classId") ? examNode.get("classId").asText() : null;
-                                if (examClassId != null && !examClassId.isEmpty()) {
-                                    // Need to check if student's section belongs to this class
-                                    if (studentSectionId == null) {
-                                        return false;
-                                    }
-
-                                    // Get student's section to check its classId
-                                    try {
-                                        java.util.Optional<Section> sectionOpt = sectionRepository
-                                                .findByIdAndClientId(studentSectionId, clientId);
-
-                                        if (sectionOpt.isPresent()) {
-                                            Section studentSection = sectionOpt.get();
-                                            String studentClassId = studentSection.getClassId();
-
-                                            if (studentClassId != null && studentClassId.equals(examClassId)) {
-                                                return true;
-                                            }
-                                        }
-                                    } catch (Exception e) {
-                                        logger.warn("Error checking class membership for student section", e);
-                                    }
-
-                                    // Student's section not in the required class
-                                    return false;
-                                }
-
-                                // Exam has no section or class requirement - accessible to all students in
-                                // course
-                                return true;
-                            }
-                            return false;
-                        } catch (Exception e) {
-                            logger.warn("Error filtering exam", e);
-                            return false;
-                        }
-                    })
-                    .collect(Collectors.toList());
-
             // Add attemptsTaken for each exam so frontend knows if student has completed it
+            Set<String> seenExamIds = new HashSet<>();
             List<Map<String, Object>> examsWithAttempts = new ArrayList<>();
-            for (Object exam : filteredExams) {
-                try {
-                    Map<String, Object> examMap = objectMapper.convertValue(exam,
-                            new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {
-                            });
-                    String examId = examMap.containsKey("id") ? String.valueOf(examMap.get("id")) : null;
-
-                    if (examId != null) {
-                        // Count submissions for this exam
-                        long attemptCount = submissionRepository.countByClientIdAndStudentIdAndAssessmentId(
-                                clientId, studentId, examId);
-                        examMap.put("attemptsTaken", (int) attemptCount);
-                    }
-                    examsWithAttempts.add(examMap);
-                } catch (Exception ex) {
-                    // Still include the exam even if we can't add attemptsTaken
-                    Map<String, Object> examMap = objectMapper.convertValue(exam,
-                            new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {
-                            });
-                    examsWithAttempts.add(examMap);
+            for (JsonNode exam : visibleExams) {
+                String examId = exam.hasNonNull("id") ? exam.get("id").asText() : null;
+                if (examId != null && !seenExamIds.add(examId)) {
+                    continue; // Skip duplicate
+                }
+                Map<String, Object> examMap = objectMapper.convertValue(exam,
+                        new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {
+                        });
+                if (examId != null) {
+                    examMap.put("attemptsTaken", attemptsByExam.getOrDefault(examId, 0));
                 }
+                examsWithAttempts.add(examMap);
             }
 
             return ResponseEntity.ok(examsWithAttempts);
@@ -636,7 +446,7 @@ public class StudentExamController {
                         java.util.Collections.singletonList(org.springframework.http.MediaType.APPLICATION_JSON));
                 headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
 
-                getRestTemplate().exchange(
+                restTemplate.exchange(
                         reviewUrl,
                         HttpMethod.POST,
                         new HttpEntity<>(headers),
@@ -0,0 +1,80 @@
+package com.datagami.edudron.student.client;
+
+import com.datagami.edudron.common.TenantContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * IdentityUserClient keeps its caching and chunking on top of whichever IdentityLookup is active.
+ */
+@ExtendWith(MockitoExtension.class)
+class IdentityUserClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private IdentityLookup identityLookup;
+
+    @InjectMocks
+    private IdentityUserClient identityUserClient;
+
+    @BeforeEach
+    void setUp() {
+        TenantContext.setClientId(UUID.randomUUID().toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void batchLookupsAreChunkedAndServedFromCacheAfterwards() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 750; i++) {
+            ids.add("user-" + i);
+        }
+        when(identityLookup.getUsersByIds(anyList(), eq(JsonNode.class))).thenAnswer(invocation -> {
+            List<String> requested = invocation.getArgument(0);
+            return requested.stream().map(this::user).toList();
+        });
+
+        Map<String, JsonNode> first = identityUserClient.getUsersByIds(ids);
+        Map<String, JsonNode> second = identityUserClient.getUsersByIds(ids);
+
+        assertEquals(750, first.size());
+        assertEquals("user-749", first.get("user-749").path("id").asText());
+        assertEquals(first.keySet(), second.keySet());
+        // 500 + 250 on the first call, nothing on the second
+        verify(identityLookup, times(2)).getUsersByIds(anyList(), eq(JsonNode.class));
+    }
+
+    @Test
+    void failedLookupsReturnNothingInsteadOfThrowing() {
+        when(identityLookup.getUser("user-1", JsonNode.class)).thenThrow(new IllegalStateException("identity down"));
+        when(identityLookup.getUsersByIds(anyList(), eq(JsonNode.class))).thenThrow(new IllegalStateException("identity down"));
+
+        assertNull(identityUserClient.getUser("user-1"));
+        assertTrue(identityUserClient.getUsersByIds(List.of("user-1", "user-2")).isEmpty());
+    }
+
+    private JsonNode user(String id) {
+        return objectMapper.createObjectNode().put("id", id).put("email", id + "@example.com");
+    }
+}
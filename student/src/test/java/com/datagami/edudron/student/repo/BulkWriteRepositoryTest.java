@@ -0,0 +1,82 @@
+package com.datagami.edudron.student.repo;
+
+import com.datagami.edudron.student.domain.Enrollment;
+import com.datagami.edudron.student.domain.ProjectEventGrade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkWriteRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private BulkWriteRepository repository;
+
+    private final UUID clientId = UUID.randomUUID();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gradesForAWholeRosterAreOneDeleteAndOneBatch() {
+        List<ProjectEventGrade> grades = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ProjectEventGrade grade = new ProjectEventGrade();
+            grade.setId("grade-" + i);
+            grade.setClientId(clientId);
+            grade.setEventId("event-1");
+            grade.setStudentId("student-" + i);
+            grade.setGroupId("group-1");
+            grade.setMarks(i % 10);
+            grades.add(grade);
+        }
+
+        repository.replaceGrades(clientId, "event-1", grades);
+
+        verify(jdbcTemplate).update(BulkWriteRepository.DELETE_GRADES_SQL, "event-1", clientId);
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(BulkWriteRepository.UPSERT_GRADE_SQL), batch.capture());
+        assertEquals(300, batch.getValue().size());
+        assertArrayEquals(new Object[] { "grade-7", clientId, "event-1", "student-7", "group-1", 7 },
+                batch.getValue().get(7));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void emptyAttendanceOnlyClearsTheEvent() {
+        repository.replaceAttendance(clientId, "event-1", List.of());
+
+        verify(jdbcTemplate).update(BulkWriteRepository.DELETE_ATTENDANCE_SQL, "event-1", clientId);
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enrollmentsAreInsertedAsOneBatch() {
+        List<Enrollment> enrollments = List.of(
+                new Enrollment("enr-1", clientId, "student-1", "course-1"),
+                new Enrollment("enr-2", clientId, "student-2", "course-1"));
+
+        repository.insertEnrollments(enrollments);
+        repository.insertEnrollments(List.of());
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(BulkWriteRepository.INSERT_ENROLLMENT_SQL), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertEquals("student-2", batch.getValue().get(1)[2]);
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,299 @@
+package com.datagami.edudron.student.repo;
+
+import com.datagami.edudron.common.UlidGenerator;
+import com.datagami.edudron.student.domain.CalendarEvent;
+import com.datagami.edudron.student.domain.EventAudience;
+import com.datagami.edudron.student.domain.EventType;
+import com.datagami.edudron.student.domain.ProjectGroupMember;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the student service's spring.jpa.properties against Postgres through a DataSource that
+ * records every statement, to check that Hibernate really sends JDBC batches and that new
+ * CalendarEvents (ids assigned in code) are inserted without a merge SELECT.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HibernateBatchingTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final StatementLog statements = new StatementLog();
+    private static EntityManagerFactory entityManagerFactory;
+    private static int batchSize;
+
+    private UUID clientId;
+
+    @BeforeAll
+    static void startHibernate() {
+        Map<String, Object> jpaProperties = applicationJpaProperties();
+        assertEquals("true", jpaProperties.get("hibernate.order_inserts"));
+        assertEquals("true", jpaProperties.get("hibernate.order_updates"));
+        batchSize = Integer.parseInt((String) jpaProperties.get("hibernate.jdbc.batch_size"));
+        assertTrue(batchSize > 1);
+
+        // Schema from the mappings; Liquibase is not what is under test here
+        jpaProperties.put("hibernate.hbm2ddl.auto", "create");
+        jpaProperties.put("hibernate.hbm2ddl.create_namespaces", "true");
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(statements.wrap(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())));
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setManagedTypes(PersistenceManagedTypes.of(
+                CalendarEvent.class.getName(), ProjectGroupMember.class.getName()));
+        factory.setJpaPropertyMap(jpaProperties);
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+    }
+
+    @AfterAll
+    static void stopHibernate() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clientId = UUID.randomUUID();
+        statements.clear();
+    }
+
+    @Test
+    void newCalendarEventsAreInsertedInJdbcBatchesWithoutMergeSelects() {
+        int count = 2 * batchSize + 7;
+        List<CalendarEvent> occurrences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Recurrence occurrences get their ULID before saveAll()
+            CalendarEvent occurrence = event("Weekly review " + i);
+            occurrence.setId(UlidGenerator.nextUlid());
+            occurrences.add(occurrence);
+        }
+
+        inTransaction(em -> repository(em, CalendarEventRepository.class).saveAll(occurrences));
+
+        assertEquals(List.of(), statements.queries, "Persistable.isNew() skips the merge SELECT");
+        assertEquals(List.of(), statements.updates);
+        assertEquals(3, statements.batches.size());
+        assertEquals(count, statements.batches.stream().mapToInt(Batch::rows).sum());
+        for (Batch batch : statements.batches) {
+            assertTrue(batch.sql().startsWith("insert into calendar.calendar_events"), batch.sql());
+            assertTrue(batch.rows() <= batchSize);
+        }
+    }
+
+    @Test
+    void loadedCalendarEventsAreUpdatedInJdbcBatches() {
+        int count = batchSize + 1;
+        inTransaction(em -> {
+            CalendarEventRepository repository = repository(em, CalendarEventRepository.class);
+            for (int i = 0; i < count; i++) {
+                repository.save(event("Exam " + i));
+            }
+        });
+        statements.clear();
+
+        inTransaction(em -> {
+            CalendarEventRepository repository = repository(em, CalendarEventRepository.class);
+            List<CalendarEvent> loaded = repository.findAll().stream()
+                    .filter(e -> clientId.equals(e.getClientId()))
+                    .toList();
+            assertEquals(count, loaded.size());
+            loaded.forEach(e -> {
+                assertFalse(e.isNew(), "loaded events are not new");
+                e.setLocation("Hall B");
+            });
+            repository.saveAll(loaded);
+        });
+
+        assertEquals(1, statements.queries.size(), "only the findAll()");
+        assertEquals(List.of(), statements.updates);
+        assertEquals(2, statements.batches.size());
+        for (Batch batch : statements.batches) {
+            assertTrue(batch.sql().startsWith("update calendar.calendar_events"), batch.sql());
+        }
+    }
+
+    @Test
+    void interleavedInsertsAreOrderedIntoOneBatchPerTable() {
+        int perTable = Math.min(batchSize, 40);
+
+        inTransaction(em -> {
+            CalendarEventRepository events = repository(em, CalendarEventRepository.class);
+            ProjectGroupMemberRepository members = repository(em, ProjectGroupMemberRepository.class);
+            for (int i = 0; i < perTable; i++) {
+                events.save(event("Deadline " + i));
+                ProjectGroupMember member = new ProjectGroupMember();
+                member.setClientId(clientId);
+                member.setGroupId("group");
+                member.setStudentId("student-" + i);
+                members.save(member);
+            }
+        });
+
+        // Without order_inserts every table switch would end the batch: 2 * perTable batches of one row
+        assertEquals(List.of(), statements.updates);
+        assertEquals(2, statements.batches.size());
+        assertEquals(perTable, statements.batches.get(0).rows());
+        assertEquals(perTable, statements.batches.get(1).rows());
+    }
+
+    private CalendarEvent event(String title) {
+        CalendarEvent event = new CalendarEvent();
+        event.setClientId(clientId);
+        event.setTitle(title);
+        event.setEventType(EventType.REVIEW);
+        event.setAudience(EventAudience.SECTION);
+        event.setSectionIds(List.of("section-1"));
+        event.setStartDateTime(OffsetDateTime.now());
+        event.setMetadata(Map.of("source", "test"));
+        return event;
+    }
+
+    private static <R> R repository(EntityManager em, Class<R> repositoryInterface) {
+        return new JpaRepositoryFactory(em).getRepository(repositoryInterface);
+    }
+
+    private static void inTransaction(Consumer<EntityManager> work) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            work.accept(em);
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * spring.jpa.properties.* from the service's application.yml, placeholders resolved
+     */
+    private static Map<String, Object> applicationJpaProperties() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties application = yaml.getObject();
+        StandardEnvironment environment = new StandardEnvironment();
+        String prefix = "spring.jpa.properties.";
+        Map<String, Object> properties = new HashMap<>();
+        // keySet, not stringPropertyNames: YAML booleans such as order_inserts are not String values
+        for (Object key : application.keySet()) {
+            String name = key.toString();
+            if (name.startsWith(prefix)) {
+                properties.put(name.substring(prefix.length()),
+                        environment.resolvePlaceholders(application.getProperty(name)));
+            }
+        }
+        return properties;
+    }
+
+    record Batch(String sql, int rows) {
+    }
+
+    /**
+     * Records executed statements by kind: queries, single updates and JDBC batches.
+     */
+    static final class StatementLog {
+
+        final List<String> queries = new CopyOnWriteArrayList<>();
+        final List<String> updates = new CopyOnWriteArrayList<>();
+        final List<Batch> batches = new CopyOnWriteArrayList<>();
+
+        void clear() {
+            queries.clear();
+            updates.clear();
+            batches.clear();
+        }
+
+        DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, args, result) ->
+                    result instanceof Connection connection ? wrap(connection) : result);
+        }
+
+        private Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) ->
+                    method.equals("prepareStatement") ? wrap((PreparedStatement) result, (String) args[0]) : result);
+        }
+
+        private PreparedStatement wrap(PreparedStatement statement, String sql) {
+            String normalized = sql.trim().toLowerCase(Locale.ROOT);
+            int[] pendingRows = {0};
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                switch (method) {
+                    case "addBatch" -> pendingRows[0]++;
+                    case "executeBatch" -> {
+                        batches.add(new Batch(normalized, pendingRows[0]));
+                        pendingRows[0] = 0;
+                    }
+                    case "executeQuery" -> queries.add(normalized);
+                    case "executeUpdate", "execute" -> {
+                        if (!normalized.startsWith("select")) {
+                            updates.add(normalized);
+                        } else {
+                            queries.add(normalized);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                return result;
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(String method, Object[] args, Object result) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+                return afterCall.apply(method.getName(), args, result);
+            };
+            return (T) Proxy.newProxyInstance(HibernateBatchingTest.class.getClassLoader(), new Class<?>[] {type}, handler);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.common.AuthorizationContext;
+import com.datagami.edudron.common.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundJobRunnerTest {
+
+    private final BackgroundJobRunner runner = new BackgroundJobRunner();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+        TenantContext.clear();
+    }
+
+    @Test
+    void jobRunsWithTheSubmittingRequestsContextAndClearsItAfterwards() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("admin@example.com", null);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        TenantContext.setClientId("client1");
+
+        BackgroundJobRunner.JobContext context = BackgroundJobRunner.JobContext.capture();
+        // The request completes before the job starts
+        tearDown();
+
+        AtomicReference<String> tenant = new AtomicReference<>();
+        AtomicReference<Authentication> user = new AtomicReference<>();
+        AtomicReference<String> authorization = new AtomicReference<>();
+        runner.runImport(context, () -> {
+            tenant.set(TenantContext.getClientId());
+            user.set(SecurityContextHolder.getContext().getAuthentication());
+            authorization.set(AuthorizationContext.getAuthorization());
+        });
+
+        assertEquals("client1", tenant.get());
+        assertSame(authentication, user.get());
+        assertEquals("Bearer token", authorization.get());
+        assertNull(TenantContext.getClientId());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(AuthorizationContext.getAuthorization());
+    }
+
+    @Test
+    void contextIsClearedWhenTheJobFails() {
+        BackgroundJobRunner.JobContext context = new BackgroundJobRunner.JobContext(
+                "client1", SecurityContextHolder.createEmptyContext(), "Bearer token");
+
+        assertThrows(IllegalStateException.class, () -> runner.runExport(context, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertNull(TenantContext.getClientId());
+        assertNull(AuthorizationContext.getAuthorization());
+    }
+}
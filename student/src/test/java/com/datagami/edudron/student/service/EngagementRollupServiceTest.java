@@ -0,0 +1,183 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.repo.EngagementRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EngagementRollupServiceTest {
+
+    @Mock
+    private EngagementRollupRepository rollupRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Cache courseCache;
+
+    @Mock
+    private Cache sectionCache;
+
+    @Mock
+    private Cache classCache;
+
+    @InjectMocks
+    private EngagementRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "settleSeconds", 10L);
+        ReflectionTestUtils.setField(service, "overlapSeconds", 120L);
+        ReflectionTestUtils.setField(service, "maxWindowHours", 24L);
+
+        lenient().when(cacheManager.getCache("courseAnalytics")).thenReturn(courseCache);
+        lenient().when(cacheManager.getCache("sectionAnalytics")).thenReturn(sectionCache);
+        lenient().when(cacheManager.getCache("classAnalytics")).thenReturn(classCache);
+    }
+
+    @Test
+    void lockedWatermarkSkipsTheFold() {
+        // SKIP LOCKED returns no row while another node holds the state row
+        when(rollupRepository.lockWatermark(EngagementRollupService.STATE_ID)).thenReturn(List.of());
+
+        service.foldRecentSessions();
+
+        verify(rollupRepository).lockWatermark(EngagementRollupService.STATE_ID);
+        verifyNoMoreInteractions(rollupRepository);
+        verifyNoInteractions(cacheManager);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void settledWatermarkIsLeftAlone() {
+        when(rollupRepository.lockWatermark(EngagementRollupService.STATE_ID))
+                .thenReturn(List.of(OffsetDateTime.now(ZoneOffset.UTC)));
+
+        service.foldRecentSessions();
+
+        verify(rollupRepository, never()).advanceWatermark(anyString(), any());
+        verify(rollupRepository, never()).deleteDirtyLectureRollups(any(), any());
+        verifyNoInteractions(cacheManager);
+    }
+
+    @Test
+    void windowIsFoldedWithOverlapAndWatermarkAdvancedToSettlePoint() {
+        OffsetDateTime watermark = OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(5);
+        when(rollupRepository.lockWatermark(EngagementRollupService.STATE_ID)).thenReturn(List.of(watermark));
+        when(rollupRepository.findTouchedScopes(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[] { "course1", "section1", "class1" },
+                        new Object[] { "course1", null, null }));
+        when(rollupRepository.insertLectureRollups(any(), any(), anyInt())).thenReturn(3);
+
+        service.foldRecentSessions();
+
+        ArgumentCaptor<OffsetDateTime> end = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(rollupRepository).advanceWatermark(eq(EngagementRollupService.STATE_ID), end.capture());
+        OffsetDateTime windowEnd = end.getValue();
+        OffsetDateTime windowStart = watermark.minusSeconds(120);
+        assertTrue(windowEnd.isAfter(watermark));
+        assertFalse(windowEnd.isAfter(OffsetDateTime.now(ZoneOffset.UTC).minusSeconds(10)));
+
+        // Scopes are read before the dirty lecture-days are deleted, then everything is
+        // recomputed over the same window
+        InOrder inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository).findTouchedScopes(windowStart, windowEnd);
+        inOrder.verify(rollupRepository).deleteDirtyLectureRollups(windowStart, windowEnd);
+        inOrder.verify(rollupRepository).deleteDirtyDailyViewers(windowStart, windowEnd);
+        inOrder.verify(rollupRepository).insertLectureRollups(windowStart, windowEnd,
+                EngagementRollupService.SHORT_SESSION_THRESHOLD_SECONDS);
+        inOrder.verify(rollupRepository).insertDailyViewers(windowStart, windowEnd);
+        inOrder.verify(rollupRepository).advanceWatermark(EngagementRollupService.STATE_ID, windowEnd);
+
+        verify(transactionManager, times(1)).commit(any());
+        verify(courseCache).evict("course1");
+        verify(sectionCache).evict("section1");
+        verify(classCache).evict("class1");
+        verifyNoMoreInteractions(courseCache, sectionCache, classCache);
+    }
+
+    @Test
+    void backlogIsFoldedInBoundedWindowsEachInItsOwnTransaction() {
+        OffsetDateTime watermark = OffsetDateTime.now(ZoneOffset.UTC).minusHours(50);
+        OffsetDateTime second = watermark.plusHours(24);
+        OffsetDateTime third = watermark.plusHours(48);
+        // The driver may hand the watermark back as a Timestamp
+        when(rollupRepository.lockWatermark(EngagementRollupService.STATE_ID))
+                .thenReturn(List.of(Timestamp.from(watermark.toInstant())))
+                .thenReturn(List.of(second))
+                .thenReturn(List.of(third));
+        when(rollupRepository.findTouchedScopes(any(), any())).thenReturn(List.of());
+
+        service.foldRecentSessions();
+
+        ArgumentCaptor<OffsetDateTime> ends = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(rollupRepository, times(3)).advanceWatermark(eq(EngagementRollupService.STATE_ID), ends.capture());
+        List<OffsetDateTime> windowEnds = ends.getAllValues();
+        assertEquals(second.toInstant(), windowEnds.get(0).toInstant());
+        assertEquals(third.toInstant(), windowEnds.get(1).toInstant());
+        assertFalse(windowEnds.get(2).isAfter(OffsetDateTime.now(ZoneOffset.UTC).minusSeconds(10)));
+
+        verify(rollupRepository).deleteDirtyLectureRollups(second.minusSeconds(120), third);
+        verify(transactionManager, times(3)).commit(any());
+        verifyNoInteractions(cacheManager);
+    }
+
+    @Test
+    void scopesAreReadPerWindowAndEvictedWhenALaterWindowFails() {
+        OffsetDateTime watermark = OffsetDateTime.now(ZoneOffset.UTC).minusHours(30);
+        OffsetDateTime second = watermark.plusHours(24);
+        when(rollupRepository.lockWatermark(EngagementRollupService.STATE_ID))
+                .thenReturn(List.of(watermark))
+                .thenReturn(List.of(second));
+        when(rollupRepository.findTouchedScopes(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[] { "course1", "section1", "class1" }))
+                .thenReturn(List.<Object[]>of(new Object[] { "course1", "section2", "class1" }));
+        when(rollupRepository.insertDailyViewers(any(), any()))
+                .thenReturn(0)
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        service.foldRecentSessions();
+
+        // The first window committed, so its dashboards are evicted even though the second
+        // rolled back; the second window's scopes were never evicted
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(rollupRepository, times(1)).advanceWatermark(EngagementRollupService.STATE_ID, second);
+        verify(sectionCache).evict("section1");
+        verify(sectionCache, never()).evict("section2");
+        verify(courseCache, times(1)).evict("course1");
+    }
+
+    @Test
+    void disabledRollupDoesNothing() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+
+        service.foldRecentSessions();
+
+        verifyNoInteractions(rollupRepository, transactionManager, cacheManager);
+    }
+}
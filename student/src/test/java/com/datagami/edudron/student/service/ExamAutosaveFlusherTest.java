@@ -0,0 +1,96 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.common.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExamAutosaveFlusherTest {
+
+    @Mock
+    private ExamAutosaveJournal autosaveJournal;
+
+    @Mock
+    private ExamSubmissionService examSubmissionService;
+
+    @InjectMocks
+    private ExamAutosaveFlusher flusher;
+
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        clientId = UUID.randomUUID();
+        when(autosaveJournal.isActive()).thenReturn(true);
+    }
+
+    @Test
+    void claimIsAcknowledgedOnlyAfterTheFlushSucceeds() {
+        when(autosaveJournal.claimDirty(anyInt())).thenReturn(List.of("submission1"));
+        when(autosaveJournal.read("submission1")).thenReturn(new ExamAutosaveJournal.Pending(clientId, null, 300));
+        doAnswer(invocation -> {
+            assertEquals(clientId.toString(), TenantContext.getClientId());
+            return null;
+        }).when(examSubmissionService).flushAutosave("submission1");
+
+        flusher.flushDirtySubmissions();
+
+        InOrder inOrder = inOrder(examSubmissionService, autosaveJournal);
+        inOrder.verify(examSubmissionService).flushAutosave("submission1");
+        inOrder.verify(autosaveJournal).acknowledge("submission1");
+        verify(autosaveJournal, never()).release(any());
+        assertNull(TenantContext.getClientId());
+    }
+
+    @Test
+    void failedFlushIsReleasedForTheNextCycle() {
+        when(autosaveJournal.claimDirty(anyInt())).thenReturn(List.of("submission1", "submission2"));
+        when(autosaveJournal.read(anyString())).thenReturn(new ExamAutosaveJournal.Pending(clientId, null, 300));
+        doThrow(new OptimisticLockingFailureException("concurrent update"))
+                .when(examSubmissionService).flushAutosave("submission1");
+        doThrow(new IllegalStateException("database down"))
+                .when(examSubmissionService).flushAutosave("submission2");
+
+        flusher.flushDirtySubmissions();
+
+        verify(autosaveJournal).release("submission1");
+        verify(autosaveJournal).release("submission2");
+        verify(autosaveJournal, never()).acknowledge(any());
+        assertNull(TenantContext.getClientId());
+    }
+
+    @Test
+    void claimWithNothingPendingIsAcknowledgedWithoutFlushing() {
+        when(autosaveJournal.claimDirty(anyInt())).thenReturn(List.of("submission1"));
+        when(autosaveJournal.read("submission1")).thenReturn(null);
+
+        flusher.flushDirtySubmissions();
+
+        verify(autosaveJournal).acknowledge("submission1");
+        verifyNoInteractions(examSubmissionService);
+    }
+
+    @Test
+    void failedReleaseLeavesTheClaimForTheTimeout() {
+        when(autosaveJournal.claimDirty(anyInt())).thenReturn(List.of("submission1"));
+        when(autosaveJournal.read("submission1")).thenReturn(new ExamAutosaveJournal.Pending(clientId, null, 300));
+        doThrow(new IllegalStateException("database down")).when(examSubmissionService).flushAutosave("submission1");
+        doThrow(new IllegalStateException("redis down")).when(autosaveJournal).release("submission1");
+
+        assertDoesNotThrow(() -> flusher.flushDirtySubmissions());
+        verify(autosaveJournal, never()).acknowledge(any());
+    }
+}
@@ -0,0 +1,108 @@
+package com.datagami.edudron.student.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExamAutosaveJournalTest {
+
+    private static final List<String> CLAIM_KEYS = List.of("exam:autosave:dirty", "exam:autosave:processing");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @InjectMocks
+    private ExamAutosaveJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(journal, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "ttlHours", 24L);
+        ReflectionTestUtils.setField(journal, "claimTimeoutSeconds", 60L);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void claimMovesDirtyEntriesToProcessingAndReclaimsStaleClaims() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(CLAIM_KEYS), any(), any(), any()))
+                .thenReturn(List.of("submission1", "submission2"));
+
+        List<String> claimed = journal.claimDirty(200);
+
+        assertEquals(List.of("submission1", "submission2"), claimed);
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        ArgumentCaptor<Object> now = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Object> staleBefore = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(script.capture(), eq(CLAIM_KEYS), eq("200"), now.capture(), staleBefore.capture());
+        assertTrue(script.getValue().getScriptAsString().contains("SPOP"));
+        assertTrue(script.getValue().getScriptAsString().contains("ZADD"));
+        // Claims older than the claim timeout go back to the dirty set first
+        assertEquals(60_000L, Long.parseLong((String) now.getValue()) - Long.parseLong((String) staleBefore.getValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimReturnsNothingWhenTheScriptReturnsNull() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any())).thenReturn(null);
+
+        assertTrue(journal.claimDirty(10).isEmpty());
+    }
+
+    @Test
+    void acknowledgeRemovesOnlyTheClaim() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        journal.acknowledge("submission1");
+
+        verify(zSetOperations).remove("exam:autosave:processing", "submission1");
+        verify(redisTemplate, never()).opsForSet();
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void releaseReturnsTheClaimToTheDirtySetAtomically() {
+        journal.release("submission1");
+
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(redisTemplate).execute(script.capture(), eq(CLAIM_KEYS), eq("submission1"));
+        assertTrue(script.getValue().getScriptAsString().contains("ZREM"));
+        assertTrue(script.getValue().getScriptAsString().contains("SADD"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void closeDropsPendingAndClaimedState() {
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(mock(HashOperations.class));
+
+        journal.close("submission1");
+
+        verify(redisTemplate).delete("exam:autosave:submission1");
+        verify(setOperations).remove("exam:autosave:dirty", "submission1");
+        verify(zSetOperations).remove("exam:autosave:processing", "submission1");
+    }
+}
@@ -22,6 +22,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +38,9 @@ class ExamConcurrencyTest {
     @Mock
     private AssessmentJourneyService assessmentJourneyService;
 
+    @Mock
+    private ExamAutosaveJournal autosaveJournal;
+
     @InjectMocks
     private ExamSubmissionService examSubmissionService;
 
@@ -105,6 +109,33 @@ class ExamConcurrencyTest {
         verify(submissionRepository, times(2)).save(any(AssessmentSubmission.class));
     }
 
+    @Test
+    @DisplayName("saveProgress should journal to Redis without writing the submission when the journal is active")
+    void testSaveProgress_JournaledWithoutWrite() {
+        // Given
+        JsonNode answers = objectMapper.createObjectNode().put("q1", "A");
+        AssessmentSubmission snapshot = new AssessmentSubmission();
+        snapshot.setId(submissionId);
+        snapshot.setClientId(clientId);
+        snapshot.setStudentId(studentId);
+        AssessmentSubmission acknowledged = new AssessmentSubmission();
+        acknowledged.setId(submissionId);
+        acknowledged.setAnswersJson(answers);
+
+        when(autosaveJournal.isActive()).thenReturn(true);
+        when(autosaveJournal.snapshot(eq(submissionId), any())).thenReturn(snapshot);
+        when(autosaveJournal.append(submissionId, clientId, answers, 100)).thenReturn(true);
+        when(autosaveJournal.acknowledged(snapshot, answers, 100)).thenReturn(acknowledged);
+
+        // When
+        AssessmentSubmission result = examSubmissionService.saveProgress(submissionId, answers, 100);
+
+        // Then
+        assertSame(acknowledged, result);
+        verify(submissionRepository, never()).save(any(AssessmentSubmission.class));
+        verifyNoInteractions(assessmentJourneyService);
+    }
+
     @Test
     @DisplayName("saveProgress should fail after max retries")
     void testSaveProgress_MaxRetriesExceeded() {
@@ -0,0 +1,169 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.student.domain.Project;
+import com.datagami.edudron.student.domain.ProjectEvent;
+import com.datagami.edudron.student.domain.ProjectEventSubmission;
+import com.datagami.edudron.student.domain.ProjectGroup;
+import com.datagami.edudron.student.repo.ProjectEventAttendanceRepository;
+import com.datagami.edudron.student.repo.ProjectEventGradeRepository;
+import com.datagami.edudron.student.repo.ProjectEventRepository;
+import com.datagami.edudron.student.repo.ProjectEventSubmissionRepository;
+import com.datagami.edudron.student.repo.ProjectGroupMemberRepository;
+import com.datagami.edudron.student.repo.ProjectGroupRepository;
+import com.datagami.edudron.student.repo.ProjectRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The dashboard is built from grouped aggregate queries, independent of the number of groups and events.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectDashboardTest {
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ProjectGroupRepository projectGroupRepository;
+
+    @Mock
+    private ProjectGroupMemberRepository projectGroupMemberRepository;
+
+    @Mock
+    private ProjectEventRepository projectEventRepository;
+
+    @Mock
+    private ProjectEventAttendanceRepository projectEventAttendanceRepository;
+
+    @Mock
+    private ProjectEventGradeRepository projectEventGradeRepository;
+
+    @Mock
+    private ProjectEventSubmissionRepository eventSubmissionRepository;
+
+    @InjectMocks
+    private ProjectService projectService;
+
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        clientId = UUID.randomUUID();
+        TenantContext.setClientId(clientId.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dashboardIsComputedFromGroupedAggregates() {
+        Project project = new Project();
+        project.setId("project-1");
+        project.setStatus(Project.ProjectStatus.ACTIVE);
+        project.setCurrentEventId("event-2");
+        when(projectRepository.findByIdAndClientId("project-1", clientId)).thenReturn(Optional.of(project));
+
+        List<ProjectGroup> groups = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ProjectGroup group = new ProjectGroup();
+            group.setId("group-" + i);
+            if (i < 5) group.setSubmittedAt(OffsetDateTime.now());
+            groups.add(group);
+        }
+        when(projectGroupRepository.findByProjectIdAndClientId("project-1", clientId)).thenReturn(groups);
+        when(projectGroupMemberRepository.countMembersByGroup(eq(clientId), anyCollection()))
+            .thenReturn(List.of(new Object[] { "group-0", 4L }, new Object[] { "group-1", 3L }));
+
+        ProjectEvent graded = event("event-1", true, false);
+        ProjectEvent submitted = event("event-2", false, true);
+        ProjectEvent empty = event("event-3", false, false);
+        when(projectEventRepository.findByProjectIdAndClientIdOrderBySequenceAsc("project-1", clientId))
+            .thenReturn(List.of(graded, submitted, empty));
+
+        when(projectEventAttendanceRepository.countByEvent(eq(clientId), anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[] { "event-1", 7L, 5L }));
+        when(projectEventGradeRepository.summarizeByEvent(eq(clientId), anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[] { "event-1", 6L, 7.25, 3, 10 }));
+        when(eventSubmissionRepository.countGroupsByEvent(eq(clientId), anyCollection(), anyCollection(),
+                eq(ProjectEventSubmission.SubmissionStatus.NEEDS_REVISION)))
+            .thenReturn(List.<Object[]>of(new Object[] { "event-2", 12L, 4L, 2L }));
+
+        Map<String, Object> dashboard = projectService.getProjectDashboard("project-1");
+
+        assertEquals(60, dashboard.get("totalGroups"));
+        assertEquals(7L, dashboard.get("totalStudents"));
+        assertEquals(5L, dashboard.get("groupsSubmitted"));
+
+        List<Map<String, Object>> events = (List<Map<String, Object>>) dashboard.get("events");
+        assertEquals(3, events.size());
+
+        Map<String, Object> gradedStats = events.get(0);
+        assertEquals(7L, gradedStats.get("attendanceTotal"));
+        assertEquals(5L, gradedStats.get("attendancePresent"));
+        assertEquals(6L, gradedStats.get("gradesCount"));
+        assertEquals(7.3, gradedStats.get("gradesAvg"));
+        assertEquals(3, gradedStats.get("gradesMin"));
+        assertEquals(10, gradedStats.get("gradesMax"));
+
+        Map<String, Object> submissionStats = events.get(1);
+        assertEquals(true, submissionStats.get("isCurrentPhase"));
+        assertEquals(0L, submissionStats.get("attendanceTotal"));
+        assertEquals(60, submissionStats.get("submissionsTotal"));
+        assertEquals(12L, submissionStats.get("submissionsSubmitted"));
+        assertEquals(4L, submissionStats.get("submissionsReviewed"));
+        assertEquals(2L, submissionStats.get("submissionsNeedsRevision"));
+
+        assertFalse(events.get(2).containsKey("gradesCount"));
+        assertFalse(events.get(2).containsKey("submissionsSubmitted"));
+
+        // One query per statistic, never one per group or per event
+        verify(projectGroupMemberRepository, times(1)).countMembersByGroup(eq(clientId), anyCollection());
+        verify(projectGroupMemberRepository, never()).findByGroupIdAndClientId(anyString(), any());
+        verify(projectEventAttendanceRepository, never()).findByEventIdAndClientId(anyString(), any());
+        verify(projectEventGradeRepository, never()).findByEventIdAndClientId(anyString(), any());
+        verify(eventSubmissionRepository, never()).findByEventIdAndClientId(anyString(), any());
+    }
+
+    @Test
+    void projectWithoutGroupsOrEventsRunsNoAggregates() {
+        Project project = new Project();
+        project.setId("project-1");
+        project.setStatus(Project.ProjectStatus.DRAFT);
+        when(projectRepository.findByIdAndClientId("project-1", clientId)).thenReturn(Optional.of(project));
+        when(projectGroupRepository.findByProjectIdAndClientId("project-1", clientId)).thenReturn(List.of());
+        when(projectEventRepository.findByProjectIdAndClientIdOrderBySequenceAsc("project-1", clientId))
+            .thenReturn(List.of());
+
+        Map<String, Object> dashboard = projectService.getProjectDashboard("project-1");
+
+        assertEquals(0L, dashboard.get("totalStudents"));
+        assertEquals(List.of(), dashboard.get("events"));
+        verifyNoInteractions(projectGroupMemberRepository, projectEventAttendanceRepository,
+            projectEventGradeRepository, eventSubmissionRepository);
+    }
+
+    private static ProjectEvent event(String id, boolean hasMarks, boolean hasSubmission) {
+        ProjectEvent event = new ProjectEvent();
+        event.setId(id);
+        event.setName(id);
+        event.setHasMarks(hasMarks);
+        event.setHasSubmission(hasSubmission);
+        return event;
+    }
+}
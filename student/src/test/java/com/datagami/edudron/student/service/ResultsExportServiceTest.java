@@ -3,6 +3,7 @@ package com.datagami.edudron.student.service;
 import com.datagami.edudron.common.TenantContext;
 import com.datagami.edudron.student.client.ContentAssessmentClient;
 import com.datagami.edudron.student.client.ContentExamClient;
+import com.datagami.edudron.student.client.IdentityUserClient;
 import com.datagami.edudron.student.domain.Enrollment;
 import com.datagami.edudron.student.domain.Section;
 import com.datagami.edudron.student.repo.AssessmentSubmissionRepository;
@@ -23,11 +24,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.quality.Strictness;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -65,6 +66,8 @@ class ResultsExportServiceTest {
     private ClassRepository classRepository;
     @Mock
     private StudentAuditService auditService;
+    @Mock
+    private IdentityUserClient identityUserClient;
 
     @AfterEach
     void clearTenantContext() {
@@ -91,9 +94,9 @@ class ResultsExportServiceTest {
                 projectEventGradeRepository,
                 sectionRepository,
                 classRepository,
-                auditService
+                auditService,
+                identityUserClient
         );
-        ReflectionTestUtils.setField(service, "gatewayUrl", "http://127.0.0.1:1");
 
         Section section = new Section();
         section.setId(sectionId);
@@ -119,18 +122,11 @@ class ResultsExportServiceTest {
                 json("{\"id\":\"exam-other-course\",\"title\":\"Other Course Exam\",\"courseId\":\"course-2\",\"sectionId\":\"section-d1\"}")
         ));
         when(contentAssessmentClient.getAssessmentsForCourse(emptyCourseId)).thenReturn(List.of());
-        when(contentExamClient.getExam("exam-d1")).thenReturn(json("""
-                {
-                  "id": "exam-d1",
-                  "courseId": "course-1",
-                  "sectionId": "section-d1",
-                  "questions": [
-                    { "points": 40 },
-                    { "points": 60 }
-                  ]
-                }
-                """));
-        AssessmentSubmissionRepository.ScoreSummaryProjection d1Score = scoreSummary(studentId, "exam-d1", 80);
+        when(contentExamClient.getExamMaxScores(any())).thenReturn(Map.of("exam-d1", 100));
+        when(identityUserClient.getUsersByIds(any())).thenReturn(Map.of(
+                studentId, json("{\"id\":\"student-1\",\"name\":\"Asha\",\"email\":\"asha@example.com\"}")));
+        // Submission max differs from the exam's total points, the exam's points win
+        AssessmentSubmissionRepository.ScoreSummaryProjection d1Score = scoreSummary(studentId, "exam-d1", 80, 90);
         AssessmentSubmissionRepository.ScoreSummaryProjection d2Score = scoreSummary(studentId, "exam-d2", 70);
         AssessmentSubmissionRepository.ScoreSummaryProjection otherCourseScore = scoreSummary(studentId, "exam-other-course", 60);
         when(submissionRepository.findScoreSummariesByClientIdAndCourseId(clientId, courseId)).thenReturn(List.of(
@@ -152,6 +148,8 @@ class ResultsExportServiceTest {
             assertEquals("Course Alpha %", summaryHeader.getCell(4).getStringCellValue());
 
             Row summaryData = workbook.getSheet("Summary").getRow(3);
+            assertEquals("Asha", summaryData.getCell(0).getStringCellValue());
+            assertEquals("asha@example.com", summaryData.getCell(1).getStringCellValue());
             assertEquals(80.0, summaryData.getCell(2).getNumericCellValue());
             assertEquals(100.0, summaryData.getCell(3).getNumericCellValue());
 
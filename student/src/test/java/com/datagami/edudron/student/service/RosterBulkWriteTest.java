@@ -0,0 +1,224 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.common.TenantContext;
+import com.datagami.edudron.student.client.IdentityLookup;
+import com.datagami.edudron.student.domain.Class;
+import com.datagami.edudron.student.domain.Enrollment;
+import com.datagami.edudron.student.domain.Institute;
+import com.datagami.edudron.student.domain.ProjectEvent;
+import com.datagami.edudron.student.domain.ProjectEventAttendance;
+import com.datagami.edudron.student.domain.ProjectGroup;
+import com.datagami.edudron.student.domain.ProjectGroupMember;
+import com.datagami.edudron.student.domain.Section;
+import com.datagami.edudron.student.dto.BulkEnrollmentResult;
+import com.datagami.edudron.student.dto.CreateEnrollmentRequest;
+import com.datagami.edudron.student.dto.ProjectBulkAttendanceRequest;
+import com.datagami.edudron.student.repo.BulkWriteRepository;
+import com.datagami.edudron.student.repo.ClassRepository;
+import com.datagami.edudron.student.repo.EnrollmentRepository;
+import com.datagami.edudron.student.repo.InstituteRepository;
+import com.datagami.edudron.student.repo.ProjectEventAttendanceRepository;
+import com.datagami.edudron.student.repo.ProjectEventRepository;
+import com.datagami.edudron.student.repo.ProjectGroupMemberRepository;
+import com.datagami.edudron.student.repo.ProjectGroupRepository;
+import com.datagami.edudron.student.repo.SectionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Roster-scale writes go through BulkWriteRepository as one batch instead of a save() per student.
+ */
+@ExtendWith(MockitoExtension.class)
+class RosterBulkWriteTest {
+
+    private static final String COURSE_ID = "course-1";
+    private static final String SECTION_ID = "section-1";
+    private static final String CLASS_ID = "class-1";
+    private static final String INSTITUTE_ID = "institute-1";
+
+    @Mock
+    private EnrollmentRepository enrollmentRepository;
+
+    @Mock
+    private SectionRepository sectionRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private InstituteRepository instituteRepository;
+
+    @Mock
+    private ProjectEventRepository projectEventRepository;
+
+    @Mock
+    private ProjectGroupRepository projectGroupRepository;
+
+    @Mock
+    private ProjectGroupMemberRepository projectGroupMemberRepository;
+
+    @Mock
+    private ProjectEventAttendanceRepository projectEventAttendanceRepository;
+
+    @Mock
+    private BulkWriteRepository bulkWriteRepository;
+
+    @Mock
+    private CommonEventService eventService;
+
+    @Mock
+    private StudentAuditService auditService;
+
+    @Mock
+    private IdentityLookup identityLookup;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @InjectMocks
+    private EnrollmentService enrollmentService;
+
+    @InjectMocks
+    private ProjectService projectService;
+
+    private UUID clientId;
+
+    @BeforeEach
+    void setUp() {
+        clientId = UUID.randomUUID();
+        TenantContext.setClientId(clientId.toString());
+        ReflectionTestUtils.setField(enrollmentService, "gatewayUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(enrollmentService, "restTemplate", restTemplate);
+        SecurityContextHolder.getContext().setAuthentication(
+            new TestingAuthenticationToken("admin-user", null, "ROLE_ADMIN"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkEnrollmentWritesOneBatchAndRespectsSectionCapacity() {
+        mockSectionHierarchy(3);
+        Set<String> roster = new LinkedHashSet<>(List.of("s1", "s2", "s3", "s4"));
+
+        // s1 is already enrolled; s2 sits in the section through a placeholder
+        when(enrollmentRepository.findStudentIdsEnrolledInCourse(clientId, COURSE_ID, roster))
+            .thenReturn(List.of("s1"));
+        Enrollment placeholder = new Enrollment("enr-placeholder", clientId, "s2", "__PLACEHOLDER_ASSOCIATION__");
+        placeholder.setClassId(CLASS_ID);
+        placeholder.setBatchId(SECTION_ID);
+        when(enrollmentRepository.findByClientIdAndCourseIdAndStudentIdIn(
+                eq(clientId), eq("__PLACEHOLDER_ASSOCIATION__"), anyCollection()))
+            .thenReturn(List.of(placeholder));
+        // After the placeholder is removed two seats are taken, one of them by s2
+        when(sectionRepository.countStudentsInSection(clientId, SECTION_ID)).thenReturn(2L);
+        when(enrollmentRepository.findStudentIdsInSection(eq(clientId), eq(SECTION_ID), anyCollection()))
+            .thenReturn(List.of("s2"));
+        // Assigned courses: nothing to auto-enroll
+        lenient().when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), (java.lang.Class<Object>) any()))
+            .thenReturn(new ResponseEntity<>(null, HttpStatus.OK));
+
+        CreateEnrollmentRequest request = new CreateEnrollmentRequest();
+        request.setCourseId(COURSE_ID);
+        request.setClassId(CLASS_ID);
+        request.setBatchId(SECTION_ID);
+        BulkEnrollmentResult result = enrollmentService.enrollStudentsInBulk(roster, request);
+
+        ArgumentCaptor<List<Enrollment>> batch = ArgumentCaptor.forClass(List.class);
+        verify(bulkWriteRepository, times(1)).insertEnrollments(batch.capture());
+        assertEquals(List.of("s2", "s3"),
+            batch.getValue().stream().map(Enrollment::getStudentId).collect(Collectors.toList()));
+        assertTrue(batch.getValue().stream().allMatch(e ->
+            SECTION_ID.equals(e.getBatchId()) && CLASS_ID.equals(e.getClassId()) && INSTITUTE_ID.equals(e.getInstituteId())));
+        verify(enrollmentRepository).deleteAllByIdInBatch(List.of("enr-placeholder"));
+
+        // No per-student reads or writes
+        verify(enrollmentRepository, never()).save(any(Enrollment.class));
+        verify(enrollmentRepository, never()).existsByClientIdAndStudentIdAndCourseId(any(), any(), any());
+
+        assertEquals(2L, result.getEnrolledStudents());
+        assertEquals(1L, result.getSkippedStudents());
+        assertEquals(1L, result.getFailedStudents());
+        assertEquals(List.of("Student s4: Section is full"), result.getErrorMessages());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void attendanceIsReplacedInOneBatch() {
+        ProjectEvent event = new ProjectEvent();
+        event.setId("event-1");
+        event.setProjectId("project-1");
+        when(projectEventRepository.findByIdAndClientId("event-1", clientId)).thenReturn(Optional.of(event));
+
+        ProjectGroup group = new ProjectGroup();
+        group.setId("group-1");
+        when(projectGroupRepository.findByProjectIdAndClientId("project-1", clientId)).thenReturn(List.of(group));
+        ProjectGroupMember member = new ProjectGroupMember();
+        member.setGroupId("group-1");
+        member.setStudentId("s1");
+        when(projectGroupMemberRepository.findByGroupIdInAndClientId(List.of("group-1"), clientId))
+            .thenReturn(List.of(member));
+
+        List<ProjectBulkAttendanceRequest.AttendanceEntry> entries = new ArrayList<>();
+        for (String studentId : List.of("s1", "s2", "s3")) {
+            ProjectBulkAttendanceRequest.AttendanceEntry entry = new ProjectBulkAttendanceRequest.AttendanceEntry();
+            entry.setStudentId(studentId);
+            entry.setPresent(!"s3".equals(studentId));
+            entries.add(entry);
+        }
+
+        projectService.saveAttendance("project-1", "event-1", entries);
+
+        ArgumentCaptor<List<ProjectEventAttendance>> batch = ArgumentCaptor.forClass(List.class);
+        verify(bulkWriteRepository, times(1)).replaceAttendance(eq(clientId), eq("event-1"), batch.capture());
+        assertEquals(3, batch.getValue().size());
+        assertEquals("group-1", batch.getValue().get(0).getGroupId());
+        assertEquals("UNKNOWN", batch.getValue().get(1).getGroupId());
+        assertFalse(batch.getValue().get(2).getPresent());
+        verifyNoInteractions(projectEventAttendanceRepository);
+    }
+
+    private void mockSectionHierarchy(int maxStudents) {
+        Section section = new Section();
+        section.setId(SECTION_ID);
+        section.setClassId(CLASS_ID);
+        section.setIsActive(true);
+        section.setMaxStudents(maxStudents);
+        when(sectionRepository.findByIdAndClientId(SECTION_ID, clientId)).thenReturn(Optional.of(section));
+
+        Class classEntity = new Class();
+        classEntity.setId(CLASS_ID);
+        classEntity.setInstituteId(INSTITUTE_ID);
+        classEntity.setIsActive(true);
+        when(classRepository.findByIdAndClientId(CLASS_ID, clientId)).thenReturn(Optional.of(classEntity));
+
+        Institute institute = new Institute();
+        institute.setId(INSTITUTE_ID);
+        institute.setIsActive(true);
+        when(instituteRepository.findByIdAndClientId(INSTITUTE_ID, clientId)).thenReturn(Optional.of(institute));
+    }
+}
@@ -0,0 +1,106 @@
+package com.datagami.edudron.student.service;
+
+import com.datagami.edudron.student.domain.LectureViewSession;
+import com.datagami.edudron.student.repo.LectureViewSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionHeartbeatBufferTest {
+
+    @Mock
+    private LectureViewSessionRepository sessionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SessionHeartbeatBuffer buffer;
+
+    private LectureViewSession session;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+
+        session = new LectureViewSession();
+        session.setId("session1");
+        session.setClientId(UUID.randomUUID());
+        session.setEnrollmentId("enrollment1");
+        session.setStudentId("student1");
+        session.setCourseId("course1");
+        session.setLectureId("lecture1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void heartbeatsAreCoalescedIntoOneBatchedUpdate() {
+        when(sessionRepository.findById("session1")).thenReturn(Optional.of(session));
+
+        buffer.record("session1", new BigDecimal("10.00"), null);
+        buffer.record("session1", new BigDecimal("20.00"), null);
+        LectureViewSession view = buffer.record("session1", null, true);
+
+        // Metadata is read once; the returned view reflects everything buffered so far
+        verify(sessionRepository, times(1)).findById("session1");
+        assertEquals(new BigDecimal("20.00"), view.getProgressAtEnd());
+        assertTrue(view.getIsCompletedInSession());
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        Object[] row = batch.getValue().get(0);
+        assertEquals(new BigDecimal("20.00"), row[0]);
+        assertEquals(true, row[1]);
+        assertEquals("session1", row[3]);
+
+        // Nothing left to write
+        buffer.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void takeHandsPendingStateToEndSessionInsteadOfFlushing() {
+        when(sessionRepository.findById("session1")).thenReturn(Optional.of(session));
+
+        buffer.record("session1", new BigDecimal("55.00"), false);
+        SessionHeartbeatBuffer.Pending pending = buffer.take("session1");
+
+        assertNotNull(pending);
+        assertEquals(new BigDecimal("55.00"), pending.progressAtEnd());
+        assertFalse(pending.isCompleted());
+
+        buffer.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void endedOrUnknownSessionsAreNotBuffered() {
+        session.setSessionEndedAt(OffsetDateTime.now());
+        when(sessionRepository.findById("session1")).thenReturn(Optional.of(session));
+        when(sessionRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertNull(buffer.record("session1", BigDecimal.ONE, null));
+        assertNull(buffer.record("missing", BigDecimal.ONE, null));
+        assertNull(buffer.take("session1"));
+    }
+}
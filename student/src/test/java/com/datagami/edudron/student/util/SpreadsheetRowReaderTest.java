@@ -0,0 +1,83 @@
+package com.datagami.edudron.student.util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpreadsheetRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void xlsxRowsAreStreamedInChunksWithLowercaseHeaders() throws Exception {
+        Path file = tempDir.resolve("students.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Email");
+            header.createCell(1).setCellValue("Name");
+            header.createCell(2).setCellValue("classId");
+            header.createCell(3).setCellValue("Phone");
+            for (int i = 1; i <= 5; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(" student" + i + "@example.com ");
+                row.createCell(1).setCellValue("Student " + i);
+                // Column 2 left empty
+                row.createCell(3).setCellValue(9876543210d + i);
+            }
+            // Blank row in the middle of the data, then one more student
+            sheet.createRow(7).createCell(1).setCellValue("   ");
+            Row last = sheet.createRow(8);
+            last.createCell(0).setCellValue("last@example.com");
+            last.createCell(2).setCellValue("CLASS1");
+            workbook.write(out);
+        }
+
+        List<List<SpreadsheetRowReader.Row>> chunks = new ArrayList<>();
+        long total = SpreadsheetRowReader.read(file, "students.xlsx", 2, chunks::add);
+
+        assertEquals(6, total);
+        assertEquals(List.of(2, 2, 2), chunks.stream().map(List::size).toList());
+        SpreadsheetRowReader.Row first = chunks.get(0).get(0);
+        assertEquals(2, first.rowNumber());
+        assertEquals("student1@example.com", first.get("email"));
+        assertEquals("Student 1", first.get("NAME"));
+        assertEquals("9876543211", first.get("phone"));
+        assertNull(first.get("classId"));
+
+        SpreadsheetRowReader.Row lastRow = chunks.get(2).get(1);
+        assertEquals(9, lastRow.rowNumber());
+        assertEquals("CLASS1", lastRow.get("classid"));
+    }
+
+    @Test
+    void csvRowsSkipBlankLines() throws Exception {
+        Path file = tempDir.resolve("students.csv");
+        Files.writeString(file, "email,name,CLASSID\na@example.com, A ,C1\n,,\nb@example.com,B,\n");
+
+        List<SpreadsheetRowReader.Row> rows = new ArrayList<>();
+        long total = SpreadsheetRowReader.read(file, "students.csv", 500, rows::addAll);
+
+        assertEquals(2, total);
+        assertEquals("A", rows.get(0).get("name"));
+        assertEquals("C1", rows.get(0).get("classId"));
+        assertNull(rows.get(1).get("classId"));
+    }
+
+    @Test
+    void legacyXlsIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SpreadsheetRowReader.read(tempDir.resolve("old.xls"), "old.xls", 500, rows -> { }));
+    }
+}